@@ -0,0 +1,65 @@
+package com.neogeo.tracking.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.repository.SurveyorRepository;
+import com.neogeo.tracking.service.BasicCredentials;
+import com.neogeo.tracking.service.SurveyorService;
+
+/**
+ * Basic-auth header decoding and credential verification as done on every
+ * ingest request, with the repository lookup served from memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BasicAuthBenchmark {
+
+    private String authHeader;
+    private SurveyorService surveyorService;
+
+    @Setup
+    public void setUp() {
+        List<Surveyor> surveyors = BenchmarkFixtures.surveyors(1000);
+        Map<String, Surveyor> byUsername = new HashMap<>();
+        for (Surveyor surveyor : surveyors) {
+            byUsername.put(surveyor.getUsername(), surveyor);
+        }
+        SurveyorRepository repository = BenchmarkFixtures.repository(SurveyorRepository.class,
+                Map.of("findByUsername", args -> byUsername.get((String) args[0])));
+        surveyorService = new SurveyorService(repository);
+        authHeader = BasicCredentials.PREFIX
+                + Base64.getEncoder().encodeToString("user500:password500".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public BasicCredentials decode() {
+        return BasicCredentials.parse(authHeader);
+    }
+
+    @Benchmark
+    public boolean decodeAndVerify() {
+        BasicCredentials credentials = BasicCredentials.parse(authHeader);
+        return surveyorService.authenticateSurveyor(credentials.getUsername(), credentials.getPassword());
+    }
+}
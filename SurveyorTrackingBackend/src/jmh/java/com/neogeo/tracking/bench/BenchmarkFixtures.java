@@ -0,0 +1,44 @@
+package com.neogeo.tracking.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.neogeo.tracking.model.Surveyor;
+
+/**
+ * Shared data and stand-ins for benchmarks that exercise services without a
+ * Spring context or database.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<Surveyor> surveyors(int count) {
+        List<Surveyor> surveyors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = String.format("SURV%05d", i);
+            surveyors.add(new Surveyor(id, "Surveyor " + i, "City" + (i % 20), "Project" + (i % 50),
+                    "user" + i, "password" + i));
+        }
+        return surveyors;
+    }
+
+    /**
+     * Implements a repository interface with the given methods by name; any
+     * other call fails, so a benchmark cannot silently measure the wrong path.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return handler.apply(args);
+        });
+    }
+}
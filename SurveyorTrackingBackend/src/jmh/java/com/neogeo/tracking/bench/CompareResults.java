@@ -0,0 +1,85 @@
+package com.neogeo.tracking.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH JSON result files and lists the benchmarks whose score got
+ * worse by more than the threshold. Exits with status 1 if any did.
+ *
+ * <pre>CompareResults [-t percent] baseline.json candidate.json</pre>
+ */
+public final class CompareResults {
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        double thresholdPercent = 10;
+        int first = 0;
+        if (args.length == 4 && "-t".equals(args[0])) {
+            thresholdPercent = Double.parseDouble(args[1]);
+            first = 2;
+        } else if (args.length != 2) {
+            System.err.println("Usage: CompareResults [-t percent] baseline.json candidate.json");
+            System.exit(2);
+        }
+
+        Map<String, JsonNode> baseline = read(new File(args[first]));
+        Map<String, JsonNode> candidate = read(new File(args[first + 1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s%n", entry.getKey());
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            // Throughput is better when higher; time modes when lower
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            double worse = higherIsBetter ? -change : change;
+
+            String verdict = worse > thresholdPercent ? "REGRESSION" : worse < -thresholdPercent ? "IMPROVED" : "ok";
+            if (worse > thresholdPercent) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%%)%n",
+                    verdict, entry.getKey(), oldScore, newScore, unit, change);
+        }
+
+        System.out.printf("%d regression(s) above %.1f%%%n", regressions, thresholdPercent);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+        JsonNode params = result.path("params");
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> param = fields.next();
+            key.append(key.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.neogeo.tracking.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JTS cost of building {@code geom} points and track lines (SRID 4326) and of
+ * simplifying a track for display.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryBenchmark {
+
+    @Param({"1000", "10000"})
+    public int points;
+
+    private final GeometryFactory factory = new GeometryFactory(new PrecisionModel(), 4326);
+    private Coordinate[] coordinates;
+    private LineString track;
+
+    @Setup
+    public void setUp() {
+        // A surveyor walking with some GPS jitter
+        Random random = new Random(42);
+        coordinates = new Coordinate[points];
+        double lat = 17.385044;
+        double lon = 78.486671;
+        for (int i = 0; i < points; i++) {
+            lat += 0.00001 + (random.nextDouble() - 0.5) * 0.00002;
+            lon += 0.00001 + (random.nextDouble() - 0.5) * 0.00002;
+            coordinates[i] = new Coordinate(lon, lat);
+        }
+        track = factory.createLineString(coordinates);
+    }
+
+    @Benchmark
+    public Point createPoint() {
+        return factory.createPoint(coordinates[points / 2]);
+    }
+
+    @Benchmark
+    public LineString createLineString() {
+        return factory.createLineString(coordinates);
+    }
+
+    @Benchmark
+    public Geometry simplifyDouglasPeucker() {
+        return DouglasPeuckerSimplifier.simplify(track, 0.00005);
+    }
+
+    @Benchmark
+    public Geometry simplifyTopologyPreserving() {
+        return TopologyPreservingSimplifier.simplify(track, 0.00005);
+    }
+}
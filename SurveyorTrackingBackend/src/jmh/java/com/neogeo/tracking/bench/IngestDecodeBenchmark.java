@@ -0,0 +1,76 @@
+package com.neogeo.tracking.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.neogeo.tracking.codec.LocationFixCodec;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * Ingest decode/encode: Jackson databind into LiveLocationMessage versus the
+ * streaming {@link LocationFixCodec}. Run with the GC profiler to compare
+ * bytes allocated per operation:
+ *
+ * <pre>./mvnw -Pjmh test-compile exec:exec -Djmh.args="IngestDecodeBenchmark -prof gc"</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IngestDecodeBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    private final LocationFixCodec codec = new LocationFixCodec();
+    private final LocationFix reusedFix = new LocationFix();
+
+    private byte[] body;
+    private LiveLocationMessage message;
+    private LocationFix fix;
+
+    @Setup
+    public void setUp() throws Exception {
+        body = "{\"surveyorId\":\"SURV001\",\"latitude\":17.385044,\"longitude\":78.486671,\"timestamp\":\"2025-05-14T10:00:00\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        message = objectMapper.readValue(body, LiveLocationMessage.class);
+        fix = codec.decode(body, 0, body.length, new LocationFix());
+    }
+
+    @Benchmark
+    public LiveLocationMessage decodeDatabind() throws Exception {
+        return objectMapper.readValue(body, LiveLocationMessage.class);
+    }
+
+    @Benchmark
+    public LocationFix decodeStreaming() throws Exception {
+        return codec.decode(body, 0, body.length, reusedFix);
+    }
+
+    @Benchmark
+    public String encodeDatabind() throws Exception {
+        return objectMapper.writeValueAsString(message);
+    }
+
+    @Benchmark
+    public String encodeStreaming() throws Exception {
+        return codec.encode(fix);
+    }
+}
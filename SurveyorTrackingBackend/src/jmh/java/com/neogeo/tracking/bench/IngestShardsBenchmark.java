@@ -0,0 +1,150 @@
+package com.neogeo.tracking.bench;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neogeo.tracking.codec.LocationFixCodec;
+import com.neogeo.tracking.ingest.DuplicateFilter;
+import com.neogeo.tracking.ingest.IngestShards;
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.ingest.ReorderBuffer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Ingest shard throughput as the shard count grows. Each shard runs the
+ * per-fix work of the real worker that does not touch I/O: dedupe window,
+ * reorder buffer and encoding the broadcast frame. Producers submit a batch
+ * and wait for all answers, like request threads would.
+ *
+ * Throughput should grow close to linearly with {@code shards} up to the
+ * number of free cores:
+ *
+ * <pre>./mvnw -Pjmh test-compile exec:exec -Djmh.args="IngestShardsBenchmark"</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class IngestShardsBenchmark {
+
+    private static final int BATCH = 64;
+    private static final int SURVEYORS_PER_PRODUCER = 256;
+    private static final CompletableFuture<Boolean> ACCEPTED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> DROPPED = CompletableFuture.completedFuture(false);
+
+    @State(Scope.Benchmark)
+    public static class Shards {
+        @Param({"1", "2", "4", "8"})
+        public int shards;
+
+        IngestShards ingestShards;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            DuplicateFilter duplicateFilter = new DuplicateFilter(true, 64, 10, registry);
+            ReorderBuffer reorderBuffer = new ReorderBuffer(true, 500, 10, registry);
+            LocationFixCodec codec = new LocationFixCodec();
+            ingestShards = new IngestShards(shards, 4096, registry);
+            ingestShards.start(shard -> new IngestShards.Worker() {
+                final DuplicateFilter.Shard dedupe = duplicateFilter.newShard();
+                final ReorderBuffer.Stripe order = reorderBuffer.newStripe(fix -> encode(codec, fix), fix -> { });
+
+                @Override
+                public CompletableFuture<Boolean> process(LocationFix fix, long nowNanos) {
+                    if (!dedupe.firstSeen(fix, nowNanos)) {
+                        return DROPPED;
+                    }
+                    order.add(fix, nowNanos);
+                    return ACCEPTED;
+                }
+
+                @Override
+                public long tick(long nowNanos) {
+                    dedupe.evictIdle(nowNanos);
+                    return order.release(nowNanos);
+                }
+
+                @Override
+                public void flush() {
+                    order.flush();
+                }
+            });
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            ingestShards.stop();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+        private static int nextProducer;
+
+        final String[] surveyorIds = new String[SURVEYORS_PER_PRODUCER];
+        @SuppressWarnings("unchecked")
+        final CompletableFuture<Boolean>[] pending = new CompletableFuture[BATCH];
+        long timestampMillis = 1_747_000_000_000L;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int producer;
+            synchronized (Producer.class) {
+                producer = nextProducer++;
+            }
+            for (int i = 0; i < surveyorIds.length; i++) {
+                surveyorIds[i] = String.format("P%02dS%04d", producer, i);
+            }
+        }
+
+        LocationFix nextFix() {
+            String surveyorId = surveyorIds[next++ % surveyorIds.length];
+            return new LocationFix(surveyorId, 17.385044, 78.486671, timestampMillis++);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int submitBatch(Shards shards, Producer producer) {
+        for (int i = 0; i < BATCH; i++) {
+            producer.pending[i] = shards.ingestShards.submit(producer.nextFix());
+        }
+        int accepted = 0;
+        for (CompletableFuture<Boolean> result : producer.pending) {
+            if (result.join()) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private static void encode(LocationFixCodec codec, LocationFix fix) {
+        try {
+            codec.encode(fix);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
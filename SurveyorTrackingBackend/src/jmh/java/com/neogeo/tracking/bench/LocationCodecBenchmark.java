@@ -0,0 +1,77 @@
+package com.neogeo.tracking.bench;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.neogeo.tracking.codec.LocationProtobufCodec;
+import com.neogeo.tracking.codec.MessagePackHttpMessageConverter;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+/**
+ * CPU per message for each wire format of {@link LiveLocationMessage}.
+ * Encoded sizes are printed once per trial so bytes on the wire can be
+ * compared next to the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocationCodecBenchmark {
+
+    @Param({"json", "cbor", "msgpack", "protobuf"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private LiveLocationMessage message;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        message = new LiveLocationMessage("SURV001", 17.385044, 78.486671, LocalDateTime.of(2025, 5, 14, 10, 0, 0));
+        mapper = switch (format) {
+            // Same configuration as the controller's JSON path
+            case "json" -> new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "msgpack" -> MessagePackHttpMessageConverter.createMapper();
+            default -> null;
+        };
+        encoded = encode();
+        System.out.println(System.lineSeparator() + format + ": " + encoded.length + " bytes per message");
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        if (mapper == null) {
+            return LocationProtobufCodec.encode(message);
+        }
+        return mapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public LiveLocationMessage decode() throws Exception {
+        if (mapper == null) {
+            return LocationProtobufCodec.decode(encoded);
+        }
+        return mapper.readValue(encoded, LiveLocationMessage.class);
+    }
+}
@@ -0,0 +1,82 @@
+package com.neogeo.tracking.bench;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.neogeo.tracking.LocationTrackService;
+import com.neogeo.tracking.metrics.TrackingMetrics;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.repository.SurveyorRepository;
+import com.neogeo.tracking.service.SurveyorService;
+import com.neogeo.tracking.store.ColumnarLocationStore;
+import com.neogeo.tracking.store.HotTrackTier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link LocationTrackService#getSurveyorStatuses()} over a large fleet, with
+ * surveyors served from memory and latest positions from the columnar store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SurveyorStatusBenchmark {
+
+    @Param({"10000"})
+    public int surveyors;
+
+    private LocationTrackService service;
+
+    @Setup
+    public void setUp() {
+        List<Surveyor> fleet = BenchmarkFixtures.surveyors(surveyors);
+        SurveyorRepository repository = BenchmarkFixtures.repository(SurveyorRepository.class,
+                Map.of("findAll", args -> fleet));
+        SurveyorService surveyorService = new SurveyorService(repository);
+
+        // Half the fleet reported recently, a quarter is only known from activity pings
+        ColumnarLocationStore store = new ColumnarLocationStore();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < fleet.size(); i++) {
+            String id = fleet.get(i).getId();
+            if (i % 2 == 0) {
+                store.append(new LocationTrack(id, 17.38, 78.48, now.minusMinutes(i % 10), null));
+            } else if (i % 4 == 1) {
+                surveyorService.updateSurveyorActivity(id);
+            }
+        }
+
+        HotTrackTier hotTrackTier = new HotTrackTier(false, 6, 64);
+        service = new LocationTrackService();
+        ReflectionTestUtils.setField(service, "locationStore", store);
+        ReflectionTestUtils.setField(service, "surveyorRepository", repository);
+        ReflectionTestUtils.setField(service, "surveyorService", surveyorService);
+        ReflectionTestUtils.setField(service, "hotTrackTier", hotTrackTier);
+        ReflectionTestUtils.setField(service, "metrics",
+                new TrackingMetrics(new SimpleMeterRegistry(), surveyorService, hotTrackTier));
+    }
+
+    @Benchmark
+    public Map<String, String> computeStatuses() {
+        return service.getSurveyorStatuses();
+    }
+}
@@ -0,0 +1,85 @@
+package com.neogeo.tracking.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.neogeo.tracking.service.TracingService;
+import com.neogeo.tracking.tracing.OperationSampler;
+
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * Per-request overhead of {@link TracingService#traceGpsOperation} around a
+ * trivial operation. {@code baseline} is the operation alone; {@code traced}
+ * runs it through the no-op tracer or the SDK at different sampling ratios,
+ * with spans going through a batch processor into an exporter that drops them.
+ * Compare allocation with {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TracingBenchmark {
+
+    @Param({"noop", "sdk"})
+    public String tracer;
+
+    @Param({"0", "0.01", "1"})
+    public double ratio;
+
+    private SdkTracerProvider sdkProvider;
+    private TracingService tracingService;
+
+    @Setup
+    public void setUp() {
+        OperationSampler sampler = new OperationSampler(ratio, Map.of());
+        Tracer selected;
+        if ("sdk".equals(tracer)) {
+            sdkProvider = SdkTracerProvider.builder()
+                    .addSpanProcessor(BatchSpanProcessor.builder(SpanExporter.composite()).build())
+                    .setSampler(Sampler.parentBased(sampler))
+                    .build();
+            selected = sdkProvider.get("benchmark");
+        } else {
+            selected = TracerProvider.noop().get("benchmark");
+        }
+        tracingService = new TracingService(selected, sampler);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (sdkProvider != null) {
+            sdkProvider.close();
+        }
+    }
+
+    @Benchmark
+    public String baseline() {
+        return "Location accepted";
+    }
+
+    @Benchmark
+    public String traced() {
+        return tracingService.traceGpsOperation("location-update", "SURV001", 1, () -> "Location accepted");
+    }
+}
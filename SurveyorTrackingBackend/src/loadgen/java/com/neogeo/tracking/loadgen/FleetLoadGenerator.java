@@ -0,0 +1,254 @@
+package com.neogeo.tracking.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neogeo.tracking.codec.LocationFixCodec;
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.Surveyor;
+
+/**
+ * Headless load generator: a simulated fleet posting fixes to
+ * {@code /api/live/location} with Basic auth while STOMP subscribers listen on
+ * {@code /ws/location}. Reports ingest and delivery latency percentiles,
+ * sustained fixes per second, errors and, with {@code --jdbc-url}, the number
+ * of rows written to {@code location_track}.
+ *
+ * <pre>./mvnw -Ploadgen test-compile exec:exec -Dloadgen.args="--surveyors=2000 --duration-s=120"</pre>
+ */
+public final class FleetLoadGenerator {
+
+    private static final double ORIGIN_LATITUDE = 17.385044;
+    private static final double ORIGIN_LONGITUDE = 78.486671;
+    private static final Duration REPORT_INTERVAL = Duration.ofSeconds(5);
+
+    private final LoadGeneratorOptions options;
+    private final HttpClient httpClient;
+    private final LocationFixCodec codec = new LocationFixCodec();
+    private final LiveSubscribers subscribers = new LiveSubscribers();
+    private final List<SimulatedSurveyor> fleet = new ArrayList<>();
+    private final Semaphore inFlight;
+
+    private final Recorder ingestLatency = new Recorder(3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    FleetLoadGenerator(LoadGeneratorOptions options) {
+        this.options = options;
+        this.inFlight = new Semaphore(options.maxInFlight);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(options.senderThreads))
+                .build();
+        for (int i = 0; i < options.surveyors; i++) {
+            fleet.add(new SimulatedSurveyor(i, ORIGIN_LATITUDE, ORIGIN_LONGITUDE, 42));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadGeneratorOptions options = LoadGeneratorOptions.parse(args);
+        new FleetLoadGenerator(options).run();
+        // The HTTP client and STOMP transport keep non-daemon threads around
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        if (options.provision) {
+            provisionSurveyors();
+        }
+        long rowsBefore = countRows();
+        subscribers.connect(options.baseUrl, fleet.subList(0, options.subscribedSurveyors),
+                options.subscriberConnections);
+
+        System.out.printf("Running %d surveyors every %d ms (%.0f fixes/s target) for %d s, %d subscribed%n",
+                options.surveyors, options.interval.toMillis(), options.targetRate(),
+                options.duration.toSeconds(), options.subscribedSurveyors);
+
+        LoadReport report = new LoadReport(options);
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(options.senderThreads);
+        List<ScheduledFuture<?>> walks = new ArrayList<>(fleet.size());
+        long intervalMillis = options.interval.toMillis();
+        for (int i = 0; i < fleet.size(); i++) {
+            SimulatedSurveyor surveyor = fleet.get(i);
+            boolean subscribed = i < options.subscribedSurveyors;
+            // Random phase so the fleet does not post in lockstep
+            long phase = ThreadLocalRandom.current().nextLong(intervalMillis);
+            walks.add(scheduler.scheduleAtFixedRate(() -> tick(surveyor, subscribed),
+                    phase, intervalMillis, TimeUnit.MILLISECONDS));
+        }
+        ScheduledFuture<?> progress = scheduler.scheduleAtFixedRate(() -> report.interval(this),
+                REPORT_INTERVAL.toMillis(), REPORT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        Thread.sleep(options.duration.toMillis());
+        walks.forEach(walk -> walk.cancel(false));
+        progress.cancel(false);
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Let in-flight posts complete and their broadcasts arrive
+        inFlight.tryAcquire(options.maxInFlight, options.drain.toMillis(), TimeUnit.MILLISECONDS);
+        Thread.sleep(options.drain.toMillis());
+        subscribers.close();
+
+        long rowsAfter = countRows();
+        report.interval(this);
+        report.finish(this, rowsBefore, rowsAfter);
+    }
+
+    private void tick(SimulatedSurveyor surveyor, boolean subscribed) {
+        LocationFix fix = surveyor.step(options.interval.toMillis() / 1000.0, System.currentTimeMillis());
+        if (!inFlight.tryAcquire()) {
+            // Client side saturated; counted so the report does not hide it
+            skipped.increment();
+            return;
+        }
+
+        String body;
+        try {
+            body = codec.encode(fix);
+        } catch (Exception e) {
+            inFlight.release();
+            failed.increment();
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.baseUrl + "/api/live/location"))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("Authorization", surveyor.authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long start = System.nanoTime();
+        if (subscribed) {
+            subscribers.expect(fix, start);
+        }
+        sent.increment();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            inFlight.release();
+            ingestLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            if (error != null) {
+                failed.increment();
+            } else if (response.statusCode() / 100 == 2) {
+                accepted.increment();
+                return;
+            } else {
+                rejected.increment();
+            }
+            if (subscribed) {
+                subscribers.cancel(fix);
+            }
+        });
+    }
+
+    /**
+     * Creates (or updates) the fleet's surveyor records through the API so
+     * Basic auth succeeds.
+     */
+    private void provisionSurveyors() {
+        ObjectMapper mapper = new ObjectMapper();
+        List<CompletableFuture<HttpResponse<Void>>> requests = new ArrayList<>();
+        int failures = 0;
+        for (SimulatedSurveyor surveyor : fleet) {
+            Surveyor record = new Surveyor(surveyor.id, "Load " + surveyor.id, "Loadtest", "Loadtest",
+                    surveyor.username, surveyor.password);
+            HttpRequest request;
+            try {
+                request = HttpRequest.newBuilder(URI.create(options.baseUrl + "/api/surveyors"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(record)))
+                        .build();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot encode surveyor " + surveyor.id, e);
+            }
+            requests.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            if (requests.size() == options.maxInFlight) {
+                failures += await(requests);
+            }
+        }
+        failures += await(requests);
+        System.out.printf("Provisioned %d surveyors (%d failed)%n", fleet.size() - failures, failures);
+    }
+
+    private static int await(List<CompletableFuture<HttpResponse<Void>>> requests) {
+        int failures = 0;
+        for (CompletableFuture<HttpResponse<Void>> request : requests) {
+            try {
+                if (request.join().statusCode() / 100 != 2) {
+                    failures++;
+                }
+            } catch (RuntimeException e) {
+                failures++;
+            }
+        }
+        requests.clear();
+        return failures;
+    }
+
+    private long countRows() {
+        if (options.jdbcUrl == null) {
+            return -1;
+        }
+        try (Connection connection = DriverManager.getConnection(options.jdbcUrl, options.jdbcUser, options.jdbcPassword);
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT count(*) FROM location_track")) {
+            rows.next();
+            return rows.getLong(1);
+        } catch (SQLException e) {
+            System.err.println("Cannot count location_track rows: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    Recorder ingestLatency() {
+        return ingestLatency;
+    }
+
+    LiveSubscribers subscribers() {
+        return subscribers;
+    }
+
+    long sent() {
+        return sent.sum();
+    }
+
+    long accepted() {
+        return accepted.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long skipped() {
+        return skipped.sum();
+    }
+}
@@ -0,0 +1,125 @@
+package com.neogeo.tracking.loadgen;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Recorder;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.neogeo.tracking.codec.LocationFixCodec;
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * STOMP subscribers on {@code /topic/location/{surveyorId}} that measure the
+ * time from a fix being posted to it arriving at a subscriber.
+ *
+ * The sender registers each fix of a subscribed surveyor before posting it;
+ * the subscriber matches arrivals by surveyor and timestamp. Entries still
+ * pending after the drain period were lost.
+ */
+final class LiveSubscribers {
+
+    private final LocationFixCodec codec = new LocationFixCodec();
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+    private final Recorder deliveryLatency = new Recorder(3);
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder unmatched = new LongAdder();
+    private final List<StompSession> sessions = new ArrayList<>();
+    private WebSocketStompClient stompClient;
+
+    void connect(String baseUrl, List<SimulatedSurveyor> subscribed, int connections) throws Exception {
+        stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new StringMessageConverter());
+
+        for (int c = 0; c < connections; c++) {
+            StompSession session = stompClient.connectAsync(baseUrl + "/ws/location", new StompSessionHandlerAdapter() {
+                @Override
+                public void handleTransportError(StompSession session, Throwable exception) {
+                    System.err.println("STOMP transport error: " + exception.getMessage());
+                }
+            }).get(10, TimeUnit.SECONDS);
+            sessions.add(session);
+        }
+        for (int i = 0; i < subscribed.size(); i++) {
+            sessions.get(i % connections).subscribe("/topic/location/" + subscribed.get(i).id, new FixHandler());
+        }
+    }
+
+    void expect(LocationFix fix, long sentNanos) {
+        pending.put(key(fix.surveyorId, fix.timestampMillis), sentNanos);
+    }
+
+    void cancel(LocationFix fix) {
+        pending.remove(key(fix.surveyorId, fix.timestampMillis));
+    }
+
+    Recorder deliveryLatency() {
+        return deliveryLatency;
+    }
+
+    long delivered() {
+        return delivered.sum();
+    }
+
+    long unmatched() {
+        return unmatched.sum();
+    }
+
+    long lost() {
+        return pending.size();
+    }
+
+    void close() {
+        sessions.forEach(StompSession::disconnect);
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+    }
+
+    private static String key(String surveyorId, long timestampMillis) {
+        return surveyorId + '@' + timestampMillis;
+    }
+
+    private final class FixHandler implements StompFrameHandler {
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return String.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long now = System.nanoTime();
+            byte[] body = ((String) payload).getBytes(StandardCharsets.UTF_8);
+            LocationFix fix = new LocationFix();
+            try {
+                codec.decode(body, 0, body.length, fix);
+            } catch (IOException | IllegalArgumentException e) {
+                unmatched.increment();
+                return;
+            }
+            Long sent = pending.remove(key(fix.surveyorId, fix.timestampMillis));
+            if (sent == null) {
+                unmatched.increment();
+                return;
+            }
+            delivered.increment();
+            deliveryLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - sent));
+        }
+    }
+}
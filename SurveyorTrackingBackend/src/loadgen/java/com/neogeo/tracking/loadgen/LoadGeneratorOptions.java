@@ -0,0 +1,63 @@
+package com.neogeo.tracking.loadgen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Command line options of {@link FleetLoadGenerator}, given as {@code --name=value}.
+ */
+final class LoadGeneratorOptions {
+
+    String baseUrl = "http://localhost:6565";
+    int surveyors = 1000;
+    Duration interval = Duration.ofSeconds(1);
+    Duration duration = Duration.ofSeconds(60);
+    Duration drain = Duration.ofSeconds(5);
+    int subscribedSurveyors = 200;
+    int subscriberConnections = 4;
+    int maxInFlight = 2000;
+    int senderThreads = 4;
+    boolean provision = true;
+    Path reportDir = Path.of("target", "loadgen");
+    String jdbcUrl;
+    String jdbcUser = "postgres";
+    String jdbcPassword = "postgres";
+
+    static LoadGeneratorOptions parse(String[] args) {
+        LoadGeneratorOptions options = new LoadGeneratorOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "base-url" -> options.baseUrl = value;
+                case "surveyors" -> options.surveyors = Integer.parseInt(value);
+                case "interval-ms" -> options.interval = Duration.ofMillis(Long.parseLong(value));
+                case "duration-s" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+                case "drain-s" -> options.drain = Duration.ofSeconds(Long.parseLong(value));
+                case "subscribed-surveyors" -> options.subscribedSurveyors = Integer.parseInt(value);
+                case "subscriber-connections" -> options.subscriberConnections = Integer.parseInt(value);
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "sender-threads" -> options.senderThreads = Integer.parseInt(value);
+                case "provision" -> options.provision = Boolean.parseBoolean(value);
+                case "report-dir" -> options.reportDir = Path.of(value);
+                case "jdbc-url" -> options.jdbcUrl = value;
+                case "jdbc-user" -> options.jdbcUser = value;
+                case "jdbc-password" -> options.jdbcPassword = value;
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        options.subscribedSurveyors = Math.min(options.subscribedSurveyors, options.surveyors);
+        return options;
+    }
+
+    /**
+     * Fixes per second the fleet is asked to send.
+     */
+    double targetRate() {
+        return surveyors * 1000.0 / interval.toMillis();
+    }
+}
@@ -0,0 +1,92 @@
+package com.neogeo.tracking.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Progress lines during the run and the final report: a summary on stdout and
+ * HdrHistogram percentile distributions ({@code .hgrm}, milliseconds) in the
+ * report directory.
+ */
+final class LoadReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final LoadGeneratorOptions options;
+    private final Histogram ingest = new Histogram(3);
+    private final Histogram delivery = new Histogram(3);
+    private final long startNanos = System.nanoTime();
+    private long lastNanos = startNanos;
+    private long lastAccepted;
+
+    LoadReport(LoadGeneratorOptions options) {
+        this.options = options;
+    }
+
+    synchronized void interval(FleetLoadGenerator generator) {
+        Histogram ingestInterval = generator.ingestLatency().getIntervalHistogram();
+        Histogram deliveryInterval = generator.subscribers().deliveryLatency().getIntervalHistogram();
+        ingest.add(ingestInterval);
+        delivery.add(deliveryInterval);
+
+        long now = System.nanoTime();
+        long accepted = generator.accepted();
+        double seconds = (now - lastNanos) / 1e9;
+        System.out.printf("[%5.0fs] %8.0f fixes/s  ingest p99 %7.1f ms  delivery p99 %7.1f ms  errors %d%n",
+                (now - startNanos) / 1e9, (accepted - lastAccepted) / seconds,
+                ingestInterval.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                deliveryInterval.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                generator.rejected() + generator.failed());
+        lastNanos = now;
+        lastAccepted = accepted;
+    }
+
+    synchronized void finish(FleetLoadGenerator generator, long rowsBefore, long rowsAfter) throws IOException {
+        double seconds = options.duration.toMillis() / 1000.0;
+        long sent = generator.sent();
+        long errors = generator.rejected() + generator.failed();
+        LiveSubscribers subscribers = generator.subscribers();
+
+        PrintStream out = System.out;
+        out.println();
+        out.printf("Target rate          %10.0f fixes/s%n", options.targetRate());
+        out.printf("Sustained rate       %10.0f fixes/s%n", generator.accepted() / seconds);
+        out.printf("Sent / accepted      %10d / %d%n", sent, generator.accepted());
+        out.printf("Rejected (non-2xx)   %10d%n", generator.rejected());
+        out.printf("Failed (I/O)         %10d%n", generator.failed());
+        out.printf("Skipped (client cap) %10d%n", generator.skipped());
+        out.printf("Error rate           %10.3f %%%n", sent == 0 ? 0 : errors * 100.0 / sent);
+        out.printf("Delivered / lost     %10d / %d (unmatched %d)%n",
+                subscribers.delivered(), subscribers.lost(), subscribers.unmatched());
+        if (rowsBefore >= 0 && rowsAfter >= 0) {
+            out.printf("location_track rows  %10d (+%d)%n", rowsAfter, rowsAfter - rowsBefore);
+        }
+        printPercentiles(out, "Ingest latency", ingest);
+        printPercentiles(out, "Delivery latency", delivery);
+
+        Files.createDirectories(options.reportDir);
+        write(options.reportDir.resolve("ingest-latency.hgrm"), ingest);
+        write(options.reportDir.resolve("delivery-latency.hgrm"), delivery);
+        out.println("Histograms written to " + options.reportDir.toAbsolutePath());
+    }
+
+    private static void printPercentiles(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-20s p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f ms (n=%d)%n", name,
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI,
+                histogram.getTotalCount());
+    }
+
+    private static void write(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.neogeo.tracking.loadgen;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.service.BasicCredentials;
+
+/**
+ * A surveyor walking a survey area: mostly straight legs with gradual turns,
+ * occasional stops, and GPS noise on the reported position.
+ */
+final class SimulatedSurveyor {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final double GPS_NOISE_METERS = 3.0;
+
+    final String id;
+    final String username;
+    final String password;
+    final String authorization;
+
+    private final Random random;
+    private final double speed;
+    private double latitude;
+    private double longitude;
+    private double heading;
+    private int stoppedTicks;
+
+    SimulatedSurveyor(int index, double originLatitude, double originLongitude, long seed) {
+        this.id = String.format("LOAD%05d", index);
+        this.username = String.format("load%05d", index);
+        this.password = "load-" + index;
+        this.authorization = BasicCredentials.PREFIX + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.random = new Random(seed + index);
+        // Spread starting points over roughly 10 x 10 km around the origin
+        this.latitude = originLatitude + (random.nextDouble() - 0.5) * 0.09;
+        this.longitude = originLongitude + (random.nextDouble() - 0.5) * 0.09;
+        this.heading = random.nextDouble() * 2 * Math.PI;
+        this.speed = 1.0 + random.nextDouble() * 0.8;
+    }
+
+    /**
+     * Advances the walk by {@code seconds} and returns the reported fix.
+     */
+    LocationFix step(double seconds, long timestampMillis) {
+        if (stoppedTicks > 0) {
+            stoppedTicks--;
+        } else if (random.nextDouble() < 0.005) {
+            // Stop to take a measurement
+            stoppedTicks = 10 + random.nextInt(50);
+        } else {
+            heading += Math.toRadians(random.nextGaussian() * 15);
+            double meters = speed * seconds;
+            latitude += meters * Math.cos(heading) / METERS_PER_DEGREE;
+            longitude += meters * Math.sin(heading) / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+        }
+        double noiseLat = random.nextGaussian() * GPS_NOISE_METERS / METERS_PER_DEGREE;
+        double noiseLon = random.nextGaussian() * GPS_NOISE_METERS
+                / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+        return new LocationFix(id, latitude + noiseLat, longitude + noiseLon, timestampMillis);
+    }
+}
@@ -1,54 +0,0 @@
-package com.neogeo.SurveyorTrackingBackend.config;
-
-import io.opentelemetry.api.OpenTelemetry;
-import io.opentelemetry.api.common.Attributes;
-import io.opentelemetry.api.common.AttributeKey;
-import io.opentelemetry.api.trace.Tracer;
-import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
-import io.opentelemetry.sdk.OpenTelemetrySdk;
-import io.opentelemetry.sdk.resources.Resource;
-import io.opentelemetry.sdk.trace.SdkTracerProvider;
-import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-@Configuration
-public class OpenTelemetryConfig {
-
-    @Value("${spring.application.name:surveyor-tracking-backend}")
-    private String serviceName;
-
-    @Value("${opentelemetry.otlp.endpoint:http://localhost:4317}")
-    private String otlpEndpoint;
-
-    @Bean
-    public OpenTelemetry openTelemetry() {
-        Resource resource = Resource.getDefault()
-                .merge(Resource.create(
-                        Attributes.of(
-                                AttributeKey.stringKey("service.name"), serviceName,
-                                AttributeKey.stringKey("service.version"), "1.0.0",
-                                AttributeKey.stringKey("deployment.environment"), "development"
-                        )
-                ));
-
-        OtlpGrpcSpanExporter spanExporter = OtlpGrpcSpanExporter.builder()
-                .setEndpoint(otlpEndpoint)
-                .build();
-
-        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
-                .addSpanProcessor(BatchSpanProcessor.builder(spanExporter).build())
-                .setResource(resource)
-                .build();
-
-        return OpenTelemetrySdk.builder()
-                .setTracerProvider(tracerProvider)
-                .build();
-    }
-
-    @Bean
-    public Tracer tracer(OpenTelemetry openTelemetry) {
-        return openTelemetry.getTracer("surveyor-tracking-backend", "1.0.0");
-    }
-}
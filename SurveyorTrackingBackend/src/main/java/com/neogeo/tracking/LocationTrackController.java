@@ -1,15 +1,21 @@
 package com.neogeo.tracking;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,11 +26,25 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neogeo.tracking.codec.LocationFixCodec;
+import com.neogeo.tracking.codec.TrackFormat;
+import com.neogeo.tracking.dto.CompactTrack;
 import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.ingest.IngestAdmissionFilter;
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.jfr.AuthEvent;
+import com.neogeo.tracking.jfr.IngestEvent;
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneExecutors;
+import com.neogeo.tracking.logging.LogSampler;
+import com.neogeo.tracking.metrics.TrackingMetrics;
+import com.neogeo.tracking.metrics.TrackingMetrics.Outcome;
+import com.neogeo.tracking.metrics.TrackingMetrics.Stage;
 import com.neogeo.tracking.model.LocationTrack;
 import com.neogeo.tracking.model.Surveyor;
-import com.neogeo.tracking.repository.LocationTrackRepository;
+import com.neogeo.tracking.model.TrackSegment;
+import com.neogeo.tracking.service.BasicCredentials;
+import com.neogeo.tracking.service.LocationIngestService;
 import com.neogeo.tracking.service.SurveyorService;
 import com.neogeo.tracking.service.TracingService;
 
@@ -35,32 +55,46 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api")
 @Tag(name = "Location Tracking", description = "APIs for tracking surveyor locations and managing location data")
 public class LocationTrackController {
 
+    private static final Logger log = LoggerFactory.getLogger(LocationTrackController.class);
+
+    // Retries are acknowledged like the original so the device stops resending
+    private static final ResponseEntity<String> DUPLICATE = ResponseEntity.ok("Duplicate location ignored");
+
+    // Seconds per point of a returned track; 0 for raw fixes
+    private static final String TRACK_RESOLUTION_HEADER = "X-Track-Resolution";
+
     @Autowired
     private LocationTrackService locationTrackService;
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private final LocationTrackRepository repository;
-    private final ObjectMapper objectMapper;
+    private final LocationFixCodec locationFixCodec;
+    private final LocationIngestService locationIngestService;
     private final SurveyorService surveyorService;
     private final TracingService tracingService;
+    private final TrackingMetrics metrics;
+    private final LogSampler.Category rejectedLog;
+    private final LaneExecutors laneExecutors;
 
-    public LocationTrackController(SimpMessagingTemplate messagingTemplate, 
-                                 LocationTrackRepository repository,
+    public LocationTrackController(LocationFixCodec locationFixCodec,
+                                 LocationIngestService locationIngestService,
                                  SurveyorService surveyorService,
-                                 TracingService tracingService) {
-        this.messagingTemplate = messagingTemplate;
-        this.repository = repository;
+                                 TracingService tracingService,
+                                 TrackingMetrics metrics,
+                                 LogSampler logSampler,
+                                 LaneExecutors laneExecutors) {
+        this.locationFixCodec = locationFixCodec;
+        this.locationIngestService = locationIngestService;
         this.surveyorService = surveyorService;
         this.tracingService = tracingService;
-        this.objectMapper = new ObjectMapper()
-            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule())
-            .configure(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.metrics = metrics;
+        this.rejectedLog = logSampler.category("ingest.rejected");
+        this.laneExecutors = laneExecutors;
     }
 
     @Operation(summary = "Filter surveyors", description = "Filter surveyors by city, project, and online status")
@@ -69,12 +103,12 @@ public class LocationTrackController {
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = Surveyor.class)))
     })
     @GetMapping("/surveyors/filter")
-    public List<Surveyor> filterSurveyors(
+    public CompletableFuture<List<Surveyor>> filterSurveyors(
             @Parameter(description = "City to filter by") @RequestParam(required = false) String city,
             @Parameter(description = "Project to filter by") @RequestParam(required = false) String project,
             @Parameter(description = "Online status to filter by") @RequestParam(required = false) String status
     ) {
-        return locationTrackService.filterSurveyors(city, project, status);
+        return laneExecutors.submit(Lane.LIVE, () -> locationTrackService.filterSurveyors(city, project, status));
     }
 
     @Operation(summary = "Get latest location", description = "Get the most recent location for a specific surveyor")
@@ -84,27 +118,74 @@ public class LocationTrackController {
         @ApiResponse(responseCode = "404", description = "Surveyor not found")
     })
     @GetMapping("/location/{surveyorId}/latest")
-    public LocationTrack getLatestLocation(
+    public CompletableFuture<LocationTrack> getLatestLocation(
             @Parameter(description = "ID of the surveyor", required = true) 
             @PathVariable String surveyorId) {
-        return locationTrackService.getLatestLocation(surveyorId);
+        return laneExecutors.submit(Lane.LIVE, () -> locationTrackService.getLatestLocation(surveyorId));
     }
 
-    @Operation(summary = "Get location history", description = "Get location history for a surveyor within a time range")
+    @Operation(summary = "Get location history", description = "Get location history for a surveyor within a time range. "
+            + "Pass format=compact or format=polyline (or the matching Accept media type) for a compact encoding.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved location history",
-            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LocationTrack.class)))
+            content = {
+                @Content(mediaType = "application/json", schema = @Schema(implementation = LocationTrack.class)),
+                @Content(mediaType = TrackFormat.COLUMNS_VALUE, schema = @Schema(implementation = CompactTrack.class)),
+                @Content(mediaType = TrackFormat.POLYLINE_VALUE, schema = @Schema(implementation = CompactTrack.class))
+            })
     })
     @GetMapping("/location/{surveyorId}/track")
-    public List<LocationTrack> getTrackHistory(
+    public CompletableFuture<ResponseEntity<?>> getTrackHistory(
             @Parameter(description = "ID of the surveyor", required = true) 
             @PathVariable String surveyorId,
             @Parameter(description = "Start time (ISO format)", example = "2025-05-30T00:00:00")
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @Parameter(description = "End time (ISO format)", example = "2025-05-30T23:59:59")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @Parameter(description = "Response encoding: json (default), compact or polyline")
+            @RequestParam(required = false) String format,
+            @Parameter(description = "Point budget; with start and end, long ranges are served from "
+                    + "1- or 10-minute rollups (see the X-Track-Resolution header)")
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestHeader(value = "Accept", required = false) String accept
+    ) {
+        TrackFormat trackFormat = TrackFormat.resolve(format, accept);
+        // History scans run in their own lane so they cannot starve ingest threads or connections
+        return laneExecutors.<ResponseEntity<?>>submit(Lane.HISTORY, () -> {
+            int resolution = maxPoints != null && start != null && end != null
+                    ? locationTrackService.pickResolution(surveyorId, start, end, maxPoints)
+                    : 0;
+            List<LocationTrack> track = resolution == 0
+                    ? locationTrackService.getTrackHistory(surveyorId, start, end)
+                    : locationTrackService.getRollupTrack(surveyorId, resolution, start, end);
+            if (trackFormat == TrackFormat.JSON) {
+                return ResponseEntity.ok()
+                        .header(TRACK_RESOLUTION_HEADER, Integer.toString(resolution))
+                        .body(track);
+            }
+            return ResponseEntity.ok()
+                    .header(TRACK_RESOLUTION_HEADER, Integer.toString(resolution))
+                    .contentType(trackFormat.getMediaType())
+                    .body(trackFormat.encode(surveyorId, track));
+        });
+    }
+
+    @Operation(summary = "Get stops and trips", description = "Get the stop and trip segments of a surveyor "
+            + "overlapping a time range, as detected at ingest. The last segment may still be in progress.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved segments",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = TrackSegment.class)))
+    })
+    @GetMapping("/location/{surveyorId}/segments")
+    public CompletableFuture<List<TrackSegment>> getSegments(
+            @Parameter(description = "ID of the surveyor", required = true)
+            @PathVariable String surveyorId,
+            @Parameter(description = "Start time (ISO format)", example = "2025-05-30T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "End time (ISO format)", example = "2025-05-30T23:59:59")
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end
     ) {
-        return locationTrackService.getTrackHistory(surveyorId, start, end);
+        return laneExecutors.submit(Lane.HISTORY, () -> locationTrackService.getSegments(surveyorId, start, end));
     }
 
     @Operation(summary = "Get surveyor statuses", description = "Get online/offline status for all surveyors")
@@ -112,8 +193,15 @@ public class LocationTrackController {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved surveyor statuses")
     })
     @GetMapping("/surveyors/status")
-    public Map<String, String> getSurveyorStatus() {
-        return locationTrackService.getSurveyorStatuses();
+    public CompletableFuture<Map<String, String>> getSurveyorStatus() {
+        return laneExecutors.submit(Lane.LIVE, locationTrackService::getSurveyorStatuses);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> laneFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many concurrent queries, retry later");
     }
 
     @Operation(summary = "Update live location", description = "Update and broadcast a surveyor's current location")
@@ -122,37 +210,109 @@ public class LocationTrackController {
         @ApiResponse(responseCode = "401", description = "Unauthorized"),
         @ApiResponse(responseCode = "400", description = "Invalid input")
     })
-    @PostMapping("live/location")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Location update message", required = true,
+        content = @Content(mediaType = "application/json", schema = @Schema(implementation = LiveLocationMessage.class)))
+    @PostMapping(value = "live/location", consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<String> publishLiveLocation(
+            HttpServletRequest request,
+            @Parameter(description = "Authorization header")
+            @RequestHeader(value = "Authorization", required = false) String authHeader) throws IOException {
+        long start = System.nanoTime();
+        // JSON is decoded with the streaming codec straight into a LocationFix
+        LocationFix fix;
+        try {
+            fix = locationFixCodec.decode(request.getInputStream(), new LocationFix());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            metrics.recordIngest(Outcome.INVALID, start);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid location message");
+        }
+        return acceptLocation(fix, authHeader, request, start);
+    }
+
+    @Operation(summary = "Update live location (binary)", description = "Same as the JSON variant for CBOR, MessagePack and Protobuf bodies")
+    @PostMapping(value = "live/location", consumes = {"application/cbor", "application/x-msgpack", "application/x-protobuf"})
+    public ResponseEntity<String> publishLiveLocationBinary(
+            HttpServletRequest request,
             @Parameter(description = "Location update message", required = true)
             @RequestBody LiveLocationMessage message,
             @Parameter(description = "Authorization header")
             @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        
+        long start = System.nanoTime();
+        if (message.surveyorId == null || message.timestamp == null) {
+            metrics.recordIngest(Outcome.INVALID, start);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid location message");
+        }
+        return acceptLocation(LocationFix.from(message), authHeader, request, start);
+    }
+
+    private ResponseEntity<String> acceptLocation(LocationFix fix, String authHeader, HttpServletRequest request,
+                                                  long start) {
+        IngestEvent event = new IngestEvent();
+        event.begin();
+        // Set when IngestAdmissionFilter has already checked these credentials
+        Object authenticatedUser = request.getAttribute(IngestAdmissionFilter.AUTHENTICATED_USER);
+        ResponseEntity<String> response = traceLocation(fix, authHeader, authenticatedUser);
+        HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+        Outcome outcome = response == DUPLICATE ? Outcome.DUPLICATE
+                : status.is2xxSuccessful() ? Outcome.ACCEPTED
+                : status == HttpStatus.UNAUTHORIZED ? Outcome.UNAUTHORIZED
+                : status == HttpStatus.BAD_REQUEST ? Outcome.INVALID
+                : status == HttpStatus.SERVICE_UNAVAILABLE ? Outcome.BUSY
+                : Outcome.ERROR;
+        metrics.recordIngest(outcome, start);
+        if (outcome != Outcome.ACCEPTED && outcome != Outcome.DUPLICATE && log.isWarnEnabled() && rejectedLog.sample()) {
+            log.atWarn().setMessage("Fix rejected")
+                    .addKeyValue("surveyorId", fix.surveyorId)
+                    .addKeyValue("outcome", outcome)
+                    .addKeyValue("reason", response.getBody())
+                    .log();
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.surveyorId = fix.surveyorId;
+            event.outcome = outcome.name();
+            event.commit();
+        }
+        return response;
+    }
+
+    private ResponseEntity<String> traceLocation(LocationFix fix, String authHeader, Object authenticatedUser) {
         // Start OpenTelemetry span for GPS location tracking
         return tracingService.traceGpsOperation("location-update", 
-            message.surveyorId, 
+            fix.surveyorId, 
             1,  // Single GPS data point
             () -> {
                 // Simple HTTP Basic Auth check
-                if (authHeader == null || !authHeader.startsWith("Basic ")) {
+                long authStart = System.nanoTime();
+                if (!BasicCredentials.isBasic(authHeader)) {
                     return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Missing or invalid Authorization header");
                 }
                 
+                BasicCredentials credentials;
                 try {
-                    String base64Credentials = authHeader.substring("Basic ".length());
-                    String credentials = new String(Base64.getDecoder().decode(base64Credentials));
-                    String[] values = credentials.split(":", 2);
-                    
-                    if (values.length != 2) {
-                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid Authorization header");
-                    }
-                    
-                    String username = values[0];
-                    String password = values[1];
+                    credentials = BasicCredentials.parse(authHeader);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid Base64 encoding in Authorization header");
+                }
+                if (credentials == null) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid Authorization header");
+                }
+
+                try {
+                    String username = credentials.getUsername();
+                    String password = credentials.getPassword();
                     
                     // Use SurveyorService for authentication
-                    boolean isAuthenticated = surveyorService.authenticateSurveyor(username, password);
+                    AuthEvent authEvent = new AuthEvent();
+                    authEvent.begin();
+                    boolean isAuthenticated = username.equals(authenticatedUser)
+                            || surveyorService.authenticateSurveyor(username, password);
+                    authEvent.end();
+                    if (authEvent.shouldCommit()) {
+                        authEvent.surveyorId = fix.surveyorId;
+                        authEvent.authenticated = isAuthenticated;
+                        authEvent.commit();
+                    }
                     if (!isAuthenticated) {
                         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
                     }
@@ -163,30 +323,25 @@ public class LocationTrackController {
                         // Update activity to mark surveyor as online
                         surveyorService.updateSurveyorActivity(surveyor.getId());
                     }
+                    metrics.recordStage(Stage.AUTH, authStart);
                     
-                    // 1. Broadcast via WebSocket as JSON string
-                    String json = objectMapper.writeValueAsString(message);
-                    System.out.println("Broadcasting live location: " + json);
-                    messagingTemplate.convertAndSend("/topic/location/" + message.surveyorId, json);
-                    
-                    // 2. Save to DB (geom set to null to avoid PostGIS error)
-                    LocationTrack entity = new LocationTrack(message.surveyorId, message.latitude, message.longitude, message.timestamp, null);
-                    repository.save(entity);
+                    if (!locationIngestService.ingest(fix)) {
+                        return DUPLICATE;
+                    }
                     
                     return ResponseEntity.ok("Location accepted");
                     
-                } catch (JsonProcessingException e) {
-                    System.err.println("Error processing location data: " + e.getMessage());
+                } catch (RejectedExecutionException e) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body("Ingest busy, retry later");
+                } catch (IOException e) {
+                    log.error("Error processing location data for surveyor {}", fix.surveyorId, e);
                     return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing location data");
                 } catch (IllegalArgumentException e) {
-                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid Base64 encoding in Authorization header");
+                    // Fix rejected by ingest validation, e.g. a surveyor ID too long for the journal
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid location data: " + e.getMessage());
                 }
             });
     }
 }
-
-
-
-
-
-
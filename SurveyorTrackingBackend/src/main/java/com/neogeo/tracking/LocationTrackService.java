@@ -1,31 +1,70 @@
 package com.neogeo.tracking;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.neogeo.tracking.archive.TrackArchive;
+import com.neogeo.tracking.jfr.CacheMissEvent;
+import com.neogeo.tracking.metrics.TrackingMetrics;
+import com.neogeo.tracking.metrics.TrackingMetrics.Source;
+import com.neogeo.tracking.model.DailySummary;
 import com.neogeo.tracking.model.LocationTrack;
 import com.neogeo.tracking.model.Surveyor;
-import com.neogeo.tracking.repository.LocationTrackRepository;
+import com.neogeo.tracking.model.TrackRollup;
+import com.neogeo.tracking.model.TrackSegment;
+import com.neogeo.tracking.repository.DailySummaryRepository;
 import com.neogeo.tracking.repository.SurveyorRepository;
+import com.neogeo.tracking.repository.TrackRollupRepository;
+import com.neogeo.tracking.repository.TrackSegmentRepository;
+import com.neogeo.tracking.store.HotTrackTier;
+import com.neogeo.tracking.store.LocationStore;
+import com.neogeo.tracking.store.RollupBuilder;
 
 @Service
 public class LocationTrackService {
 
+    private static final Logger log = LoggerFactory.getLogger(LocationTrackService.class);
+
     @Autowired
-    private LocationTrackRepository locationTrackRepository;
+    private LocationStore locationStore;
 
     @Autowired
     private SurveyorRepository surveyorRepository;
 
     @Autowired
     private com.neogeo.tracking.service.SurveyorService surveyorService;
+
+    @Autowired
+    private HotTrackTier hotTrackTier;
+
+    @Autowired
+    private TrackSegmentRepository trackSegmentRepository;
+
+    @Autowired
+    private DailySummaryRepository dailySummaryRepository;
+
+    @Autowired
+    private TrackRollupRepository trackRollupRepository;
+
+    // Only present when the cold archive is enabled
+    @Autowired(required = false)
+    private TrackArchive trackArchive;
+
+    @Autowired
+    private TrackingMetrics metrics;
     
     // Get surveyor online/offline status
+    @Transactional(readOnly = true)
     public Map<String, String> getSurveyorStatuses() {
         List<Surveyor> surveyors = surveyorRepository.findAll();
         Map<String, String> statusMap = new HashMap<>();
@@ -50,23 +89,26 @@ public class LocationTrackService {
     }
 
     // Get filtered surveyors
+    @Transactional(readOnly = true)
     public List<Surveyor> filterSurveyors(String city, String project, String status) {
         List<Surveyor> surveyors;
         if (city != null && project != null) {
             surveyors = surveyorRepository.findByCityAndProjectName(city, project);
-            System.out.println("Filtering by city=" + city + " AND project=" + project + " - Found: " + surveyors.size() + " surveyors");
+            log.debug("Filtering by city={} AND project={} - Found: {} surveyors", city, project, surveyors.size());
         } else if (city != null) {
             surveyors = surveyorRepository.findByCity(city);
-            System.out.println("Filtering by city=" + city + " - Found: " + surveyors.size() + " surveyors");
+            log.debug("Filtering by city={} - Found: {} surveyors", city, surveyors.size());
         } else if (project != null) {
             surveyors = surveyorRepository.findByProjectName(project);
-            System.out.println("Filtering by project=" + project + " - Found: " + surveyors.size() + " surveyors");
+            log.debug("Filtering by project={} - Found: {} surveyors", project, surveyors.size());
         } else {
             surveyors = surveyorRepository.findAll();
-            System.out.println("No filters applied. Found: " + surveyors.size() + " total surveyors");
+            log.debug("No filters applied. Found: {} total surveyors", surveyors.size());
             // Log each surveyor detail
-            for (Surveyor s : surveyors) {
-                System.out.println("Surveyor: ID=" + s.getId() + ", Name=" + s.getName() + ", City=" + s.getCity() + ", Project=" + s.getProjectName());
+            if (log.isTraceEnabled()) {
+                for (Surveyor s : surveyors) {
+                    log.trace("Surveyor: ID={}, Name={}, City={}, Project={}", s.getId(), s.getName(), s.getCity(), s.getProjectName());
+                }
             }
         }
         return surveyors;
@@ -74,18 +116,111 @@ public class LocationTrackService {
 
     // Get latest location
     public LocationTrack getLatestLocation(String surveyorId) {
-        return locationTrackRepository
-                .findTopBySurveyorIdOrderByTimestampDesc(surveyorId)
-                .orElse(null);
+        LocationTrack recent = hotTrackTier.latest(surveyorId);
+        metrics.recordHotTierLatest(recent != null);
+        if (recent != null) {
+            return recent;
+        }
+        CacheMissEvent event = new CacheMissEvent();
+        event.begin();
+        LocationTrack stored = locationStore.latest(surveyorId).orElse(null);
+        commitMiss(event, surveyorId, "latest");
+        return stored;
     }
 
     // Get location history
     public List<LocationTrack> getTrackHistory(String surveyorId, LocalDateTime start, LocalDateTime end) {
         if (start != null && end != null) {
-            return locationTrackRepository.findBySurveyorIdAndTimestampBetweenOrderByTimestampAsc(surveyorId, start, end);
+            // Recent ranges are served from memory when the hot tier holds all of them
+            List<LocationTrack> recent = hotTrackTier.range(surveyorId, start, end);
+            metrics.recordHotTierRange(recent != null);
+            if (recent != null) {
+                metrics.recordTrackQuery(Source.HOT_TIER, recent.size());
+                return recent;
+            }
+            CacheMissEvent event = new CacheMissEvent();
+            event.begin();
+            List<LocationTrack> stored = locationStore.range(surveyorId, start, end);
+            if (trackArchive != null) {
+                stored = TrackArchive.merge(trackArchive.range(surveyorId, start, end), stored);
+            }
+            commitMiss(event, surveyorId, "range");
+            metrics.recordTrackQuery(Source.STORE, stored.size());
+            return stored;
         } else {
-            // Only start or only end provided, fallback to full range (since repo does not support After/Before methods)
-            return locationTrackRepository.findBySurveyorIdOrderByTimestampAsc(surveyorId);
+            // Only start or only end provided, fallback to full range (since the store does not support After/Before queries)
+            List<LocationTrack> stored = locationStore.all(surveyorId);
+            if (trackArchive != null) {
+                stored = TrackArchive.merge(trackArchive.all(surveyorId), stored);
+            }
+            metrics.recordTrackQuery(Source.STORE, stored.size());
+            return stored;
+        }
+    }
+
+    // Pick the resolution for a range and point budget: raw fixes (0) when the 1-minute
+    // rollups count no more than maxPoints, else the finest rollup within the budget
+    @Transactional(readOnly = true)
+    public int pickResolution(String surveyorId, LocalDateTime start, LocalDateTime end, int maxPoints) {
+        int finest = RollupBuilder.RESOLUTIONS[0];
+        if (trackRollupRepository.sumPointCount(surveyorId, finest, start, end) <= maxPoints) {
+            return 0;
+        }
+        for (int seconds : RollupBuilder.RESOLUTIONS) {
+            if (trackRollupRepository.countBySurveyorIdAndResolutionSecondsAndBucketStartBetween(
+                    surveyorId, seconds, RollupBuilder.bucketStart(start, seconds), end) <= maxPoints) {
+                return seconds;
+            }
+        }
+        return RollupBuilder.RESOLUTIONS[RollupBuilder.RESOLUTIONS.length - 1];
+    }
+
+    // Get the representative points of one rollup resolution, as track points; the bucket
+    // holding start counts too, so a range starting mid-bucket keeps its first bucket
+    @Transactional(readOnly = true)
+    public List<LocationTrack> getRollupTrack(String surveyorId, int resolutionSeconds,
+                                              LocalDateTime start, LocalDateTime end) {
+        List<TrackRollup> buckets = trackRollupRepository
+                .findBySurveyorIdAndResolutionSecondsAndBucketStartBetweenOrderByBucketStartAsc(
+                        surveyorId, resolutionSeconds, RollupBuilder.bucketStart(start, resolutionSeconds), end);
+        List<LocationTrack> track = new ArrayList<>(buckets.size());
+        for (TrackRollup bucket : buckets) {
+            track.add(new LocationTrack(surveyorId, bucket.getLatitude(), bucket.getLongitude(),
+                    bucket.getPointTime(), null));
+        }
+        metrics.recordTrackQuery(Source.STORE, track.size());
+        return track;
+    }
+
+    // Get stops and trips overlapping the range, without touching raw fixes
+    @Transactional(readOnly = true)
+    public List<TrackSegment> getSegments(String surveyorId, LocalDateTime start, LocalDateTime end) {
+        if (start != null && end != null) {
+            return trackSegmentRepository
+                    .findBySurveyorIdAndEndTimeGreaterThanEqualAndStartTimeLessThanEqualOrderByStartTimeAsc(
+                            surveyorId, start, end);
+        }
+        return trackSegmentRepository.findBySurveyorIdOrderByStartTimeAsc(surveyorId);
+    }
+
+    // Get every surveyor's summary of one day
+    @Transactional(readOnly = true)
+    public List<DailySummary> getDailySummaries(LocalDate day) {
+        return dailySummaryRepository.findByDayOrderBySurveyorIdAsc(day);
+    }
+
+    // Get one surveyor's daily summaries, from and to inclusive
+    @Transactional(readOnly = true)
+    public List<DailySummary> getDailySummaries(String surveyorId, LocalDate from, LocalDate to) {
+        return dailySummaryRepository.findBySurveyorIdAndDayBetweenOrderByDayAsc(surveyorId, from, to);
+    }
+
+    private static void commitMiss(CacheMissEvent event, String surveyorId, String operation) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.surveyorId = surveyorId;
+            event.operation = operation;
+            event.commit();
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.neogeo.tracking.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.store.Coordinates;
+
+/**
+ * One surveyor's fixes of one day, oldest first, in blocks of up to
+ * {@link #BLOCK_POINTS} points. Each block stores its columns one after the
+ * other: timestamps (millis), latitudes and longitudes (microdegrees), each
+ * as zig-zag varints of the delta to the previous point (the first point
+ * against zero, so blocks decode on their own), then dwell millis as plain
+ * varints. The footer indexes the blocks:
+ * {@code [long firstMillis][long lastMillis][int offset][int count]} per
+ * block, then {@code [int blockCount][int footerOffset][int magic]}.
+ *
+ * Reads map the file and decode only the blocks overlapping the range.
+ */
+final class ArchiveFile {
+
+    static final String SUFFIX = ".trk";
+    static final int BLOCK_POINTS = 512;
+
+    private static final int MAGIC = 0x4E475431;
+    private static final int INDEX_ENTRY = 8 + 8 + 4 + 4;
+    private static final int TRAILER = 4 + 4 + 4;
+    // Four columns of at most ten varint bytes
+    private static final int MAX_POINT_BYTES = 40;
+
+    private ArchiveFile() {
+    }
+
+    /**
+     * Encodes fixes sorted by timestamp.
+     */
+    static ByteBuffer encode(List<LocationTrack> fixes) {
+        int blocks = (fixes.size() + BLOCK_POINTS - 1) / BLOCK_POINTS;
+        ByteBuffer out = ByteBuffer.allocate(fixes.size() * MAX_POINT_BYTES + blocks * INDEX_ENTRY + TRAILER);
+        long[] index = new long[blocks * 4];
+        for (int block = 0; block < blocks; block++) {
+            int from = block * BLOCK_POINTS;
+            int to = Math.min(from + BLOCK_POINTS, fixes.size());
+            index[block * 4] = LocationFix.toMillis(fixes.get(from).getTimestamp());
+            index[block * 4 + 1] = LocationFix.toMillis(fixes.get(to - 1).getTimestamp());
+            index[block * 4 + 2] = out.position();
+            index[block * 4 + 3] = to - from;
+            long prev = 0;
+            for (int i = from; i < to; i++) {
+                long millis = LocationFix.toMillis(fixes.get(i).getTimestamp());
+                writeSigned(out, millis - prev);
+                prev = millis;
+            }
+            prev = 0;
+            for (int i = from; i < to; i++) {
+                int micro = Coordinates.toMicroDegrees(fixes.get(i).getLatitude());
+                writeSigned(out, micro - prev);
+                prev = micro;
+            }
+            prev = 0;
+            for (int i = from; i < to; i++) {
+                int micro = Coordinates.toMicroDegrees(fixes.get(i).getLongitude());
+                writeSigned(out, micro - prev);
+                prev = micro;
+            }
+            for (int i = from; i < to; i++) {
+                writeUnsigned(out, fixes.get(i).getDwellMillis());
+            }
+        }
+        int footer = out.position();
+        for (int block = 0; block < blocks; block++) {
+            out.putLong(index[block * 4]);
+            out.putLong(index[block * 4 + 1]);
+            out.putInt((int) index[block * 4 + 2]);
+            out.putInt((int) index[block * 4 + 3]);
+        }
+        out.putInt(blocks);
+        out.putInt(footer);
+        out.putInt(MAGIC);
+        return out.flip();
+    }
+
+    static List<LocationTrack> read(Path path, String surveyorId, LocalDateTime start, LocalDateTime end)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return decode(buffer, surveyorId, LocationFix.toMillis(start), LocationFix.toMillis(end));
+    }
+
+    /**
+     * Decodes the fixes with startMillis <= timestamp <= endMillis.
+     */
+    static List<LocationTrack> decode(ByteBuffer buffer, String surveyorId, long startMillis, long endMillis)
+            throws IOException {
+        int limit = buffer.limit();
+        if (limit < TRAILER || buffer.getInt(limit - 4) != MAGIC) {
+            throw new IOException("Not an archive file");
+        }
+        int blocks = buffer.getInt(limit - TRAILER);
+        int footer = buffer.getInt(limit - TRAILER + 4);
+        List<LocationTrack> fixes = new ArrayList<>();
+        for (int block = 0; block < blocks; block++) {
+            int entry = footer + block * INDEX_ENTRY;
+            long first = buffer.getLong(entry);
+            long last = buffer.getLong(entry + 8);
+            if (last < startMillis || first > endMillis) {
+                continue;
+            }
+            ByteBuffer in = buffer.duplicate().position(buffer.getInt(entry + 16));
+            int count = buffer.getInt(entry + 20);
+            long[] millis = new long[count];
+            int[] latitudes = new int[count];
+            int[] longitudes = new int[count];
+            long prev = 0;
+            for (int i = 0; i < count; i++) {
+                prev += readSigned(in);
+                millis[i] = prev;
+            }
+            prev = 0;
+            for (int i = 0; i < count; i++) {
+                prev += readSigned(in);
+                latitudes[i] = (int) prev;
+            }
+            prev = 0;
+            for (int i = 0; i < count; i++) {
+                prev += readSigned(in);
+                longitudes[i] = (int) prev;
+            }
+            for (int i = 0; i < count; i++) {
+                long dwell = readUnsigned(in);
+                if (millis[i] < startMillis || millis[i] > endMillis) {
+                    continue;
+                }
+                LocationTrack fix = new LocationTrack(surveyorId, Coordinates.fromMicroDegrees(latitudes[i]),
+                        Coordinates.fromMicroDegrees(longitudes[i]), LocationFix.toDateTime(millis[i]), null);
+                fix.setDwellMillis(dwell);
+                fixes.add(fix);
+            }
+        }
+        return fixes;
+    }
+
+    private static void writeSigned(ByteBuffer out, long value) {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeUnsigned(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readSigned(ByteBuffer in) {
+        long value = readUnsigned(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readUnsigned(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.neogeo.tracking.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneContext;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+import com.neogeo.tracking.repository.SurveyorRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cold tier for old fixes. Once a day ({@code tracking.archive.cron}) every
+ * surveyor's days older than {@code tracking.archive.after-days} are moved
+ * out of {@code location_track} into one {@link ArchiveFile} per surveyor and
+ * day under {@code tracking.archive.dir}/{@code yyyy-MM-dd}/. A day's file is
+ * written to a temporary file, forced and moved into place before its rows
+ * are deleted by id, so a crash in between only leaves rows that the next run
+ * merges into the existing file. Late fixes for an archived day are merged the
+ * same way; they do not change the day's rollups ({@link #archivedBefore}).
+ *
+ * Reads map the files of the requested days; {@link #merge} combines them
+ * with the rows still in the database. Coordinates are kept in microdegrees.
+ * Bounding-box queries only see the database.
+ *
+ * Reads only know the days this node has archived or found at startup, so
+ * archiving needs {@code tracking.archive.single-node=true}; the application
+ * refuses to start without it. Each run also holds a PostgreSQL advisory lock,
+ * so a second node pointed at the same database by mistake skips the run
+ * instead of deleting rows into its own directory.
+ *
+ * Meters: {@code tracking.archive.days} and {@code tracking.archive.rows}.
+ */
+@Component
+@ConditionalOnExpression("${tracking.archive.enabled:false} and '${tracking.store.engine:jpa}' == 'jpa'")
+public class TrackArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackArchive.class);
+    // pg_try_advisory_lock key of the archive job ("TRKARCHV")
+    private static final long LOCK_KEY = 0x54524B4152434856L;
+
+    private final Path directory;
+    private final int afterDays;
+    private final LocationTrackRepository repository;
+    private final SurveyorRepository surveyorRepository;
+    private final TransactionTemplate transaction;
+    private final DataSource dataSource;
+    private final Counter archivedDays;
+    private final Counter archivedRows;
+    // Days with at least one archive file
+    private final NavigableSet<LocalDate> days = new ConcurrentSkipListSet<>();
+
+    public TrackArchive(@Value("${tracking.archive.dir:data/archive}") String directory,
+                        @Value("${tracking.archive.after-days:90}") int afterDays,
+                        @Value("${tracking.archive.single-node:false}") boolean singleNode,
+                        LocationTrackRepository repository,
+                        SurveyorRepository surveyorRepository,
+                        TransactionTemplate transaction,
+                        DataSource dataSource,
+                        MeterRegistry registry) throws IOException {
+        if (!singleNode) {
+            throw new IllegalStateException("tracking.archive.enabled needs tracking.archive.single-node=true: "
+                    + "archive files are local to the node that writes them");
+        }
+        this.directory = Path.of(directory);
+        this.afterDays = afterDays;
+        this.repository = repository;
+        this.surveyorRepository = surveyorRepository;
+        this.transaction = transaction;
+        this.dataSource = dataSource;
+        this.archivedDays = Counter.builder("tracking.archive.days")
+                .description("Surveyor days moved to the archive")
+                .register(registry);
+        this.archivedRows = Counter.builder("tracking.archive.rows")
+                .description("Fixes moved to the archive")
+                .register(registry);
+        Files.createDirectories(this.directory);
+        try (Stream<Path> entries = Files.list(this.directory)) {
+            entries.filter(Files::isDirectory).forEach(entry -> {
+                try {
+                    days.add(LocalDate.parse(entry.getFileName().toString()));
+                } catch (DateTimeParseException e) {
+                    log.warn("Ignoring {} in the archive directory", entry);
+                }
+            });
+        }
+    }
+
+    @Scheduled(cron = "${tracking.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        LaneContext.run(Lane.HISTORY, () -> {
+            // Outside a read-only transaction, so the lock is taken on the primary
+            try (Connection lock = dataSource.getConnection()) {
+                if (!advisoryLock(lock, "pg_try_advisory_lock")) {
+                    log.warn("Archive run skipped: another node holds the archive lock");
+                    return;
+                }
+                try {
+                    archiveAll(cutoff);
+                } finally {
+                    advisoryLock(lock, "pg_advisory_unlock");
+                }
+            } catch (SQLException e) {
+                log.warn("Archive lock unavailable, retried on the next run", e);
+            }
+        });
+    }
+
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select " + function + "(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void archiveAll(LocalDate cutoff) {
+        for (Surveyor surveyor : surveyorRepository.findAll()) {
+            String surveyorId = surveyor.getId();
+            try {
+                LocationTrack oldest;
+                while ((oldest = repository.findTopBySurveyorIdOrderByTimestampAsc(surveyorId).orElse(null)) != null
+                        && oldest.getTimestamp().toLocalDate().isBefore(cutoff)
+                        && archiveDay(surveyorId, oldest.getTimestamp().toLocalDate()) > 0) {
+                    // Next oldest day
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Archiving {} failed, retried on the next run", surveyorId, e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of rows moved out of the database
+     */
+    private int archiveDay(String surveyorId, LocalDate day) throws IOException {
+        List<LocationTrack> rows = repository
+                .findBySurveyorIdAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(
+                        surveyorId, day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Path file = file(day, surveyorId);
+        List<LocationTrack> fixes = rows;
+        if (Files.exists(file)) {
+            fixes = merge(ArchiveFile.read(file, surveyorId, day.atStartOfDay(), day.atTime(LocalTime.MAX)), rows);
+        }
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer encoded = ArchiveFile.encode(fixes);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        days.add(day);
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (LocationTrack row : rows) {
+            ids.add(row.getId());
+        }
+        transaction.executeWithoutResult(status -> repository.deleteAllByIdInBatch(ids));
+        archivedDays.increment();
+        archivedRows.increment(rows.size());
+        log.debug("Archived {} fixes of {} on {}", rows.size(), surveyorId, day);
+        return rows.size();
+    }
+
+    /**
+     * Returns the archived fixes with start <= timestamp <= end, oldest first.
+     */
+    public List<LocationTrack> range(String surveyorId, LocalDateTime start, LocalDateTime end) {
+        if (days.isEmpty() || end.isBefore(start)) {
+            return List.of();
+        }
+        List<LocationTrack> fixes = new ArrayList<>();
+        for (LocalDate day : days.subSet(start.toLocalDate(), true, end.toLocalDate(), true)) {
+            Path file = file(day, surveyorId);
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try {
+                fixes.addAll(ArchiveFile.read(file, surveyorId, start, end));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Reading archive " + file + " failed", e);
+            }
+        }
+        return fixes;
+    }
+
+    /**
+     * Returns the days from start to end, both inclusive, that have archive
+     * files (of any surveyor), oldest first.
+     */
+    public List<LocalDate> days(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            return List.of();
+        }
+        return List.copyOf(days.subSet(start, true, end, true));
+    }
+
+    /**
+     * Returns the start of the day after the newest archived day, or null
+     * when nothing is archived. Days are archived oldest first, so the
+     * database only holds late fixes of the days before it.
+     */
+    public LocalDateTime archivedBefore() {
+        return days.isEmpty() ? null : days.last().plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Returns every archived fix of the surveyor, oldest first.
+     */
+    public List<LocationTrack> all(String surveyorId) {
+        if (days.isEmpty()) {
+            return List.of();
+        }
+        return range(surveyorId, days.first().atStartOfDay(), days.last().atTime(LocalTime.MAX));
+    }
+
+    /**
+     * Merges archived and stored fixes, both oldest first. A stored fix wins
+     * over an archived one with the same timestamp.
+     */
+    public static List<LocationTrack> merge(List<LocationTrack> archived, List<LocationTrack> stored) {
+        if (archived.isEmpty()) {
+            return stored;
+        }
+        List<LocationTrack> merged = new ArrayList<>(archived.size() + stored.size());
+        int a = 0;
+        int s = 0;
+        while (a < archived.size() || s < stored.size()) {
+            if (s == stored.size()) {
+                merged.add(archived.get(a++));
+                continue;
+            }
+            if (a == archived.size()) {
+                merged.add(stored.get(s++));
+                continue;
+            }
+            int order = archived.get(a).getTimestamp().compareTo(stored.get(s).getTimestamp());
+            if (order < 0) {
+                merged.add(archived.get(a++));
+            } else {
+                if (order == 0) {
+                    a++;
+                }
+                merged.add(stored.get(s++));
+            }
+        }
+        return merged;
+    }
+
+    private Path file(LocalDate day, String surveyorId) {
+        String name = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(surveyorId.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(day.toString()).resolve(name + ArchiveFile.SUFFIX);
+    }
+}
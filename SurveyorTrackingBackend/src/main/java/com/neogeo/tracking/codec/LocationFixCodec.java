@@ -0,0 +1,353 @@
+package com.neogeo.tracking.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * Streaming JSON codec for the ingest path. Decodes a LiveLocationMessage body
+ * into a {@link LocationFix} and encodes fixes for the STOMP broadcast in the
+ * same JSON shape Jackson databind produced, without binding through
+ * {@code LiveLocationMessage} or {@code LocalDateTime}.
+ *
+ * Request bodies and output characters go through per-thread buffers;
+ * timestamps are parsed from the parser's character buffer to epoch millis.
+ *
+ * Decoding accepts what databind coerced: numeric strings for latitude,
+ * longitude and sequence, numbers as surveyorId, and timestamps in Jackson's
+ * array form {@code [year, month, day, hour, minute[, second[, nanos]]]}.
+ * Objects and arrays where a known field expects a scalar are skipped.
+ */
+@Component
+public class LocationFixCodec {
+
+    private static final int INITIAL_BUFFER = 1024;
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+            .enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER)
+            .build();
+    private final SurveyorIdInterner surveyorIds = new SurveyorIdInterner(1 << 14);
+
+    private final ThreadLocal<byte[]> inputBuffer = ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER]);
+    private final ThreadLocal<ReusableWriter> outputBuffer = ThreadLocal.withInitial(ReusableWriter::new);
+
+    /**
+     * Reads a JSON body from the stream into {@code into}.
+     *
+     * @throws IllegalArgumentException if the body is not a valid location message
+     */
+    public LocationFix decode(InputStream in, LocationFix into) throws IOException {
+        byte[] buffer = inputBuffer.get();
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                if (buffer.length >= MAX_BODY) {
+                    throw new IllegalArgumentException("Location message too large");
+                }
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                inputBuffer.set(buffer);
+            }
+        }
+        return decode(buffer, 0, length, into);
+    }
+
+    public LocationFix decode(byte[] body, int offset, int length, LocationFix into) throws IOException {
+        boolean hasLatitude = false;
+        boolean hasLongitude = false;
+        boolean hasTimestamp = false;
+        into.surveyorId = null;
+        into.sequence = LocationFix.NO_SEQUENCE;
+
+        try (JsonParser parser = jsonFactory.createParser(body, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Location message must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // Field names are canonicalized by Jackson, so these comparisons allocate nothing
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "surveyorId" -> {
+                        if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                            into.surveyorId = surveyorIds.intern(parser.getTextCharacters(),
+                                    parser.getTextOffset(), parser.getTextLength());
+                        }
+                    }
+                    case "latitude" -> {
+                        into.latitude = number(parser, value);
+                        hasLatitude = !Double.isNaN(into.latitude);
+                    }
+                    case "longitude" -> {
+                        into.longitude = number(parser, value);
+                        hasLongitude = !Double.isNaN(into.longitude);
+                    }
+                    case "timestamp" -> {
+                        if (value == JsonToken.VALUE_STRING) {
+                            into.timestampMillis = parseLocalDateTime(parser.getTextCharacters(),
+                                    parser.getTextOffset(), parser.getTextLength());
+                            hasTimestamp = true;
+                        } else if (value == JsonToken.VALUE_NUMBER_INT) {
+                            into.timestampMillis = parser.getLongValue();
+                            hasTimestamp = true;
+                        } else if (value == JsonToken.START_ARRAY) {
+                            into.timestampMillis = parseDateTimeArray(parser);
+                            hasTimestamp = true;
+                        }
+                    }
+                    case "sequence" -> {
+                        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_STRING) {
+                            long sequence = parser.getValueAsLong(LocationFix.NO_SEQUENCE);
+                            if (sequence >= 0) {
+                                into.sequence = sequence;
+                            }
+                        }
+                    }
+                    default -> {
+                    }
+                }
+                // Unknown fields, and objects or arrays a known field does not take
+                parser.skipChildren();
+            }
+        }
+
+        if (into.surveyorId == null || !hasLatitude || !hasLongitude || !hasTimestamp) {
+            throw new IllegalArgumentException("Location message requires surveyorId, latitude, longitude and timestamp");
+        }
+        return into;
+    }
+
+    /**
+     * Returns the value as a double, or NaN unless it is a number or a
+     * numeric string.
+     */
+    private static double number(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getValueAsDouble(Double.NaN);
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Parses the array form of a LocalDateTime, positioned on its
+     * START_ARRAY, to epoch millis; leaves the parser on its END_ARRAY.
+     */
+    static long parseDateTimeArray(JsonParser parser) throws IOException {
+        int[] parts = new int[7];
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.VALUE_NUMBER_INT && count < parts.length) {
+            parts[count++] = parser.getIntValue();
+        }
+        if (token != JsonToken.END_ARRAY || count < 5) {
+            throw new IllegalArgumentException("Invalid timestamp");
+        }
+        try {
+            return LocationFix.toMillis(LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4],
+                    parts[5], parts[6]));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid timestamp", e);
+        }
+    }
+
+    /**
+     * Encodes a fix as {@code {"surveyorId":..,"latitude":..,"longitude":..,"timestamp":"yyyy-MM-ddTHH:mm:ss[.SSS]"}}.
+     */
+    public String encode(LocationFix fix) throws IOException {
+        ReusableWriter out = outputBuffer.get();
+        out.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("surveyorId", fix.surveyorId);
+            generator.writeNumberField("latitude", fix.latitude);
+            generator.writeNumberField("longitude", fix.longitude);
+            generator.writeFieldName("timestamp");
+            int length = formatLocalDateTime(fix.timestampMillis, out.scratch);
+            generator.writeString(out.scratch, 0, length);
+            generator.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm[:ss[.fraction]]} to epoch millis; other
+     * ISO forms fall back to {@link LocalDateTime#parse}.
+     */
+    static long parseLocalDateTime(char[] c, int off, int len) {
+        if (len >= 16 && c[off + 4] == '-' && c[off + 7] == '-' && c[off + 10] == 'T' && c[off + 13] == ':') {
+            int year = digits(c, off, 4);
+            int month = digits(c, off + 5, 2);
+            int day = digits(c, off + 8, 2);
+            int hour = digits(c, off + 11, 2);
+            int minute = digits(c, off + 14, 2);
+            int second = 0;
+            int millis = 0;
+            int pos = off + 16;
+            int end = off + len;
+            boolean valid = year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60;
+            if (valid && pos < end) {
+                valid = c[pos] == ':' && pos + 3 <= end;
+                if (valid) {
+                    second = digits(c, pos + 1, 2);
+                    valid = second >= 0 && second < 60;
+                    pos += 3;
+                }
+                if (valid && pos < end) {
+                    valid = c[pos] == '.' && pos + 1 < end;
+                    pos++;
+                    int scale = 100;
+                    while (valid && pos < end) {
+                        int d = c[pos++] - '0';
+                        valid = d >= 0 && d <= 9;
+                        millis += d * scale;
+                        scale /= 10;
+                    }
+                }
+            }
+            if (valid && day <= daysInMonth(year, month)) {
+                long days = daysFromCivil(year, month, day);
+                return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+            }
+        }
+        try {
+            return LocationFix.toMillis(LocalDateTime.parse(new String(c, off, len)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp", e);
+        }
+    }
+
+    /**
+     * Writes epoch millis in the form Jackson's LocalDateTime serializer uses
+     * (ISO_LOCAL_DATE_TIME: seconds always, fraction only when non-zero).
+     */
+    static int formatLocalDateTime(long epochMillis, char[] out) {
+        long days = Math.floorDiv(epochMillis, 86_400_000L);
+        long millisOfDay = Math.floorMod(epochMillis, 86_400_000L);
+
+        // civil_from_days (H. Hinnant)
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        int pos = 0;
+        pos = putDigits(out, pos, year, 4);
+        out[pos++] = '-';
+        pos = putDigits(out, pos, month, 2);
+        out[pos++] = '-';
+        pos = putDigits(out, pos, day, 2);
+        out[pos++] = 'T';
+        pos = putDigits(out, pos, (int) (millisOfDay / 3_600_000), 2);
+        out[pos++] = ':';
+        pos = putDigits(out, pos, (int) (millisOfDay / 60_000 % 60), 2);
+        out[pos++] = ':';
+        pos = putDigits(out, pos, (int) (millisOfDay / 1000 % 60), 2);
+        int millis = (int) (millisOfDay % 1000);
+        if (millis != 0) {
+            out[pos++] = '.';
+            int digits = millis % 100 == 0 ? 1 : millis % 10 == 0 ? 2 : 3;
+            int value = digits == 1 ? millis / 100 : digits == 2 ? millis / 10 : millis;
+            pos = putDigits(out, pos, value, digits);
+        }
+        return pos;
+    }
+
+    private static int digits(char[] c, int off, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = c[off + i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int putDigits(char[] out, int pos, int value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            out[pos + i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + count;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // days_from_civil (H. Hinnant)
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Growable char sink reused per thread; only {@link #toString()} allocates.
+     */
+    private static final class ReusableWriter extends Writer {
+        final char[] scratch = new char[32];
+        private char[] chars = new char[256];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            if (size + len > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, size + len));
+            }
+            System.arraycopy(cbuf, off, chars, size, len);
+            size += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, size);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.neogeo.tracking.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * Protocol Buffers wire encoding of the messages in {@code src/main/proto/location.proto},
+ * written by hand so the backend needs neither protoc nor protobuf-java.
+ * Clients can use stubs generated from the schema.
+ */
+public final class LocationProtobufCodec {
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_FIXED64 = 1;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    private static final int WIRE_FIXED32 = 5;
+
+    // LocationMessage fields
+    private static final int SURVEYOR_ID = 1;
+    private static final int LATITUDE = 2;
+    private static final int LONGITUDE = 3;
+    private static final int TIMESTAMP_MILLIS = 4;
+    private static final int ID = 5;
+    private static final int SEQUENCE = 6;
+
+    // LocationMessageList fields
+    private static final int POINTS = 1;
+
+    private LocationProtobufCodec() {
+    }
+
+    public static byte[] encode(LiveLocationMessage message) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(48);
+        writeMessage(out, message.surveyorId, message.latitude, message.longitude, message.timestamp, null);
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(LocationTrack track) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(48);
+        writeMessage(out, track.getSurveyorId(), track.getLatitude(), track.getLongitude(), track.getTimestamp(), track.getId());
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeList(List<LocationTrack> tracks) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(tracks.size() * 48 + 8);
+        for (LocationTrack track : tracks) {
+            byte[] point = encode(track);
+            writeTag(out, POINTS, WIRE_LENGTH_DELIMITED);
+            writeVarint(out, point.length);
+            out.write(point, 0, point.length);
+        }
+        return out.toByteArray();
+    }
+
+    public static LiveLocationMessage decode(byte[] bytes) {
+        LiveLocationMessage message = new LiveLocationMessage();
+        int[] pos = {0};
+        while (pos[0] < bytes.length) {
+            long tag = readVarint(bytes, pos);
+            int field = (int) (tag >>> 3);
+            int wireType = (int) (tag & 7);
+            if (field == SURVEYOR_ID && wireType == WIRE_LENGTH_DELIMITED) {
+                int length = readLength(bytes, pos);
+                message.surveyorId = new String(bytes, pos[0], length, StandardCharsets.UTF_8);
+                pos[0] += length;
+            } else if (field == LATITUDE && wireType == WIRE_FIXED64) {
+                message.latitude = Double.longBitsToDouble(readFixed64(bytes, pos));
+            } else if (field == LONGITUDE && wireType == WIRE_FIXED64) {
+                message.longitude = Double.longBitsToDouble(readFixed64(bytes, pos));
+            } else if (field == TIMESTAMP_MILLIS && wireType == WIRE_VARINT) {
+                long millis = readVarint(bytes, pos);
+                message.timestamp = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                        (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+            } else if (field == SEQUENCE && wireType == WIRE_VARINT) {
+                message.sequence = readVarint(bytes, pos);
+            } else {
+                skip(bytes, pos, wireType);
+            }
+        }
+        return message;
+    }
+
+    private static void writeMessage(ByteArrayOutputStream out, String surveyorId, double latitude,
+                                     double longitude, LocalDateTime timestamp, Long id) {
+        if (surveyorId != null) {
+            byte[] utf8 = surveyorId.getBytes(StandardCharsets.UTF_8);
+            writeTag(out, SURVEYOR_ID, WIRE_LENGTH_DELIMITED);
+            writeVarint(out, utf8.length);
+            out.write(utf8, 0, utf8.length);
+        }
+        writeTag(out, LATITUDE, WIRE_FIXED64);
+        writeFixed64(out, Double.doubleToRawLongBits(latitude));
+        writeTag(out, LONGITUDE, WIRE_FIXED64);
+        writeFixed64(out, Double.doubleToRawLongBits(longitude));
+        if (timestamp != null) {
+            writeTag(out, TIMESTAMP_MILLIS, WIRE_VARINT);
+            writeVarint(out, timestamp.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (id != null) {
+            writeTag(out, ID, WIRE_VARINT);
+            writeVarint(out, id);
+        }
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, ((long) field << 3) | wireType);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeFixed64(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xFF);
+        }
+    }
+
+    private static long readVarint(byte[] bytes, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        while (shift < 64) {
+            if (pos[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated varint");
+            }
+            byte b = bytes[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Reads a length prefix and checks it against the bytes left, so a
+     * negative or oversized length cannot move the position backwards or
+     * past the end.
+     */
+    private static int readLength(byte[] bytes, int[] pos) {
+        long length = readVarint(bytes, pos);
+        if (length < 0 || length > bytes.length - pos[0]) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        return (int) length;
+    }
+
+    private static void require(byte[] bytes, int[] pos, int count) {
+        if (count > bytes.length - pos[0]) {
+            throw new IllegalArgumentException("Truncated field");
+        }
+    }
+
+    private static void advance(byte[] bytes, int[] pos, int count) {
+        require(bytes, pos, count);
+        pos[0] += count;
+    }
+
+    private static long readFixed64(byte[] bytes, int[] pos) {
+        require(bytes, pos, 8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value |= (bytes[pos[0]++] & 0xFFL) << (8 * i);
+        }
+        return value;
+    }
+
+    private static void skip(byte[] bytes, int[] pos, int wireType) {
+        switch (wireType) {
+            case WIRE_VARINT -> readVarint(bytes, pos);
+            case WIRE_FIXED64 -> advance(bytes, pos, 8);
+            case WIRE_LENGTH_DELIMITED -> {
+                int length = readLength(bytes, pos);
+                pos[0] += length;
+            }
+            case WIRE_FIXED32 -> advance(bytes, pos, 4);
+            default -> throw new IllegalArgumentException("Unsupported wire type " + wireType);
+        }
+    }
+}
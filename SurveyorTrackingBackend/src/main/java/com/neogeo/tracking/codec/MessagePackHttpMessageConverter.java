@@ -0,0 +1,29 @@
+package com.neogeo.tracking.codec;
+
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * application/x-msgpack through Jackson, so every DTO that binds as JSON also
+ * binds as MessagePack.
+ */
+public class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final MediaType MESSAGE_PACK = new MediaType("application", "x-msgpack");
+
+    public MessagePackHttpMessageConverter() {
+        this(createMapper());
+    }
+
+    public MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, MESSAGE_PACK);
+    }
+
+    public static ObjectMapper createMapper() {
+        return Jackson2ObjectMapperBuilder.json().factory(new MessagePackFactory()).build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.neogeo.tracking.codec;
+
+/**
+ * Google encoded-polyline algorithm: each value is delta-encoded against the
+ * previous one, zig-zagged and written as 5-bit groups in printable ASCII.
+ * Used for coordinates (scaled by 10^precision) and for timestamp deltas.
+ */
+public final class PolylineCodec {
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Encodes interleaved lat/lon pairs, as in the standard polyline format.
+     */
+    public static String encodeCoordinates(double[] latitudes, double[] longitudes, int count, int precision) {
+        double factor = Math.pow(10, precision);
+        StringBuilder out = new StringBuilder(count * 8);
+        long prevLat = 0;
+        long prevLon = 0;
+        for (int i = 0; i < count; i++) {
+            long lat = Math.round(latitudes[i] * factor);
+            long lon = Math.round(longitudes[i] * factor);
+            appendValue(out, lat - prevLat);
+            appendValue(out, lon - prevLon);
+            prevLat = lat;
+            prevLon = lon;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Encodes a single series of integers (e.g. epoch seconds) as deltas.
+     */
+    public static String encodeSeries(long[] values, int count) {
+        StringBuilder out = new StringBuilder(count * 2);
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            appendValue(out, values[i] - prev);
+            prev = values[i];
+        }
+        return out.toString();
+    }
+
+    /**
+     * Decodes a series written by {@link #encodeSeries}.
+     */
+    public static long[] decodeSeries(String encoded, int count) {
+        long[] values = new long[count];
+        int[] cursor = {0};
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            prev += readValue(encoded, cursor);
+            values[i] = prev;
+        }
+        return values;
+    }
+
+    /**
+     * Decodes coordinates written by {@link #encodeCoordinates} into
+     * {@code [latitudes, longitudes]}.
+     */
+    public static double[][] decodeCoordinates(String encoded, int count, int precision) {
+        double factor = Math.pow(10, precision);
+        double[][] result = new double[2][count];
+        int[] cursor = {0};
+        long lat = 0;
+        long lon = 0;
+        for (int i = 0; i < count; i++) {
+            lat += readValue(encoded, cursor);
+            lon += readValue(encoded, cursor);
+            result[0][i] = lat / factor;
+            result[1][i] = lon / factor;
+        }
+        return result;
+    }
+
+    private static void appendValue(StringBuilder out, long delta) {
+        long v = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+
+    private static long readValue(String encoded, int[] cursor) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = encoded.charAt(cursor[0]++) - 63;
+            result |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result & 1) != 0 ? ~(result >>> 1) : result >>> 1;
+    }
+}
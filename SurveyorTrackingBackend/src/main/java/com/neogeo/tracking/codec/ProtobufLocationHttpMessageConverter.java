@@ -0,0 +1,88 @@
+package com.neogeo.tracking.codec;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StreamUtils;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * application/x-protobuf for location payloads: reads {@link LiveLocationMessage},
+ * writes {@link LiveLocationMessage}, {@link LocationTrack} and lists of tracks.
+ */
+public class ProtobufLocationHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public ProtobufLocationHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return LiveLocationMessage.class == clazz || LocationTrack.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, Class<?> contextClass, MediaType mediaType) {
+        return type == LiveLocationMessage.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, @NonNull Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (type instanceof ParameterizedType parameterized && List.class.isAssignableFrom(clazz)) {
+            return parameterized.getActualTypeArguments()[0] == LocationTrack.class;
+        }
+        return supports(clazz);
+    }
+
+    @Override
+    @NonNull
+    public Object read(@NonNull Type type, Class<?> contextClass, @NonNull HttpInputMessage inputMessage)
+            throws IOException {
+        return readInternal(LiveLocationMessage.class, inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected Object readInternal(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage) throws IOException {
+        byte[] body = StreamUtils.copyToByteArray(inputMessage.getBody());
+        try {
+            return LocationProtobufCodec.decode(body);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new HttpMessageNotReadableException("Malformed protobuf location message", e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(@NonNull Object body, Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        byte[] bytes;
+        if (body instanceof LiveLocationMessage message) {
+            bytes = LocationProtobufCodec.encode(message);
+        } else if (body instanceof LocationTrack track) {
+            bytes = LocationProtobufCodec.encode(track);
+        } else if (body instanceof List<?> list && list.stream().allMatch(LocationTrack.class::isInstance)) {
+            bytes = LocationProtobufCodec.encodeList((List<LocationTrack>) list);
+        } else {
+            throw new HttpMessageNotWritableException("No protobuf schema for " + body.getClass().getName());
+        }
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
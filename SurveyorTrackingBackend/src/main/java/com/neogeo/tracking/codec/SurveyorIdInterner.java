@@ -0,0 +1,58 @@
+package com.neogeo.tracking.codec;
+
+/**
+ * Maps surveyor ID characters straight from a parser buffer to one canonical
+ * String, so decoding a fix from a known surveyor allocates no String.
+ *
+ * Open-addressed and lock-free: slots are written racily, which is safe
+ * because Strings are immutable. Once full, unseen IDs are simply allocated.
+ */
+final class SurveyorIdInterner {
+
+    private static final int MAX_PROBES = 8;
+
+    private final String[] table;
+    private final int mask;
+
+    SurveyorIdInterner(int capacityPowerOfTwo) {
+        this.table = new String[capacityPowerOfTwo];
+        this.mask = capacityPowerOfTwo - 1;
+    }
+
+    String intern(char[] chars, int offset, int length) {
+        int hash = hash(chars, offset, length);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int slot = (hash + probe) & mask;
+            String candidate = table[slot];
+            if (candidate == null) {
+                String created = new String(chars, offset, length);
+                table[slot] = created;
+                return created;
+            }
+            if (matches(candidate, chars, offset, length)) {
+                return candidate;
+            }
+        }
+        return new String(chars, offset, length);
+    }
+
+    private static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[offset + i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String candidate, char[] chars, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
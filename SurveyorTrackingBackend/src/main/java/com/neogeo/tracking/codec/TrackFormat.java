@@ -0,0 +1,95 @@
+package com.neogeo.tracking.codec;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+
+import com.neogeo.tracking.dto.CompactTrack;
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.store.Coordinates;
+
+/**
+ * Representations offered by the track endpoints. Chosen with the
+ * {@code format} query parameter or the {@code Accept} header; plain JSON
+ * objects stay the default.
+ */
+public enum TrackFormat {
+
+    JSON(MediaType.APPLICATION_JSON, "json"),
+    COLUMNS(MediaType.parseMediaType(TrackFormat.COLUMNS_VALUE), "compact"),
+    POLYLINE(MediaType.parseMediaType(TrackFormat.POLYLINE_VALUE), "polyline");
+
+    public static final String COLUMNS_VALUE = "application/vnd.neogeo.track+json";
+    public static final String POLYLINE_VALUE = "application/vnd.neogeo.track.polyline+json";
+
+    private static final int POLYLINE_PRECISION = 6;
+
+    private final MediaType mediaType;
+    private final String parameterValue;
+
+    TrackFormat(MediaType mediaType, String parameterValue) {
+        this.mediaType = mediaType;
+        this.parameterValue = parameterValue;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The query parameter wins over the Accept header; anything unrecognised
+     * falls back to plain JSON.
+     */
+    public static TrackFormat resolve(String format, String accept) {
+        if (format != null) {
+            for (TrackFormat candidate : values()) {
+                if (candidate.parameterValue.equalsIgnoreCase(format)) {
+                    return candidate;
+                }
+            }
+        }
+        if (accept != null) {
+            if (accept.contains(POLYLINE_VALUE)) {
+                return POLYLINE;
+            }
+            if (accept.contains(COLUMNS_VALUE)) {
+                return COLUMNS;
+            }
+        }
+        return JSON;
+    }
+
+    public CompactTrack encode(String surveyorId, List<LocationTrack> points) {
+        int count = points.size();
+        CompactTrack track = new CompactTrack(surveyorId, this == POLYLINE ? "polyline" : "columns", count,
+                count == 0 ? null : points.get(0).getTimestamp());
+
+        // Epoch seconds for polylines, where each digit costs bytes; milliseconds for columns
+        long[] times = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            LocationTrack point = points.get(i);
+            times[i] = this == POLYLINE ? Coordinates.toEpochSecond(point.getTimestamp())
+                    : LocationFix.toMillis(point.getTimestamp());
+            latitudes[i] = Coordinates.fromMicroDegrees(Coordinates.toMicroDegrees(point.getLatitude()));
+            longitudes[i] = Coordinates.fromMicroDegrees(Coordinates.toMicroDegrees(point.getLongitude()));
+        }
+
+        if (this == POLYLINE) {
+            track.precision = POLYLINE_PRECISION;
+            track.path = PolylineCodec.encodeCoordinates(latitudes, longitudes, count, POLYLINE_PRECISION);
+            track.times = PolylineCodec.encodeSeries(times, count);
+        } else {
+            long start = count == 0 ? 0 : times[0];
+            for (int i = 0; i < count; i++) {
+                times[i] -= start;
+            }
+            track.timeOffsetsMillis = times;
+            track.latitudes = latitudes;
+            track.longitudes = longitudes;
+        }
+        return track;
+    }
+}
@@ -1,5 +1,7 @@
 package com.neogeo.tracking.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
@@ -8,6 +10,8 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class CorsConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(CorsConfig.class);
     
     @Value("${frontend.port:9898}")
     private String frontendPort;
@@ -36,7 +40,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "X-Track-Resolution", "Content-Disposition")
                 .allowCredentials(false)
                 .maxAge(3600);
 
@@ -60,10 +64,10 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "X-Track-Resolution")
                 .allowCredentials(false)
                 .maxAge(3600);
                 
-        System.out.println("*************CORS configuration updated in CorsConfig with all required origins");
+        log.info("CORS configuration updated in CorsConfig with all required origins");
     }
 }
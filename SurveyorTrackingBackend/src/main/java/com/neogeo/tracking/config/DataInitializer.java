@@ -1,5 +1,7 @@
 package com.neogeo.tracking.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,13 +12,15 @@ import com.neogeo.tracking.repository.SurveyorRepository;
 @Configuration
 public class DataInitializer {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
     @Bean
     public CommandLineRunner initializeData(SurveyorRepository repository) {
         return args -> {
             // Check if we have any surveyors
             long count = repository.count();
             if (count == 0) {
-                System.out.println("Initializing sample surveyors...");
+                log.info("Initializing sample surveyors...");
                 
                 // Create test surveyors with username/password
                 Surveyor surveyor1 = new Surveyor("SURV001", "John Smith", "New York", "CityMapping", "john_smith", "password123");
@@ -30,9 +34,9 @@ public class DataInitializer {
                 repository.save(surveyor3);
                 repository.save(admin);
                 
-                System.out.println("Sample surveyors created with login credentials");
+                log.info("Sample surveyors created with login credentials");
             } else {
-                System.out.println("Database already contains " + count + " surveyors. Skipping initialization.");
+                log.info("Database already contains {} surveyors. Skipping initialization.", count);
             }
         };
     }
@@ -0,0 +1,91 @@
+package com.neogeo.tracking.config;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneRoutingDataSource;
+import com.neogeo.tracking.replica.ReplicaRoutingDataSource;
+import com.neogeo.tracking.replica.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One Hikari pool per {@link Lane}, behind a routing DataSource that picks the
+ * pool of the calling thread's lane. All pools share the
+ * {@code spring.datasource.*} settings; size and connection timeout come from
+ * {@code tracking.lanes.<lane>.pool-size} and {@code .connection-timeout-ms}.
+ * Pool meters are published as {@code hikaricp.*{pool=<lane>}}.
+ *
+ * With {@code tracking.replicas.urls} set, each replica gets a pool per read
+ * lane ({@code hikaricp.*{pool=replica<n>-<lane>}}) and read-only transactions
+ * are routed as described in {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties properties, Environment environment, MeterRegistry registry) {
+        List<String> urls = Binder.get(environment)
+                .bind("tracking.replicas.urls", Bindable.listOf(String.class))
+                .orElse(List.of());
+        String username = environment.getProperty("tracking.replicas.username", properties.determineUsername());
+        String password = environment.getProperty("tracking.replicas.password", properties.determinePassword());
+        return ReplicaSet.of(urls, (url, lane) -> {
+            HikariDataSource pool = pool(lane, properties, environment, registry);
+            pool.setJdbcUrl(url);
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setReadOnly(true);
+            return pool;
+        });
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment, MeterRegistry registry,
+                                 ReplicaSet replicas) {
+        Map<Object, Object> pools = new HashMap<>();
+        for (Lane lane : Lane.values()) {
+            pools.put(lane, pool(lane, properties, environment, registry));
+        }
+        LaneRoutingDataSource primary = new LaneRoutingDataSource();
+        primary.setTargetDataSources(pools);
+        primary.setDefaultTargetDataSource(pools.get(Lane.INGEST));
+        primary.afterPropertiesSet();
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+
+        Map<Lane, Long> maxLag = new EnumMap<>(Lane.class);
+        for (Lane lane : ReplicaSet.READ_LANES) {
+            maxLag.put(lane, environment.getProperty("tracking.replicas.max-lag-ms." + lane.key(), Long.class, 1000L));
+        }
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, maxLag, registry));
+    }
+
+    private static HikariDataSource pool(Lane lane, DataSourceProperties properties, Environment environment,
+                                         MeterRegistry registry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+
+        String prefix = "tracking.lanes." + lane.key() + ".";
+        pool.setPoolName(lane.key());
+        pool.setMaximumPoolSize(environment.getProperty(prefix + "pool-size", Integer.class, 5));
+        pool.setConnectionTimeout(environment.getProperty(prefix + "connection-timeout-ms", Long.class, 20_000L));
+        pool.setMetricRegistry(registry);
+        return pool;
+    }
+}
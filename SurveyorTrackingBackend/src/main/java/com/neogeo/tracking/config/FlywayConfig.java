@@ -0,0 +1,38 @@
+package com.neogeo.tracking.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+/**
+ * Runs the Flyway migrations in {@code db/migration} after Hibernate's
+ * {@code ddl-auto=update} instead of before it. The entity tables are created
+ * by Hibernate, so on an empty database the migrations that alter or index
+ * them (V1 to V3) would fail if they ran first. A database that has tables but
+ * no Flyway history is baselined at V1
+ * ({@code spring.flyway.baseline-on-migrate}), and V2 onwards are applied.
+ *
+ * The migrations run while the context starts, before the web server accepts
+ * requests and before scheduled jobs run.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.flyway.enabled", matchIfMissing = true)
+public class FlywayConfig {
+
+    // Boot's own initializer runs before the EntityManagerFactory; leave it nothing to do
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> {
+        };
+    }
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean flywayMigrateAfterHibernate(Flyway flyway) {
+        return flyway::migrate;
+    }
+}
@@ -0,0 +1,32 @@
+package com.neogeo.tracking.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.neogeo.tracking.codec.MessagePackHttpMessageConverter;
+import com.neogeo.tracking.codec.ProtobufLocationHttpMessageConverter;
+
+/**
+ * Binary representations next to JSON. Selected through Content-Type on
+ * ingest and Accept (or ?format=cbor|msgpack|protobuf) on reads:
+ * application/cbor, application/x-msgpack and application/x-protobuf.
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        // Appended after the JSON converter so JSON stays the default for */*
+        if (converters.stream().noneMatch(MappingJackson2CborHttpMessageConverter.class::isInstance)) {
+            converters.add(new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build()));
+        }
+        converters.add(new MessagePackHttpMessageConverter());
+        converters.add(new ProtobufLocationHttpMessageConverter());
+    }
+}
@@ -1,5 +1,7 @@
 package com.neogeo.tracking.config;
 
+import java.util.Map;
+
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributeKey;
@@ -9,9 +11,17 @@ import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.neogeo.tracking.tracing.OperationSampler;
 
 @Configuration
 public class OpenTelemetryConfig {
@@ -22,8 +32,37 @@ public class OpenTelemetryConfig {
     @Value("${opentelemetry.otlp.endpoint:http://localhost:4317}")
     private String otlpEndpoint;
 
+    @Value("${tracing.exporter:otlp}")
+    private String exporter;
+
     @Bean
-    public OpenTelemetry openTelemetry() {
+    public OperationSampler operationSampler(Environment environment,
+                                             @Value("${tracing.sampler.ratio:0.01}") double ratio) {
+        // tracing.sampler.operations.[gps.location-update]=0.001 overrides the ratio per span name
+        Map<String, Double> operations = Binder.get(environment)
+                .bind("tracing.sampler.operations", Bindable.mapOf(String.class, Double.class))
+                .orElse(Map.of());
+        return new OperationSampler(ratio, operations);
+    }
+
+    /**
+     * OTLP by default; {@code tracing.exporter=none} drops finished spans.
+     * Tests can supply their own exporter bean (e.g. an in-memory one).
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SpanExporter spanExporter() {
+        if ("none".equals(exporter)) {
+            return SpanExporter.composite();
+        }
+        return OtlpGrpcSpanExporter.builder()
+                .setEndpoint(otlpEndpoint)
+                .build();
+    }
+
+    @Bean
+    public OpenTelemetry openTelemetry(SpanExporter spanExporter, OperationSampler operationSampler,
+                                       @Value("${tracing.sampler.parent-based:true}") boolean parentBased) {
         Resource resource = Resource.getDefault()
                 .merge(Resource.create(
                         Attributes.of(
@@ -33,12 +72,12 @@ public class OpenTelemetryConfig {
                         )
                 ));
 
-        OtlpGrpcSpanExporter spanExporter = OtlpGrpcSpanExporter.builder()
-                .setEndpoint(otlpEndpoint)
-                .build();
+        // Head sampling: roots are sampled per operation ratio, children follow their parent
+        Sampler sampler = parentBased ? Sampler.parentBased(operationSampler) : operationSampler;
 
         SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
                 .addSpanProcessor(BatchSpanProcessor.builder(spanExporter).build())
+                .setSampler(sampler)
                 .setResource(resource)
                 .build();
 
@@ -0,0 +1,143 @@
+package com.neogeo.tracking.controller;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neogeo.tracking.export.ExportFormat;
+import com.neogeo.tracking.export.TrackExporter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Track downloads for GIS tools. Exports are written on the request thread
+ * as the rows are read (no async timeout applies), at most
+ * {@code tracking.export.max-concurrent} at a time; beyond that the answer
+ * is 503.
+ */
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "Export", description = "Track downloads in GPX, GeoJSON, KML or CSV")
+public class ExportController {
+
+    private final TrackExporter exporter;
+    private final Semaphore running;
+
+    public ExportController(TrackExporter exporter,
+                            @Value("${tracking.export.max-concurrent:1}") int maxConcurrent) {
+        this.exporter = exporter;
+        this.running = new Semaphore(maxConcurrent);
+    }
+
+    @Operation(summary = "Export a track", description = "Stream one surveyor's track within a time range "
+            + "(all of it without start and end) as gpx, geojson, kml or csv")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Track file"),
+        @ApiResponse(responseCode = "503", description = "Too many exports running")
+    })
+    @GetMapping("/{surveyorId}")
+    public void exportTrack(
+            @Parameter(description = "ID of the surveyor", required = true)
+            @PathVariable String surveyorId,
+            @Parameter(description = "File format: gpx, geojson, kml or csv", example = "gpx")
+            @RequestParam(defaultValue = "gpx") String format,
+            @Parameter(description = "Start time (ISO format)", example = "2025-05-30T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "End time (ISO format)", example = "2025-05-30T23:59:59")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        acquire();
+        try {
+            response.setContentType(exportFormat.getMediaType());
+            response.setCharacterEncoding("UTF-8");
+            attachment(response, surveyorId + "." + exportFormat.getExtension());
+            exporter.export(surveyorId, start, end, exportFormat, response.getOutputStream());
+        } finally {
+            running.release();
+        }
+    }
+
+    @Operation(summary = "Export several tracks", description = "Stream a ZIP with one file per surveyor, "
+            + "in the order given")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "ZIP of track files"),
+        @ApiResponse(responseCode = "503", description = "Too many exports running")
+    })
+    @GetMapping
+    public void exportTracks(
+            @Parameter(description = "Comma-separated surveyor IDs", required = true, example = "SURV001,SURV002")
+            @RequestParam List<String> surveyorIds,
+            @Parameter(description = "File format: gpx, geojson, kml or csv", example = "geojson")
+            @RequestParam(defaultValue = "gpx") String format,
+            @Parameter(description = "Start time (ISO format)", example = "2025-05-30T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @Parameter(description = "End time (ISO format)", example = "2025-05-30T23:59:59")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // One entry per surveyor, in the order given
+        Set<String> ids = new LinkedHashSet<>();
+        for (String id : surveyorIds) {
+            if (!id.isBlank()) {
+                ids.add(id.trim());
+            }
+        }
+        acquire();
+        try {
+            response.setContentType("application/zip");
+            attachment(response, "tracks-" + exportFormat.getExtension() + ".zip");
+            exporter.exportZip(new ArrayList<>(ids), start, end, exportFormat, response.getOutputStream());
+        } finally {
+            running.release();
+        }
+    }
+
+    private void acquire() {
+        if (!running.tryAcquire()) {
+            throw new RejectedExecutionException("Too many exports running");
+        }
+    }
+
+    private static void attachment(HttpServletResponse response, String filename) {
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> busy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Too many exports running, retry later");
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,83 @@
+package com.neogeo.tracking.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neogeo.tracking.LocationTrackService;
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneExecutors;
+import com.neogeo.tracking.model.DailySummary;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/summaries")
+@Tag(name = "Summaries", description = "Per-surveyor totals maintained at ingest")
+public class SummaryController {
+
+    private final LocationTrackService locationTrackService;
+    private final LaneExecutors laneExecutors;
+
+    public SummaryController(LocationTrackService locationTrackService, LaneExecutors laneExecutors) {
+        this.locationTrackService = locationTrackService;
+        this.laneExecutors = laneExecutors;
+    }
+
+    @Operation(summary = "Get fleet daily report", description = "Get every surveyor's summary of one day: "
+            + "first and last fix, distance, active time, points and bounding box")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved daily summaries",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailySummary.class)))
+    })
+    @GetMapping("/daily")
+    public CompletableFuture<List<DailySummary>> getFleetDay(
+            @Parameter(description = "Day (ISO format)", example = "2025-05-30", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return laneExecutors.submit(Lane.HISTORY, () -> locationTrackService.getDailySummaries(date));
+    }
+
+    @Operation(summary = "Get surveyor daily summaries", description = "Get one surveyor's daily summaries "
+            + "from one day to another, both inclusive")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved daily summaries",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DailySummary.class)))
+    })
+    @GetMapping("/daily/{surveyorId}")
+    public CompletableFuture<List<DailySummary>> getSurveyorDays(
+            @Parameter(description = "ID of the surveyor", required = true)
+            @PathVariable String surveyorId,
+            @Parameter(description = "First day (ISO format)", example = "2025-05-01", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (ISO format)", example = "2025-05-31", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return laneExecutors.submit(Lane.HISTORY, () -> locationTrackService.getDailySummaries(surveyorId, from, to));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> laneFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many concurrent queries, retry later");
+    }
+}
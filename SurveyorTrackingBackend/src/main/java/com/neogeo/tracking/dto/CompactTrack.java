@@ -0,0 +1,44 @@
+package com.neogeo.tracking.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Compact track representation: the surveyor ID is stated once and points are
+ * carried either as parallel arrays ({@code encoding = "columns"}) or as
+ * encoded polylines ({@code encoding = "polyline"}).
+ *
+ * Columns: point i is at {@code startTime + timeOffsetsMillis[i]} milliseconds,
+ * {@code latitudes[i]}, {@code longitudes[i]}.
+ * Polyline: {@code path} is a Google polyline of lat/lon at {@code precision}
+ * decimals and {@code times} encodes the epoch seconds (UTC) the same way,
+ * truncated to whole seconds.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactTrack {
+    public String surveyorId;
+    public String encoding;
+    public int count;
+    public LocalDateTime startTime;
+
+    // encoding = "columns"
+    public long[] timeOffsetsMillis;
+    public double[] latitudes;
+    public double[] longitudes;
+
+    // encoding = "polyline"
+    public Integer precision;
+    public String path;
+    public String times;
+
+    public CompactTrack() {
+    }
+
+    public CompactTrack(String surveyorId, String encoding, int count, LocalDateTime startTime) {
+        this.surveyorId = surveyorId;
+        this.encoding = encoding;
+        this.count = count;
+        this.startTime = startTime;
+    }
+}
@@ -2,11 +2,16 @@ package com.neogeo.tracking.dto;
 
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class LiveLocationMessage {
     public String surveyorId;
     public double latitude;
     public double longitude;
     public LocalDateTime timestamp;
+    // Optional per-device sequence number; retries resend the same value
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long sequence;
 
     public LiveLocationMessage() {
     }
@@ -25,6 +30,7 @@ public class LiveLocationMessage {
                 ", latitude=" + latitude +
                 ", longitude=" + longitude +
                 ", timestamp=" + timestamp +
+                ", sequence=" + sequence +
                 '}';
     }
 }
@@ -0,0 +1,223 @@
+package com.neogeo.tracking.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * Track export formats, written point by point so nothing is buffered. GPX
+ * and KML times carry a {@code Z} although they are the device's wall-clock
+ * time, as everywhere else in the API.
+ */
+public enum ExportFormat {
+
+    GPX("gpx", "application/gpx+xml") {
+        @Override
+        public TrackWriter writer(Writer out) {
+            return new TrackWriter(out) {
+                @Override
+                public void begin(String surveyorId) throws IOException {
+                    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                            + "<gpx version=\"1.1\" creator=\"SurveyorTrackingBackend\" "
+                            + "xmlns=\"http://www.topografix.com/GPX/1/1\">\n<trk><name>");
+                    out.write(xml(surveyorId));
+                    out.write("</name><trkseg>\n");
+                }
+
+                @Override
+                public void write(LocationTrack fix) throws IOException {
+                    out.write("<trkpt lat=\"");
+                    out.write(number(fix.getLatitude()));
+                    out.write("\" lon=\"");
+                    out.write(number(fix.getLongitude()));
+                    out.write("\"><time>");
+                    out.write(TIME.format(fix.getTimestamp()));
+                    out.write("Z</time></trkpt>\n");
+                }
+
+                @Override
+                public void end() throws IOException {
+                    out.write("</trkseg></trk>\n</gpx>\n");
+                    out.flush();
+                }
+            };
+        }
+    },
+
+    GEOJSON("geojson", "application/geo+json") {
+        @Override
+        public TrackWriter writer(Writer out) {
+            return new TrackWriter(out) {
+                private String properties;
+                private boolean first = true;
+
+                @Override
+                public void begin(String surveyorId) throws IOException {
+                    properties = "{\"surveyorId\":\"" + json(surveyorId) + "\",\"timestamp\":\"";
+                    out.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+                }
+
+                @Override
+                public void write(LocationTrack fix) throws IOException {
+                    out.write(first ? "" : ",\n");
+                    first = false;
+                    out.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+                    out.write(number(fix.getLongitude()));
+                    out.write(",");
+                    out.write(number(fix.getLatitude()));
+                    out.write("]},\"properties\":");
+                    out.write(properties);
+                    out.write(TIME.format(fix.getTimestamp()));
+                    out.write("\",\"dwellMillis\":");
+                    out.write(Long.toString(fix.getDwellMillis()));
+                    out.write("}}");
+                }
+
+                @Override
+                public void end() throws IOException {
+                    out.write("\n]}\n");
+                    out.flush();
+                }
+            };
+        }
+    },
+
+    KML("kml", "application/vnd.google-earth.kml+xml") {
+        @Override
+        public TrackWriter writer(Writer out) {
+            return new TrackWriter(out) {
+                @Override
+                public void begin(String surveyorId) throws IOException {
+                    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                            + "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n<Document><name>");
+                    out.write(xml(surveyorId));
+                    out.write("</name>\n");
+                }
+
+                @Override
+                public void write(LocationTrack fix) throws IOException {
+                    out.write("<Placemark><TimeStamp><when>");
+                    out.write(TIME.format(fix.getTimestamp()));
+                    out.write("Z</when></TimeStamp><Point><coordinates>");
+                    out.write(number(fix.getLongitude()));
+                    out.write(",");
+                    out.write(number(fix.getLatitude()));
+                    out.write("</coordinates></Point></Placemark>\n");
+                }
+
+                @Override
+                public void end() throws IOException {
+                    out.write("</Document>\n</kml>\n");
+                    out.flush();
+                }
+            };
+        }
+    },
+
+    CSV("csv", "text/csv") {
+        @Override
+        public TrackWriter writer(Writer out) {
+            return new TrackWriter(out) {
+                private String surveyor;
+
+                @Override
+                public void begin(String surveyorId) throws IOException {
+                    surveyor = surveyorId.contains(",") || surveyorId.contains("\"")
+                            ? "\"" + surveyorId.replace("\"", "\"\"") + "\"" : surveyorId;
+                    out.write("surveyorId,latitude,longitude,timestamp,dwellMillis\n");
+                }
+
+                @Override
+                public void write(LocationTrack fix) throws IOException {
+                    out.write(surveyor);
+                    out.write(",");
+                    out.write(number(fix.getLatitude()));
+                    out.write(",");
+                    out.write(number(fix.getLongitude()));
+                    out.write(",");
+                    out.write(TIME.format(fix.getTimestamp()));
+                    out.write(",");
+                    out.write(Long.toString(fix.getDwellMillis()));
+                    out.write("\n");
+                }
+
+                @Override
+                public void end() throws IOException {
+                    out.flush();
+                }
+            };
+        }
+    };
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final String extension;
+    private final String mediaType;
+
+    ExportFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Writes one surveyor's track; {@link TrackWriter#end} flushes but does not close.
+     */
+    public abstract TrackWriter writer(Writer out);
+
+    public static ExportFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format " + name + " (gpx, geojson, kml or csv)");
+        }
+    }
+
+    public abstract static class TrackWriter {
+        protected final Writer out;
+
+        TrackWriter(Writer out) {
+            this.out = out;
+        }
+
+        public abstract void begin(String surveyorId) throws IOException;
+
+        public abstract void write(LocationTrack fix) throws IOException;
+
+        public abstract void end() throws IOException;
+    }
+
+    // Plain decimal notation; Double.toString switches to exponents below 1e-3
+    private static String number(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    private static String xml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String json(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
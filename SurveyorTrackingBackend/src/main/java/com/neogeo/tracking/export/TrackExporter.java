@@ -0,0 +1,404 @@
+package com.neogeo.tracking.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.archive.TrackArchive;
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneContext;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+import com.neogeo.tracking.store.LocationStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Streams tracks in an {@link ExportFormat} with flat memory. With the jpa
+ * engine rows come from a database cursor in a read-only transaction on the
+ * export lane and are detached once written; archived days are read one
+ * day at a time and merged in as the cursor reaches them.
+ *
+ * Multi-surveyor exports are a ZIP with one entry per surveyor, written in
+ * order. Up to {@code tracking.export.parallelism} of the next entries are
+ * produced ahead on the shared {@code tracking.export.threads} pool into
+ * bounded chunk queues; an entry no pool thread has started yet is produced
+ * by the request thread itself, so a busy pool only costs parallelism.
+ * Memory per export is about parallelism x {@code tracking.export.queue-chunks}
+ * x 64 KB.
+ *
+ * Each producer holds an export-lane connection while it waits for the
+ * reader, so entries are only started ahead while a connection beyond the
+ * {@code tracking.export.max-concurrent} ones kept for request threads is
+ * free.
+ *
+ * Meters: {@code tracking.export.points}.
+ */
+@Component
+public class TrackExporter {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final byte[] END = new byte[0];
+
+    private final LocationTrackRepository repository;
+    private final LocationStore locationStore;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final ObjectProvider<TrackArchive> archive;
+    private final boolean cursor;
+    private final int parallelism;
+    private final int queueChunks;
+    private final ThreadPoolExecutor producers;
+    // Export-lane connections producers may take without starving request threads
+    private final Semaphore producerConnections;
+    private final Counter points;
+
+    public TrackExporter(LocationTrackRepository repository,
+                         LocationStore locationStore,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         ObjectProvider<TrackArchive> archive,
+                         @Value("${tracking.store.engine:jpa}") String engine,
+                         @Value("${tracking.export.threads:2}") int threads,
+                         @Value("${tracking.export.parallelism:2}") int parallelism,
+                         @Value("${tracking.export.queue-chunks:4}") int queueChunks,
+                         @Value("${tracking.export.max-concurrent:1}") int maxConcurrent,
+                         @Value("${tracking.lanes.export.pool-size:5}") int poolSize,
+                         MeterRegistry registry) {
+        this.repository = repository;
+        this.locationStore = locationStore;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.archive = archive;
+        this.cursor = "jpa".equals(engine);
+        this.parallelism = parallelism;
+        this.queueChunks = queueChunks;
+        // Entries that do not fit are produced by the request thread instead
+        this.producers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * parallelism), new CustomizableThreadFactory("export-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+        // At most threads permits, so a task holding one is never discarded
+        this.producerConnections = new Semaphore(Math.max(0, Math.min(threads, poolSize - maxConcurrent)));
+        this.points = Counter.builder("tracking.export.points")
+                .description("Fixes written by track exports")
+                .register(registry);
+    }
+
+    /**
+     * Writes one surveyor's fixes with start <= timestamp <= end, or all of
+     * them when either bound is null.
+     */
+    public void export(String surveyorId, LocalDateTime start, LocalDateTime end, ExportFormat format,
+                       OutputStream out) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CHUNK_BYTES);
+        ExportFormat.TrackWriter track = format.writer(writer);
+        track.begin(surveyorId);
+        try {
+            LaneContext.run(Lane.EXPORT, () -> writeFixes(surveyorId, start, end, track));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        track.end();
+    }
+
+    /**
+     * Writes a ZIP with one {@code <surveyorId>.<extension>} entry per surveyor.
+     */
+    public void exportZip(List<String> surveyorIds, LocalDateTime start, LocalDateTime end, ExportFormat format,
+                          OutputStream out) throws IOException {
+        List<Part> parts = new ArrayList<>(surveyorIds.size());
+        for (String surveyorId : surveyorIds) {
+            parts.add(new Part(surveyorId, start, end, format));
+        }
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            for (int i = 0; i < parts.size(); i++) {
+                // Start the next entries ahead; whatever the pool has not picked up runs inline below
+                for (int ahead = i; ahead < Math.min(parts.size(), i + parallelism); ahead++) {
+                    parts.get(ahead).schedule();
+                }
+                Part part = parts.get(i);
+                zip.putNextEntry(new ZipEntry(part.surveyorId.replace('/', '_') + "." + format.getExtension()));
+                part.copyTo(zip);
+                zip.closeEntry();
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            for (Part part : parts) {
+                part.cancel();
+            }
+        }
+    }
+
+    private void writeFixes(String surveyorId, LocalDateTime start, LocalDateTime end,
+                            ExportFormat.TrackWriter track) {
+        boolean bounded = start != null && end != null;
+        if (!cursor) {
+            for (LocationTrack fix : bounded ? locationStore.range(surveyorId, start, end)
+                    : locationStore.all(surveyorId)) {
+                write(track, fix);
+            }
+            return;
+        }
+        TrackArchive cold = archive.getIfAvailable();
+        transaction.executeWithoutResult(status -> {
+            ArchivedDays archived = cold == null ? null : new ArchivedDays(cold, surveyorId, start, end);
+            try (Stream<LocationTrack> rows = bounded
+                    ? repository.streamBySurveyorIdAndTimestampBetweenOrderByTimestampAsc(surveyorId, start, end)
+                    : repository.streamBySurveyorIdOrderByTimestampAsc(surveyorId)) {
+                rows.forEach(fix -> {
+                    if (archived != null) {
+                        archived.writeUntil(fix.getTimestamp(), archivedFix -> write(track, archivedFix));
+                    }
+                    write(track, fix);
+                    entityManager.detach(fix);
+                });
+            }
+            if (archived != null) {
+                archived.writeUntil(null, archivedFix -> write(track, archivedFix));
+            }
+        });
+    }
+
+    private void write(ExportFormat.TrackWriter track, LocationTrack fix) {
+        try {
+            track.write(fix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        points.increment();
+    }
+
+    /**
+     * One ZIP entry. Produced either by a pool thread into the chunk queue or,
+     * if no thread claimed it first, by the request thread straight into the ZIP.
+     */
+    private final class Part {
+        final String surveyorId;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final ExportFormat format;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(queueChunks);
+        volatile boolean cancelled;
+        volatile Throwable error;
+        boolean scheduled;
+
+        Part(String surveyorId, LocalDateTime start, LocalDateTime end, ExportFormat format) {
+            this.surveyorId = surveyorId;
+            this.start = start;
+            this.end = end;
+            this.format = format;
+        }
+
+        void schedule() {
+            // Without a free connection the entry is left to the request thread
+            if (!scheduled && producerConnections.tryAcquire()) {
+                scheduled = true;
+                producers.execute(this::produce);
+            }
+        }
+
+        private void produce() {
+            try {
+                if (claimed.compareAndSet(false, true)) {
+                    produceChunks();
+                }
+            } finally {
+                producerConnections.release();
+            }
+        }
+
+        private void produceChunks() {
+            try {
+                ChunkOutputStream out = new ChunkOutputStream();
+                export(surveyorId, start, end, format, out);
+                out.flushChunk();
+            } catch (IOException | RuntimeException e) {
+                // Set before END so the reader sees it
+                error = e;
+                chunks.clear();
+            }
+            try {
+                offer(END);
+            } catch (UncheckedIOException e) {
+                // Cancelled; nobody reads the rest
+            }
+        }
+
+        void copyTo(OutputStream zip) throws IOException {
+            if (claimed.compareAndSet(false, true)) {
+                export(surveyorId, start, end, format, zip);
+                return;
+            }
+            try {
+                byte[] chunk;
+                while ((chunk = chunks.take()) != END) {
+                    zip.write(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Export interrupted");
+            }
+            if (error != null) {
+                throw new IOException("Exporting " + surveyorId + " failed", error);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            // Claim parts nobody started so a queued task does nothing
+            claimed.set(true);
+        }
+
+        private void offer(byte[] chunk) {
+            try {
+                while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        throw new UncheckedIOException(new IOException("Export cancelled"));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Export interrupted"));
+            }
+        }
+
+        private final class ChunkOutputStream extends OutputStream {
+            private byte[] buffer = new byte[CHUNK_BYTES];
+            private int size;
+
+            @Override
+            public void write(int b) {
+                if (size == buffer.length) {
+                    flushChunk();
+                }
+                buffer[size++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                while (length > 0) {
+                    if (size == buffer.length) {
+                        flushChunk();
+                    }
+                    int n = Math.min(length, buffer.length - size);
+                    System.arraycopy(bytes, offset, buffer, size, n);
+                    size += n;
+                    offset += n;
+                    length -= n;
+                }
+            }
+
+            void flushChunk() {
+                if (size > 0) {
+                    byte[] chunk = size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+                    offer(chunk);
+                    buffer = new byte[CHUNK_BYTES];
+                    size = 0;
+                }
+            }
+
+        }
+    }
+
+    /**
+     * A surveyor's archived fixes within the export range, read one archive
+     * day at a time as the database cursor passes it.
+     */
+    private static final class ArchivedDays {
+        private final TrackArchive archive;
+        private final String surveyorId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final List<LocalDate> days;
+        private int day;
+        private List<LocationTrack> fixes = List.of();
+        private int next;
+
+        ArchivedDays(TrackArchive archive, String surveyorId, LocalDateTime start, LocalDateTime end) {
+            this.archive = archive;
+            this.surveyorId = surveyorId;
+            boolean bounded = start != null && end != null;
+            this.start = bounded ? start : null;
+            this.end = bounded ? end : null;
+            this.days = archive.days(bounded ? start.toLocalDate() : LocalDate.MIN,
+                    bounded ? end.toLocalDate() : LocalDate.MAX);
+        }
+
+        /**
+         * Writes the archived fixes older than timestamp, or all remaining ones
+         * when it is null. One with the same timestamp is dropped: the stored
+         * row wins, as in {@link TrackArchive#merge}.
+         */
+        void writeUntil(LocalDateTime timestamp, Consumer<LocationTrack> out) {
+            while (true) {
+                if (next == fixes.size()) {
+                    if (day == days.size()
+                            || (timestamp != null && days.get(day).isAfter(timestamp.toLocalDate()))) {
+                        return;
+                    }
+                    fixes = read(days.get(day++));
+                    next = 0;
+                    continue;
+                }
+                LocationTrack fix = fixes.get(next);
+                int order = timestamp == null ? -1 : fix.getTimestamp().compareTo(timestamp);
+                if (order > 0) {
+                    return;
+                }
+                next++;
+                if (order < 0) {
+                    out.accept(fix);
+                }
+            }
+        }
+
+        private List<LocationTrack> read(LocalDate day) {
+            LocalDateTime from = day.atStartOfDay();
+            LocalDateTime to = day.atTime(LocalTime.MAX);
+            if (start != null) {
+                from = from.isBefore(start) ? start : from;
+                to = to.isAfter(end) ? end : to;
+            }
+            return archive.range(surveyorId, from, to);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        producers.shutdownNow();
+    }
+}
@@ -0,0 +1,212 @@
+package com.neogeo.tracking.importer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneContext;
+import com.neogeo.tracking.store.HotTrackTier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Loads historical fixes from CSV, GPX and GeoJSON files straight into
+ * {@code location_track} with binary COPY ({@link CopyWriter}), bypassing the
+ * ingest pipeline: no dedupe window, motion filter, segments, summaries or
+ * broadcast. Rollups pick the rows up on their next run, and the
+ * {@link HotTrackTier} stops answering for the imported surveyors' ranges up
+ * to their newest imported fix.
+ *
+ * Files are parsed as streams, one per worker, on
+ * {@code tracking.import.workers} threads using the import lane's
+ * connection pool, so a long import never takes the connections history
+ * reads need; each worker commits every {@code tracking.import.batch-rows}
+ * fixes. Fixes already stored are skipped, so a failed import can be rerun.
+ *
+ * Meters: {@code tracking.import.rows{result}} (inserted, duplicate, rejected).
+ */
+@Component
+public class BulkImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+    private static final int KEEP_JOBS = 20;
+
+    private final DataSource dataSource;
+    private final HotTrackTier hotTrackTier;
+    private final int batchRows;
+    private final ExecutorService workers;
+    private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final Counter insertedRows;
+    private final Counter duplicateRows;
+    private final Counter rejectedRows;
+
+    public BulkImporter(DataSource dataSource,
+                        HotTrackTier hotTrackTier,
+                        @Value("${tracking.import.workers:2}") int workers,
+                        @Value("${tracking.import.batch-rows:50000}") int batchRows,
+                        MeterRegistry registry) {
+        this.dataSource = dataSource;
+        this.hotTrackTier = hotTrackTier;
+        this.batchRows = batchRows;
+        this.workers = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("import-"));
+        this.insertedRows = rows(registry, "inserted");
+        this.duplicateRows = rows(registry, "duplicate");
+        this.rejectedRows = rows(registry, "rejected");
+    }
+
+    private static Counter rows(MeterRegistry registry, String result) {
+        return Counter.builder("tracking.import.rows")
+                .description("Fixes read by bulk imports")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Starts importing the files, and the supported files under directories.
+     *
+     * @param surveyorId surveyor of fixes whose file does not name one; may be null
+     */
+    public ImportJob start(Collection<Path> paths, String surveyorId) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(Files::isRegularFile).filter(BulkImporter::supported).sorted().forEach(files::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                FixReader.forFile(path);
+                files.add(path);
+            } else {
+                throw new IOException("No such file: " + path);
+            }
+        }
+        long bytes = 0;
+        for (Path file : files) {
+            bytes += Files.size(file);
+        }
+
+        ImportJob job = new ImportJob(ids.incrementAndGet(), files.size(), bytes);
+        forgetOldJobs();
+        jobs.put(job.id(), job);
+        log.info("Import {} started: {} files, {} bytes", job.id(), files.size(), bytes);
+        List<CompletableFuture<Void>> running = new ArrayList<>(files.size());
+        for (Path file : files) {
+            running.add(CompletableFuture.runAsync(
+                    () -> LaneContext.run(Lane.IMPORT, () -> importFile(job, file, surveyorId)), workers));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).whenComplete((done, error) -> {
+            job.finish();
+            log.info("Import {} finished: {}", job.id(), job.progress());
+        });
+        return job;
+    }
+
+    public ImportJob job(long id) {
+        return jobs.get(id);
+    }
+
+    public List<ImportJob> jobs() {
+        return jobs.values().stream().sorted(Comparator.comparingLong(ImportJob::id)).toList();
+    }
+
+    private void importFile(ImportJob job, Path file, String surveyorId) {
+        // Newest fix per surveyor in the uncommitted batch
+        Map<String, Long> newest = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             CopyWriter writer = new CopyWriter(connection, batchRows);
+             InputStream in = job.track(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            FixReader.forFile(file).read(in, surveyorId, new FixReader.Sink() {
+                @Override
+                public void accept(LocationFix fix) throws IOException {
+                    job.copied();
+                    newest.merge(fix.surveyorId, fix.timestampMillis, Math::max);
+                    try {
+                        if (writer.write(fix)) {
+                            commit(job, writer, newest);
+                        }
+                    } catch (SQLException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                }
+
+                @Override
+                public void reject() {
+                    job.rejected();
+                    rejectedRows.increment();
+                }
+            });
+            commit(job, writer, newest);
+            job.fileDone();
+            log.debug("Imported {}", file);
+        } catch (IOException | SQLException | RuntimeException e) {
+            // Batches committed before the failure stay; rerunning skips them
+            log.warn("Import {} of {} failed: {}", job.id(), file, e.getMessage());
+            job.fileFailed(file, e);
+        }
+    }
+
+    private void commit(ImportJob job, CopyWriter writer, Map<String, Long> newest)
+            throws SQLException, IOException {
+        // Before the rows become visible, so the hot tier never answers without them
+        newest.forEach(hotTrackTier::imported);
+        newest.clear();
+        int copied = writer.pending();
+        long inserted = writer.commit();
+        job.committed(copied, inserted);
+        insertedRows.increment(inserted);
+        duplicateRows.increment(copied - inserted);
+    }
+
+    private void forgetOldJobs() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(ImportJob::isFinished)
+                .sorted(Comparator.comparingLong(ImportJob::id))
+                .toList();
+        for (int i = 0; i < finished.size() - KEEP_JOBS + 1; i++) {
+            jobs.remove(finished.get(i).id());
+        }
+    }
+
+    private static boolean supported(Path file) {
+        try {
+            FixReader.forFile(file);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+}
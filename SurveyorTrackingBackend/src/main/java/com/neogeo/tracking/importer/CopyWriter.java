@@ -0,0 +1,167 @@
+package com.neogeo.tracking.importer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * Loads fixes into {@code location_track} through binary COPY. Rows are
+ * copied into a temporary staging table and moved over with
+ * {@code INSERT ... ON CONFLICT DO NOTHING}, one transaction per batch, so a
+ * fix already stored (same surveyor and timestamp) is skipped instead of
+ * failing the batch and re-importing a file is harmless.
+ *
+ * Binary row: {@code surveyor_id text, latitude float8, longitude float8,
+ * timestamp timestamp (microseconds since 2000-01-01), geom} as EWKB point
+ * in SRID 4326. Not thread-safe; one writer per file worker.
+ */
+final class CopyWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    // Microseconds from 1970-01-01 to 2000-01-01
+    private static final long PG_EPOCH_MICROS = 946_684_800_000_000L;
+    private static final int EWKB_POINT_BYTES = 1 + 4 + 4 + 8 + 8;
+    private static final int EWKB_POINT_WITH_SRID = 0x20000001;
+    private static final int SRID = 4326;
+
+    private static final String CREATE_STAGE = "CREATE TEMP TABLE IF NOT EXISTS location_track_import ("
+            + "surveyor_id varchar(255), latitude float8, longitude float8, timestamp timestamp(6), "
+            + "geom geometry(Point, 4326)) ON COMMIT DELETE ROWS";
+    private static final String COPY = "COPY location_track_import (surveyor_id, latitude, longitude, timestamp, geom) "
+            + "FROM STDIN (FORMAT binary)";
+    private static final String MERGE = "INSERT INTO location_track (surveyor_id, latitude, longitude, timestamp, geom, "
+            + "dwell_millis) SELECT surveyor_id, latitude, longitude, timestamp, geom, 0 FROM location_track_import "
+            + "ON CONFLICT (surveyor_id, timestamp) DO NOTHING";
+
+    private final Connection connection;
+    private final CopyTarget target;
+    private final int batchRows;
+    private final byte[] ewkb = new byte[EWKB_POINT_BYTES];
+    private PGCopyOutputStream copy;
+    private DataOutputStream out;
+    private int rows;
+
+    CopyWriter(Connection connection, int batchRows) throws SQLException {
+        this(connection, batchRows, sql -> connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql));
+    }
+
+    CopyWriter(Connection connection, int batchRows, CopyTarget target) throws SQLException {
+        this.connection = connection;
+        this.target = target;
+        this.batchRows = batchRows;
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGE);
+        }
+        connection.commit();
+    }
+
+    /**
+     * Adds a fix to the batch.
+     *
+     * @return whether the batch is full and should be committed
+     */
+    boolean write(LocationFix fix) throws SQLException, IOException {
+        if (out == null) {
+            copy = new PGCopyOutputStream(target.copyIn(COPY));
+            out = new DataOutputStream(new BufferedOutputStream(copy, 1 << 16));
+            out.write(SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+        }
+        byte[] surveyorId = fix.surveyorId.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(5);
+        out.writeInt(surveyorId.length);
+        out.write(surveyorId);
+        out.writeInt(8);
+        out.writeDouble(fix.latitude);
+        out.writeInt(8);
+        out.writeDouble(fix.longitude);
+        out.writeInt(8);
+        out.writeLong(fix.timestampMillis * 1000 - PG_EPOCH_MICROS);
+        out.writeInt(EWKB_POINT_BYTES);
+        out.write(ewkb(fix.longitude, fix.latitude));
+        return ++rows >= batchRows;
+    }
+
+    /**
+     * Fixes written since the last commit.
+     */
+    int pending() {
+        return rows;
+    }
+
+    /**
+     * Ends the COPY, moves the staged rows and commits.
+     *
+     * @return rows inserted; the rest were already stored
+     */
+    long commit() throws SQLException, IOException {
+        if (out == null) {
+            return 0;
+        }
+        out.writeShort(-1);
+        out.close();
+        out = null;
+        copy = null;
+        rows = 0;
+        long inserted;
+        try (Statement statement = connection.createStatement()) {
+            inserted = statement.executeUpdate(MERGE);
+        }
+        connection.commit();
+        return inserted;
+    }
+
+    private byte[] ewkb(double x, double y) {
+        // Little endian, so the type and SRID are written by hand
+        ewkb[0] = 1;
+        putIntLe(1, EWKB_POINT_WITH_SRID);
+        putIntLe(5, SRID);
+        putLongLe(9, Double.doubleToLongBits(x));
+        putLongLe(17, Double.doubleToLongBits(y));
+        return ewkb;
+    }
+
+    private void putIntLe(int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            ewkb[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void putLongLe(int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            ewkb[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    /**
+     * Starts the COPY of one batch on the writer's connection.
+     */
+    interface CopyTarget {
+        CopyIn copyIn(String sql) throws SQLException;
+    }
+
+    /**
+     * Rolls back an unfinished batch; the connection stays with the caller.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (copy != null && copy.isActive()) {
+            copy.cancelCopy();
+        }
+        copy = null;
+        out = null;
+        connection.rollback();
+    }
+}
@@ -0,0 +1,86 @@
+package com.neogeo.tracking.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * CSV with a header row naming {@code latitude}, {@code longitude},
+ * {@code timestamp} and optionally {@code surveyorId} (or {@code surveyor_id},
+ * {@code lat}, {@code lon}/{@code lng}, {@code time}), in any order. Fields
+ * are comma separated; quoted fields may not contain commas.
+ */
+class CsvFixReader implements FixReader {
+
+    @Override
+    public void read(InputStream in, String surveyorId, Sink sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        String[] names = split(header);
+        int idColumn = -1;
+        int latColumn = -1;
+        int lonColumn = -1;
+        int timeColumn = -1;
+        for (int i = 0; i < names.length; i++) {
+            switch (names[i].toLowerCase(Locale.ROOT).replace("_", "")) {
+                case "surveyorid" -> idColumn = i;
+                case "latitude", "lat" -> latColumn = i;
+                case "longitude", "lon", "lng" -> lonColumn = i;
+                case "timestamp", "time" -> timeColumn = i;
+                default -> { }
+            }
+        }
+        if (latColumn < 0 || lonColumn < 0 || timeColumn < 0) {
+            throw new IOException("CSV header needs latitude, longitude and timestamp columns: " + header);
+        }
+        if (idColumn < 0 && surveyorId == null) {
+            throw new IOException("CSV has no surveyorId column and no surveyor was given");
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = split(line);
+            LocationFix fix;
+            try {
+                String id = idColumn >= 0 && idColumn < fields.length && !fields[idColumn].isEmpty()
+                        ? fields[idColumn] : surveyorId;
+                double latitude = Double.parseDouble(fields[latColumn]);
+                double longitude = Double.parseDouble(fields[lonColumn]);
+                fix = id != null && FixReader.valid(latitude, longitude)
+                        ? new LocationFix(id, latitude, longitude, FixReader.parseTimestamp(fields[timeColumn]))
+                        : null;
+            } catch (RuntimeException e) {
+                // Short row, bad number or bad timestamp
+                fix = null;
+            }
+            if (fix == null) {
+                sink.reject();
+            } else {
+                sink.accept(fix);
+            }
+        }
+    }
+
+    private static String[] split(String line) {
+        String[] fields = line.split(",", -1);
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i].trim();
+            if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+                field = field.substring(1, field.length() - 1);
+            }
+            fields[i] = field;
+        }
+        return fields;
+    }
+}
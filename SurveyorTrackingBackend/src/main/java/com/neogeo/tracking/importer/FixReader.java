@@ -0,0 +1,68 @@
+package com.neogeo.tracking.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * Streams the fixes of one import file to a {@link Sink} without holding the
+ * file in memory.
+ */
+interface FixReader {
+
+    interface Sink {
+        void accept(LocationFix fix) throws IOException;
+
+        /**
+         * Counts an entry that is not a usable fix.
+         */
+        void reject();
+    }
+
+    /**
+     * @param surveyorId used for entries that do not name their surveyor; may be null
+     */
+    void read(InputStream in, String surveyorId, Sink sink) throws IOException;
+
+    static FixReader forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return new CsvFixReader();
+        }
+        if (name.endsWith(".gpx")) {
+            return new GpxFixReader();
+        }
+        if (name.endsWith(".geojson") || name.endsWith(".json")) {
+            return new GeoJsonFixReader();
+        }
+        throw new IllegalArgumentException("Unsupported import file " + file + " (csv, gpx or geojson)");
+    }
+
+    /**
+     * Accepts epoch millis, a local ISO date-time (device wall clock, as
+     * ingest) or an ISO date-time with offset, which is taken in UTC.
+     */
+    static long parseTimestamp(String value) {
+        String text = value.trim();
+        if (!text.isEmpty() && text.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(text);
+        }
+        try {
+            return LocationFix.toMillis(LocalDateTime.parse(text));
+        } catch (DateTimeParseException e) {
+            return LocationFix.toMillis(OffsetDateTime.parse(text).withOffsetSameInstant(ZoneOffset.UTC)
+                    .toLocalDateTime());
+        }
+    }
+
+    static boolean valid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+}
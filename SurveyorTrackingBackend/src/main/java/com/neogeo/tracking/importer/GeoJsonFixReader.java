@@ -0,0 +1,84 @@
+package com.neogeo.tracking.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * GeoJSON FeatureCollection, read one feature at a time. {@code Point}
+ * features take their time from {@code properties.timestamp} (or
+ * {@code time}); {@code LineString} and {@code MultiPoint} features from the
+ * parallel {@code properties.coordTimes} array. The surveyor comes from
+ * {@code properties.surveyorId} when present.
+ */
+class GeoJsonFixReader implements FixReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public void read(InputStream in, String surveyorId, Sink sink) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("GeoJSON must be a FeatureCollection");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (!"features".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    feature(MAPPER.readTree(parser), surveyorId, sink);
+                }
+            }
+        }
+    }
+
+    private static void feature(JsonNode feature, String defaultSurveyorId, Sink sink) throws IOException {
+        JsonNode properties = feature.path("properties");
+        JsonNode geometry = feature.path("geometry");
+        String surveyorId = properties.hasNonNull("surveyorId") ? properties.get("surveyorId").asText()
+                : defaultSurveyorId;
+        JsonNode coordinates = geometry.path("coordinates");
+        switch (geometry.path("type").asText()) {
+            case "Point" -> {
+                JsonNode time = properties.hasNonNull("timestamp") ? properties.get("timestamp") : properties.path("time");
+                emit(surveyorId, coordinates, time, sink);
+            }
+            case "LineString", "MultiPoint" -> {
+                JsonNode times = properties.path("coordTimes");
+                for (int i = 0; i < coordinates.size(); i++) {
+                    emit(surveyorId, coordinates.get(i), times.path(i), sink);
+                }
+            }
+            default -> sink.reject();
+        }
+    }
+
+    private static void emit(String surveyorId, JsonNode position, JsonNode time, Sink sink) throws IOException {
+        LocationFix fix = null;
+        if (surveyorId != null && position.size() >= 2 && position.get(0).isNumber() && position.get(1).isNumber()
+                && !time.isMissingNode() && !time.isNull()) {
+            double longitude = position.get(0).asDouble();
+            double latitude = position.get(1).asDouble();
+            try {
+                if (FixReader.valid(latitude, longitude)) {
+                    fix = new LocationFix(surveyorId, latitude, longitude, FixReader.parseTimestamp(time.asText()));
+                }
+            } catch (RuntimeException e) {
+                // Bad timestamp
+            }
+        }
+        if (fix == null) {
+            sink.reject();
+        } else {
+            sink.accept(fix);
+        }
+    }
+}
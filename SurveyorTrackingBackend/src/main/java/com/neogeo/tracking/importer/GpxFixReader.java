@@ -0,0 +1,89 @@
+package com.neogeo.tracking.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * GPX 1.0/1.1 track points ({@code trkpt}, plus {@code rtept} and {@code wpt})
+ * with a {@code time} child, read with StAX. GPX carries no surveyor, so one
+ * must be given. Times are UTC.
+ */
+class GpxFixReader implements FixReader {
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public void read(InputStream in, String surveyorId, Sink sink) throws IOException {
+        if (surveyorId == null) {
+            throw new IOException("GPX files need a surveyor");
+        }
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+            try {
+                String lat = null;
+                String lon = null;
+                String time = null;
+                boolean inPoint = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if (isPoint(name)) {
+                            inPoint = true;
+                            lat = reader.getAttributeValue(null, "lat");
+                            lon = reader.getAttributeValue(null, "lon");
+                            time = null;
+                        } else if (inPoint && "time".equals(name)) {
+                            time = reader.getElementText();
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && isPoint(reader.getLocalName())) {
+                        inPoint = false;
+                        emit(surveyorId, lat, lon, time, sink);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed GPX: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isPoint(String name) {
+        return "trkpt".equals(name) || "rtept".equals(name) || "wpt".equals(name);
+    }
+
+    private static void emit(String surveyorId, String lat, String lon, String time, Sink sink) throws IOException {
+        if (lat == null || lon == null || time == null) {
+            sink.reject();
+            return;
+        }
+        LocationFix fix;
+        try {
+            double latitude = Double.parseDouble(lat);
+            double longitude = Double.parseDouble(lon);
+            fix = FixReader.valid(latitude, longitude)
+                    ? new LocationFix(surveyorId, latitude, longitude, FixReader.parseTimestamp(time))
+                    : null;
+        } catch (RuntimeException e) {
+            fix = null;
+        }
+        if (fix == null) {
+            sink.reject();
+        } else {
+            sink.accept(fix);
+        }
+    }
+}
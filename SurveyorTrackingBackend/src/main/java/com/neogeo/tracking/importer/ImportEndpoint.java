@@ -0,0 +1,64 @@
+package com.neogeo.tracking.importer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs bulk imports of files already on the node:
+ * <ul>
+ * <li>{@code POST /actuator/trackimport} starts importing files or directories under {@code tracking.import.dir}</li>
+ * <li>{@code GET /actuator/trackimport} lists recent imports with their progress</li>
+ * <li>{@code GET /actuator/trackimport/{id}} shows one import's progress and throughput</li>
+ * </ul>
+ * Only exposed by the {@code ops} profile, on the loopback management port.
+ */
+@Component
+@Endpoint(id = "trackimport")
+public class ImportEndpoint {
+
+    private final BulkImporter importer;
+    private final Path directory;
+
+    public ImportEndpoint(BulkImporter importer, @Value("${tracking.import.dir:data/import}") String directory) {
+        this.importer = importer;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+    }
+
+    @ReadOperation
+    public List<ImportJob.Progress> imports() {
+        return importer.jobs().stream().map(ImportJob::progress).toList();
+    }
+
+    @ReadOperation
+    public ImportJob.Progress progress(@Selector long id) {
+        ImportJob job = importer.job(id);
+        return job == null ? null : job.progress();
+    }
+
+    /**
+     * @param files comma-separated files or directories, relative to {@code tracking.import.dir}
+     * @param surveyorId surveyor of fixes whose file does not name one (GPX, CSV without the column)
+     */
+    @WriteOperation
+    public ImportJob.Progress start(String files, @Nullable String surveyorId) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (String file : files.split(",")) {
+            Path path = directory.resolve(file.trim()).normalize();
+            if (!path.startsWith(directory)) {
+                throw new IllegalArgumentException("Import files must be under " + directory);
+            }
+            paths.add(path);
+        }
+        return importer.start(paths, surveyorId).progress();
+    }
+}
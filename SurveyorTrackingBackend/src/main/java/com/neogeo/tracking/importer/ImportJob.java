@@ -0,0 +1,117 @@
+package com.neogeo.tracking.importer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of one bulk import, updated by its file workers.
+ */
+public final class ImportJob {
+
+    private final long id;
+    private final int files;
+    private final long bytesTotal;
+    private final Instant started = Instant.now();
+    private volatile Instant finished;
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final LongAdder copied = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, String> errors = new ConcurrentHashMap<>();
+
+    ImportJob(long id, int files, long bytesTotal) {
+        this.id = id;
+        this.files = files;
+        this.bytesTotal = bytesTotal;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public boolean isFinished() {
+        return finished != null;
+    }
+
+    /**
+     * Counts the bytes the parser consumes, for progress.
+     */
+    InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    void copied() {
+        copied.increment();
+    }
+
+    void committed(long copiedRows, long insertedRows) {
+        inserted.add(insertedRows);
+        duplicates.add(copiedRows - insertedRows);
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    void fileDone() {
+        filesDone.incrementAndGet();
+    }
+
+    void fileFailed(Path file, Throwable error) {
+        errors.put(file.toString(), String.valueOf(error.getMessage()));
+        filesDone.incrementAndGet();
+    }
+
+    void finish() {
+        finished = Instant.now();
+    }
+
+    public Progress progress() {
+        Instant end = finished == null ? Instant.now() : finished;
+        double seconds = Math.max(Duration.between(started, end).toMillis(), 1) / 1000d;
+        long copiedRows = copied.sum();
+        String state = finished == null ? "RUNNING" : errors.isEmpty() ? "DONE" : "FAILED";
+        return new Progress(id, state, started, finished, files, filesDone.get(), bytesTotal, bytesRead.get(),
+                copiedRows, inserted.sum(), duplicates.sum(), rejected.sum(),
+                Math.round(copiedRows / seconds), Map.copyOf(errors));
+    }
+
+    /**
+     * @param copied fixes parsed and sent to the database
+     * @param duplicates fixes already stored, counted when their batch commits
+     * @param rowsPerSecond fixes copied per second since the start
+     */
+    public record Progress(long id, String state, Instant started, Instant finished, int files, int filesDone,
+                           long bytesTotal, long bytesRead, long copied, long inserted, long duplicates,
+                           long rejected, long rowsPerSecond, Map<String, String> errors) {
+    }
+}
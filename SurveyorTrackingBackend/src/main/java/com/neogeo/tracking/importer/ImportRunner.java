@@ -0,0 +1,66 @@
+package com.neogeo.tracking.importer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line import: started with {@code --tracking.import.files=a.csv,logs/}
+ * (and {@code --tracking.import.surveyor=} for files without surveyor IDs),
+ * the application imports the files, logs progress every
+ * {@code tracking.import.report-ms} and exits, with status 1 if a file failed.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.import.files")
+public class ImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportRunner.class);
+
+    private final BulkImporter importer;
+    private final ConfigurableApplicationContext context;
+    private final List<String> files;
+    private final String surveyorId;
+    private final long reportMillis;
+
+    public ImportRunner(BulkImporter importer,
+                        ConfigurableApplicationContext context,
+                        @Value("${tracking.import.files}") List<String> files,
+                        @Value("${tracking.import.surveyor:#{null}}") String surveyorId,
+                        @Value("${tracking.import.report-ms:5000}") long reportMillis) {
+        this.importer = importer;
+        this.context = context;
+        this.files = files;
+        this.surveyorId = surveyorId;
+        this.reportMillis = reportMillis;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Path> paths = new ArrayList<>();
+        for (String file : files) {
+            paths.add(Path.of(file.trim()));
+        }
+        ImportJob job = importer.start(paths, surveyorId);
+        while (!job.isFinished()) {
+            Thread.sleep(reportMillis);
+            ImportJob.Progress progress = job.progress();
+            log.info("Import: {}/{} files, {}/{} bytes, {} fixes ({} per second), {} inserted, {} rejected",
+                    progress.filesDone(), progress.files(), progress.bytesRead(), progress.bytesTotal(),
+                    progress.copied(), progress.rowsPerSecond(), progress.inserted(), progress.rejected());
+        }
+        ImportJob.Progress result = job.progress();
+        log.info("Import {}: {}", result.state(), result);
+        int status = "DONE".equals(result.state()) ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
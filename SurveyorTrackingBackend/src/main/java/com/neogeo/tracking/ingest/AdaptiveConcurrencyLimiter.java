@@ -0,0 +1,109 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to latency, in the style of the gradient
+ * limiters from Netflix concurrency-limits. A long-term average RTT tracks
+ * what the service does when healthy; each window of samples compares it
+ * with the window's average RTT. When requests slow down the ratio drops
+ * below 1 and the limit shrinks; when they keep pace the limit grows by a
+ * small queue allowance.
+ *
+ * The limit only grows while it is actually being used, so an idle service
+ * does not drift to its maximum and then admit a storm all at once.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int WINDOW_SAMPLES = 50;
+    private static final double LONG_WINDOW = 600;
+    private static final double TOLERANCE = 1.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windowRttSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * Returns false when the request should be shed. Every true result must
+     * be followed by {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * @param rttNanos time the admitted request took
+     */
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        sample(rttNanos, current);
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtEnd) {
+        windowRttSum += rttNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtEnd);
+        if (windowCount < WINDOW_SAMPLES) {
+            return;
+        }
+
+        double shortRtt = (double) windowRttSum / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) / LONG_WINDOW;
+        }
+        // After a sustained step up in latency, let the baseline catch up instead of shrinking forever
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Not using the limit: nothing to learn about whether it could be higher
+        if (maxInFlight * 2 < estimatedLimit) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRtt));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double next = estimatedLimit * gradient + queueSize;
+        next = estimatedLimit * (1 - smoothing) + next * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+}
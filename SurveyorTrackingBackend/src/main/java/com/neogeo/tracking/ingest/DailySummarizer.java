@@ -0,0 +1,203 @@
+package com.neogeo.tracking.ingest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.model.DailySummary;
+
+/**
+ * Keeps per-surveyor daily totals as fixes arrive: first and last fix,
+ * bounding box, active time (gaps between fixes up to
+ * {@code tracking.summaries.active-gap-ms}), and a point count and haversine
+ * odometer over the fixes that are stored, so the count matches the day's
+ * track and stationary jitter does not add distance. Days are the fixes' own
+ * calendar dates (device wall clock).
+ *
+ * Totals accumulate in memory as deltas per surveyor and day; every
+ * {@code tracking.summaries.flush-ms} the deltas go to the sink, which adds
+ * them to the stored rows. A fix for an earlier day simply starts a delta for
+ * that day. State is held per ingest shard ({@link #newShard}) and only
+ * touched by that shard's thread.
+ */
+@Component
+public class DailySummarizer {
+
+    private final boolean enabled;
+    private final long activeGapMillis;
+    private final long flushNanos;
+    private final long idleNanos;
+
+    public DailySummarizer(@Value("${tracking.summaries.enabled:true}") boolean enabled,
+                           @Value("${tracking.summaries.active-gap-ms:900000}") long activeGapMillis,
+                           @Value("${tracking.summaries.flush-ms:30000}") long flushMillis,
+                           @Value("${tracking.summaries.idle-minutes:30}") long idleMinutes) {
+        this.enabled = enabled;
+        this.activeGapMillis = activeGapMillis;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+    }
+
+    /**
+     * Creates the summary state of one shard. Not thread-safe.
+     *
+     * @param sink receives deltas to add to the stored days
+     */
+    public Shard newShard(Consumer<DailySummary> sink) {
+        return new Shard(sink);
+    }
+
+    private static final class Delta {
+        final String surveyorId;
+        final LocalDate day;
+        long firstMillis = Long.MAX_VALUE;
+        long lastMillis = Long.MIN_VALUE;
+        double distanceM;
+        long activeMillis;
+        int points;
+        double minLat = Double.POSITIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+
+        Delta(String surveyorId, LocalDate day) {
+            this.surveyorId = surveyorId;
+            this.day = day;
+        }
+
+        void add(LocationFix fix, boolean stored) {
+            firstMillis = Math.min(firstMillis, fix.timestampMillis);
+            lastMillis = Math.max(lastMillis, fix.timestampMillis);
+            if (stored) {
+                points++;
+            }
+            minLat = Math.min(minLat, fix.latitude);
+            minLon = Math.min(minLon, fix.longitude);
+            maxLat = Math.max(maxLat, fix.latitude);
+            maxLon = Math.max(maxLon, fix.longitude);
+        }
+
+        DailySummary toSummary() {
+            return new DailySummary(surveyorId, day, LocationFix.toDateTime(firstMillis),
+                    LocationFix.toDateTime(lastMillis), distanceM, activeMillis, points,
+                    minLat, minLon, maxLat, maxLon);
+        }
+    }
+
+    private static final class Surveyor {
+        // Newest fix, for active time
+        long lastMillis = Long.MIN_VALUE;
+        LocalDate lastDay;
+        // Newest stored fix, for the odometer
+        long storedMillis = Long.MIN_VALUE;
+        LocalDate storedDay;
+        double storedLat;
+        double storedLon;
+        // Deltas since the last flush; usually just today
+        final List<Delta> deltas = new ArrayList<>(1);
+        long lastSeenNanos;
+
+        Delta delta(String surveyorId, LocalDate day) {
+            for (Delta delta : deltas) {
+                if (delta.day.equals(day)) {
+                    return delta;
+                }
+            }
+            Delta delta = new Delta(surveyorId, day);
+            deltas.add(delta);
+            return delta;
+        }
+    }
+
+    public final class Shard {
+        private final Consumer<DailySummary> sink;
+        private final Map<String, Surveyor> surveyors = new HashMap<>();
+        private long nextFlush;
+
+        private Shard(Consumer<DailySummary> sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * @param stored whether the fix is stored, so it counts as a point and for the odometer
+         */
+        public void add(LocationFix fix, boolean stored, long nowNanos) {
+            if (!enabled) {
+                return;
+            }
+            Surveyor surveyor = surveyors.get(fix.surveyorId);
+            if (surveyor == null) {
+                surveyor = new Surveyor();
+                surveyors.put(fix.surveyorId, surveyor);
+            }
+            surveyor.lastSeenNanos = nowNanos;
+            LocalDate day = fix.timestamp().toLocalDate();
+            Delta delta = surveyor.delta(fix.surveyorId, day);
+            delta.add(fix, stored);
+
+            if (fix.timestampMillis > surveyor.lastMillis) {
+                long gap = fix.timestampMillis - surveyor.lastMillis;
+                if (day.equals(surveyor.lastDay) && gap <= activeGapMillis) {
+                    delta.activeMillis += gap;
+                }
+                surveyor.lastMillis = fix.timestampMillis;
+                surveyor.lastDay = day;
+            }
+            if (stored && fix.timestampMillis > surveyor.storedMillis) {
+                if (day.equals(surveyor.storedDay)) {
+                    delta.distanceM += MotionFilter.distanceM(surveyor.storedLat, surveyor.storedLon,
+                            fix.latitude, fix.longitude);
+                }
+                surveyor.storedMillis = fix.timestampMillis;
+                surveyor.storedDay = day;
+                surveyor.storedLat = fix.latitude;
+                surveyor.storedLon = fix.longitude;
+            }
+        }
+
+        /**
+         * Hands the deltas to the sink every flush interval and forgets idle surveyors.
+         *
+         * @return nanoseconds until the next flush
+         */
+        public long tick(long nowNanos) {
+            if (nowNanos - nextFlush < 0) {
+                return nextFlush - nowNanos;
+            }
+            Iterator<Surveyor> iterator = surveyors.values().iterator();
+            while (iterator.hasNext()) {
+                Surveyor surveyor = iterator.next();
+                emit(surveyor);
+                if (nowNanos - surveyor.lastSeenNanos > idleNanos) {
+                    iterator.remove();
+                }
+            }
+            nextFlush = nowNanos + flushNanos;
+            return flushNanos;
+        }
+
+        /**
+         * Hands every delta to the sink, on shutdown.
+         */
+        public void flush() {
+            for (Surveyor surveyor : surveyors.values()) {
+                emit(surveyor);
+            }
+        }
+
+        private void emit(Surveyor surveyor) {
+            for (Delta delta : surveyor.deltas) {
+                sink.accept(delta.toSummary());
+            }
+            surveyor.deltas.clear();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Drops retried fixes before they are broadcast or stored. Each surveyor has
+ * a window of the last {@code tracking.ingest.dedupe.window} fix keys it sent
+ * ({@link LocationFix#dedupeKey()}: the client sequence number, or the
+ * timestamp when the client sends none); a fix whose key is in the window is a
+ * duplicate. Keys older than the window pass through to the unique
+ * (surveyorId, timestamp) constraint on location_track.
+ *
+ * Windows are held per ingest shard ({@link #newShard()}) and only touched by
+ * that shard's thread. They are evicted after
+ * {@code tracking.ingest.dedupe.idle-minutes} without fixes. Drops are counted
+ * as {@code tracking.ingest.duplicates{stage}}.
+ */
+@Component
+public class DuplicateFilter {
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final long idleNanos;
+    private final Counter windowDuplicates;
+    private final Counter storeDuplicates;
+
+    public DuplicateFilter(@Value("${tracking.ingest.dedupe.enabled:true}") boolean enabled,
+                           @Value("${tracking.ingest.dedupe.window:64}") int windowSize,
+                           @Value("${tracking.ingest.dedupe.idle-minutes:10}") long idleMinutes,
+                           MeterRegistry registry) {
+        this.enabled = enabled;
+        this.windowSize = windowSize;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        windowDuplicates = duplicates(registry, "window");
+        storeDuplicates = duplicates(registry, "store");
+    }
+
+    private static Counter duplicates(MeterRegistry registry, String stage) {
+        return Counter.builder("tracking.ingest.duplicates")
+                .description("Retried fixes dropped, by where the duplicate was caught")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    /**
+     * Creates the windows of one shard. Not thread-safe.
+     */
+    public Shard newShard() {
+        return new Shard();
+    }
+
+    /**
+     * Counts a duplicate the store's unique constraint caught.
+     */
+    public void storeDuplicate() {
+        storeDuplicates.increment();
+    }
+
+    public final class Shard {
+        private final Map<String, Window> windows = new HashMap<>();
+        private long nextSweep;
+
+        private Shard() {
+        }
+
+        /**
+         * Records the fix's key.
+         *
+         * @return false if the surveyor already sent a fix with the same key
+         */
+        public boolean firstSeen(LocationFix fix, long nowNanos) {
+            if (!enabled) {
+                return true;
+            }
+            long key = fix.dedupeKey();
+            Window window = windows.get(fix.surveyorId);
+            if (window == null) {
+                window = new Window(windowSize);
+                windows.put(fix.surveyorId, window);
+            }
+            window.lastSeen = nowNanos;
+            if (window.contains(key)) {
+                windowDuplicates.increment();
+                return false;
+            }
+            window.add(key);
+            return true;
+        }
+
+        /**
+         * Forgets surveyors without fixes for the idle time, at most once per idle time.
+         */
+        public void evictIdle(long nowNanos) {
+            if (nowNanos - nextSweep < 0) {
+                return;
+            }
+            Iterator<Window> iterator = windows.values().iterator();
+            while (iterator.hasNext()) {
+                if (nowNanos - iterator.next().lastSeen > idleNanos) {
+                    iterator.remove();
+                }
+            }
+            nextSweep = nowNanos + idleNanos;
+        }
+    }
+
+    /**
+     * Ring of the most recent keys.
+     */
+    private static final class Window {
+        final long[] keys;
+        int size;
+        int next;
+        long lastSeen;
+
+        Window(int capacity) {
+            keys = new long[capacity];
+        }
+
+        boolean contains(long key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long key) {
+            keys[next] = key;
+            next = (next + 1) % keys.length;
+            if (size < keys.length) {
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.neogeo.tracking.ingest;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.neogeo.tracking.service.BasicCredentials;
+import com.neogeo.tracking.service.SurveyorService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission control for {@code POST /api/live/location}, applied before the
+ * body is read: a per-device token bucket (keyed by the Basic-auth username),
+ * a bucket per remote address charged by failed logins, and an adaptive
+ * concurrency limit for the endpoint as a whole. Rejected requests get 429
+ * with {@code Retry-After}; other endpoints, including actuator health, are
+ * never shed.
+ *
+ * Credentials are checked here so that only authenticated devices are charged
+ * to their bucket; a wrong password cannot drain someone else's. The check
+ * needs a database lookup, so it runs after the concurrency permit is taken
+ * and a flood of requests cannot bypass the limit on its way to the pool. The
+ * authenticated username is left in {@link #AUTHENTICATED_USER} for the
+ * controller. Requests without usable credentials are rejected by the
+ * controller with 401.
+ */
+@Component
+public class IngestAdmissionFilter extends OncePerRequestFilter {
+
+    static final String INGEST_PATH = "/api/live/location";
+    public static final String AUTHENTICATED_USER = IngestAdmissionFilter.class.getName() + ".user";
+
+    private final SurveyorService surveyorService;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final SurveyorRateLimiter rateLimiter;
+    private final SurveyorRateLimiter authFailureLimiter;
+    private final Counter shedByConcurrency;
+    private final Counter shedByRate;
+    private final Counter shedByAuthFailures;
+
+    public IngestAdmissionFilter(@Value("${tracking.ingest.limiter.enabled:true}") boolean limiterEnabled,
+                                 @Value("${tracking.ingest.limiter.initial-limit:40}") int initialLimit,
+                                 @Value("${tracking.ingest.limiter.min-limit:8}") int minLimit,
+                                 @Value("${tracking.ingest.limiter.max-limit:150}") int maxLimit,
+                                 @Value("${tracking.ingest.limiter.smoothing:0.2}") double smoothing,
+                                 @Value("${tracking.ingest.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                                 @Value("${tracking.ingest.rate-limit.per-second:1}") double ratePerSecond,
+                                 @Value("${tracking.ingest.rate-limit.burst:10}") double burst,
+                                 @Value("${tracking.ingest.auth-failure-limit.enabled:true}") boolean authFailureLimitEnabled,
+                                 @Value("${tracking.ingest.auth-failure-limit.per-second:0.2}") double authFailuresPerSecond,
+                                 @Value("${tracking.ingest.auth-failure-limit.burst:10}") double authFailureBurst,
+                                 SurveyorService surveyorService, MeterRegistry registry) {
+        this.surveyorService = surveyorService;
+        this.limiter = limiterEnabled ? new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, smoothing) : null;
+        this.rateLimiter = rateLimitEnabled ? new SurveyorRateLimiter(ratePerSecond, burst) : null;
+        this.authFailureLimiter = authFailureLimitEnabled
+                ? new SurveyorRateLimiter(authFailuresPerSecond, authFailureBurst) : null;
+
+        shedByConcurrency = shedCounter(registry, "concurrency");
+        shedByRate = shedCounter(registry, "rate");
+        shedByAuthFailures = shedCounter(registry, "auth_failures");
+        if (limiter != null) {
+            Gauge.builder("tracking.ingest.limiter.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                    .description("Current adaptive concurrency limit for ingest")
+                    .register(registry);
+            Gauge.builder("tracking.ingest.limiter.in_flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                    .description("Ingest requests currently admitted")
+                    .register(registry);
+        }
+        if (rateLimiter != null) {
+            Gauge.builder("tracking.ingest.rate_limiter.buckets", rateLimiter, SurveyorRateLimiter::size)
+                    .description("Devices with a partially used token bucket")
+                    .register(registry);
+        }
+        if (authFailureLimiter != null) {
+            Gauge.builder("tracking.ingest.auth_failure_limiter.buckets", authFailureLimiter, SurveyorRateLimiter::size)
+                    .description("Remote addresses with recent failed logins")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !INGEST_PATH.equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        if (authFailureLimiter != null) {
+            long waitNanos = authFailureLimiter.available(request.getRemoteAddr(), System.nanoTime());
+            if (waitNanos > 0) {
+                shedByAuthFailures.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        if (limiter == null) {
+            admit(request, response, chain);
+            return;
+        }
+        // The password check is a database lookup, so it runs inside the limit too
+        if (!limiter.tryAcquire()) {
+            shedByConcurrency.increment();
+            reject(response, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            admit(request, response, chain);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private void admit(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (rateLimiter != null || authFailureLimiter != null) {
+            BasicCredentials credentials = credentials(request.getHeader(HttpHeaders.AUTHORIZATION));
+            if (credentials != null) {
+                if (surveyorService.authenticateSurveyor(credentials.getUsername(), credentials.getPassword())) {
+                    request.setAttribute(AUTHENTICATED_USER, credentials.getUsername());
+                    long waitNanos = rateLimiter == null ? 0 : rateLimiter.tryAcquire(credentials.getUsername(), System.nanoTime());
+                    if (waitNanos > 0) {
+                        shedByRate.increment();
+                        reject(response, waitNanos);
+                        return;
+                    }
+                } else if (authFailureLimiter != null) {
+                    // The controller answers 401; the address pays for the attempt
+                    authFailureLimiter.tryAcquire(request.getRemoteAddr(), System.nanoTime());
+                }
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.ingest.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        if (rateLimiter != null) {
+            rateLimiter.evictIdle(System.nanoTime());
+        }
+        if (authFailureLimiter != null) {
+            authFailureLimiter.evictIdle(System.nanoTime());
+        }
+    }
+
+    private static BasicCredentials credentials(String authHeader) {
+        if (!BasicCredentials.isBasic(authHeader)) {
+            return null;
+        }
+        try {
+            return BasicCredentials.parse(authHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterNanos) throws IOException {
+        long seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many location updates, retry later");
+    }
+
+    private static Counter shedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("tracking.ingest.shed")
+                .description("Ingest requests rejected with 429, by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,204 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single-writer ingest shards. Each surveyor belongs to one of
+ * {@code tracking.ingest.shards.count} shards by ID hash, and each shard is
+ * one thread that owns its surveyors' state (dedupe windows, reorder buffers)
+ * and needs no locks for it. Request threads hand fixes over through a
+ * bounded MPSC queue of {@code tracking.ingest.shards.queue} and wait for
+ * the shard's answer; a full queue rejects the fix.
+ *
+ * Queue depth is published as {@code tracking.ingest.shard.queue{shard}}.
+ */
+@Component
+public class IngestShards {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestShards.class);
+
+    /**
+     * A shard's work and state. Called only from the shard's thread.
+     */
+    public interface Worker {
+        /**
+         * @return completes with false if the fix was dropped as a duplicate; may
+         * complete later on another thread, for work the worker handed off
+         */
+        CompletableFuture<Boolean> process(LocationFix fix, long nowNanos) throws Exception;
+
+        /**
+         * Runs timed work.
+         *
+         * @return nanoseconds until the worker next needs a tick
+         */
+        long tick(long nowNanos);
+
+        /**
+         * Finishes held work on shutdown.
+         */
+        void flush();
+    }
+
+    private static final long MAX_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Shard[] shards;
+    private volatile boolean running;
+
+    public IngestShards(@Value("${tracking.ingest.shards.count:0}") int count,
+                        @Value("${tracking.ingest.shards.queue:4096}") int queueCapacity,
+                        MeterRegistry registry) {
+        int shardCount = count > 0 ? count : Runtime.getRuntime().availableProcessors();
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+            Gauge.builder("tracking.ingest.shard.queue", shards[i].queue, MpscQueue::size)
+                    .description("Fixes waiting for their ingest shard")
+                    .tags(Tags.of("shard", Integer.toString(i)))
+                    .register(registry);
+        }
+    }
+
+    public int count() {
+        return shards.length;
+    }
+
+    public int shardOf(String surveyorId) {
+        return (surveyorId.hashCode() & 0x7fffffff) % shards.length;
+    }
+
+    /**
+     * Starts one thread per shard.
+     *
+     * @param workers creates the worker of a shard index
+     */
+    public void start(IntFunction<Worker> workers) {
+        running = true;
+        for (Shard shard : shards) {
+            shard.worker = workers.apply(shard.index);
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Hands the fix to its shard.
+     *
+     * @return completes with the worker's answer, or exceptionally with what it threw
+     * @throws RejectedExecutionException if the shard's queue is full or the shards are stopping
+     */
+    public CompletableFuture<Boolean> submit(LocationFix fix) {
+        Shard shard = shards[shardOf(fix.surveyorId)];
+        Task task = new Task(fix);
+        if (!running || !shard.queue.offer(task)) {
+            throw new RejectedExecutionException("Ingest shard " + shard.index + " is full");
+        }
+        if (shard.parked) {
+            LockSupport.unpark(shard.thread);
+        }
+        return task;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+            shard.thread.join(5000);
+        }
+    }
+
+    private static final class Task extends CompletableFuture<Boolean> {
+        final LocationFix fix;
+
+        Task(LocationFix fix) {
+            this.fix = fix;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        final int index;
+        final MpscQueue<Task> queue;
+        final Thread thread;
+        Worker worker;
+        volatile boolean parked;
+
+        Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new MpscQueue<>(queueCapacity);
+            this.thread = new Thread(this, "ingest-shard-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long nextTick = 0;
+            while (running || !queue.isEmpty()) {
+                Task task;
+                while ((task = queue.poll()) != null) {
+                    process(task);
+                }
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    nextTick = now + tick(now);
+                }
+                if (running) {
+                    parked = true;
+                    // Re-check after publishing the flag so a concurrent submit cannot be missed
+                    if (queue.isEmpty()) {
+                        LockSupport.parkNanos(this, Math.max(1, nextTick - now));
+                    }
+                    parked = false;
+                }
+            }
+            worker.flush();
+            Task late;
+            while ((late = queue.poll()) != null) {
+                late.completeExceptionally(new RejectedExecutionException("Ingest shards stopped"));
+            }
+        }
+
+        private void process(Task task) {
+            try {
+                CompletableFuture<Boolean> result = worker.process(task.fix, System.nanoTime());
+                if (result.isDone() && !result.isCompletedExceptionally()) {
+                    task.complete(result.join());
+                    return;
+                }
+                result.whenComplete((answer, error) -> {
+                    if (error == null) {
+                        task.complete(answer);
+                    } else {
+                        task.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                    }
+                });
+            } catch (Throwable e) {
+                task.completeExceptionally(e);
+            }
+        }
+
+        private long tick(long now) {
+            try {
+                return Math.min(MAX_PARK_NANOS, worker.tick(now));
+            } catch (RuntimeException e) {
+                log.error("Ingest shard {} tick failed", index, e);
+                return MAX_PARK_NANOS;
+            }
+        }
+    }
+}
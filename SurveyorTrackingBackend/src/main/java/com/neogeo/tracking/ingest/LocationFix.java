@@ -0,0 +1,100 @@
+package com.neogeo.tracking.ingest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * A fix as it travels through the ingest pipeline: primitives plus the
+ * canonical surveyor ID instance, so decoding a known surveyor's fix
+ * allocates no strings or date objects.
+ *
+ * The timestamp is the device's wall-clock time as epoch milliseconds with
+ * UTC used only as a fixed reference (no zone shift).
+ */
+public final class LocationFix {
+    /** {@link #sequence} of a fix whose client sent no sequence number. */
+    public static final long NO_SEQUENCE = -1;
+
+    public String surveyorId;
+    public double latitude;
+    public double longitude;
+    public long timestampMillis;
+    /** Client's per-device sequence number, or {@link #NO_SEQUENCE}. */
+    public long sequence = NO_SEQUENCE;
+    /**
+     * Non-zero only on a dwell update: how long the surveyor stayed at the
+     * already stored fix with this surveyor and timestamp.
+     */
+    public long dwellMillis;
+
+    public LocationFix() {
+    }
+
+    public LocationFix(String surveyorId, double latitude, double longitude, long timestampMillis) {
+        this.surveyorId = surveyorId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public static LocationFix from(LiveLocationMessage message) {
+        LocationFix fix = new LocationFix(message.surveyorId, message.latitude, message.longitude,
+                message.timestamp == null ? 0 : toMillis(message.timestamp));
+        if (message.sequence != null) {
+            fix.sequence = message.sequence;
+        }
+        return fix;
+    }
+
+    public static long toMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+                (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Key identifying a retry of this fix: the sequence number when the client
+     * sends one, otherwise the timestamp.
+     */
+    public long dedupeKey() {
+        return sequence != NO_SEQUENCE ? sequence : timestampMillis;
+    }
+
+    public boolean isDwellUpdate() {
+        return dwellMillis > 0;
+    }
+
+    public long epochSecond() {
+        return Math.floorDiv(timestampMillis, 1000L);
+    }
+
+    public LocalDateTime timestamp() {
+        return toDateTime(timestampMillis);
+    }
+
+    public LocationTrack toEntity() {
+        return new LocationTrack(surveyorId, latitude, longitude, timestamp(), null);
+    }
+
+    public LiveLocationMessage toMessage() {
+        return new LiveLocationMessage(surveyorId, latitude, longitude, timestamp());
+    }
+
+    @Override
+    public String toString() {
+        return "LocationFix{" +
+                "surveyorId='" + surveyorId + '\'' +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
+                ", timestampMillis=" + timestampMillis +
+                ", sequence=" + sequence +
+                ", dwellMillis=" + dwellMillis +
+                '}';
+    }
+}
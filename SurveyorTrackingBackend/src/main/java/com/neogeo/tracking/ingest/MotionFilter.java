@@ -0,0 +1,305 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Thins each surveyor's fixes before they are stored and broadcast:
+ * <ul>
+ * <li>a fix implying more than {@code max-speed-mps} from the last plausible
+ * fix is an outlier and dropped, unless {@code max-outliers} in a row were
+ * dropped, in which case the surveyor really moved and it is taken;</li>
+ * <li>a fix within {@code min-displacement-m} of the last kept fix is
+ * stationary: it is dropped and the kept fix's dwell grows to cover it;</li>
+ * <li>a moving fix is kept when the heading turned by at least
+ * {@code min-heading-change-deg}, or it is {@code max-gap-m} or
+ * {@code max-gap-ms} away from the last kept fix; otherwise it lies on a
+ * straight line and is dropped.</li>
+ * </ul>
+ * With {@code kalman.enabled} kept and compared positions are smoothed with a
+ * constant-position Kalman filter first (process noise
+ * {@code kalman.process-noise-mps}, measurement noise {@code kalman.accuracy-m}).
+ * All settings are under {@code tracking.ingest.motion}.
+ *
+ * A stationary run collapses into the row of the fix that started it. Once
+ * its dwell (timestamp of the last stationary fix minus its own) reaches
+ * {@code min-dwell-ms}, the dwell is reported to the dwell sink as a copy of
+ * that fix with {@link LocationFix#dwellMillis} set, when the run ends and
+ * every {@code dwell-update-ms} while it lasts. Shorter runs are slow
+ * movement, not stops.
+ *
+ * Fixes are assumed to arrive mostly in timestamp order; one older than the
+ * last fix seen is kept unfiltered. State is held per ingest shard
+ * ({@link #newShard}) and only touched by that shard's thread.
+ *
+ * Decisions are counted as {@code tracking.ingest.motion{decision}}.
+ */
+@Component
+public class MotionFilter {
+
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    public enum Decision {
+        KEEP, STATIONARY, STRAIGHT, OUTLIER
+    }
+
+    private final boolean enabled;
+    private final double minDisplacementM;
+    private final double minHeadingChangeDeg;
+    private final double maxGapM;
+    private final long maxGapMillis;
+    private final double maxSpeedMps;
+    private final int maxOutliers;
+    private final long minDwellMillis;
+    private final long dwellUpdateMillis;
+    private final boolean kalmanEnabled;
+    private final double processNoiseMps;
+    private final double accuracyM;
+    private final long idleNanos;
+    private final Counter[] decisions = new Counter[Decision.values().length];
+
+    public MotionFilter(@Value("${tracking.ingest.motion.enabled:true}") boolean enabled,
+                        @Value("${tracking.ingest.motion.min-displacement-m:10}") double minDisplacementM,
+                        @Value("${tracking.ingest.motion.min-heading-change-deg:15}") double minHeadingChangeDeg,
+                        @Value("${tracking.ingest.motion.max-gap-m:100}") double maxGapM,
+                        @Value("${tracking.ingest.motion.max-gap-ms:30000}") long maxGapMillis,
+                        @Value("${tracking.ingest.motion.max-speed-mps:70}") double maxSpeedMps,
+                        @Value("${tracking.ingest.motion.max-outliers:5}") int maxOutliers,
+                        @Value("${tracking.ingest.motion.min-dwell-ms:30000}") long minDwellMillis,
+                        @Value("${tracking.ingest.motion.dwell-update-ms:60000}") long dwellUpdateMillis,
+                        @Value("${tracking.ingest.motion.kalman.enabled:false}") boolean kalmanEnabled,
+                        @Value("${tracking.ingest.motion.kalman.process-noise-mps:3}") double processNoiseMps,
+                        @Value("${tracking.ingest.motion.kalman.accuracy-m:15}") double accuracyM,
+                        @Value("${tracking.ingest.motion.idle-minutes:10}") long idleMinutes,
+                        MeterRegistry registry) {
+        this.enabled = enabled;
+        this.minDisplacementM = minDisplacementM;
+        this.minHeadingChangeDeg = minHeadingChangeDeg;
+        this.maxGapM = maxGapM;
+        this.maxGapMillis = maxGapMillis;
+        this.maxSpeedMps = maxSpeedMps;
+        this.maxOutliers = maxOutliers;
+        this.minDwellMillis = minDwellMillis;
+        this.dwellUpdateMillis = dwellUpdateMillis;
+        this.kalmanEnabled = kalmanEnabled;
+        this.processNoiseMps = processNoiseMps;
+        this.accuracyM = accuracyM;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        for (Decision decision : Decision.values()) {
+            decisions[decision.ordinal()] = Counter.builder("tracking.ingest.motion")
+                    .description("Fixes by motion filter decision; only kept fixes are stored and broadcast")
+                    .tag("decision", decision.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Creates the motion state of one shard. Not thread-safe.
+     *
+     * @param dwellSink receives dwell updates of stored fixes
+     */
+    public Shard newShard(Consumer<LocationFix> dwellSink) {
+        return new Shard(dwellSink);
+    }
+
+    /**
+     * Great-circle distance in meters.
+     */
+    static double distanceM(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Initial bearing in degrees, 0 to 360.
+     */
+    static double bearingDeg(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+
+    private static double turnDeg(double from, double to) {
+        double turn = Math.abs(to - from) % 360;
+        return turn > 180 ? 360 - turn : turn;
+    }
+
+    private static final class Track {
+        // Last plausible raw fix, for the speed check
+        double rawLat;
+        double rawLon;
+        long rawMillis;
+        int outliersInRow;
+        // Kalman state: position and its variance in square meters
+        double lat;
+        double lon;
+        double variance = -1;
+        long filteredMillis;
+        // Last kept (stored) fix and the heading that led to it
+        LocationFix kept;
+        double heading = Double.NaN;
+        long dwellUntil;
+        long dwellReported;
+        long lastSeenNanos;
+    }
+
+    public final class Shard {
+        private final Consumer<LocationFix> dwellSink;
+        private final Map<String, Track> tracks = new HashMap<>();
+        private long nextSweep;
+
+        private Shard(Consumer<LocationFix> dwellSink) {
+            this.dwellSink = dwellSink;
+        }
+
+        /**
+         * Decides whether the fix is stored and broadcast. A kept fix may have
+         * its coordinates replaced by the smoothed position.
+         */
+        public Decision filter(LocationFix fix, long nowNanos) {
+            if (!enabled) {
+                return Decision.KEEP;
+            }
+            Track track = tracks.get(fix.surveyorId);
+            if (track == null) {
+                track = new Track();
+                tracks.put(fix.surveyorId, track);
+            }
+            track.lastSeenNanos = nowNanos;
+            Decision decision = decide(track, fix);
+            decisions[decision.ordinal()].increment();
+            return decision;
+        }
+
+        private Decision decide(Track track, LocationFix fix) {
+            if (track.kept == null) {
+                accept(track, fix);
+                smooth(track, fix);
+                keep(track, fix, Double.NaN);
+                return Decision.KEEP;
+            }
+            long elapsedMillis = fix.timestampMillis - track.rawMillis;
+            if (elapsedMillis <= 0) {
+                // Late or same-instant fix: nothing to compare it with
+                return Decision.KEEP;
+            }
+            double speed = distanceM(track.rawLat, track.rawLon, fix.latitude, fix.longitude) * 1000 / elapsedMillis;
+            if (speed > maxSpeedMps && track.outliersInRow < maxOutliers) {
+                track.outliersInRow++;
+                return Decision.OUTLIER;
+            }
+            accept(track, fix);
+            smooth(track, fix);
+
+            LocationFix kept = track.kept;
+            double moved = distanceM(kept.latitude, kept.longitude, track.lat, track.lon);
+            if (moved < minDisplacementM) {
+                track.dwellUntil = fix.timestampMillis;
+                if (dwellUpdateMillis > 0 && track.dwellUntil - track.dwellReported >= dwellUpdateMillis) {
+                    closeRun(track);
+                }
+                return Decision.STATIONARY;
+            }
+            double heading = bearingDeg(kept.latitude, kept.longitude, track.lat, track.lon);
+            boolean turned = Double.isNaN(track.heading) || turnDeg(track.heading, heading) >= minHeadingChangeDeg;
+            if (!turned && moved < maxGapM && fix.timestampMillis - kept.timestampMillis < maxGapMillis) {
+                return Decision.STRAIGHT;
+            }
+            fix.latitude = track.lat;
+            fix.longitude = track.lon;
+            keep(track, fix, heading);
+            return Decision.KEEP;
+        }
+
+        private void accept(Track track, LocationFix fix) {
+            track.rawLat = fix.latitude;
+            track.rawLon = fix.longitude;
+            track.rawMillis = fix.timestampMillis;
+            track.outliersInRow = 0;
+        }
+
+        private void smooth(Track track, LocationFix fix) {
+            if (!kalmanEnabled || track.variance < 0) {
+                track.lat = fix.latitude;
+                track.lon = fix.longitude;
+                track.variance = accuracyM * accuracyM;
+                track.filteredMillis = fix.timestampMillis;
+                return;
+            }
+            double seconds = (fix.timestampMillis - track.filteredMillis) / 1000.0;
+            track.variance += seconds * processNoiseMps * processNoiseMps;
+            double gain = track.variance / (track.variance + accuracyM * accuracyM);
+            track.lat += gain * (fix.latitude - track.lat);
+            track.lon += gain * (fix.longitude - track.lon);
+            track.variance *= 1 - gain;
+            track.filteredMillis = fix.timestampMillis;
+        }
+
+        private void keep(Track track, LocationFix fix, double heading) {
+            closeRun(track);
+            track.kept = fix;
+            track.heading = heading;
+            track.dwellUntil = fix.timestampMillis;
+            track.dwellReported = fix.timestampMillis;
+        }
+
+
+        /**
+         * Closes the stationary runs of surveyors without fixes for the idle
+         * time and forgets them, at most once per idle time.
+         */
+        public void evictIdle(long nowNanos) {
+            if (nowNanos - nextSweep < 0) {
+                return;
+            }
+            Iterator<Track> iterator = tracks.values().iterator();
+            while (iterator.hasNext()) {
+                Track track = iterator.next();
+                if (nowNanos - track.lastSeenNanos > idleNanos) {
+                    iterator.remove();
+                    closeRun(track);
+                }
+            }
+            nextSweep = nowNanos + idleNanos;
+        }
+
+        /**
+         * Reports every open stationary run, on shutdown.
+         */
+        public void flush() {
+            for (Track track : tracks.values()) {
+                closeRun(track);
+            }
+        }
+
+        /**
+         * Reports the dwell of the kept fix if it is a stop and grew since last reported.
+         */
+        private void closeRun(Track track) {
+            LocationFix kept = track.kept;
+            if (kept == null || track.dwellUntil <= track.dwellReported
+                    || track.dwellUntil - kept.timestampMillis < minDwellMillis) {
+                return;
+            }
+            LocationFix dwell = new LocationFix(kept.surveyorId, kept.latitude, kept.longitude, kept.timestampMillis);
+            dwell.dwellMillis = track.dwellUntil - kept.timestampMillis;
+            track.dwellReported = track.dwellUntil;
+            dwellSink.accept(dwell);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Producers
+ * claim a slot by advancing the tail with CAS and then publish the element;
+ * the consumer is the only thread that advances the head.
+ */
+final class MpscQueue<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    MpscQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * @return false if the queue is full
+     */
+    boolean offer(E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Consumer only.
+     *
+     * @return the next element, or null if the queue is empty
+     */
+    E poll() {
+        long current = head.get();
+        int index = (int) current & mask;
+        E element = slots.get(index);
+        if (element == null) {
+            if (current == tail.get()) {
+                return null;
+            }
+            // A producer has claimed the slot but not published yet
+            do {
+                Thread.onSpinWait();
+                element = slots.get(index);
+            } while (element == null);
+        }
+        slots.lazySet(index, null);
+        head.lazySet(current + 1);
+        return element;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
@@ -0,0 +1,195 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Puts each surveyor's fixes back into timestamp order before they are
+ * published. A fix is held for {@code tracking.ingest.reorder.lateness-ms}
+ * after it arrives; when its hold ends, it and every held fix of the same
+ * surveyor with an earlier timestamp are published oldest first. A fix older
+ * than one already published is too late: it goes to the late handler
+ * instead and is never published.
+ *
+ * State is held per ingest shard ({@link #newStripe}) and only touched by
+ * that shard's thread.
+ *
+ * Meters: {@code tracking.ingest.reorder.held} (fixes waiting),
+ * {@code tracking.ingest.reorder.corrected} (fixes that arrived after a newer
+ * one and were put back in order) and {@code tracking.ingest.reorder.late}.
+ */
+@Component
+public class ReorderBuffer {
+
+    private final boolean enabled;
+    private final long latenessNanos;
+    private final long idleNanos;
+    private final List<Stripe> stripes = new CopyOnWriteArrayList<>();
+    private final Counter corrected;
+    private final Counter late;
+
+    public ReorderBuffer(@Value("${tracking.ingest.reorder.enabled:true}") boolean enabled,
+                         @Value("${tracking.ingest.reorder.lateness-ms:500}") long latenessMillis,
+                         @Value("${tracking.ingest.reorder.idle-minutes:10}") long idleMinutes,
+                         MeterRegistry registry) {
+        this.enabled = enabled && latenessMillis > 0;
+        this.latenessNanos = TimeUnit.MILLISECONDS.toNanos(latenessMillis);
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        corrected = Counter.builder("tracking.ingest.reorder.corrected")
+                .description("Fixes that arrived after a newer fix and were published in timestamp order")
+                .register(registry);
+        late = Counter.builder("tracking.ingest.reorder.late")
+                .description("Fixes older than one already published; stored but not published")
+                .register(registry);
+        Gauge.builder("tracking.ingest.reorder.held", this, ReorderBuffer::held)
+                .description("Fixes waiting out the lateness bound")
+                .register(registry);
+    }
+
+    /**
+     * Creates the reorder state of one shard. Not thread-safe.
+     *
+     * @param publisher receives fixes in timestamp order per surveyor
+     * @param lateHandler receives fixes that arrived too late to publish
+     */
+    public Stripe newStripe(Consumer<LocationFix> publisher, Consumer<LocationFix> lateHandler) {
+        Stripe stripe = new Stripe(publisher, lateHandler);
+        stripes.add(stripe);
+        return stripe;
+    }
+
+    public int held() {
+        int held = 0;
+        for (Stripe stripe : stripes) {
+            held += stripe.held;
+        }
+        return held;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final LocationFix fix;
+        final long arrivedNanos;
+        boolean published;
+
+        Entry(LocationFix fix, long arrivedNanos) {
+            this.fix = fix;
+            this.arrivedNanos = arrivedNanos;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(fix.timestampMillis, other.fix.timestampMillis);
+        }
+    }
+
+    private static final class SurveyorOrder {
+        final PriorityQueue<Entry> held = new PriorityQueue<>();
+        long newestArrived = Long.MIN_VALUE;
+        long lastPublished = Long.MIN_VALUE;
+        long lastSeenNanos;
+    }
+
+    public final class Stripe {
+        private final Consumer<LocationFix> publisher;
+        private final Consumer<LocationFix> lateHandler;
+        private final ArrayDeque<Entry> arrivals = new ArrayDeque<>();
+        private final Map<String, SurveyorOrder> surveyors = new HashMap<>();
+        private long nextSweep;
+        private volatile int held;
+
+        private Stripe(Consumer<LocationFix> publisher, Consumer<LocationFix> lateHandler) {
+            this.publisher = publisher;
+            this.lateHandler = lateHandler;
+        }
+
+        /**
+         * Holds the fix, or publishes it right away when reordering is disabled.
+         */
+        public void add(LocationFix fix, long nowNanos) {
+            if (!enabled) {
+                publisher.accept(fix);
+                return;
+            }
+            SurveyorOrder order = surveyors.computeIfAbsent(fix.surveyorId, id -> new SurveyorOrder());
+            order.lastSeenNanos = nowNanos;
+            long timestamp = fix.timestampMillis;
+            if (timestamp <= order.lastPublished) {
+                late.increment();
+                lateHandler.accept(fix);
+                return;
+            }
+            if (timestamp < order.newestArrived) {
+                corrected.increment();
+            } else {
+                order.newestArrived = timestamp;
+            }
+            Entry entry = new Entry(fix, nowNanos);
+            order.held.add(entry);
+            arrivals.add(entry);
+            held = arrivals.size();
+        }
+
+        /**
+         * Publishes what has been held long enough and forgets idle surveyors.
+         *
+         * @return nanoseconds until the next fix is due
+         */
+        public long release(long nowNanos) {
+            release(nowNanos, false);
+            if (nowNanos - nextSweep >= 0) {
+                sweep(nowNanos);
+            }
+            return arrivals.isEmpty() ? latenessNanos : arrivals.peek().arrivedNanos + latenessNanos - nowNanos;
+        }
+
+        /**
+         * Publishes everything held, on shutdown.
+         */
+        public void flush() {
+            release(System.nanoTime(), true);
+        }
+
+        private void release(long nowNanos, boolean all) {
+            while (!arrivals.isEmpty() && (all || nowNanos - arrivals.peek().arrivedNanos >= latenessNanos)) {
+                Entry due = arrivals.poll();
+                if (due.published) {
+                    continue;
+                }
+                SurveyorOrder order = surveyors.get(due.fix.surveyorId);
+                Entry next;
+                while ((next = order.held.peek()) != null && next.compareTo(due) <= 0) {
+                    order.held.poll();
+                    next.published = true;
+                    order.lastPublished = next.fix.timestampMillis;
+                    publisher.accept(next.fix);
+                }
+            }
+            held = arrivals.size();
+        }
+
+        private void sweep(long nowNanos) {
+            Iterator<SurveyorOrder> orders = surveyors.values().iterator();
+            while (orders.hasNext()) {
+                SurveyorOrder order = orders.next();
+                if (order.held.isEmpty() && nowNanos - order.lastSeenNanos > idleNanos) {
+                    orders.remove();
+                }
+            }
+            nextSweep = nowNanos + idleNanos;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Token bucket per key (a device credential or a remote address), kept in
+ * lock-striped maps so keys rarely contend with each other. A bucket refills at {@code ratePerSecond}
+ * up to {@code burst}; full buckets that have been idle are evicted.
+ */
+public class SurveyorRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final double ratePerNano;
+    private final double burst;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public SurveyorRateLimiter(double ratePerSecond, double burst) {
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Takes a token for the key.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(burst, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(burst, bucket.tokens + (nowNanos - bucket.refilledAt) * ratePerNano);
+                bucket.refilledAt = nowNanos;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / ratePerNano);
+        }
+    }
+
+    /**
+     * Checks the key's bucket without taking a token.
+     *
+     * @return 0 if a token is available, otherwise the nanoseconds until one is
+     */
+    public long available(String key, long nowNanos) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                return 0;
+            }
+            double tokens = Math.min(burst, bucket.tokens + (nowNanos - bucket.refilledAt) * ratePerNano);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+        }
+    }
+
+    /**
+     * Drops buckets that would be full by now; they behave exactly like new ones.
+     */
+    public void evictIdle(long nowNanos) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> buckets = stripe.buckets.values().iterator();
+                while (buckets.hasNext()) {
+                    Bucket bucket = buckets.next();
+                    if (bucket.tokens + (nowNanos - bucket.refilledAt) * ratePerNano >= burst) {
+                        buckets.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class Stripe {
+        final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.neogeo.tracking.ingest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.model.TrackSegment;
+import com.neogeo.tracking.model.TrackSegment.Kind;
+
+/**
+ * Splits each surveyor's fixes into stops and trips as they arrive, with
+ * constant work per fix. Fixes within {@code tracking.segments.stop-radius-m}
+ * of their running centroid form a candidate stop; once it lasts
+ * {@code tracking.segments.min-stop-ms} it is a stop, and the fixes before it
+ * are the trip leading there. A candidate the surveyor leaves too early is
+ * folded into the trip. Trip and stop keep only running sums, so folding is
+ * constant work too.
+ *
+ * Segments go to the sink when they end and, while in progress, every
+ * {@code tracking.segments.update-ms} of fix time; the sink stores them keyed
+ * by surveyor and start time, so a later version replaces an earlier one.
+ * Surveyors without fixes for {@code tracking.segments.idle-minutes} have
+ * their open segment emitted and are forgotten.
+ *
+ * Fixes older than the surveyor's last fix are ignored. State is held per
+ * ingest shard ({@link #newShard}) and only touched by that shard's thread.
+ */
+@Component
+public class TrackSegmenter {
+
+    private final boolean enabled;
+    private final double stopRadiusM;
+    private final long minStopMillis;
+    private final long updateMillis;
+    private final long idleNanos;
+
+    public TrackSegmenter(@Value("${tracking.segments.enabled:true}") boolean enabled,
+                          @Value("${tracking.segments.stop-radius-m:30}") double stopRadiusM,
+                          @Value("${tracking.segments.min-stop-ms:120000}") long minStopMillis,
+                          @Value("${tracking.segments.update-ms:60000}") long updateMillis,
+                          @Value("${tracking.segments.idle-minutes:30}") long idleMinutes) {
+        this.enabled = enabled;
+        this.stopRadiusM = stopRadiusM;
+        this.minStopMillis = minStopMillis;
+        this.updateMillis = updateMillis;
+        this.idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+    }
+
+    /**
+     * Creates the segmentation state of one shard. Not thread-safe.
+     *
+     * @param sink receives finished and in-progress segments
+     */
+    public Shard newShard(Consumer<TrackSegment> sink) {
+        return new Shard(sink);
+    }
+
+    /**
+     * Running sums over consecutive fixes.
+     */
+    private static final class Run {
+        int count;
+        long firstMillis;
+        double firstLat;
+        double firstLon;
+        long lastMillis;
+        double lastLat;
+        double lastLon;
+        double sumLat;
+        double sumLon;
+        double distanceM;
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        void start(LocationFix fix) {
+            clear();
+            add(fix);
+        }
+
+        void add(LocationFix fix) {
+            add(fix.timestampMillis, fix.latitude, fix.longitude);
+        }
+
+        void add(long millis, double lat, double lon) {
+            if (count == 0) {
+                firstMillis = millis;
+                firstLat = lat;
+                firstLon = lon;
+            } else {
+                distanceM += MotionFilter.distanceM(lastLat, lastLon, lat, lon);
+            }
+            lastMillis = millis;
+            lastLat = lat;
+            lastLon = lon;
+            sumLat += lat;
+            sumLon += lon;
+            count++;
+        }
+
+        /**
+         * Appends all of {@code other}, which follows this run in time.
+         */
+        void append(Run other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                firstMillis = other.firstMillis;
+                firstLat = other.firstLat;
+                firstLon = other.firstLon;
+            } else {
+                distanceM += MotionFilter.distanceM(lastLat, lastLon, other.firstLat, other.firstLon);
+            }
+            distanceM += other.distanceM;
+            lastMillis = other.lastMillis;
+            lastLat = other.lastLat;
+            lastLon = other.lastLon;
+            sumLat += other.sumLat;
+            sumLon += other.sumLon;
+            count += other.count;
+        }
+
+        double centroidLat() {
+            return sumLat / count;
+        }
+
+        double centroidLon() {
+            return sumLon / count;
+        }
+
+        long durationMillis() {
+            return lastMillis - firstMillis;
+        }
+
+        void clear() {
+            count = 0;
+            sumLat = 0;
+            sumLon = 0;
+            distanceM = 0;
+        }
+    }
+
+    private static final class Track {
+        final String surveyorId;
+        // Trip so far, up to where the candidate begins
+        final Run trip = new Run();
+        // Fixes near each other: a stop once it lasts long enough
+        final Run candidate = new Run();
+        boolean stopped;
+        long emittedMillis;
+        long lastSeenNanos;
+
+        Track(String surveyorId) {
+            this.surveyorId = surveyorId;
+        }
+    }
+
+    public final class Shard {
+        private final Consumer<TrackSegment> sink;
+        private final Map<String, Track> tracks = new HashMap<>();
+        private long nextSweep;
+
+        private Shard(Consumer<TrackSegment> sink) {
+            this.sink = sink;
+        }
+
+        public void add(LocationFix fix, long nowNanos) {
+            if (!enabled) {
+                return;
+            }
+            Track track = tracks.get(fix.surveyorId);
+            if (track == null) {
+                track = new Track(fix.surveyorId);
+                tracks.put(fix.surveyorId, track);
+            }
+            track.lastSeenNanos = nowNanos;
+            Run candidate = track.candidate;
+            if (candidate.isEmpty()) {
+                candidate.start(fix);
+                track.emittedMillis = fix.timestampMillis;
+                return;
+            }
+            if (fix.timestampMillis <= candidate.lastMillis) {
+                return;
+            }
+
+            double fromCentroid = MotionFilter.distanceM(candidate.centroidLat(), candidate.centroidLon(),
+                    fix.latitude, fix.longitude);
+            if (fromCentroid <= stopRadiusM) {
+                candidate.add(fix);
+                if (!track.stopped && candidate.durationMillis() >= minStopMillis) {
+                    // The trip ends where the stop begins
+                    if (!track.trip.isEmpty()) {
+                        track.trip.add(candidate.firstMillis, candidate.firstLat, candidate.firstLon);
+                        sink.accept(trip(track, track.trip));
+                        track.trip.clear();
+                    }
+                    track.stopped = true;
+                    emitOpen(track);
+                }
+            } else if (track.stopped) {
+                sink.accept(stop(track));
+                // The next trip starts where the stop ends
+                track.trip.clear();
+                track.trip.add(candidate.lastMillis, candidate.lastLat, candidate.lastLon);
+                track.stopped = false;
+                candidate.start(fix);
+                emitOpen(track);
+            } else {
+                track.trip.append(candidate);
+                candidate.start(fix);
+            }
+            if (updateMillis > 0 && fix.timestampMillis - track.emittedMillis >= updateMillis) {
+                emitOpen(track);
+            }
+        }
+
+        private void emitOpen(Track track) {
+            track.emittedMillis = track.candidate.lastMillis;
+            if (track.stopped) {
+                sink.accept(stop(track));
+                return;
+            }
+            // Candidate fixes count as trip until they turn out to be a stop
+            Run open = new Run();
+            open.append(track.trip);
+            open.append(track.candidate);
+            if (open.count > 1) {
+                sink.accept(trip(track, open));
+            }
+        }
+
+        private TrackSegment stop(Track track) {
+            Run run = track.candidate;
+            return new TrackSegment(track.surveyorId, Kind.STOP, LocationFix.toDateTime(run.firstMillis),
+                    LocationFix.toDateTime(run.lastMillis), run.centroidLat(), run.centroidLon(), 0, 0, null, run.count);
+        }
+
+        private TrackSegment trip(Track track, Run run) {
+            long duration = run.durationMillis();
+            double speed = duration > 0 ? run.distanceM * 1000 / duration : 0;
+            double heading = MotionFilter.bearingDeg(run.firstLat, run.firstLon, run.lastLat, run.lastLon);
+            return new TrackSegment(track.surveyorId, Kind.TRIP, LocationFix.toDateTime(run.firstMillis),
+                    LocationFix.toDateTime(run.lastMillis), run.centroidLat(), run.centroidLon(), run.distanceM, speed,
+                    heading, run.count);
+        }
+
+        /**
+         * Emits and forgets the segments of surveyors without fixes for the
+         * idle time, at most once per idle time.
+         */
+        public void evictIdle(long nowNanos) {
+            if (nowNanos - nextSweep < 0) {
+                return;
+            }
+            Iterator<Track> iterator = tracks.values().iterator();
+            while (iterator.hasNext()) {
+                Track track = iterator.next();
+                if (nowNanos - track.lastSeenNanos > idleNanos) {
+                    iterator.remove();
+                    emitOpen(track);
+                }
+            }
+            nextSweep = nowNanos + idleNanos;
+        }
+
+        /**
+         * Emits every open segment, on shutdown.
+         */
+        public void flush() {
+            for (Track track : tracks.values()) {
+                emitOpen(track);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.neogeo.tracking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Basic-auth verification of an ingest request.
+ */
+@Name("com.neogeo.tracking.Auth")
+@Label("Auth Verification")
+@Category({"Surveyor Tracking", "Ingest"})
+@Description("Credential check for a posted fix")
+@Enabled(false)
+public class AuthEvent extends Event {
+
+    @Label("Surveyor ID")
+    public String surveyorId;
+
+    @Label("Authenticated")
+    public boolean authenticated;
+}
@@ -0,0 +1,26 @@
+package com.neogeo.tracking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * STOMP fan-out of an accepted fix.
+ */
+@Name("com.neogeo.tracking.Broadcast")
+@Label("STOMP Broadcast")
+@Category({"Surveyor Tracking", "WebSocket"})
+@Description("Publishing a fix to its live location topics")
+@Enabled(false)
+public class BroadcastEvent extends Event {
+
+    @Label("Surveyor ID")
+    public String surveyorId;
+
+    @Label("Binary Mirror")
+    @Description("Whether the CBOR topic was published as well")
+    public boolean binary;
+}
@@ -0,0 +1,25 @@
+package com.neogeo.tracking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A read the hot tier could not answer, timed over the fallback to the store.
+ */
+@Name("com.neogeo.tracking.CacheMiss")
+@Label("Hot Tier Miss")
+@Category({"Surveyor Tracking", "Storage"})
+@Description("Read that fell through the hot tier to the location store")
+@Enabled(false)
+public class CacheMissEvent extends Event {
+
+    @Label("Surveyor ID")
+    public String surveyorId;
+
+    @Label("Operation")
+    public String operation;
+}
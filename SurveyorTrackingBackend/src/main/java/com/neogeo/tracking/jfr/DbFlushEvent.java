@@ -0,0 +1,26 @@
+package com.neogeo.tracking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A write of fixes to the database.
+ */
+@Name("com.neogeo.tracking.DbFlush")
+@Label("DB Flush")
+@Category({"Surveyor Tracking", "Storage"})
+@Description("Fixes written to location_track in one call")
+@Enabled(false)
+public class DbFlushEvent extends Event {
+
+    @Label("Surveyor ID")
+    @Description("Surveyor of a single-fix write; null for batches")
+    public String surveyorId;
+
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,145 @@
+package com.neogeo.tracking.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Starts, dumps and stops JDK Flight Recorder recordings on a live node:
+ * <ul>
+ * <li>{@code POST /actuator/flightrecorder} starts a recording with the tracking events enabled</li>
+ * <li>{@code GET /actuator/flightrecorder} lists the recordings started here</li>
+ * <li>{@code GET /actuator/flightrecorder/{id}} downloads what has been recorded so far</li>
+ * <li>{@code DELETE /actuator/flightrecorder/{id}} stops and discards the recording</li>
+ * </ul>
+ * The tracking events are {@code @Enabled(false)}, so outside these recordings
+ * they cost a disabled-event check. Only exposed by the {@code ops} profile,
+ * on the loopback management port.
+ */
+@Component
+@Endpoint(id = "flightrecorder")
+public class FlightRecorderEndpoint {
+
+    static final List<Class<? extends Event>> TRACKING_EVENTS = List.of(
+            IngestEvent.class, AuthEvent.class, BroadcastEvent.class, DbFlushEvent.class, CacheMissEvent.class);
+
+    // JDK events that capture JVM arguments, environment variables and system properties,
+    // where datasource passwords and API keys end up
+    static final List<String> SENSITIVE_EVENTS = List.of("jdk.JVMInformation", "jdk.InitialEnvironmentVariable",
+            "jdk.InitialSystemProperty", "jdk.InitialSecurityProperty");
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    private final Path dumpDirectory;
+    private final int maxRecordings;
+
+    public FlightRecorderEndpoint(@Value("${tracking.jfr.dump-dir:${java.io.tmpdir}}") String dumpDirectory,
+                                  @Value("${tracking.jfr.max-recordings:2}") int maxRecordings) {
+        this.dumpDirectory = Path.of(dumpDirectory);
+        this.maxRecordings = maxRecordings;
+    }
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        return recordings.values().stream().map(RecordingInfo::of).toList();
+    }
+
+    /**
+     * @param settings JFR settings to combine with the tracking events: {@code default} (low overhead) or {@code profile}
+     * @param durationSeconds stop automatically after this long (default 300)
+     * @param thresholdMillis only record tracking events at least this long (default 0)
+     */
+    @WriteOperation
+    public synchronized RecordingInfo start(@Nullable String settings, @Nullable Long durationSeconds,
+                                            @Nullable Long thresholdMillis) throws IOException, ParseException {
+        // Recordings that reached their duration keep their disk chunks until closed
+        recordings.values().removeIf(recording -> {
+            RecordingState state = recording.getState();
+            if (state == RecordingState.STOPPED) {
+                recording.close();
+            }
+            return state == RecordingState.STOPPED || state == RecordingState.CLOSED;
+        });
+        long running = recordings.values().stream()
+                .filter(recording -> recording.getState() == RecordingState.RUNNING)
+                .count();
+        if (running >= maxRecordings) {
+            throw new IllegalStateException("At most " + maxRecordings + " recordings may run at once");
+        }
+
+        Recording recording = new Recording(settings(settings == null ? "default" : settings));
+        Duration threshold = Duration.ofMillis(thresholdMillis == null ? 0 : thresholdMillis);
+        for (Class<? extends Event> event : TRACKING_EVENTS) {
+            recording.enable(event).withThreshold(threshold);
+        }
+        recording.setName("tracking-" + recording.getId());
+        recording.setToDisk(true);
+        recording.setDuration(Duration.ofSeconds(durationSeconds == null ? 300 : durationSeconds));
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        return RecordingInfo.of(recording);
+    }
+
+    static Map<String, String> settings(String name) throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(name).getSettings());
+        for (String event : SENSITIVE_EVENTS) {
+            settings.put(event + "#enabled", "false");
+        }
+        return settings;
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id) throws IOException {
+        Recording recording = recordings.get(id);
+        if (recording == null || recording.getState() == RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        // One file per recording, overwritten by each dump
+        Files.createDirectories(dumpDirectory);
+        Path file = dumpDirectory.resolve(recording.getName() + ".jfr");
+        recording.dump(file);
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @DeleteOperation
+    public RecordingInfo stop(@Selector long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return null;
+        }
+        recording.close();
+        return RecordingInfo.of(recording);
+    }
+
+    public record RecordingInfo(long id, String name, String state, Instant startTime, long durationSeconds) {
+
+        static RecordingInfo of(Recording recording) {
+            Duration duration = recording.getDuration();
+            return new RecordingInfo(recording.getId(), recording.getName(), recording.getState().name(),
+                    recording.getStartTime(), duration == null ? 0 : duration.toSeconds());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.neogeo.tracking.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Handling of one location fix, from decode to response.
+ */
+@Name("com.neogeo.tracking.Ingest")
+@Label("Fix Ingest")
+@Category({"Surveyor Tracking", "Ingest"})
+@Description("Handling of a posted location fix")
+@Enabled(false)
+public class IngestEvent extends Event {
+
+    @Label("Surveyor ID")
+    public String surveyorId;
+
+    @Label("Outcome")
+    public String outcome;
+}
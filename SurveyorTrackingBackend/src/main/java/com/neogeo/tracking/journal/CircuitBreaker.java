@@ -0,0 +1,65 @@
+package com.neogeo.tracking.journal;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures
+ * in a row it opens and refuses calls for {@code openNanos}; the first call
+ * after that is a half-open probe whose outcome closes or reopens it.
+ *
+ * Calls are made from one thread; {@link #state()} may be read from any.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private volatile State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    CircuitBreaker(int failureThreshold, long openNanos) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    boolean allow(long nowNanos) {
+        if (state == State.OPEN) {
+            if (nowNanos - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if this closed an open or half-open breaker
+     */
+    boolean onSuccess() {
+        failures = 0;
+        if (state == State.CLOSED) {
+            return false;
+        }
+        state = State.CLOSED;
+        return true;
+    }
+
+    /**
+     * @return true if this opened a closed breaker
+     */
+    boolean onFailure(long nowNanos) {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            boolean opened = state == State.CLOSED;
+            state = State.OPEN;
+            openedAt = nowNanos;
+            return opened;
+        }
+        return false;
+    }
+
+    State state() {
+        return state;
+    }
+}
@@ -0,0 +1,192 @@
+package com.neogeo.tracking.journal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.store.HotTrackTier;
+import com.neogeo.tracking.store.LocationStore;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drains the {@link LocationJournal} into the {@link LocationStore} in batches
+ * of {@code tracking.journal.replay-batch}, committing the journal checkpoint
+ * after each stored batch. Replay is at-least-once: a crash between storing a
+ * batch and committing its checkpoint replays that batch again.
+ *
+ * Store failures go through a circuit breaker: after
+ * {@code tracking.journal.breaker.failure-threshold} failed batches in a row
+ * replay pauses for {@code tracking.journal.breaker.open-ms} and ingest runs
+ * journal-only until a probe batch succeeds. A batch the database rejects as
+ * invalid is retried fix by fix and the rejected fixes are dropped. Dwell
+ * updates in a batch are applied after its inserts. Stored fixes are reported
+ * to the {@link HotTrackTier} with their ids.
+ *
+ * Also forces the journal to disk every {@code tracking.journal.force-interval-ms}.
+ *
+ * Meters: {@code tracking.journal.replayed} and {@code tracking.journal.dropped}
+ * (fixes), {@code tracking.journal.breaker.state} (0 closed, 1 half-open, 2 open).
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class JournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReplayer.class);
+
+    private final LocationJournal journal;
+    private final LocationStore locationStore;
+    private final HotTrackTier hotTrackTier;
+    private final CircuitBreaker breaker;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long forceIntervalMillis;
+    private final Counter replayed;
+    private final Counter dropped;
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2,
+            new CustomizableThreadFactory("journal-"));
+
+    private final List<LocationFix> fixes = new ArrayList<>();
+    private final List<LocationFix> inserts = new ArrayList<>();
+    private final List<LocationFix> dwells = new ArrayList<>();
+    private final List<LocationTrack> batch = new ArrayList<>();
+
+    public JournalReplayer(LocationJournal journal,
+                           LocationStore locationStore,
+                           HotTrackTier hotTrackTier,
+                           @Value("${tracking.journal.replay-batch:500}") int batchSize,
+                           @Value("${tracking.journal.replay-interval-ms:200}") long intervalMillis,
+                           @Value("${tracking.journal.force-interval-ms:100}") long forceIntervalMillis,
+                           @Value("${tracking.journal.breaker.failure-threshold:3}") int failureThreshold,
+                           @Value("${tracking.journal.breaker.open-ms:10000}") long openMillis,
+                           MeterRegistry registry) {
+        this.journal = journal;
+        this.locationStore = locationStore;
+        this.hotTrackTier = hotTrackTier;
+        this.batchSize = batchSize;
+        this.intervalMillis = intervalMillis;
+        this.forceIntervalMillis = forceIntervalMillis;
+        this.breaker = new CircuitBreaker(failureThreshold, TimeUnit.MILLISECONDS.toNanos(openMillis));
+        this.replayed = Counter.builder("tracking.journal.replayed")
+                .description("Journaled fixes written to the store")
+                .register(registry);
+        this.dropped = Counter.builder("tracking.journal.dropped")
+                .description("Journaled fixes the store rejected as invalid")
+                .register(registry);
+        Gauge.builder("tracking.journal.breaker.state", breaker, b -> b.state().ordinal())
+                .description("Replay circuit breaker: 0 closed, 1 half-open, 2 open")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(this::replay, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(journal::force, forceIntervalMillis, forceIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void replay() {
+        try {
+            while (breaker.allow(System.nanoTime())) {
+                fixes.clear();
+                long from = journal.committed();
+                long to = journal.read(from, batchSize, fixes);
+                if (fixes.isEmpty()) {
+                    return;
+                }
+                if (!store()) {
+                    return;
+                }
+                journal.commit(to);
+                if (fixes.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep the task scheduled; the next run retries from the last checkpoint
+            log.error("Journal replay failed", e);
+        }
+    }
+
+    private boolean store() {
+        inserts.clear();
+        dwells.clear();
+        batch.clear();
+        for (LocationFix fix : fixes) {
+            if (fix.isDwellUpdate()) {
+                dwells.add(fix);
+            } else {
+                inserts.add(fix);
+                batch.add(fix.toEntity());
+            }
+        }
+        int stored;
+        try {
+            stored = storeBatch();
+            for (LocationFix dwell : dwells) {
+                if (locationStore.recordDwell(dwell.surveyorId, dwell.timestamp(), dwell.dwellMillis)) {
+                    hotTrackTier.recordDwell(dwell.surveyorId, dwell.timestampMillis, dwell.dwellMillis);
+                }
+            }
+            stored += dwells.size();
+        } catch (RuntimeException e) {
+            if (breaker.onFailure(System.nanoTime())) {
+                log.warn("Store unavailable, ingest is journal-only with {} bytes pending", journal.backlogBytes(), e);
+            }
+            return false;
+        }
+        if (breaker.onSuccess()) {
+            log.info("Store available again, replaying {} journaled bytes", journal.backlogBytes());
+        }
+        replayed.increment(stored);
+        return true;
+    }
+
+    private int storeBatch() {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            locationStore.appendAll(batch);
+            batch.forEach(hotTrackTier::stored);
+            return batch.size();
+        } catch (DataIntegrityViolationException e) {
+            int stored = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    // Fresh entity: the failed batch may have left ids on the old ones
+                    LocationTrack track = inserts.get(i).toEntity();
+                    locationStore.append(track);
+                    hotTrackTier.stored(track);
+                    stored++;
+                } catch (DataIntegrityViolationException rejected) {
+                    dropped.increment();
+                    log.warn("Dropping journaled fix rejected by the store: {}", inserts.get(i), rejected);
+                }
+            }
+            return stored;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
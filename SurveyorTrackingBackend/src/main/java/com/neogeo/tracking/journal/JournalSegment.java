@@ -0,0 +1,53 @@
+package com.neogeo.tracking.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One preallocated, memory-mapped journal file. Unwritten space is zero, so a
+ * zero record length marks the end of the segment's records.
+ */
+final class JournalSegment {
+
+    static final String SUFFIX = ".seg";
+
+    final long index;
+    final Path path;
+    final MappedByteBuffer buffer;
+
+    private JournalSegment(long index, Path path, MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    static Path path(Path directory, long index) {
+        return directory.resolve(String.format("%020d%s", index, SUFFIX));
+    }
+
+    static long index(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Maps a segment for appending, creating and preallocating the file if needed.
+     */
+    static JournalSegment openForWrite(Path directory, long index, int size) throws IOException {
+        Path path = path(directory, index);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new JournalSegment(index, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    static JournalSegment openForRead(Path directory, long index) throws IOException {
+        Path path = path(directory, index);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new JournalSegment(index, path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+}
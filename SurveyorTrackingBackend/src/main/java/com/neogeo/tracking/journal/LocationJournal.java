@@ -0,0 +1,348 @@
+package com.neogeo.tracking.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only local journal of accepted fixes, so a fix survives a slow or
+ * unavailable database. Fixes are appended to memory-mapped segment files of
+ * {@code tracking.journal.segment-size-mb} under {@code tracking.journal.dir};
+ * {@link JournalReplayer} drains them into the store and commits a checkpoint,
+ * after which fully replayed segments are deleted.
+ *
+ * A record is {@code [int payloadLength][int crc32c][short idLength][id][double latitude]
+ * [double longitude][long timestampMillis]}, followed by {@code [long dwellMillis]} for a
+ * dwell update ({@link LocationFix#isDwellUpdate()}). On startup the newest segment is
+ * scanned and anything after its last intact record is discarded.
+ *
+ * A record that fails its checksum in the middle of the journal (bit rot, a
+ * bad sector) is skipped rather than retried forever: the reader resumes at
+ * the next intact record, or the next segment if there is none, and keeps a
+ * copy of the damaged segment as {@code <segment>.corrupt} for inspection.
+ *
+ * Positions are packed as {@code segment << 32 | offset}. Appends are
+ * serialized; there is a single reader, the replayer.
+ *
+ * Meters: {@code tracking.journal.append} (append latency),
+ * {@code tracking.journal.backlog} (bytes not yet replayed) and
+ * {@code tracking.journal.corrupt} (bytes skipped as corrupt).
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.journal.enabled", havingValue = "true", matchIfMissing = true)
+public class LocationJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationJournal.class);
+
+    static final int HEADER = 8;
+    static final int MAX_ID_BYTES = 1024;
+    private static final int FIELDS = 2 + 8 + 8 + 8;
+    private static final int DWELL = 8;
+    private static final int MAX_PAYLOAD = MAX_ID_BYTES + FIELDS + DWELL;
+    private static final String CHECKPOINT = "checkpoint";
+    static final String CORRUPT_SUFFIX = ".corrupt";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Timer appendTimer;
+    private final Counter corruptBytes;
+
+    private final Object writeLock = new Object();
+    private final ByteBuffer record = ByteBuffer.allocate(HEADER + MAX_PAYLOAD);
+    private final CRC32C writeCrc = new CRC32C();
+    private JournalSegment head;
+
+    private volatile long written;
+    private volatile long committed;
+    private long oldestSegment;
+
+    // Reader state, used by the replayer thread only
+    private final CRC32C readCrc = new CRC32C();
+    private JournalSegment reading;
+
+    public LocationJournal(@Value("${tracking.journal.dir:data/journal}") String directory,
+                           @Value("${tracking.journal.segment-size-mb:64}") int segmentSizeMb,
+                           MeterRegistry registry) throws IOException {
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.appendTimer = Timer.builder("tracking.journal.append")
+                .description("Time to append a fix to the local journal")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.corruptBytes = Counter.builder("tracking.journal.corrupt")
+                .description("Journal bytes skipped because their records failed the checksum")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("tracking.journal.backlog", this, LocationJournal::backlogBytes)
+                .description("Journal bytes not yet replayed into the store")
+                .baseUnit("bytes")
+                .register(registry);
+        recover();
+    }
+
+    static long position(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    static long segment(long position) {
+        return position >>> 32;
+    }
+
+    static int offset(long position) {
+        return (int) position;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(f -> f.getFileName().toString().endsWith(JournalSegment.SUFFIX))
+                    .map(JournalSegment::index)
+                    .sorted()
+                    .toList();
+        }
+        long newest = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        oldestSegment = segments.isEmpty() ? 0 : segments.get(0);
+        head = JournalSegment.openForWrite(directory, newest, segmentSize);
+        int end = validEnd(head.buffer);
+        // Zero whatever a torn append left behind so readers stop at the end
+        for (int i = end, limit = Math.min(segmentSize, end + record.capacity()); i < limit; i++) {
+            head.buffer.put(i, (byte) 0);
+        }
+        head.buffer.position(end);
+        written = position(newest, end);
+
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        long stored = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+        committed = Math.min(Math.max(stored, position(oldestSegment, 0)), written);
+        if (committed < written) {
+            log.info("Journal has {} bytes to replay from segment {}", backlogBytes(), segment(committed));
+        }
+    }
+
+    /**
+     * Returns the end of the last intact record. A damaged record followed by
+     * intact ones is left for the reader to skip; only a torn tail is cut.
+     */
+    private int validEnd(ByteBuffer segment) {
+        int limit = segment.limit();
+        int offset = 0;
+        int end = 0;
+        while (offset + HEADER <= limit && segment.getInt(offset) != 0) {
+            if (intact(readCrc, segment, offset, limit)) {
+                offset += HEADER + segment.getInt(offset);
+                end = offset;
+            } else {
+                offset = nextIntact(segment, offset + 1, limit);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Checks that the record at offset has a plausible length, fits before
+     * limit, matches its checksum and decodes.
+     */
+    static boolean intact(CRC32C crc, ByteBuffer buffer, int offset, int limit) {
+        if (offset < 0 || offset + HEADER > limit) {
+            return false;
+        }
+        int length = buffer.getInt(offset);
+        if (length < FIELDS || length > MAX_PAYLOAD || length > limit - offset - HEADER
+                || checksum(crc, buffer, offset + HEADER, length) != buffer.getInt(offset + 4)) {
+            return false;
+        }
+        int idLength = buffer.getShort(offset + HEADER);
+        return idLength >= 0 && (length == FIELDS + idLength || length == FIELDS + idLength + DWELL);
+    }
+
+    /**
+     * @return the offset of the first intact record at or after from, or limit if there is none
+     */
+    private int nextIntact(ByteBuffer buffer, int from, int limit) {
+        for (int offset = from; offset + HEADER <= limit; offset++) {
+            if (intact(readCrc, buffer, offset, limit)) {
+                return offset;
+            }
+        }
+        return limit;
+    }
+
+    private static int checksum(CRC32C crc, ByteBuffer buffer, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Appends the fix; once this returns it survives a process crash.
+     *
+     * @throws IllegalArgumentException if the surveyor ID is longer than {@link #MAX_ID_BYTES}
+     */
+    public void append(LocationFix fix) throws IOException {
+        long start = System.nanoTime();
+        byte[] id = fix.surveyorId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Surveyor ID too long");
+        }
+        int length = FIELDS + id.length + (fix.isDwellUpdate() ? DWELL : 0);
+        synchronized (writeLock) {
+            record.clear().position(HEADER);
+            record.putShort((short) id.length).put(id)
+                    .putDouble(fix.latitude).putDouble(fix.longitude).putLong(fix.timestampMillis);
+            if (fix.isDwellUpdate()) {
+                record.putLong(fix.dwellMillis);
+            }
+            writeCrc.reset();
+            writeCrc.update(record.array(), HEADER, length);
+            record.putInt(0, length).putInt(4, (int) writeCrc.getValue());
+
+            if (head.buffer.remaining() < HEADER + length) {
+                roll();
+            }
+            head.buffer.put(record.array(), 0, HEADER + length);
+            written = position(head.index, head.buffer.position());
+        }
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void roll() throws IOException {
+        head.buffer.force();
+        head = JournalSegment.openForWrite(directory, head.index + 1, segmentSize);
+    }
+
+    /**
+     * Flushes appended records to disk, so they also survive an OS crash.
+     */
+    public void force() {
+        MappedByteBuffer buffer;
+        synchronized (writeLock) {
+            buffer = head.buffer;
+        }
+        buffer.force();
+    }
+
+    /**
+     * Reads up to {@code max} fixes starting at {@code from}, a position returned
+     * by {@link #committed()} or a previous read.
+     *
+     * @return the position after the last fix read
+     */
+    long read(long from, int max, List<LocationFix> into) throws IOException {
+        long end = written;
+        long position = from;
+        while (into.size() < max && position < end) {
+            long segment = segment(position);
+            int offset = offset(position);
+            ByteBuffer buffer = readSegment(segment).buffer;
+            if (offset + HEADER > buffer.limit() || buffer.getInt(offset) == 0) {
+                // Rest of a finished segment is unused
+                position = position(segment + 1, 0);
+                continue;
+            }
+            // Records of the segment being written end at the write position
+            boolean finished = segment < segment(end);
+            int limit = finished ? buffer.limit() : offset(end);
+            if (!intact(readCrc, buffer, offset, limit)) {
+                position = skipCorrupt(segment, offset, limit, finished);
+                continue;
+            }
+            int length = buffer.getInt(offset);
+            into.add(decode(buffer, offset + HEADER, length));
+            position = position(segment, offset + HEADER + length);
+        }
+        return position;
+    }
+
+    private long skipCorrupt(long segment, int offset, int limit, boolean finished) throws IOException {
+        JournalSegment damaged = readSegment(segment);
+        int next = nextIntact(damaged.buffer, offset + 1, limit);
+        Path copy = damaged.path.resolveSibling(damaged.path.getFileName() + CORRUPT_SUFFIX);
+        if (!Files.exists(copy)) {
+            Files.copy(damaged.path, copy);
+        }
+        corruptBytes.increment(next - offset);
+        log.error("Skipping {} corrupt journal bytes at segment {} offset {}, segment copied to {}",
+                next - offset, segment, offset, copy);
+        // Nothing intact left in a finished segment: carry on with the next one
+        return next == limit && finished ? position(segment + 1, 0) : position(segment, next);
+    }
+
+    private JournalSegment readSegment(long segment) throws IOException {
+        if (reading == null || reading.index != segment) {
+            reading = JournalSegment.openForRead(directory, segment);
+        }
+        return reading;
+    }
+
+    private static LocationFix decode(ByteBuffer buffer, int offset, int length) {
+        int idLength = buffer.getShort(offset);
+        byte[] id = new byte[idLength];
+        buffer.get(offset + 2, id);
+        int fields = offset + 2 + idLength;
+        LocationFix fix = new LocationFix(new String(id, StandardCharsets.UTF_8),
+                buffer.getDouble(fields), buffer.getDouble(fields + 8), buffer.getLong(fields + 16));
+        if (length == FIELDS + idLength + DWELL) {
+            fix.dwellMillis = buffer.getLong(fields + 24);
+        }
+        return fix;
+    }
+
+    /**
+     * Records that everything before {@code position} is in the store and
+     * deletes the segments that are now fully replayed.
+     */
+    void commit(long position) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temp, Long.toString(position));
+        Files.move(temp, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        committed = position;
+
+        long current = segment(position);
+        for (; oldestSegment < current; oldestSegment++) {
+            Files.deleteIfExists(JournalSegment.path(directory, oldestSegment));
+        }
+    }
+
+    long committed() {
+        return committed;
+    }
+
+    long written() {
+        return written;
+    }
+
+    public long backlogBytes() {
+        long from = committed;
+        long to = written;
+        return (segment(to) - segment(from)) * segmentSize + offset(to) - offset(from);
+    }
+
+    @PreDestroy
+    public void close() {
+        force();
+    }
+}
@@ -0,0 +1,23 @@
+package com.neogeo.tracking.lanes;
+
+/**
+ * Resource lanes. Each lane has its own connection pool and, for reads, its
+ * own executor, so a burst in one cannot take the threads or connections
+ * another needs.
+ */
+public enum Lane {
+    /** Location writes; runs on request threads behind the ingest admission filter. */
+    INGEST,
+    /** Small, latency-sensitive reads: latest positions, statuses, filters. */
+    LIVE,
+    /** Track history scans and analytics. */
+    HISTORY,
+    /** Track file exports, which hold a cursor for the whole download; see {@code TrackExporter}. */
+    EXPORT,
+    /** Bulk imports, which hold a connection per file being copied; see {@code BulkImporter}. */
+    IMPORT;
+
+    public String key() {
+        return name().toLowerCase();
+    }
+}
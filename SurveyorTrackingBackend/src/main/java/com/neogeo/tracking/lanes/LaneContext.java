@@ -0,0 +1,45 @@
+package com.neogeo.tracking.lanes;
+
+/**
+ * The lane the current thread is working for. Threads that never set one,
+ * such as request threads handling ingest, are in {@link Lane#INGEST}.
+ */
+public final class LaneContext {
+
+    private static final ThreadLocal<Lane> CURRENT = new ThreadLocal<>();
+
+    private LaneContext() {
+    }
+
+    public static Lane current() {
+        Lane lane = CURRENT.get();
+        return lane == null ? Lane.INGEST : lane;
+    }
+
+    /**
+     * Runs the work on the calling thread with the lane set, for background
+     * jobs that own their threads.
+     */
+    public static void run(Lane lane, Runnable work) {
+        Lane previous = enter(lane);
+        try {
+            work.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static Lane enter(Lane lane) {
+        Lane previous = CURRENT.get();
+        CURRENT.set(lane);
+        return previous;
+    }
+
+    static void restore(Lane previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
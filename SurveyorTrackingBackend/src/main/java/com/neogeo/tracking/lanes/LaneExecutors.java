@@ -0,0 +1,81 @@
+package com.neogeo.tracking.lanes;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded executors for the read lanes, sized by
+ * {@code tracking.lanes.<lane>.threads} and {@code .queue}. Work submitted
+ * here runs with its lane set, so it also draws connections from that lane's
+ * pool. A full queue rejects immediately instead of piling up requests.
+ *
+ * Pool and queue meters are published as {@code executor.*{name=lane.<lane>}}.
+ */
+@Component
+public class LaneExecutors {
+
+    private final Map<Lane, ExecutorService> executors = new EnumMap<>(Lane.class);
+    private final Map<Lane, ThreadPoolExecutor> pools = new EnumMap<>(Lane.class);
+
+    public LaneExecutors(Environment environment, MeterRegistry registry) {
+        create(Lane.LIVE, environment, registry, 16, 200);
+        create(Lane.HISTORY, environment, registry, 4, 20);
+    }
+
+    private void create(Lane lane, Environment environment, MeterRegistry registry, int defaultThreads, int defaultQueue) {
+        String prefix = "tracking.lanes." + lane.key() + ".";
+        int threads = environment.getProperty(prefix + "threads", Integer.class, defaultThreads);
+        int queue = environment.getProperty(prefix + "queue", Integer.class, defaultQueue);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), new CustomizableThreadFactory("lane-" + lane.key() + "-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        pools.put(lane, pool);
+        executors.put(lane, ExecutorServiceMetrics.monitor(registry, pool, "lane." + lane.key(), Tags.of("lane", lane.key())));
+    }
+
+    /**
+     * Runs the work on the lane's executor.
+     *
+     * @throws RejectedExecutionException if the lane's queue is full
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, Supplier<T> work) {
+        ExecutorService executor = executors.get(lane);
+        if (executor == null) {
+            throw new IllegalArgumentException("No executor for lane " + lane);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            Lane previous = LaneContext.enter(lane);
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                LaneContext.restore(previous);
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+}
@@ -0,0 +1,14 @@
+package com.neogeo.tracking.lanes;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections from the pool of the current thread's lane.
+ */
+public class LaneRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return LaneContext.current();
+    }
+}
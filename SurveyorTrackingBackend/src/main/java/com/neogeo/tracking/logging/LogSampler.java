@@ -0,0 +1,89 @@
+package com.neogeo.tracking.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-category sampling for log events that would otherwise fire once per
+ * fix. {@code tracking.logging.sample-rate.<category>=N} keeps one event in
+ * N (1 keeps all, 0 drops all; default 1000). Logged and dropped events are
+ * counted in {@code tracking.logging.events}, so the volume a category would
+ * produce stays visible after sampling. The depth of the async appender's
+ * queue is published as {@code tracking.logging.async.queue}.
+ *
+ * Callers look up their {@link Category} once and keep it in a field.
+ */
+@Component
+public class LogSampler {
+
+    static final long DEFAULT_RATE = 1000;
+
+    private final Map<String, Long> rates;
+    private final MeterRegistry registry;
+    private final Map<String, Category> categories = new ConcurrentHashMap<>();
+
+    public LogSampler(Environment environment, MeterRegistry registry) {
+        this.rates = Binder.get(environment)
+                .bind("tracking.logging.sample-rate", Bindable.mapOf(String.class, Long.class))
+                .orElse(Map.of());
+        this.registry = registry;
+
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context
+                && context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).getAppender("ASYNC") instanceof AsyncAppender async) {
+            Gauge.builder("tracking.logging.async.queue", async, AsyncAppender::getNumberOfElementsInQueue)
+                    .description("Log events waiting in the async appender")
+                    .register(registry);
+        }
+    }
+
+    public Category category(String name) {
+        return categories.computeIfAbsent(name, n -> new Category(n, rates.getOrDefault(n, DEFAULT_RATE), registry));
+    }
+
+    /**
+     * A sampled stream of log events.
+     */
+    public static final class Category {
+        private final long rate;
+        private final AtomicLong seen = new AtomicLong();
+        private final Counter logged;
+        private final Counter dropped;
+
+        Category(String name, long rate, MeterRegistry registry) {
+            this.rate = rate;
+            this.logged = Counter.builder("tracking.logging.events")
+                    .description("Sampled log events, by category and result")
+                    .tag("category", name)
+                    .tag("result", "logged")
+                    .register(registry);
+            this.dropped = Counter.builder("tracking.logging.events")
+                    .description("Sampled log events, by category and result")
+                    .tag("category", name)
+                    .tag("result", "dropped")
+                    .register(registry);
+        }
+
+        /**
+         * Returns true for the events that should be written. Call it only
+         * after the logger's level check, so disabled levels are not counted.
+         */
+        public boolean sample() {
+            boolean keep = rate > 0 && seen.getAndIncrement() % rate == 0;
+            (keep ? logged : dropped).increment();
+            return keep;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.neogeo.tracking.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Live STOMP subscription counts per topic family. Destinations carry the
+ * surveyor ID, so they are folded into {@code location}, {@code location_cbor}
+ * and {@code other} instead of being used as tags.
+ */
+@Component
+public class StompSubscriptionMetrics {
+
+    enum Topic {
+        LOCATION("/topic/location/"),
+        LOCATION_CBOR("/topic/location-cbor/"),
+        OTHER("");
+
+        private final String prefix;
+
+        Topic(String prefix) {
+            this.prefix = prefix;
+        }
+
+        static Topic of(String destination) {
+            if (destination != null) {
+                for (Topic topic : values()) {
+                    if (destination.startsWith(topic.prefix)) {
+                        return topic;
+                    }
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    private final AtomicInteger[] counts = new AtomicInteger[Topic.values().length];
+    // session ID -> subscription ID -> topic, to release counts on unsubscribe and disconnect
+    private final Map<String, Map<String, Topic>> sessions = new ConcurrentHashMap<>();
+
+    public StompSubscriptionMetrics(MeterRegistry registry) {
+        for (Topic topic : Topic.values()) {
+            AtomicInteger count = new AtomicInteger();
+            counts[topic.ordinal()] = count;
+            Gauge.builder("tracking.stomp.subscriptions", count, AtomicInteger::get)
+                    .description("Active STOMP subscriptions")
+                    .tag("topic", TrackingMetrics.tagValue(topic))
+                    .register(registry);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        if (headers.getSessionId() == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        Topic topic = Topic.of(headers.getDestination());
+        Topic previous = sessions.computeIfAbsent(headers.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), topic);
+        if (previous != null) {
+            counts[previous.ordinal()].decrementAndGet();
+        }
+        counts[topic.ordinal()].incrementAndGet();
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, Topic> subscriptions = headers.getSessionId() == null ? null : sessions.get(headers.getSessionId());
+        if (subscriptions == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        Topic topic = subscriptions.remove(headers.getSubscriptionId());
+        if (topic != null) {
+            counts[topic.ordinal()].decrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, Topic> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(topic -> counts[topic.ordinal()].decrementAndGet());
+        }
+    }
+}
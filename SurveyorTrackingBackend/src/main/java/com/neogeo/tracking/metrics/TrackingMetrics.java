@@ -0,0 +1,151 @@
+package com.neogeo.tracking.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.service.SurveyorService;
+import com.neogeo.tracking.store.HotTrackTier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Application meters for ingest, storage and query paths. Every meter is
+ * registered up front and held in a field (indexed by enum ordinal where a
+ * tag varies), so recording never goes through a registry lookup.
+ *
+ * Tags are limited to fixed value sets; surveyor IDs are never used as tags.
+ */
+@Component
+public class TrackingMetrics {
+
+    /**
+     * Timed steps of accepting a fix.
+     */
+    public enum Stage {
+        AUTH, BROADCAST, PERSIST, HOT_TIER
+    }
+
+    /**
+     * How an ingest request ended.
+     */
+    public enum Outcome {
+        ACCEPTED, DUPLICATE, UNAUTHORIZED, INVALID, BUSY, ERROR
+    }
+
+    /**
+     * Where a read was answered from.
+     */
+    public enum Source {
+        HOT_TIER, STORE
+    }
+
+    private final Timer ingestLatency;
+    private final Timer[] stageLatency = new Timer[Stage.values().length];
+    private final Counter[] ingestOutcomes = new Counter[Outcome.values().length];
+    private final DistributionSummary storeBatchSize;
+    private final Counter hotTierRangeHits;
+    private final Counter hotTierRangeMisses;
+    private final Counter hotTierLatestHits;
+    private final Counter hotTierLatestMisses;
+    private final DistributionSummary[] trackQueryRows = new DistributionSummary[Source.values().length];
+
+    public TrackingMetrics(MeterRegistry registry, SurveyorService surveyorService, HotTrackTier hotTrackTier) {
+        ingestLatency = latencyTimer("tracking.ingest.latency", "End-to-end handling of a location fix")
+                .register(registry);
+        for (Stage stage : Stage.values()) {
+            stageLatency[stage.ordinal()] = latencyTimer("tracking.ingest.stage.latency", "Time spent per ingest stage")
+                    .tag("stage", tagValue(stage))
+                    .register(registry);
+        }
+        for (Outcome outcome : Outcome.values()) {
+            ingestOutcomes[outcome.ordinal()] = Counter.builder("tracking.ingest.fixes")
+                    .description("Location fixes received, by outcome")
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry);
+        }
+
+        storeBatchSize = DistributionSummary.builder("tracking.store.batch.size")
+                .description("Fixes written to the database per write call")
+                .baseUnit("fixes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000.0)
+                .register(registry);
+
+        hotTierRangeHits = cacheCounter(registry, "range", "hit");
+        hotTierRangeMisses = cacheCounter(registry, "range", "miss");
+        hotTierLatestHits = cacheCounter(registry, "latest", "hit");
+        hotTierLatestMisses = cacheCounter(registry, "latest", "miss");
+
+        for (Source source : Source.values()) {
+            trackQueryRows[source.ordinal()] = DistributionSummary.builder("tracking.query.track.rows")
+                    .description("Fixes returned per track history query")
+                    .baseUnit("fixes")
+                    .tag("source", tagValue(source))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1.0)
+                    .maximumExpectedValue(1_000_000.0)
+                    .register(registry);
+        }
+
+        Gauge.builder("tracking.surveyors.online", surveyorService, SurveyorService::countOnline)
+                .description("Surveyors active within the online timeout")
+                .register(registry);
+        Gauge.builder("tracking.hot_tier.memory", hotTrackTier, HotTrackTier::usedBytes)
+                .description("Bytes reserved by hot tier buffers")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public void recordIngest(Outcome outcome, long startNanos) {
+        ingestOutcomes[outcome.ordinal()].increment();
+        ingestLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordStage(Stage stage, long startNanos) {
+        stageLatency[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatch(int size) {
+        storeBatchSize.record(size);
+    }
+
+    public void recordHotTierRange(boolean hit) {
+        (hit ? hotTierRangeHits : hotTierRangeMisses).increment();
+    }
+
+    public void recordHotTierLatest(boolean hit) {
+        (hit ? hotTierLatestHits : hotTierLatestMisses).increment();
+    }
+
+    public void recordTrackQuery(Source source, int rows) {
+        trackQueryRows[source.ordinal()].record(rows);
+    }
+
+    private static Timer.Builder latencyTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10));
+    }
+
+    private static Counter cacheCounter(MeterRegistry registry, String operation, String result) {
+        return Counter.builder("tracking.cache.requests")
+                .description("Hot tier lookups, by operation and result")
+                .tag("cache", "hot_tier")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase();
+    }
+}
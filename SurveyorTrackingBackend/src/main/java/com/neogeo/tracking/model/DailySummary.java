@@ -0,0 +1,132 @@
+package com.neogeo.tracking.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * One surveyor's day, maintained at ingest. An instance handed to the store
+ * is a delta: its sums are added to the stored row and its bounds widen it.
+ */
+@Entity
+@Table(name = "DailySummary",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_daily_summary_surveyor_day", columnNames = {"surveyorId", "summaryDay"}),
+        indexes = @Index(name = "idx_daily_summary_day", columnList = "summaryDay"))
+public class DailySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "surveyorId", nullable = false)
+    private String surveyorId;
+
+    @Column(name = "summaryDay", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "firstFix", nullable = false)
+    private LocalDateTime firstFix;
+
+    @Column(name = "lastFix", nullable = false)
+    private LocalDateTime lastFix;
+
+    // Haversine odometer over stored fixes
+    @Column(name = "distanceMeters", nullable = false)
+    private double distanceMeters;
+
+    // Sum of gaps between fixes no longer than the active gap
+    @Column(name = "activeMillis", nullable = false)
+    private long activeMillis;
+
+    @Column(name = "pointCount", nullable = false)
+    private int pointCount;
+
+    @Column(name = "minLatitude", nullable = false)
+    private double minLatitude;
+
+    @Column(name = "minLongitude", nullable = false)
+    private double minLongitude;
+
+    @Column(name = "maxLatitude", nullable = false)
+    private double maxLatitude;
+
+    @Column(name = "maxLongitude", nullable = false)
+    private double maxLongitude;
+
+    // Constructors
+    public DailySummary() {}
+
+    public DailySummary(String surveyorId, LocalDate day, LocalDateTime firstFix, LocalDateTime lastFix,
+                        double distanceMeters, long activeMillis, int pointCount,
+                        double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        this.surveyorId = surveyorId;
+        this.day = day;
+        this.firstFix = firstFix;
+        this.lastFix = lastFix;
+        this.distanceMeters = distanceMeters;
+        this.activeMillis = activeMillis;
+        this.pointCount = pointCount;
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getSurveyorId() {
+        return surveyorId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public LocalDateTime getFirstFix() {
+        return firstFix;
+    }
+
+    public LocalDateTime getLastFix() {
+        return lastFix;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public long getActiveMillis() {
+        return activeMillis;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+}
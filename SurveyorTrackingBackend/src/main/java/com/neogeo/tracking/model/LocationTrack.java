@@ -10,9 +10,12 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "LocationTrack")
+// One row per surveyor and timestamp: backstop for retried fixes the ingest dedupe window missed
+@Table(name = "LocationTrack", uniqueConstraints = @UniqueConstraint(
+        name = "uk_location_track_surveyor_timestamp", columnNames = {"surveyorId", "timestamp"}))
 public class LocationTrack {
 
     @Id
@@ -34,6 +37,10 @@ public class LocationTrack {
     @Column(name = "geom", columnDefinition = "geometry(Point, 4326)")
     private Point geom;
 
+    // How long the surveyor stayed here; later stationary fixes are collapsed into this row
+    @Column(name = "dwellMillis", nullable = false, columnDefinition = "bigint default 0")
+    private long dwellMillis;
+
     // Constructors
     public LocationTrack() {}
 
@@ -50,6 +57,10 @@ public class LocationTrack {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getSurveyorId() {
         return surveyorId;
     }
@@ -89,5 +100,13 @@ public class LocationTrack {
     public void setGeom(Point geom) {
         this.geom = geom;
     }
+
+    public long getDwellMillis() {
+        return dwellMillis;
+    }
+
+    public void setDwellMillis(long dwellMillis) {
+        this.dwellMillis = dwellMillis;
+    }
 }
 
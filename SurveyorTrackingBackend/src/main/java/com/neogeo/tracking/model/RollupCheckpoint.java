@@ -0,0 +1,63 @@
+package com.neogeo.tracking.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * How far the rollup builder has read the location track: ids up to
+ * {@code lastId} are rolled up, and ids up to {@code backfillTo} were present
+ * before the first run and are rolled up by the backfill.
+ */
+@Entity
+@Table(name = "RollupCheckpoint")
+public class RollupCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "lastId", nullable = false)
+    private long lastId;
+
+    @Column(name = "backfillTo", nullable = false)
+    private long backfillTo;
+
+    @Column(name = "backfilled", nullable = false)
+    private boolean backfilled;
+
+    // Constructors
+    public RollupCheckpoint() {}
+
+    public RollupCheckpoint(String name, long lastId) {
+        this.name = name;
+        this.lastId = lastId;
+        this.backfillTo = lastId;
+    }
+
+    // Getters and setters
+    public String getName() {
+        return name;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(long lastId) {
+        this.lastId = lastId;
+    }
+
+    public long getBackfillTo() {
+        return backfillTo;
+    }
+
+    public boolean isBackfilled() {
+        return backfilled;
+    }
+
+    public void setBackfilled(boolean backfilled) {
+        this.backfilled = backfilled;
+    }
+}
@@ -0,0 +1,93 @@
+package com.neogeo.tracking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * One surveyor's fixes in a fixed time bucket, built in the background from
+ * the stored track for long-range history views. The bucket's first fix is
+ * its representative point.
+ */
+@Entity
+@Table(name = "TrackRollup", uniqueConstraints = @UniqueConstraint(
+        name = "uk_track_rollup_surveyor_resolution_bucket",
+        columnNames = {"surveyorId", "resolutionSeconds", "bucketStart"}))
+public class TrackRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "surveyorId", nullable = false)
+    private String surveyorId;
+
+    @Column(name = "resolutionSeconds", nullable = false)
+    private int resolutionSeconds;
+
+    @Column(name = "bucketStart", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // Timestamp of the representative point
+    @Column(name = "pointTime", nullable = false)
+    private LocalDateTime pointTime;
+
+    @Column(name = "latitude", nullable = false)
+    private double latitude;
+
+    @Column(name = "longitude", nullable = false)
+    private double longitude;
+
+    @Column(name = "pointCount", nullable = false)
+    private int pointCount;
+
+    // Haversine path length between the bucket's own fixes
+    @Column(name = "distanceMeters", nullable = false)
+    private double distanceMeters;
+
+    // Constructors
+    public TrackRollup() {}
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getSurveyorId() {
+        return surveyorId;
+    }
+
+    public int getResolutionSeconds() {
+        return resolutionSeconds;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public LocalDateTime getPointTime() {
+        return pointTime;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+}
@@ -0,0 +1,139 @@
+package com.neogeo.tracking.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * A stop or trip of one surveyor, derived from its fixes at ingest. A
+ * segment still in progress is rewritten as it grows, keyed by surveyor and
+ * start time.
+ */
+@Entity
+@Table(name = "TrackSegment", uniqueConstraints = @UniqueConstraint(
+        name = "uk_track_segment_surveyor_start", columnNames = {"surveyorId", "startTime"}))
+public class TrackSegment {
+
+    public enum Kind {
+        STOP, TRIP
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "surveyorId", nullable = false)
+    private String surveyorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false, length = 8)
+    private Kind kind;
+
+    @Column(name = "startTime", nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(name = "endTime", nullable = false)
+    private LocalDateTime endTime;
+
+    @Column(name = "centroidLatitude", nullable = false)
+    private double centroidLatitude;
+
+    @Column(name = "centroidLongitude", nullable = false)
+    private double centroidLongitude;
+
+    // Path length; zero for stops
+    @Column(name = "distanceMeters", nullable = false)
+    private double distanceMeters;
+
+    @Column(name = "averageSpeedMps", nullable = false)
+    private double averageSpeedMps;
+
+    // Bearing from start to end; null for stops
+    @Column(name = "headingDegrees")
+    private Double headingDegrees;
+
+    @Column(name = "pointCount", nullable = false)
+    private int pointCount;
+
+    // Constructors
+    public TrackSegment() {}
+
+    public TrackSegment(String surveyorId, Kind kind, LocalDateTime startTime, LocalDateTime endTime,
+                        double centroidLatitude, double centroidLongitude, double distanceMeters,
+                        double averageSpeedMps, Double headingDegrees, int pointCount) {
+        this.surveyorId = surveyorId;
+        this.kind = kind;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.centroidLatitude = centroidLatitude;
+        this.centroidLongitude = centroidLongitude;
+        this.distanceMeters = distanceMeters;
+        this.averageSpeedMps = averageSpeedMps;
+        this.headingDegrees = headingDegrees;
+        this.pointCount = pointCount;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getSurveyorId() {
+        return surveyorId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public double getCentroidLatitude() {
+        return centroidLatitude;
+    }
+
+    public double getCentroidLongitude() {
+        return centroidLongitude;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public double getAverageSpeedMps() {
+        return averageSpeedMps;
+    }
+
+    public Double getHeadingDegrees() {
+        return headingDegrees;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TrackSegment{" +
+                "surveyorId='" + surveyorId + '\'' +
+                ", kind=" + kind +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", pointCount=" + pointCount +
+                '}';
+    }
+}
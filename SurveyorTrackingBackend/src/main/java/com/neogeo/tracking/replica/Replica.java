@@ -0,0 +1,51 @@
+package com.neogeo.tracking.replica;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.neogeo.tracking.lanes.Lane;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * A read replica with one pool per read lane and the replication lag last
+ * measured by {@link ReplicaLagMonitor}. Until the first measurement, or while
+ * the replica is unreachable, the lag is {@link Long#MAX_VALUE} so no reads are
+ * routed to it.
+ */
+public final class Replica {
+
+    public static final long UNAVAILABLE = Long.MAX_VALUE;
+
+    private final String name;
+    private final Map<Lane, HikariDataSource> pools;
+    private volatile long lagMillis = UNAVAILABLE;
+
+    Replica(String name, Map<Lane, HikariDataSource> pools) {
+        this.name = name;
+        this.pools = pools;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the replica's pool for a read lane, or null if the lane never reads from replicas
+     */
+    public DataSource pool(Lane lane) {
+        return pools.get(lane);
+    }
+
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    void lagMillis(long lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+
+    void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
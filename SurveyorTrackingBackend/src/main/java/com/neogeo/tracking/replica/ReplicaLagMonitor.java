@@ -0,0 +1,85 @@
+package com.neogeo.tracking.replica;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.lanes.Lane;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Measures each replica's replication lag every
+ * {@code tracking.replicas.lag-check-ms}. A replica that has replayed all WAL
+ * it received counts as caught up; otherwise the lag is the age of the last
+ * replayed transaction. Unreachable replicas, and replicas whose WAL receiver
+ * is not streaming from the primary (they would look caught up while falling
+ * behind), are marked unavailable.
+ *
+ * Lag is published as {@code tracking.replica.lag{replica}} in milliseconds
+ * (-1 while unavailable).
+ */
+@Component
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // NULL unless the WAL receiver is streaming. Its status is only visible with pg_read_all_stats;
+    // without it, a running receiver counts as streaming.
+    static final String LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE COALESCE(status, 'streaming') = 'streaming')"
+            + " THEN NULL"
+            + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final ReplicaSet replicas;
+
+    public ReplicaLagMonitor(ReplicaSet replicas, MeterRegistry registry) {
+        this.replicas = replicas;
+        for (Replica replica : replicas.replicas()) {
+            Gauge.builder("tracking.replica.lag", replica,
+                            r -> r.lagMillis() == Replica.UNAVAILABLE ? -1 : r.lagMillis())
+                    .description("Replication lag of the replica")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.replicas.lag-check-ms:1000}")
+    public void check() {
+        for (Replica replica : replicas.replicas()) {
+            long lag = measure(replica);
+            if (lag == Replica.UNAVAILABLE && replica.lagMillis() != Replica.UNAVAILABLE) {
+                log.warn("Replica {} unavailable, its reads go to the primary", replica.name());
+            } else if (lag != Replica.UNAVAILABLE && replica.lagMillis() == Replica.UNAVAILABLE) {
+                log.info("Replica {} available, lag {} ms", replica.name(), lag);
+            }
+            replica.lagMillis(lag);
+        }
+    }
+
+    private static long measure(Replica replica) {
+        try (Connection connection = replica.pool(Lane.LIVE).getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                if (!result.next()) {
+                    return Replica.UNAVAILABLE;
+                }
+                double lag = result.getDouble(1);
+                return result.wasNull() ? Replica.UNAVAILABLE : Math.max(0, Math.round(lag));
+            }
+        } catch (SQLException e) {
+            log.debug("Lag check failed for replica {}", replica.name(), e);
+            return Replica.UNAVAILABLE;
+        }
+    }
+}
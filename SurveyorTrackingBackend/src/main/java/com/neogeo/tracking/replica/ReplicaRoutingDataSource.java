@@ -0,0 +1,93 @@
+package com.neogeo.tracking.replica;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneContext;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work running in a read lane to
+ * a replica whose lag is within that lane's budget
+ * ({@code tracking.replicas.max-lag-ms.<lane>}), round-robin across replicas.
+ * Writes, ingest-lane reads and reads no replica is fresh enough for go to the
+ * primary. The live lane's budget is kept small so latest-position reads fall
+ * back to the primary as soon as replication falls behind.
+ *
+ * The read-only flag is only known once the transaction has started, so this
+ * must sit behind a {@code LazyConnectionDataSourceProxy}.
+ *
+ * Routing decisions are counted as {@code tracking.replica.reads{lane, target}}.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Map<Lane, Long> maxLagMillis;
+    private final Map<Lane, Counter> replicaReads = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> primaryReads = new EnumMap<>(Lane.class);
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaSet replicas, Map<Lane, Long> maxLagMillis,
+                                    MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas.replicas();
+        this.maxLagMillis = new EnumMap<>(maxLagMillis);
+        for (Lane lane : ReplicaSet.READ_LANES) {
+            replicaReads.put(lane, reads(registry, lane, "replica"));
+            primaryReads.put(lane, reads(registry, lane, "primary"));
+        }
+    }
+
+    private static Counter reads(MeterRegistry registry, Lane lane, String target) {
+        return Counter.builder("tracking.replica.reads")
+                .description("Read-only transactions in a read lane by the server they were routed to")
+                .tag("lane", lane.key())
+                .tag("target", target)
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    DataSource target() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary;
+        }
+        Lane lane = LaneContext.current();
+        Long budget = maxLagMillis.get(lane);
+        if (budget == null) {
+            return primary;
+        }
+        int count = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((first + i) % count);
+            if (replica.lagMillis() <= budget) {
+                replicaReads.get(lane).increment();
+                return replica.pool(lane);
+            }
+        }
+        primaryReads.get(lane).increment();
+        return primary;
+    }
+}
@@ -0,0 +1,57 @@
+package com.neogeo.tracking.replica;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import com.neogeo.tracking.lanes.Lane;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * The configured read replicas ({@code tracking.replicas.urls}). Empty when
+ * none are configured, in which case every read stays on the primary.
+ */
+public final class ReplicaSet implements AutoCloseable {
+
+    /** Lanes whose read-only transactions may be served by a replica. */
+    public static final List<Lane> READ_LANES = List.of(Lane.LIVE, Lane.HISTORY, Lane.EXPORT);
+
+    private final List<Replica> replicas;
+
+    private ReplicaSet(List<Replica> replicas) {
+        this.replicas = List.copyOf(replicas);
+    }
+
+    /**
+     * @param pools creates the pool of a replica URL for a lane
+     */
+    public static ReplicaSet of(List<String> urls, BiFunction<String, Lane, HikariDataSource> pools) {
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica" + i;
+            Map<Lane, HikariDataSource> lanePools = new EnumMap<>(Lane.class);
+            for (Lane lane : READ_LANES) {
+                HikariDataSource pool = pools.apply(urls.get(i), lane);
+                pool.setPoolName(name + "-" + lane.key());
+                lanePools.put(lane, pool);
+            }
+            replicas.add(new Replica(name, lanePools));
+        }
+        return new ReplicaSet(replicas);
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(Replica::close);
+    }
+}
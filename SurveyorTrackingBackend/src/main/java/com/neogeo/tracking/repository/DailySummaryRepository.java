@@ -0,0 +1,39 @@
+package com.neogeo.tracking.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.neogeo.tracking.model.DailySummary;
+
+public interface DailySummaryRepository extends JpaRepository<DailySummary, Long> {
+
+    List<DailySummary> findByDayOrderBySurveyorIdAsc(LocalDate day);
+
+    List<DailySummary> findBySurveyorIdAndDayBetweenOrderByDayAsc(String surveyorId, LocalDate from, LocalDate to);
+
+    /**
+     * Adds the delta's sums to the stored day and widens its bounds.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_summary (surveyor_id, summary_day, first_fix, last_fix, distance_meters, "
+            + "active_millis, point_count, min_latitude, min_longitude, max_latitude, max_longitude) "
+            + "VALUES (:#{#d.surveyorId}, :#{#d.day}, :#{#d.firstFix}, :#{#d.lastFix}, :#{#d.distanceMeters}, "
+            + ":#{#d.activeMillis}, :#{#d.pointCount}, :#{#d.minLatitude}, :#{#d.minLongitude}, "
+            + ":#{#d.maxLatitude}, :#{#d.maxLongitude}) "
+            + "ON CONFLICT (surveyor_id, summary_day) DO UPDATE SET "
+            + "first_fix = LEAST(daily_summary.first_fix, EXCLUDED.first_fix), "
+            + "last_fix = GREATEST(daily_summary.last_fix, EXCLUDED.last_fix), "
+            + "distance_meters = daily_summary.distance_meters + EXCLUDED.distance_meters, "
+            + "active_millis = daily_summary.active_millis + EXCLUDED.active_millis, "
+            + "point_count = daily_summary.point_count + EXCLUDED.point_count, "
+            + "min_latitude = LEAST(daily_summary.min_latitude, EXCLUDED.min_latitude), "
+            + "min_longitude = LEAST(daily_summary.min_longitude, EXCLUDED.min_longitude), "
+            + "max_latitude = GREATEST(daily_summary.max_latitude, EXCLUDED.max_latitude), "
+            + "max_longitude = GREATEST(daily_summary.max_longitude, EXCLUDED.max_longitude)", nativeQuery = true)
+    void merge(@Param("d") DailySummary delta);
+}
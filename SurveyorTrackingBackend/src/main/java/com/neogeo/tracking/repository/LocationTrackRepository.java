@@ -3,11 +3,18 @@ package com.neogeo.tracking.repository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.neogeo.tracking.model.LocationTrack;
 
+import jakarta.persistence.QueryHint;
+
 public interface LocationTrackRepository extends JpaRepository<LocationTrack, Long> {
 
     List<LocationTrack> findBySurveyorIdOrderByTimestampAsc(String surveyorId);
@@ -15,4 +22,30 @@ public interface LocationTrackRepository extends JpaRepository<LocationTrack, Lo
     List<LocationTrack> findBySurveyorIdAndTimestampBetweenOrderByTimestampAsc(String surveyorId, LocalDateTime start, LocalDateTime end);
 
     Optional<LocationTrack> findTopBySurveyorIdOrderByTimestampDesc(String surveyorId);
+
+    Optional<LocationTrack> findTopBySurveyorIdOrderByTimestampAsc(String surveyorId);
+
+    List<LocationTrack> findBySurveyorIdAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(
+            String surveyorId, LocalDateTime start, LocalDateTime end);
+
+    List<LocationTrack> findByLatitudeBetweenAndLongitudeBetweenAndTimestampBetweenOrderByTimestampAsc(
+            double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+            LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Streams from a database cursor; needs a transaction, and callers detach
+     * each row to keep memory flat.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<LocationTrack> streamBySurveyorIdAndTimestampBetweenOrderByTimestampAsc(
+            String surveyorId, LocalDateTime start, LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    Stream<LocationTrack> streamBySurveyorIdOrderByTimestampAsc(String surveyorId);
+
+    @Modifying
+    @Query("update LocationTrack t set t.dwellMillis = :dwellMillis "
+            + "where t.surveyorId = :surveyorId and t.timestamp = :timestamp and t.dwellMillis < :dwellMillis")
+    int updateDwell(@Param("surveyorId") String surveyorId, @Param("timestamp") LocalDateTime timestamp,
+                    @Param("dwellMillis") long dwellMillis);
 }
@@ -0,0 +1,8 @@
+package com.neogeo.tracking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.neogeo.tracking.model.RollupCheckpoint;
+
+public interface RollupCheckpointRepository extends JpaRepository<RollupCheckpoint, String> {
+}
@@ -0,0 +1,61 @@
+package com.neogeo.tracking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.neogeo.tracking.model.TrackRollup;
+
+public interface TrackRollupRepository extends JpaRepository<TrackRollup, Long> {
+
+    List<TrackRollup> findBySurveyorIdAndResolutionSecondsAndBucketStartBetweenOrderByBucketStartAsc(
+            String surveyorId, int resolutionSeconds, LocalDateTime start, LocalDateTime end);
+
+    long countBySurveyorIdAndResolutionSecondsAndBucketStartBetween(
+            String surveyorId, int resolutionSeconds, LocalDateTime start, LocalDateTime end);
+
+    @Query("select coalesce(sum(r.pointCount), 0) from TrackRollup r where r.surveyorId = :surveyorId "
+            + "and r.resolutionSeconds = :resolutionSeconds and r.bucketStart between :start and :end")
+    long sumPointCount(@Param("surveyorId") String surveyorId, @Param("resolutionSeconds") int resolutionSeconds,
+                       @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query(value = "SELECT coalesce(max(id), 0) FROM location_track", nativeQuery = true)
+    long maxTrackId();
+
+    @Query(value = "SELECT current_setting('server_version_num')::int", nativeQuery = true)
+    int serverVersionNum();
+
+    /**
+     * Recomputes every bucket of the given resolution from {@code notBefore}
+     * on that holds a fix with an id in (fromId, toId], from all of the
+     * bucket's fixes, so reruns and overlapping chunks are harmless.
+     */
+    @Modifying
+    @Query(value = "WITH touched AS ("
+            + "SELECT DISTINCT surveyor_id, "
+            + "date_bin(make_interval(secs => :seconds), timestamp, TIMESTAMP '2000-01-01') AS bucket_start "
+            + "FROM location_track WHERE id > :fromId AND id <= :toId AND timestamp >= :notBefore), "
+            + "points AS ("
+            + "SELECT t.surveyor_id, b.bucket_start, t.timestamp AS point_time, t.latitude, t.longitude, "
+            + "LAG(t.latitude) OVER w AS prev_latitude, LAG(t.longitude) OVER w AS prev_longitude "
+            + "FROM touched b JOIN location_track t ON t.surveyor_id = b.surveyor_id "
+            + "AND t.timestamp >= b.bucket_start AND t.timestamp < b.bucket_start + make_interval(secs => :seconds) "
+            + "WINDOW w AS (PARTITION BY t.surveyor_id, b.bucket_start ORDER BY t.timestamp)) "
+            + "INSERT INTO track_rollup (surveyor_id, resolution_seconds, bucket_start, point_time, latitude, "
+            + "longitude, point_count, distance_meters) "
+            + "SELECT surveyor_id, :seconds, bucket_start, min(point_time), "
+            + "(array_agg(latitude ORDER BY point_time))[1], (array_agg(longitude ORDER BY point_time))[1], "
+            + "count(*), coalesce(sum(2 * 6371008.8 * asin(least(1, sqrt("
+            + "power(sin(radians(latitude - prev_latitude) / 2), 2) + cos(radians(prev_latitude)) "
+            + "* cos(radians(latitude)) * power(sin(radians(longitude - prev_longitude) / 2), 2))))), 0) "
+            + "FROM points GROUP BY surveyor_id, bucket_start "
+            + "ON CONFLICT (surveyor_id, resolution_seconds, bucket_start) DO UPDATE SET "
+            + "point_time = EXCLUDED.point_time, latitude = EXCLUDED.latitude, longitude = EXCLUDED.longitude, "
+            + "point_count = EXCLUDED.point_count, distance_meters = EXCLUDED.distance_meters", nativeQuery = true)
+    int rollUp(@Param("seconds") int seconds, @Param("fromId") long fromId, @Param("toId") long toId,
+               @Param("notBefore") LocalDateTime notBefore);
+}
@@ -0,0 +1,35 @@
+package com.neogeo.tracking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.neogeo.tracking.model.TrackSegment;
+
+public interface TrackSegmentRepository extends JpaRepository<TrackSegment, Long> {
+
+    List<TrackSegment> findBySurveyorIdOrderByStartTimeAsc(String surveyorId);
+
+    /**
+     * Segments overlapping [start, end], oldest first.
+     */
+    List<TrackSegment> findBySurveyorIdAndEndTimeGreaterThanEqualAndStartTimeLessThanEqualOrderByStartTimeAsc(
+            String surveyorId, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @Query(value = "INSERT INTO track_segment (surveyor_id, kind, start_time, end_time, centroid_latitude, "
+            + "centroid_longitude, distance_meters, average_speed_mps, heading_degrees, point_count) "
+            + "VALUES (:#{#s.surveyorId}, :#{#s.kind.name()}, :#{#s.startTime}, :#{#s.endTime}, "
+            + ":#{#s.centroidLatitude}, :#{#s.centroidLongitude}, :#{#s.distanceMeters}, "
+            + ":#{#s.averageSpeedMps}, :#{#s.headingDegrees}, :#{#s.pointCount}) "
+            + "ON CONFLICT (surveyor_id, start_time) DO UPDATE SET kind = EXCLUDED.kind, "
+            + "end_time = EXCLUDED.end_time, centroid_latitude = EXCLUDED.centroid_latitude, "
+            + "centroid_longitude = EXCLUDED.centroid_longitude, distance_meters = EXCLUDED.distance_meters, "
+            + "average_speed_mps = EXCLUDED.average_speed_mps, heading_degrees = EXCLUDED.heading_degrees, "
+            + "point_count = EXCLUDED.point_count", nativeQuery = true)
+    void upsert(@Param("s") TrackSegment segment);
+}
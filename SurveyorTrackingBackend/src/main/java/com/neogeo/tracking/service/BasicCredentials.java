@@ -0,0 +1,47 @@
+package com.neogeo.tracking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Username and password carried in an HTTP Basic Authorization header.
+ */
+public final class BasicCredentials {
+
+    public static final String PREFIX = "Basic ";
+
+    private final String username;
+    private final String password;
+
+    private BasicCredentials(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * @param authHeader header value starting with {@link #PREFIX}
+     * @return the credentials, or null if the decoded value has no ':' separator
+     * @throws IllegalArgumentException if the value is not valid Base64
+     */
+    public static BasicCredentials parse(String authHeader) {
+        String base64Credentials = authHeader.substring(PREFIX.length());
+        String credentials = new String(Base64.getDecoder().decode(base64Credentials), StandardCharsets.UTF_8);
+        int separator = credentials.indexOf(':');
+        if (separator < 0) {
+            return null;
+        }
+        return new BasicCredentials(credentials.substring(0, separator), credentials.substring(separator + 1));
+    }
+
+    public static boolean isBasic(String authHeader) {
+        return authHeader != null && authHeader.startsWith(PREFIX);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+}
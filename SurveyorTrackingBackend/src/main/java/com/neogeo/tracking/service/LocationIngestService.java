@@ -0,0 +1,311 @@
+package com.neogeo.tracking.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.WebSocketConfig;
+import com.neogeo.tracking.codec.LocationFixCodec;
+import com.neogeo.tracking.ingest.DailySummarizer;
+import com.neogeo.tracking.ingest.DuplicateFilter;
+import com.neogeo.tracking.ingest.IngestShards;
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.ingest.MotionFilter;
+import com.neogeo.tracking.ingest.ReorderBuffer;
+import com.neogeo.tracking.ingest.TrackSegmenter;
+import com.neogeo.tracking.jfr.BroadcastEvent;
+import com.neogeo.tracking.journal.LocationJournal;
+import com.neogeo.tracking.logging.LogSampler;
+import com.neogeo.tracking.metrics.TrackingMetrics;
+import com.neogeo.tracking.metrics.TrackingMetrics.Stage;
+import com.neogeo.tracking.store.HotTrackTier;
+import com.neogeo.tracking.store.LocationStore;
+import com.neogeo.tracking.store.SegmentWriter;
+import com.neogeo.tracking.store.SummaryWriter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Fan-out of an accepted fix: STOMP broadcast, storage and the hot tier.
+ * Each fix is handled on its surveyor's {@link IngestShards} thread, which
+ * owns all of the surveyor's ingest state:
+ * <ul>
+ * <li>retries of a fix already seen are dropped ({@link DuplicateFilter});</li>
+ * <li>outliers and redundant stationary or straight-line fixes are dropped
+ * ({@link MotionFilter});</li>
+ * <li>every plausible fix feeds stop/trip segmentation ({@link TrackSegmenter})
+ * and daily totals ({@link DailySummarizer});</li>
+ * <li>the fix is stored before the request is answered;</li>
+ * <li>broadcast and the hot tier receive each surveyor's fixes in timestamp
+ * order ({@link ReorderBuffer}).</li>
+ * </ul>
+ * With the local journal enabled, storage is a journal append and the fix
+ * reaches the store through the journal replayer. Without it, the shard hands
+ * the database write (and later dwell updates) to its own store thread, in
+ * order, and the request is answered once the write is done; the shard thread
+ * never waits on the database. A full store queue
+ * ({@code tracking.ingest.shards.store-queue}) rejects the fix like a full
+ * shard queue.
+ */
+@Service
+public class LocationIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationIngestService.class);
+
+    private static final long SHARD_TIMEOUT_SECONDS = 10;
+    private static final CompletableFuture<Boolean> ACCEPTED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> DROPPED = CompletableFuture.completedFuture(false);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LocationStore locationStore;
+    private final LocationJournal journal;
+    private final HotTrackTier hotTrackTier;
+    private final LocationFixCodec codec;
+    private final DuplicateFilter duplicateFilter;
+    private final MotionFilter motionFilter;
+    private final ReorderBuffer reorderBuffer;
+    private final TrackSegmenter segmenter;
+    private final SegmentWriter segmentWriter;
+    private final DailySummarizer summarizer;
+    private final SummaryWriter summaryWriter;
+    private final IngestShards shards;
+    private final TrackingMetrics metrics;
+    private final LogSampler.Category fixLog;
+    private final boolean binaryTopicEnabled;
+    private final int storeQueue;
+
+    public LocationIngestService(SimpMessagingTemplate messagingTemplate,
+                                 LocationStore locationStore,
+                                 ObjectProvider<LocationJournal> journal,
+                                 HotTrackTier hotTrackTier,
+                                 LocationFixCodec codec,
+                                 DuplicateFilter duplicateFilter,
+                                 MotionFilter motionFilter,
+                                 ReorderBuffer reorderBuffer,
+                                 TrackSegmenter segmenter,
+                                 SegmentWriter segmentWriter,
+                                 DailySummarizer summarizer,
+                                 SummaryWriter summaryWriter,
+                                 IngestShards shards,
+                                 TrackingMetrics metrics,
+                                 LogSampler logSampler,
+                                 @Value("${tracking.stomp.binary-topic-enabled:false}") boolean binaryTopicEnabled,
+                                 @Value("${tracking.ingest.shards.store-queue:1024}") int storeQueue) {
+        this.messagingTemplate = messagingTemplate;
+        this.locationStore = locationStore;
+        this.journal = journal.getIfAvailable();
+        this.hotTrackTier = hotTrackTier;
+        this.codec = codec;
+        this.duplicateFilter = duplicateFilter;
+        this.motionFilter = motionFilter;
+        this.reorderBuffer = reorderBuffer;
+        this.segmenter = segmenter;
+        this.segmentWriter = segmentWriter;
+        this.summarizer = summarizer;
+        this.summaryWriter = summaryWriter;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.fixLog = logSampler.category("ingest.fix");
+        this.binaryTopicEnabled = binaryTopicEnabled;
+        this.storeQueue = storeQueue;
+    }
+
+    @PostConstruct
+    void startShards() {
+        shards.start(ShardWorker::new);
+    }
+
+    /**
+     * Runs the fix through its surveyor's ingest shard and waits for the result.
+     *
+     * @return false if the fix was a duplicate and has been dropped
+     * @throws RejectedExecutionException if the shard's queue is full
+     */
+    public boolean ingest(LocationFix fix) throws IOException {
+        CompletableFuture<Boolean> result = shards.submit(fix);
+        try {
+            return result.get(SHARD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Ingest shard failed", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for ingest shard", e);
+        } catch (TimeoutException e) {
+            throw new IOException("Ingest shard did not answer", e);
+        }
+    }
+
+    /**
+     * Per-shard ingest state, used only by the shard's thread.
+     */
+    private final class ShardWorker implements IngestShards.Worker {
+        private final DuplicateFilter.Shard dedupe = duplicateFilter.newShard();
+        private final MotionFilter.Shard motion = motionFilter.newShard(this::storeDwell);
+        private final TrackSegmenter.Shard segments = segmenter.newShard(segmentWriter::offer);
+        private final DailySummarizer.Shard summaries = summarizer.newShard(summaryWriter::offer);
+        // Fixes too late to publish in order only reach the hot tier, so history reads stay complete
+        private final ReorderBuffer.Stripe order = reorderBuffer.newStripe(LocationIngestService.this::publish,
+                hotTrackTier::append);
+        // Database writes when there is no journal; one thread keeps each surveyor's writes in order
+        private final ThreadPoolExecutor store;
+
+        ShardWorker(int shard) {
+            store = journal != null ? null : new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(storeQueue), new CustomizableThreadFactory("ingest-store-" + shard + "-"));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> process(LocationFix fix, long nowNanos) throws IOException {
+            if (!dedupe.firstSeen(fix, nowNanos)) {
+                return DROPPED;
+            }
+            MotionFilter.Decision decision = motion.filter(fix, nowNanos);
+            if (decision != MotionFilter.Decision.OUTLIER) {
+                segments.add(fix, nowNanos);
+                summaries.add(fix, decision == MotionFilter.Decision.KEEP, nowNanos);
+            }
+            if (decision != MotionFilter.Decision.KEEP) {
+                // Acknowledged, but neither stored nor broadcast
+                return ACCEPTED;
+            }
+
+            // 1. Save to DB (geom set to null to avoid PostGIS error), through the journal when enabled
+            CompletableFuture<Boolean> stored = ACCEPTED;
+            if (journal != null) {
+                long start = System.nanoTime();
+                journal.append(fix);
+                metrics.recordStage(Stage.PERSIST, start);
+            } else {
+                // Throws RejectedExecutionException (503) when the store queue is full
+                stored = CompletableFuture.supplyAsync(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        hotTrackTier.stored(fix, locationStore.append(fix));
+                    } catch (DataIntegrityViolationException e) {
+                        // Retry older than the dedupe window, caught by the unique (surveyorId, timestamp) constraint
+                        duplicateFilter.storeDuplicate();
+                    }
+                    metrics.recordStage(Stage.PERSIST, start);
+                    return true;
+                }, store);
+            }
+
+            // 2. Broadcast and hot tier once the fix is in timestamp order (see publish); the reorder
+            // buffer's lateness normally outlasts the store write
+            order.add(fix, nowNanos);
+
+            if (log.isDebugEnabled() && fixLog.sample()) {
+                log.atDebug().setMessage("Fix accepted")
+                        .addKeyValue("surveyorId", fix.surveyorId)
+                        .addKeyValue("latitude", fix.latitude)
+                        .addKeyValue("longitude", fix.longitude)
+                        .addKeyValue("timestampMillis", fix.timestampMillis)
+                        .log();
+            }
+            return stored;
+        }
+
+        private void storeDwell(LocationFix dwell) {
+            try {
+                if (journal != null) {
+                    journal.append(dwell);
+                } else {
+                    // After the stop's first fix, which is ahead in the same queue
+                    store.execute(() -> recordDwell(dwell));
+                }
+            } catch (IOException | RuntimeException e) {
+                // The stored fix stays, only its dwell is short
+                log.error("Failed to record dwell of {}", dwell, e);
+            }
+        }
+
+        private void recordDwell(LocationFix dwell) {
+            try {
+                if (locationStore.recordDwell(dwell.surveyorId, dwell.timestamp(), dwell.dwellMillis)) {
+                    hotTrackTier.recordDwell(dwell.surveyorId, dwell.timestampMillis, dwell.dwellMillis);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to record dwell of {}", dwell, e);
+            }
+        }
+
+        @Override
+        public long tick(long nowNanos) {
+            dedupe.evictIdle(nowNanos);
+            motion.evictIdle(nowNanos);
+            segments.evictIdle(nowNanos);
+            return Math.min(summaries.tick(nowNanos), order.release(nowNanos));
+        }
+
+        @Override
+        public void flush() {
+            motion.flush();
+            segments.flush();
+            summaries.flush();
+            order.flush();
+            if (store != null) {
+                store.shutdown();
+                try {
+                    if (!store.awaitTermination(SHARD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        log.warn("{} queued writes not stored at shutdown", store.getQueue().size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void publish(LocationFix fix) {
+        // Broadcast via WebSocket as JSON string
+        long start = System.nanoTime();
+        BroadcastEvent broadcast = new BroadcastEvent();
+        broadcast.begin();
+        try {
+            messagingTemplate.convertAndSend("/topic/location/" + fix.surveyorId, codec.encode(fix));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (binaryTopicEnabled) {
+            // Same fix as CBOR for clients that subscribe to the binary topic
+            messagingTemplate.convertAndSend("/topic/location-cbor/" + fix.surveyorId, fix.toMessage(),
+                    Map.of(MessageHeaders.CONTENT_TYPE, WebSocketConfig.CBOR));
+        }
+        metrics.recordStage(Stage.BROADCAST, start);
+        broadcast.end();
+        if (broadcast.shouldCommit()) {
+            broadcast.surveyorId = fix.surveyorId;
+            broadcast.binary = binaryTopicEnabled;
+            broadcast.commit();
+        }
+
+        // Keep the fix in the in-memory hot tier for recent history reads
+        start = System.nanoTime();
+        hotTrackTier.append(fix);
+        metrics.recordStage(Stage.HOT_TIER, start);
+    }
+}
@@ -75,6 +75,16 @@ public class SurveyorService {
         return secondsSinceLastActivity <= ONLINE_TIMEOUT_SECONDS;
     }
     
+    /**
+     * Counts surveyors whose last activity is within the online timeout
+     */
+    public long countOnline() {
+        long cutoff = Instant.now().getEpochSecond() - ONLINE_TIMEOUT_SECONDS;
+        return lastActivityMap.values().stream()
+                .filter(lastActivity -> lastActivity.getEpochSecond() >= cutoff)
+                .count();
+    }
+    
     /**
      * Gets the online status of all surveyors
      * @return A map of surveyor IDs to their online status
@@ -1,42 +1,72 @@
 package com.neogeo.tracking.service;
 
+import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Scope;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import com.neogeo.tracking.tracing.OperationSampler;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spans around GPS, database, external API and WebSocket operations.
+ *
+ * Kept cheap for unsampled requests: span names are cached, attributes are
+ * only set once the span is known to be recording, and operations whose
+ * sampling ratio is 0 skip the tracer entirely unless a sampled trace is
+ * already in progress.
+ */
 @Service
 public class TracingService {
 
-    @Autowired
-    private Tracer tracer;
+    private static final AttributeKey<String> SURVEYOR_ID = AttributeKey.stringKey("surveyor.id");
+    private static final AttributeKey<Long> GPS_DATA_POINTS = AttributeKey.longKey("gps.data_points");
+    private static final AttributeKey<String> OPERATION_TYPE = AttributeKey.stringKey("operation.type");
+    private static final AttributeKey<Boolean> OPERATION_SUCCESS = AttributeKey.booleanKey("operation.success");
+    private static final AttributeKey<String> ERROR_MESSAGE = AttributeKey.stringKey("error.message");
+    private static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+    private static final AttributeKey<String> ROUTE_START_LAT = AttributeKey.stringKey("route.start.lat");
+    private static final AttributeKey<String> ROUTE_START_LON = AttributeKey.stringKey("route.start.lon");
+    private static final AttributeKey<String> ROUTE_END_LAT = AttributeKey.stringKey("route.end.lat");
+    private static final AttributeKey<String> ROUTE_END_LON = AttributeKey.stringKey("route.end.lon");
+    private static final AttributeKey<String> DB_OPERATION = AttributeKey.stringKey("db.operation");
+    private static final AttributeKey<String> DB_TABLE = AttributeKey.stringKey("db.table");
+    private static final AttributeKey<String> EXTERNAL_API = AttributeKey.stringKey("external.api");
+    private static final AttributeKey<String> EXTERNAL_ENDPOINT = AttributeKey.stringKey("external.endpoint");
+    private static final AttributeKey<String> WEBSOCKET_OPERATION = AttributeKey.stringKey("websocket.operation");
+    private static final AttributeKey<String> WEBSOCKET_TOPIC = AttributeKey.stringKey("websocket.topic");
+
+    private final Tracer tracer;
+    private final OperationSampler sampler;
+    private final SpanNames gpsSpans = new SpanNames("gps.");
+    private final SpanNames dbSpans = new SpanNames("db.");
+    private final SpanNames externalSpans = new SpanNames("external.");
+    private final SpanNames websocketSpans = new SpanNames("websocket.");
+
+    public TracingService(Tracer tracer, OperationSampler sampler) {
+        this.tracer = tracer;
+        this.sampler = sampler;
+    }
 
     /**
      * Trace GPS data processing operations
      */
     public <T> T traceGpsOperation(String operationName, String surveyorId, 
                                    int dataPointsCount, TracedOperation<T> operation) {
-        Span span = tracer.spanBuilder("gps." + operationName)
-                .setAttribute("surveyor.id", surveyorId)
-                .setAttribute("gps.data_points", dataPointsCount)
-                .setAttribute("operation.type", "gps_processing")
-                .startSpan();
-
-        try (Scope scope = span.makeCurrent()) {
-            T result = operation.execute();
-            span.setAttribute("operation.success", true);
-            return result;
-        } catch (RuntimeException e) {
-            span.setAttribute("operation.success", false)
-                .setAttribute("error.message", e.getMessage())
-                .setAttribute("error.type", e.getClass().getSimpleName());
-            throw e;
-        } finally {
-            span.end();
+        String spanName = gpsSpans.get(operationName);
+        if (skip(spanName)) {
+            return operation.execute();
         }
+        Span span = tracer.spanBuilder(spanName).startSpan();
+        if (span.isRecording()) {
+            span.setAttribute(SURVEYOR_ID, surveyorId)
+                .setAttribute(GPS_DATA_POINTS, (long) dataPointsCount)
+                .setAttribute(OPERATION_TYPE, "gps_processing");
+        }
+        return run(span, operation);
     }
 
     /**
@@ -45,26 +75,18 @@ public class TracingService {
     public <T> T traceRouteCalculation(String startLat, String startLon, 
                                        String endLat, String endLon, 
                                        TracedOperation<T> operation) {
-        Span span = tracer.spanBuilder("route.calculate")
-                .setAttribute("route.start.lat", startLat)
-                .setAttribute("route.start.lon", startLon)
-                .setAttribute("route.end.lat", endLat)
-                .setAttribute("route.end.lon", endLon)
-                .setAttribute("operation.type", "route_calculation")
-                .startSpan();
-
-        try (Scope scope = span.makeCurrent()) {
-            T result = operation.execute();
-            span.setAttribute("operation.success", true);
-            return result;
-        } catch (RuntimeException e) {
-            span.setAttribute("operation.success", false)
-                .setAttribute("error.message", e.getMessage())
-                .setAttribute("error.type", e.getClass().getSimpleName());
-            throw e;
-        } finally {
-            span.end();
+        if (skip("route.calculate")) {
+            return operation.execute();
+        }
+        Span span = tracer.spanBuilder("route.calculate").startSpan();
+        if (span.isRecording()) {
+            span.setAttribute(ROUTE_START_LAT, startLat)
+                .setAttribute(ROUTE_START_LON, startLon)
+                .setAttribute(ROUTE_END_LAT, endLat)
+                .setAttribute(ROUTE_END_LON, endLon)
+                .setAttribute(OPERATION_TYPE, "route_calculation");
         }
+        return run(span, operation);
     }
 
     /**
@@ -72,24 +94,17 @@ public class TracingService {
      */
     public <T> T traceDatabaseOperation(String operationType, String tableName, 
                                         TracedOperation<T> operation) {
-        Span span = tracer.spanBuilder("db." + operationType)
-                .setAttribute("db.operation", operationType)
-                .setAttribute("db.table", tableName)
-                .setAttribute("operation.type", "database")
-                .startSpan();
-
-        try (Scope scope = span.makeCurrent()) {
-            T result = operation.execute();
-            span.setAttribute("operation.success", true);
-            return result;
-        } catch (RuntimeException e) {
-            span.setAttribute("operation.success", false)
-                .setAttribute("error.message", e.getMessage())
-                .setAttribute("error.type", e.getClass().getSimpleName());
-            throw e;
-        } finally {
-            span.end();
+        String spanName = dbSpans.get(operationType);
+        if (skip(spanName)) {
+            return operation.execute();
         }
+        Span span = tracer.spanBuilder(spanName).startSpan();
+        if (span.isRecording()) {
+            span.setAttribute(DB_OPERATION, operationType)
+                .setAttribute(DB_TABLE, tableName)
+                .setAttribute(OPERATION_TYPE, "database");
+        }
+        return run(span, operation);
     }
 
     /**
@@ -98,30 +113,22 @@ public class TracingService {
     public <T> T traceExternalApiCall(String apiName, String endpoint, 
                                       Map<String, String> parameters,
                                       TracedOperation<T> operation) {
-        Span span = tracer.spanBuilder("external." + apiName)
-                .setAttribute("external.api", apiName)
-                .setAttribute("external.endpoint", endpoint)
-                .setAttribute("operation.type", "external_api")
-                .startSpan();
-
-        // Add parameters as attributes
-        if (parameters != null) {
-            parameters.forEach((key, value) -> 
-                span.setAttribute("external.param." + key, value));
+        String spanName = externalSpans.get(apiName);
+        if (skip(spanName)) {
+            return operation.execute();
         }
-
-        try (Scope scope = span.makeCurrent()) {
-            T result = operation.execute();
-            span.setAttribute("operation.success", true);
-            return result;
-        } catch (RuntimeException e) {
-            span.setAttribute("operation.success", false)
-                .setAttribute("error.message", e.getMessage())
-                .setAttribute("error.type", e.getClass().getSimpleName());
-            throw e;
-        } finally {
-            span.end();
+        Span span = tracer.spanBuilder(spanName).startSpan();
+        if (span.isRecording()) {
+            span.setAttribute(EXTERNAL_API, apiName)
+                .setAttribute(EXTERNAL_ENDPOINT, endpoint)
+                .setAttribute(OPERATION_TYPE, "external_api");
+            // Add parameters as attributes
+            if (parameters != null) {
+                parameters.forEach((key, value) -> 
+                    span.setAttribute("external.param." + key, value));
+            }
         }
+        return run(span, operation);
     }
 
     /**
@@ -129,26 +136,67 @@ public class TracingService {
      */
     public <T> T traceWebSocketOperation(String operationType, String topic, 
                                          TracedOperation<T> operation) {
-        Span span = tracer.spanBuilder("websocket." + operationType)
-                .setAttribute("websocket.operation", operationType)
-                .setAttribute("websocket.topic", topic)
-                .setAttribute("operation.type", "websocket")
-                .startSpan();
+        String spanName = websocketSpans.get(operationType);
+        if (skip(spanName)) {
+            return operation.execute();
+        }
+        Span span = tracer.spanBuilder(spanName).startSpan();
+        if (span.isRecording()) {
+            span.setAttribute(WEBSOCKET_OPERATION, operationType)
+                .setAttribute(WEBSOCKET_TOPIC, topic)
+                .setAttribute(OPERATION_TYPE, "websocket");
+        }
+        return run(span, operation);
+    }
 
+    private <T> T run(Span span, TracedOperation<T> operation) {
         try (Scope scope = span.makeCurrent()) {
             T result = operation.execute();
-            span.setAttribute("operation.success", true);
+            if (span.isRecording()) {
+                span.setAttribute(OPERATION_SUCCESS, true);
+            }
             return result;
         } catch (RuntimeException e) {
-            span.setAttribute("operation.success", false)
-                .setAttribute("error.message", e.getMessage())
-                .setAttribute("error.type", e.getClass().getSimpleName());
+            if (span.isRecording()) {
+                span.setAttribute(OPERATION_SUCCESS, false)
+                    .setAttribute(ERROR_MESSAGE, String.valueOf(e.getMessage()))
+                    .setAttribute(ERROR_TYPE, e.getClass().getSimpleName());
+            }
             throw e;
         } finally {
             span.end();
         }
     }
 
+    /**
+     * Operations sampled at 0 are not traced, except as part of a trace that
+     * an upstream caller has already sampled.
+     */
+    private boolean skip(String spanName) {
+        return sampler.ratio(spanName) <= 0 && !Span.current().getSpanContext().isSampled();
+    }
+
+    /**
+     * Span names per operation, built once instead of concatenated per call.
+     */
+    private static final class SpanNames {
+        private final String prefix;
+        private final Map<String, String> names = new ConcurrentHashMap<>();
+
+        SpanNames(String prefix) {
+            this.prefix = prefix;
+        }
+
+        String get(String operation) {
+            String name = names.get(operation);
+            if (name == null) {
+                name = prefix + operation;
+                names.putIfAbsent(operation, name);
+            }
+            return name;
+        }
+    }
+
     /**
      * Functional interface for traced operations
      */
@@ -0,0 +1,260 @@
+package com.neogeo.tracking.store;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * In-process columnar store. Surveyor IDs are dictionary-encoded, each
+ * surveyor's timestamps are int second offsets from the first fix seen and
+ * coordinates are int microdegrees, so a point costs 12 bytes instead of a
+ * full {@link LocationTrack} entity. Nothing survives a restart.
+ *
+ * Timestamps are truncated to the second and coordinates rounded to the
+ * microdegree on the way in. Range starts and box edges are rounded inward,
+ * so every fix returned reports a timestamp and position inside what was
+ * asked for, as the JPA engine's would.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.store.engine", havingValue = "columnar")
+public class ColumnarLocationStore implements LocationStore {
+
+    private final SurveyorDictionary dictionary = new SurveyorDictionary();
+    // Indexed by dictionary code
+    private final List<Series> series = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void append(LocationTrack fix) {
+        seriesFor(fix.getSurveyorId()).append(
+                Coordinates.toEpochSecond(fix.getTimestamp()),
+                Coordinates.toMicroDegrees(fix.getLatitude()),
+                Coordinates.toMicroDegrees(fix.getLongitude()));
+    }
+
+    @Override
+    public Long append(LocationFix fix) {
+        seriesFor(fix.surveyorId).append(fix.epochSecond(),
+                Coordinates.toMicroDegrees(fix.latitude),
+                Coordinates.toMicroDegrees(fix.longitude));
+        return null;
+    }
+
+    @Override
+    public void appendAll(List<LocationTrack> fixes) {
+        for (LocationTrack fix : fixes) {
+            append(fix);
+        }
+    }
+
+    @Override
+    public Optional<LocationTrack> latest(String surveyorId) {
+        Series s = existingSeries(surveyorId);
+        return s == null ? Optional.empty() : Optional.ofNullable(s.latest());
+    }
+
+    @Override
+    public List<LocationTrack> range(String surveyorId, LocalDateTime start, LocalDateTime end) {
+        Series s = existingSeries(surveyorId);
+        if (s == null) {
+            return new ArrayList<>();
+        }
+        List<LocationTrack> result = new ArrayList<>();
+        s.collect(Coordinates.toEpochSecondRoundedUp(start), Coordinates.toEpochSecond(end),
+                Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    @Override
+    public List<LocationTrack> all(String surveyorId) {
+        Series s = existingSeries(surveyorId);
+        if (s == null) {
+            return new ArrayList<>();
+        }
+        List<LocationTrack> result = new ArrayList<>();
+        s.collect(Long.MIN_VALUE, Long.MAX_VALUE,
+                Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    @Override
+    public List<LocationTrack> withinBounds(double minLatitude, double minLongitude,
+                                            double maxLatitude, double maxLongitude,
+                                            LocalDateTime start, LocalDateTime end) {
+        int minLat = Coordinates.toMicroDegreesRoundedUp(minLatitude);
+        int minLon = Coordinates.toMicroDegreesRoundedUp(minLongitude);
+        int maxLat = Coordinates.toMicroDegreesRoundedDown(maxLatitude);
+        int maxLon = Coordinates.toMicroDegreesRoundedDown(maxLongitude);
+        long startSecond = Coordinates.toEpochSecondRoundedUp(start);
+        long endSecond = Coordinates.toEpochSecond(end);
+
+        List<LocationTrack> result = new ArrayList<>();
+        for (Series s : series) {
+            s.collect(startSecond, endSecond, minLat, minLon, maxLat, maxLon, result);
+        }
+        result.sort(Comparator.comparing(LocationTrack::getTimestamp));
+        return result;
+    }
+
+    /**
+     * Approximate heap held by the point columns, for sizing and benchmarks.
+     */
+    public long columnBytes() {
+        long bytes = 0;
+        for (Series s : series) {
+            bytes += s.capacityBytes();
+        }
+        return bytes;
+    }
+
+    private Series seriesFor(String surveyorId) {
+        int code = dictionary.encode(surveyorId);
+        if (code < series.size()) {
+            return series.get(code);
+        }
+        synchronized (series) {
+            while (series.size() <= code) {
+                series.add(new Series(dictionary.decode(series.size())));
+            }
+            return series.get(code);
+        }
+    }
+
+    private Series existingSeries(String surveyorId) {
+        int code = dictionary.lookup(surveyorId);
+        if (code < 0 || code >= series.size()) {
+            return null;
+        }
+        return series.get(code);
+    }
+
+    /**
+     * Columns of one surveyor, kept in timestamp order.
+     */
+    private static final class Series {
+        private final String surveyorId;
+        private long baseSecond = Long.MIN_VALUE;
+        private int[] offsets = new int[16];
+        private int[] lats = new int[16];
+        private int[] lons = new int[16];
+        private int size;
+        // Bounding box of everything stored, to skip whole series in spatial queries
+        private int minLat = Integer.MAX_VALUE;
+        private int minLon = Integer.MAX_VALUE;
+        private int maxLat = Integer.MIN_VALUE;
+        private int maxLon = Integer.MIN_VALUE;
+
+        Series(String surveyorId) {
+            this.surveyorId = surveyorId;
+        }
+
+        synchronized void append(long second, int lat, int lon) {
+            if (baseSecond == Long.MIN_VALUE) {
+                baseSecond = second;
+            }
+            if (size == offsets.length) {
+                int capacity = offsets.length + (offsets.length >> 1);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+            }
+            int offset = Math.toIntExact(second - baseSecond);
+            int pos = size;
+            if (pos > 0 && offsets[pos - 1] > offset) {
+                pos = upperBound(offset);
+                System.arraycopy(offsets, pos, offsets, pos + 1, size - pos);
+                System.arraycopy(lats, pos, lats, pos + 1, size - pos);
+                System.arraycopy(lons, pos, lons, pos + 1, size - pos);
+            }
+            offsets[pos] = offset;
+            lats[pos] = lat;
+            lons[pos] = lon;
+            size++;
+            minLat = Math.min(minLat, lat);
+            minLon = Math.min(minLon, lon);
+            maxLat = Math.max(maxLat, lat);
+            maxLon = Math.max(maxLon, lon);
+        }
+
+        synchronized LocationTrack latest() {
+            return size == 0 ? null : toEntity(size - 1);
+        }
+
+        synchronized void collect(long startSecond, long endSecond,
+                                  int boxMinLat, int boxMinLon, int boxMaxLat, int boxMaxLon,
+                                  List<LocationTrack> out) {
+            if (size == 0 || boxMaxLat < minLat || boxMinLat > maxLat
+                    || boxMaxLon < minLon || boxMinLon > maxLon) {
+                return;
+            }
+            int from = lowerBound(clampOffset(startSecond));
+            int to = clampOffset(endSecond);
+            for (int i = from; i < size && offsets[i] <= to; i++) {
+                if (lats[i] >= boxMinLat && lats[i] <= boxMaxLat
+                        && lons[i] >= boxMinLon && lons[i] <= boxMaxLon) {
+                    out.add(toEntity(i));
+                }
+            }
+        }
+
+        synchronized long capacityBytes() {
+            return 3L * Integer.BYTES * offsets.length;
+        }
+
+        private int clampOffset(long second) {
+            long offset = second - baseSecond;
+            if (second == Long.MIN_VALUE || offset < Integer.MIN_VALUE) {
+                return Integer.MIN_VALUE;
+            }
+            if (second == Long.MAX_VALUE || offset > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            }
+            return (int) offset;
+        }
+
+        private int lowerBound(int offset) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (offsets[mid] < offset) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int upperBound(int offset) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (offsets[mid] <= offset) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private LocationTrack toEntity(int i) {
+            return new LocationTrack(surveyorId,
+                    Coordinates.fromMicroDegrees(lats[i]),
+                    Coordinates.fromMicroDegrees(lons[i]),
+                    Coordinates.fromEpochSecond(baseSecond + offsets[i]),
+                    null);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.neogeo.tracking.store;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Packing helpers shared by the in-memory location stores.
+ * Coordinates are kept as int microdegrees (~0.1 m resolution) and
+ * timestamps as epoch seconds of the wall-clock time reported by the device.
+ */
+public final class Coordinates {
+
+    private static final double MICRO = 1_000_000d;
+
+    private Coordinates() {
+    }
+
+    public static int toMicroDegrees(double degrees) {
+        return (int) Math.round(degrees * MICRO);
+    }
+
+    public static double fromMicroDegrees(int microDegrees) {
+        return microDegrees / MICRO;
+    }
+
+    /**
+     * The smallest microdegree value not below {@code degrees}, for the low
+     * edge of a bounding box.
+     */
+    public static int toMicroDegreesRoundedUp(double degrees) {
+        int micro = toMicroDegrees(degrees);
+        return fromMicroDegrees(micro) < degrees ? micro + 1 : micro;
+    }
+
+    /**
+     * The largest microdegree value not above {@code degrees}, for the high
+     * edge of a bounding box.
+     */
+    public static int toMicroDegreesRoundedDown(double degrees) {
+        int micro = toMicroDegrees(degrees);
+        return fromMicroDegrees(micro) > degrees ? micro - 1 : micro;
+    }
+
+    /**
+     * Timestamps are zone-less on the wire, so UTC is only used as a fixed
+     * reference to turn them into a number and back without any shift.
+     */
+    public static long toEpochSecond(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Like {@link #toEpochSecond} but rounded up, for the start of a range:
+     * the whole second before a fractional start lies outside the range.
+     */
+    public static long toEpochSecondRoundedUp(LocalDateTime timestamp) {
+        long second = toEpochSecond(timestamp);
+        return timestamp.getNano() == 0 ? second : second + 1;
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
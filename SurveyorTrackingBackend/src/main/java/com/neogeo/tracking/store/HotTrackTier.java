@@ -0,0 +1,245 @@
+package com.neogeo.tracking.store;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * In-memory hot tier holding the last few hours of fixes per surveyor.
+ * Fed by live ingest; answers track history reads without touching the
+ * database whenever the requested range lies inside what it holds and every
+ * fix in it has been stored ({@link #stored}), so reads carry the row ids,
+ * millisecond timestamps and dwells ({@link #recordDwell}) the database would
+ * return.
+ *
+ * A buffer only vouches for fixes received since it was created, so after a
+ * restart older ranges keep going to the database until the window refills.
+ * Rows written behind its back, by bulk imports on this node
+ * ({@link #imported}), end that coverage. Each node only sees its own ingest,
+ * so with several nodes behind a load balancer surveyors must be routed to a
+ * fixed node, or the tier disabled, for reads to include other nodes' rows.
+ */
+@Component
+public class HotTrackTier {
+
+    private final Map<String, SurveyorTrackBuffer> buffers = new ConcurrentHashMap<>();
+    private final MemoryBudget budget;
+    private final boolean enabled;
+    private final long windowMillis;
+
+    public HotTrackTier(@Value("${tracking.hot-tier.enabled:true}") boolean enabled,
+                        @Value("${tracking.hot-tier.window-hours:6}") long windowHours,
+                        @Value("${tracking.hot-tier.max-memory-mb:64}") long maxMemoryMb) {
+        this.enabled = enabled;
+        this.windowMillis = windowHours * 3_600_000;
+        this.budget = new MemoryBudget(maxMemoryMb * 1024 * 1024);
+    }
+
+    /**
+     * Records a fix that has just been ingested.
+     */
+    public void append(String surveyorId, double latitude, double longitude, LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return;
+        }
+        append(surveyorId, Coordinates.toMicroDegrees(latitude), Coordinates.toMicroDegrees(longitude),
+                LocationFix.toMillis(timestamp), SurveyorTrackBuffer.UNSTORED);
+    }
+
+    public void append(LocationFix fix) {
+        append(fix.surveyorId, Coordinates.toMicroDegrees(fix.latitude), Coordinates.toMicroDegrees(fix.longitude),
+                fix.timestampMillis, SurveyorTrackBuffer.UNSTORED);
+    }
+
+    /**
+     * Records that a fix has been written to the store, with the id it got;
+     * until then ranges holding it are left to the database. Store writes can
+     * finish before the fix is appended, so the fix is added if it is missing.
+     */
+    public void stored(LocationTrack track) {
+        if (track.getTimestamp() == null) {
+            return;
+        }
+        append(track.getSurveyorId(), Coordinates.toMicroDegrees(track.getLatitude()),
+                Coordinates.toMicroDegrees(track.getLongitude()), LocationFix.toMillis(track.getTimestamp()),
+                storedId(track.getId()));
+    }
+
+    /**
+     * @param id the id of the stored row, or null when the store assigns none
+     */
+    public void stored(LocationFix fix, Long id) {
+        append(fix.surveyorId, Coordinates.toMicroDegrees(fix.latitude), Coordinates.toMicroDegrees(fix.longitude),
+                fix.timestampMillis, storedId(id));
+    }
+
+    private static long storedId(Long id) {
+        return id != null ? id : SurveyorTrackBuffer.NO_ID;
+    }
+
+    /**
+     * Records that fixes up to {@code newestMillis} were stored without
+     * passing through the tier, so it stops answering for earlier timestamps.
+     * Call before the rows become visible.
+     */
+    public void imported(String surveyorId, long newestMillis) {
+        if (!enabled || surveyorId == null) {
+            return;
+        }
+        buffers.computeIfPresent(surveyorId, (id, buffer) -> {
+            synchronized (buffer) {
+                buffer.uncover(newestMillis + 1);
+            }
+            return buffer;
+        });
+    }
+
+    /**
+     * Records a dwell the store has just written for the fix with this
+     * timestamp. Like the store it never shortens a dwell; fixes no longer
+     * held are skipped.
+     */
+    public void recordDwell(String surveyorId, long timestampMillis, long dwellMillis) {
+        if (!enabled || surveyorId == null) {
+            return;
+        }
+        SurveyorTrackBuffer buffer = buffers.get(surveyorId);
+        if (buffer == null) {
+            return;
+        }
+        synchronized (buffer) {
+            buffer.recordDwell(timestampMillis, dwellMillis);
+        }
+    }
+
+    private void append(String surveyorId, int lat, int lon, long timestampMillis, long storedId) {
+        if (!enabled || surveyorId == null) {
+            return;
+        }
+        // compute() keeps append and the sweeper's removal from racing on the same buffer
+        buffers.compute(surveyorId, (id, buffer) -> {
+            if (buffer == null) {
+                long initialBytes = (long) SurveyorTrackBuffer.INITIAL_CAPACITY * SurveyorTrackBuffer.BYTES_PER_POINT;
+                if (!budget.tryReserve(initialBytes)) {
+                    return null;
+                }
+                buffer = new SurveyorTrackBuffer(id, nowMillis());
+            }
+            synchronized (buffer) {
+                buffer.append(lat, lon, timestampMillis, storedId, windowMillis, budget);
+            }
+            return buffer;
+        });
+    }
+
+    /**
+     * Returns the fixes in [start, end] in timestamp order, or null when the
+     * range reaches back before what the tier holds for this surveyor or
+     * holds a fix that is not stored yet.
+     */
+    public List<LocationTrack> range(String surveyorId, LocalDateTime start, LocalDateTime end) {
+        if (!enabled) {
+            return null;
+        }
+        SurveyorTrackBuffer buffer = buffers.get(surveyorId);
+        if (buffer == null) {
+            return null;
+        }
+        long startMillis = LocationFix.toMillis(start);
+        long endMillis = LocationFix.toMillis(end);
+        synchronized (buffer) {
+            if (!buffer.covers(startMillis)) {
+                return null;
+            }
+            return buffer.range(startMillis, endMillis);
+        }
+    }
+
+    /**
+     * Returns the newest fix held for the surveyor, or null if there is none
+     * or it is not known to be the newest stored one.
+     */
+    public LocationTrack latest(String surveyorId) {
+        if (!enabled) {
+            return null;
+        }
+        SurveyorTrackBuffer buffer = buffers.get(surveyorId);
+        if (buffer == null) {
+            return null;
+        }
+        synchronized (buffer) {
+            return buffer.latest();
+        }
+    }
+
+    public long usedBytes() {
+        return budget.used();
+    }
+
+    /**
+     * Drops fixes that fell out of the window, shrinks sparse buffers and
+     * forgets surveyors that have gone quiet.
+     */
+    @Scheduled(fixedDelayString = "${tracking.hot-tier.sweep-interval-ms:60000}")
+    public void sweep() {
+        long cutoff = nowMillis() - windowMillis;
+        for (String surveyorId : buffers.keySet()) {
+            buffers.computeIfPresent(surveyorId, (id, buffer) -> {
+                synchronized (buffer) {
+                    buffer.trimBefore(cutoff);
+                    if (buffer.size() == 0) {
+                        budget.release((long) buffer.capacity() * SurveyorTrackBuffer.BYTES_PER_POINT);
+                        return null;
+                    }
+                    budget.release(buffer.shrink());
+                    return buffer;
+                }
+            });
+        }
+    }
+
+    // Wall clock in the same zone-less reference as fix timestamps
+    private static long nowMillis() {
+        return LocationFix.toMillis(LocalDateTime.now());
+    }
+
+    /**
+     * Byte budget shared by all buffers; growth beyond it makes buffers wrap.
+     */
+    static final class MemoryBudget {
+        private final long limit;
+        private final AtomicLong used = new AtomicLong();
+
+        MemoryBudget(long limit) {
+            this.limit = limit;
+        }
+
+        boolean tryReserve(long bytes) {
+            long current;
+            do {
+                current = used.get();
+                if (current + bytes > limit) {
+                    return false;
+                }
+            } while (!used.compareAndSet(current, current + bytes));
+            return true;
+        }
+
+        void release(long bytes) {
+            used.addAndGet(-bytes);
+        }
+
+        long used() {
+            return used.get();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.neogeo.tracking.store;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.neogeo.tracking.jfr.DbFlushEvent;
+import com.neogeo.tracking.metrics.TrackingMetrics;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+/**
+ * PostgreSQL-backed store going through Spring Data. Reads are read-only
+ * transactions, so they may be served by a replica.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.store.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaLocationStore implements LocationStore {
+
+    private final LocationTrackRepository repository;
+    private final TrackingMetrics metrics;
+
+    public JpaLocationStore(LocationTrackRepository repository, TrackingMetrics metrics) {
+        this.repository = repository;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void append(LocationTrack fix) {
+        DbFlushEvent event = new DbFlushEvent();
+        event.begin();
+        repository.save(fix);
+        metrics.recordBatch(1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.surveyorId = fix.getSurveyorId();
+            event.rows = 1;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void appendAll(List<LocationTrack> fixes) {
+        DbFlushEvent event = new DbFlushEvent();
+        event.begin();
+        repository.saveAll(fixes);
+        metrics.recordBatch(fixes.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = fixes.size();
+            event.commit();
+        }
+    }
+
+    @Override
+    @Transactional
+    public boolean recordDwell(String surveyorId, LocalDateTime timestamp, long dwellMillis) {
+        repository.updateDwell(surveyorId, timestamp, dwellMillis);
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LocationTrack> latest(String surveyorId) {
+        return repository.findTopBySurveyorIdOrderByTimestampDesc(surveyorId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LocationTrack> range(String surveyorId, LocalDateTime start, LocalDateTime end) {
+        return repository.findBySurveyorIdAndTimestampBetweenOrderByTimestampAsc(surveyorId, start, end);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LocationTrack> all(String surveyorId) {
+        return repository.findBySurveyorIdOrderByTimestampAsc(surveyorId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LocationTrack> withinBounds(double minLatitude, double minLongitude,
+                                            double maxLatitude, double maxLongitude,
+                                            LocalDateTime start, LocalDateTime end) {
+        return repository.findByLatitudeBetweenAndLongitudeBetweenAndTimestampBetweenOrderByTimestampAsc(
+                minLatitude, maxLatitude, minLongitude, maxLongitude, start, end);
+    }
+}
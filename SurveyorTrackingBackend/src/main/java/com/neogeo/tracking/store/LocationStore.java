@@ -0,0 +1,66 @@
+package com.neogeo.tracking.store;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * Storage engine for surveyor fixes. Selected with {@code tracking.store.engine}:
+ * {@code jpa} (default, PostgreSQL) or {@code columnar} (in-process, for tests,
+ * benchmarks and small single-node deployments).
+ */
+public interface LocationStore {
+
+    void append(LocationTrack fix);
+
+    /**
+     * Appends a fix straight from the ingest pipeline. Engines that do not
+     * need an entity override this to skip building one.
+     *
+     * @return the id of the stored row, or null when the engine assigns none
+     */
+    default Long append(LocationFix fix) {
+        LocationTrack track = fix.toEntity();
+        append(track);
+        return track.getId();
+    }
+
+    void appendAll(List<LocationTrack> fixes);
+
+    /**
+     * Records how long the surveyor stayed at the stored fix with this
+     * timestamp. Never shortens a recorded dwell. Engines that do not keep
+     * dwell durations ignore it.
+     *
+     * @return false when the engine does not keep dwell durations
+     */
+    default boolean recordDwell(String surveyorId, LocalDateTime timestamp, long dwellMillis) {
+        return false;
+    }
+
+    /**
+     * Returns the fix with the newest timestamp for the surveyor.
+     */
+    Optional<LocationTrack> latest(String surveyorId);
+
+    /**
+     * Returns the surveyor's fixes with start <= timestamp <= end, oldest first.
+     */
+    List<LocationTrack> range(String surveyorId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Returns every fix of the surveyor, oldest first.
+     */
+    List<LocationTrack> all(String surveyorId);
+
+    /**
+     * Returns the fixes of all surveyors inside the bounding box and time range,
+     * oldest first.
+     */
+    List<LocationTrack> withinBounds(double minLatitude, double minLongitude,
+                                     double maxLatitude, double maxLongitude,
+                                     LocalDateTime start, LocalDateTime end);
+}
@@ -0,0 +1,214 @@
+package com.neogeo.tracking.store;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.archive.TrackArchive;
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneContext;
+import com.neogeo.tracking.model.RollupCheckpoint;
+import com.neogeo.tracking.repository.RollupCheckpointRepository;
+import com.neogeo.tracking.repository.TrackRollupRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Builds the {@link #RESOLUTIONS 1- and 10-minute} track rollups from
+ * {@code location_track} in the background, on the history lane's connection
+ * pool so it never takes ingest connections.
+ *
+ * New rows are picked up by id every {@code tracking.rollups.interval-ms},
+ * re-reading the last {@code tracking.rollups.overlap-rows} ids because
+ * identity values can commit out of order. Buckets are recomputed from all of
+ * their fixes, so late fixes and collapsed dwells just rewrite them. Buckets of
+ * archived days are left alone: most of their fixes are no longer in the
+ * database, so a late fix would rebuild them from itself. Rows that
+ * existed before the first run are backfilled once, in chunks of
+ * {@code tracking.rollups.backfill-chunk-rows} ids on
+ * {@code tracking.rollups.backfill-threads} threads; an interrupted backfill
+ * starts over on the next boot.
+ *
+ * Buckets are aligned by PostgreSQL's {@code date_bin}, so the builder checks
+ * for PostgreSQL 14 or later at startup and stays off on older servers.
+ *
+ * Meters: {@code tracking.rollups.chunks{phase}}.
+ */
+@Component
+@ConditionalOnProperty(name = "tracking.rollups.enabled", havingValue = "true", matchIfMissing = true)
+public class RollupBuilder {
+
+    public static final int[] RESOLUTIONS = {60, 600};
+
+    private static final Logger log = LoggerFactory.getLogger(RollupBuilder.class);
+    private static final String CHECKPOINT = "location_track";
+    private static final LocalDateTime NOT_ARCHIVED = LocalDateTime.of(1, 1, 1, 0, 0);
+    // The origin the rollUp query passes to date_bin
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final int MIN_SERVER_VERSION = 140000;
+
+    private final TrackRollupRepository rollups;
+    private final RollupCheckpointRepository checkpoints;
+    private final TransactionTemplate transaction;
+    private final ObjectProvider<TrackArchive> archive;
+    private final long overlapRows;
+    private final long chunkRows;
+    private final ExecutorService backfillExecutor;
+    private final Counter incrementalChunks;
+    private final Counter backfillChunks;
+    private volatile RollupCheckpoint checkpoint;
+
+    public RollupBuilder(TrackRollupRepository rollups,
+                         RollupCheckpointRepository checkpoints,
+                         TransactionTemplate transaction,
+                         ObjectProvider<TrackArchive> archive,
+                         @Value("${tracking.rollups.overlap-rows:1000}") long overlapRows,
+                         @Value("${tracking.rollups.backfill-chunk-rows:100000}") long chunkRows,
+                         @Value("${tracking.rollups.backfill-threads:2}") int backfillThreads,
+                         MeterRegistry registry) {
+        this.rollups = rollups;
+        this.checkpoints = checkpoints;
+        this.transaction = transaction;
+        this.archive = archive;
+        this.overlapRows = overlapRows;
+        this.chunkRows = chunkRows;
+        this.backfillExecutor = Executors.newFixedThreadPool(backfillThreads,
+                new CustomizableThreadFactory("rollup-backfill-"));
+        this.incrementalChunks = Counter.builder("tracking.rollups.chunks")
+                .description("Id ranges rolled up")
+                .tag("phase", "incremental")
+                .register(registry);
+        this.backfillChunks = Counter.builder("tracking.rollups.chunks")
+                .description("Id ranges rolled up")
+                .tag("phase", "backfill")
+                .register(registry);
+    }
+
+    /**
+     * Returns the start of the bucket of the given size that holds
+     * {@code time}, as {@code date_bin} computes it.
+     */
+    public static LocalDateTime bucketStart(LocalDateTime time, int seconds) {
+        long offset = Duration.between(ORIGIN, time).getSeconds();
+        return ORIGIN.plusSeconds(offset - Math.floorMod(offset, seconds));
+    }
+
+    /**
+     * Loads the checkpoint, creating it at the current end of the track on the
+     * first run, and starts the backfill if it has not finished. Does nothing
+     * on servers older than PostgreSQL 14, which lack {@code date_bin}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LaneContext.run(Lane.HISTORY, () -> {
+            int serverVersion = rollups.serverVersionNum();
+            if (serverVersion < MIN_SERVER_VERSION) {
+                log.error("Track rollups need PostgreSQL 14 or later, server version is {}; rollups are off",
+                        serverVersion);
+                return;
+            }
+            RollupCheckpoint loaded = checkpoints.findById(CHECKPOINT).orElse(null);
+            if (loaded == null) {
+                loaded = checkpoints.save(new RollupCheckpoint(CHECKPOINT, rollups.maxTrackId()));
+            }
+            checkpoint = loaded;
+        });
+        if (checkpoint == null) {
+            return;
+        }
+        if (!checkpoint.isBackfilled()) {
+            backfill().exceptionally(e -> {
+                log.warn("Rollup backfill failed, retried on next start", e);
+                return null;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.rollups.interval-ms:60000}",
+            initialDelayString = "${tracking.rollups.interval-ms:60000}")
+    public void rollUpNew() {
+        RollupCheckpoint current = checkpoint;
+        if (current == null) {
+            return;
+        }
+        try {
+            LaneContext.run(Lane.HISTORY, () -> {
+                long maxId = rollups.maxTrackId();
+                if (maxId <= current.getLastId()) {
+                    return;
+                }
+                long from = Math.max(0, current.getLastId() - overlapRows);
+                for (long chunkStart = from; chunkStart < maxId; chunkStart += chunkRows) {
+                    rollUp(chunkStart, Math.min(chunkStart + chunkRows, maxId));
+                    incrementalChunks.increment();
+                }
+                synchronized (current) {
+                    current.setLastId(maxId);
+                    checkpoints.save(current);
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Rollup update failed, retried next interval: {}", e.getMessage());
+        }
+    }
+
+    private CompletableFuture<Void> backfill() {
+        RollupCheckpoint current = checkpoint;
+        long end = current.getBackfillTo();
+        log.info("Backfilling track rollups for ids up to {}", end);
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (long chunkStart = 0; chunkStart < end; chunkStart += chunkRows) {
+            long from = chunkStart;
+            long to = Math.min(chunkStart + chunkRows, end);
+            chunks.add(CompletableFuture.runAsync(() -> LaneContext.run(Lane.HISTORY, () -> {
+                rollUp(from, to);
+                backfillChunks.increment();
+            }), backfillExecutor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .thenRunAsync(() -> LaneContext.run(Lane.HISTORY, () -> {
+                    synchronized (current) {
+                        current.setBackfilled(true);
+                        checkpoints.save(current);
+                    }
+                    log.info("Track rollup backfill done");
+                }), backfillExecutor);
+    }
+
+    private void rollUp(long fromId, long toId) {
+        TrackArchive cold = archive.getIfAvailable();
+        LocalDateTime archivedBefore = cold == null ? null : cold.archivedBefore();
+        LocalDateTime notBefore = archivedBefore == null ? NOT_ARCHIVED : archivedBefore;
+        transaction.executeWithoutResult(status -> {
+            for (int seconds : RESOLUTIONS) {
+                rollups.rollUp(seconds, fromId, toId, notBefore);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        backfillExecutor.shutdownNow();
+        backfillExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,47 @@
+package com.neogeo.tracking.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.model.TrackSegment;
+import com.neogeo.tracking.repository.TrackSegmentRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Stores stop and trip segments off the ingest path. Ingest shards queue
+ * segments (up to {@code tracking.segments.queue}, then they are dropped);
+ * every {@code tracking.segments.flush-ms} the queue is upserted in one
+ * transaction, so an in-progress segment's newer version replaces the older
+ * row. A failed flush is retried on the next run.
+ *
+ * Meters: {@code tracking.segments.written} and {@code tracking.segments.dropped}.
+ */
+@Component
+public class SegmentWriter {
+
+    private final UpsertQueue<TrackSegment> queue;
+
+    public SegmentWriter(TrackSegmentRepository repository,
+                         TransactionTemplate transaction,
+                         @Value("${tracking.segments.queue:10000}") int capacity,
+                         MeterRegistry registry) {
+        this.queue = new UpsertQueue<>("tracking.segments", repository::upsert, transaction, capacity, registry);
+    }
+
+    /**
+     * Queues the segment without blocking.
+     */
+    public void offer(TrackSegment segment) {
+        queue.offer(segment);
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.segments.flush-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        queue.flush();
+    }
+}
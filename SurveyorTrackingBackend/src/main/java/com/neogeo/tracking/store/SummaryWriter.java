@@ -0,0 +1,45 @@
+package com.neogeo.tracking.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.model.DailySummary;
+import com.neogeo.tracking.repository.DailySummaryRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Merges daily summary deltas from the ingest shards into the store, every
+ * {@code tracking.summaries.write-ms} in one transaction. Deltas beyond
+ * {@code tracking.summaries.queue} are dropped, so a long outage under-counts.
+ *
+ * Meters: {@code tracking.summaries.written} and {@code tracking.summaries.dropped}.
+ */
+@Component
+public class SummaryWriter {
+
+    private final UpsertQueue<DailySummary> queue;
+
+    public SummaryWriter(DailySummaryRepository repository,
+                         TransactionTemplate transaction,
+                         @Value("${tracking.summaries.queue:50000}") int capacity,
+                         MeterRegistry registry) {
+        this.queue = new UpsertQueue<>("tracking.summaries", repository::merge, transaction, capacity, registry);
+    }
+
+    /**
+     * Queues the delta without blocking.
+     */
+    public void offer(DailySummary delta) {
+        queue.offer(delta);
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.summaries.write-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        queue.flush();
+    }
+}
@@ -0,0 +1,50 @@
+package com.neogeo.tracking.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding of surveyor IDs to dense int codes, so per-point columns
+ * never repeat the ID string.
+ */
+public class SurveyorDictionary {
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final List<String> ids = new ArrayList<>();
+
+    /**
+     * Returns the code for the ID, assigning the next free one on first use.
+     */
+    public int encode(String surveyorId) {
+        Integer code = codes.get(surveyorId);
+        if (code != null) {
+            return code;
+        }
+        synchronized (ids) {
+            return codes.computeIfAbsent(surveyorId, id -> {
+                ids.add(id);
+                return ids.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Returns the code for the ID, or -1 if it has never been encoded.
+     */
+    public int lookup(String surveyorId) {
+        Integer code = codes.get(surveyorId);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        synchronized (ids) {
+            return ids.get(code);
+        }
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,286 @@
+package com.neogeo.tracking.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * Ring buffer of the most recent fixes of one surveyor, kept in timestamp order
+ * with at most one fix per timestamp. Each point costs 32 bytes: latitude and
+ * longitude as int microdegrees, the timestamp in epoch milliseconds, the id
+ * of the stored row ({@link #UNSTORED} until the store reports it) and the
+ * recorded dwell in milliseconds.
+ *
+ * Not thread safe; {@link HotTrackTier} serializes access per surveyor.
+ */
+final class SurveyorTrackBuffer {
+
+    static final int BYTES_PER_POINT = 2 * Integer.BYTES + 3 * Long.BYTES;
+    static final int INITIAL_CAPACITY = 64;
+
+    /** Not written to the store yet. */
+    static final long UNSTORED = 0;
+    /** Stored by an engine that does not assign ids. */
+    static final long NO_ID = -1;
+
+    private final String surveyorId;
+
+    private long[] times;
+    private long[] ids;
+    private long[] dwells;
+    private int[] lats;
+    private int[] lons;
+    private int head;
+    private int size;
+
+    // Every fix with a timestamp at or after this millisecond is held in the buffer
+    private long coveredFrom;
+
+    SurveyorTrackBuffer(String surveyorId, long createdAtMillis) {
+        this.surveyorId = surveyorId;
+        this.coveredFrom = createdAtMillis;
+        this.times = new long[INITIAL_CAPACITY];
+        this.ids = new long[INITIAL_CAPACITY];
+        this.dwells = new long[INITIAL_CAPACITY];
+        this.lats = new int[INITIAL_CAPACITY];
+        this.lons = new int[INITIAL_CAPACITY];
+    }
+
+    int capacity() {
+        return times.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long coveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * Adds a fix, keeping timestamp order. A fix with the timestamp of one
+     * already held replaces its position and, unless {@code id} is
+     * {@link #UNSTORED}, its id. When the buffer is full and the budget
+     * refuses to let it grow, the oldest fix is dropped instead.
+     *
+     * @return the number of bytes the buffer grew by
+     */
+    int append(int latMicro, int lonMicro, long timestampMillis, long id, long windowMillis,
+               HotTrackTier.MemoryBudget budget) {
+        trimBefore(newestMillis(timestampMillis) - windowMillis);
+        if (timestampMillis < coveredFrom && timestampMillis < oldestMillis()) {
+            // Too old to matter for any range this buffer answers
+            return 0;
+        }
+
+        int existing = lowerBound(timestampMillis);
+        if (existing < size && times[physical(existing)] == timestampMillis) {
+            int slot = physical(existing);
+            lats[slot] = latMicro;
+            lons[slot] = lonMicro;
+            if (id != UNSTORED) {
+                ids[slot] = id;
+            }
+            return 0;
+        }
+
+        int grown = 0;
+        if (size == times.length) {
+            int newCapacity = times.length * 2;
+            if (budget.tryReserve((long) (newCapacity - times.length) * BYTES_PER_POINT)) {
+                grown = (newCapacity - times.length) * BYTES_PER_POINT;
+                resize(newCapacity);
+            } else {
+                dropOldest();
+            }
+        }
+
+        int pos = size;
+        // Fixes normally arrive in order; late ones are shifted into place
+        while (pos > 0 && times[physical(pos - 1)] > timestampMillis) {
+            int from = physical(pos - 1);
+            int to = physical(pos);
+            times[to] = times[from];
+            ids[to] = ids[from];
+            dwells[to] = dwells[from];
+            lats[to] = lats[from];
+            lons[to] = lons[from];
+            pos--;
+        }
+        int slot = physical(pos);
+        times[slot] = timestampMillis;
+        ids[slot] = id;
+        dwells[slot] = 0;
+        lats[slot] = latMicro;
+        lons[slot] = lonMicro;
+        size++;
+        return grown;
+    }
+
+    /**
+     * Sets the dwell of the fix with this timestamp unless it already has a
+     * longer one; does nothing when the fix is not held.
+     */
+    void recordDwell(long timestampMillis, long dwellMillis) {
+        int existing = lowerBound(timestampMillis);
+        if (existing < size && times[physical(existing)] == timestampMillis) {
+            int slot = physical(existing);
+            dwells[slot] = Math.max(dwells[slot], dwellMillis);
+        }
+    }
+
+    /**
+     * Drops fixes older than the cutoff; the buffer then only vouches for
+     * timestamps from the cutoff onward.
+     */
+    void trimBefore(long cutoffMillis) {
+        while (size > 0 && times[head] < cutoffMillis) {
+            head = physical(1);
+            size--;
+        }
+        uncover(cutoffMillis);
+    }
+
+    /**
+     * Stops vouching for timestamps before {@code fromMillis}, for fixes that
+     * were stored without passing through the buffer.
+     */
+    void uncover(long fromMillis) {
+        if (fromMillis > coveredFrom) {
+            coveredFrom = fromMillis;
+        }
+    }
+
+    /**
+     * Halves the arrays while they are at most a quarter full.
+     *
+     * @return the number of bytes released
+     */
+    int shrink() {
+        int capacity = times.length;
+        while (capacity > INITIAL_CAPACITY && size <= capacity / 4) {
+            capacity /= 2;
+        }
+        if (capacity == times.length) {
+            return 0;
+        }
+        int released = (times.length - capacity) * BYTES_PER_POINT;
+        resize(capacity);
+        return released;
+    }
+
+    boolean covers(long startMillis) {
+        return startMillis >= coveredFrom;
+    }
+
+    /**
+     * Returns the fixes in [start, end], or null when one of them is not
+     * stored yet, so reads never report a fix the store does not have.
+     */
+    List<LocationTrack> range(long startMillis, long endMillis) {
+        int from = lowerBound(startMillis);
+        List<LocationTrack> result = new ArrayList<>();
+        for (int i = from; i < size; i++) {
+            int slot = physical(i);
+            if (times[slot] > endMillis) {
+                break;
+            }
+            if (ids[slot] == UNSTORED) {
+                return null;
+            }
+            result.add(toEntity(slot));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the newest fix, or null when there is none, it is not stored
+     * yet or a newer one may have been stored without passing through the
+     * buffer.
+     */
+    LocationTrack latest() {
+        if (size == 0) {
+            return null;
+        }
+        int slot = physical(size - 1);
+        if (ids[slot] == UNSTORED || times[slot] < coveredFrom) {
+            return null;
+        }
+        return toEntity(slot);
+    }
+
+    private LocationTrack toEntity(int slot) {
+        LocationTrack track = new LocationTrack(surveyorId,
+                Coordinates.fromMicroDegrees(lats[slot]),
+                Coordinates.fromMicroDegrees(lons[slot]),
+                LocationFix.toDateTime(times[slot]),
+                null);
+        if (ids[slot] != NO_ID) {
+            track.setId(ids[slot]);
+        }
+        track.setDwellMillis(dwells[slot]);
+        return track;
+    }
+
+    private int lowerBound(long timestampMillis) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[physical(mid)] < timestampMillis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void dropOldest() {
+        long dropped = times[head];
+        head = physical(1);
+        size--;
+        uncover(dropped + 1);
+    }
+
+    private long newestMillis(long candidate) {
+        if (size == 0) {
+            return candidate;
+        }
+        return Math.max(candidate, times[physical(size - 1)]);
+    }
+
+    private long oldestMillis() {
+        return size == 0 ? Long.MAX_VALUE : times[head];
+    }
+
+    private int physical(int logical) {
+        int index = head + logical;
+        return index >= times.length ? index - times.length : index;
+    }
+
+    private void resize(int capacity) {
+        long[] newTimes = new long[capacity];
+        long[] newIds = new long[capacity];
+        long[] newDwells = new long[capacity];
+        int[] newLats = new int[capacity];
+        int[] newLons = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = physical(i);
+            newTimes[i] = times[slot];
+            newIds[i] = ids[slot];
+            newDwells[i] = dwells[slot];
+            newLats[i] = lats[slot];
+            newLons[i] = lons[slot];
+        }
+        times = newTimes;
+        ids = newIds;
+        dwells = newDwells;
+        lats = newLats;
+        lons = newLons;
+        head = 0;
+    }
+}
@@ -0,0 +1,73 @@
+package com.neogeo.tracking.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded hand-off from ingest shards to the database for derived rows.
+ * {@link #offer} never blocks and drops the row when the queue is full;
+ * {@link #flush} upserts everything queued in one transaction and keeps the
+ * rows for the next flush if it fails.
+ *
+ * Meters: {@code <name>.written} and {@code <name>.dropped}.
+ */
+class UpsertQueue<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(UpsertQueue.class);
+
+    private final String name;
+    private final Consumer<T> upsert;
+    private final TransactionTemplate transaction;
+    private final int capacity;
+    private final BlockingQueue<T> queue;
+    private final List<T> pending = new ArrayList<>();
+    private final Counter written;
+    private final Counter dropped;
+
+    UpsertQueue(String name, Consumer<T> upsert, TransactionTemplate transaction, int capacity,
+                MeterRegistry registry) {
+        this.name = name;
+        this.upsert = upsert;
+        this.transaction = transaction;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.written = Counter.builder(name + ".written")
+                .description("Rows upserted")
+                .register(registry);
+        this.dropped = Counter.builder(name + ".dropped")
+                .description("Rows dropped because the write queue was full")
+                .register(registry);
+    }
+
+    void offer(T row) {
+        if (!queue.offer(row)) {
+            dropped.increment();
+        }
+    }
+
+    synchronized void flush() {
+        // While retrying, the queue takes the backpressure and drops what does not fit
+        queue.drainTo(pending, capacity - pending.size());
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            transaction.executeWithoutResult(status -> pending.forEach(upsert));
+            written.increment(pending.size());
+            pending.clear();
+        } catch (DataAccessException e) {
+            log.warn("Failed to store {} {} rows, retrying", pending.size(), name, e);
+        }
+    }
+}
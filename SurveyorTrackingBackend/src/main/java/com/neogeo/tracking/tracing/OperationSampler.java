@@ -0,0 +1,52 @@
+package com.neogeo.tracking.tracing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+/**
+ * Ratio sampler with per-operation rates keyed by span name, e.g.
+ * {@code gps.location-update=0.01}. Span names without a rate use the default
+ * ratio. Used as the root sampler of a parent-based sampler, so the decision is
+ * made once at the head of a trace and children follow it.
+ */
+public final class OperationSampler implements Sampler {
+
+    private final double defaultRatio;
+    private final Sampler defaultSampler;
+    private final Map<String, Double> ratios;
+    private final Map<String, Sampler> samplers = new HashMap<>();
+
+    public OperationSampler(double defaultRatio, Map<String, Double> operationRatios) {
+        this.defaultRatio = defaultRatio;
+        this.defaultSampler = Sampler.traceIdRatioBased(defaultRatio);
+        this.ratios = Map.copyOf(operationRatios);
+        operationRatios.forEach((name, ratio) -> samplers.put(name, Sampler.traceIdRatioBased(ratio)));
+    }
+
+    /**
+     * Returns the sampling ratio that applies to root spans with this name.
+     */
+    public double ratio(String spanName) {
+        return ratios.getOrDefault(spanName, defaultRatio);
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        return samplers.getOrDefault(name, defaultSampler)
+                .shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return "OperationSampler{default=" + defaultRatio + ", operations=" + ratios + "}";
+    }
+}
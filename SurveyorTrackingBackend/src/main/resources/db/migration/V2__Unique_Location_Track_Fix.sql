@@ -0,0 +1,10 @@
+-- Remove rows stored by retried location posts, keeping the first of each
+DELETE FROM location_track a
+    USING location_track b
+    WHERE a.surveyor_id = b.surveyor_id
+      AND a.timestamp = b.timestamp
+      AND a.id > b.id;
+
+-- Backstop for the ingest dedupe window
+CREATE UNIQUE INDEX IF NOT EXISTS uk_location_track_surveyor_timestamp
+    ON location_track (surveyor_id, timestamp);
@@ -0,0 +1,2 @@
+-- Stationary fixes are collapsed into the row that started the stop
+ALTER TABLE location_track ADD COLUMN IF NOT EXISTS dwell_millis BIGINT NOT NULL DEFAULT 0;
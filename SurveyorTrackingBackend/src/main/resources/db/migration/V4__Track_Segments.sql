@@ -0,0 +1,17 @@
+-- Stops and trips detected at ingest, one row per surveyor and segment start
+CREATE TABLE IF NOT EXISTS track_segment (
+    id                 BIGSERIAL PRIMARY KEY,
+    surveyor_id        VARCHAR(255)     NOT NULL,
+    kind               VARCHAR(8)       NOT NULL,
+    start_time         TIMESTAMP(6)     NOT NULL,
+    end_time           TIMESTAMP(6)     NOT NULL,
+    centroid_latitude  DOUBLE PRECISION NOT NULL,
+    centroid_longitude DOUBLE PRECISION NOT NULL,
+    distance_meters    DOUBLE PRECISION NOT NULL,
+    average_speed_mps  DOUBLE PRECISION NOT NULL,
+    heading_degrees    DOUBLE PRECISION,
+    point_count        INTEGER          NOT NULL,
+    CONSTRAINT uk_track_segment_surveyor_start UNIQUE (surveyor_id, start_time)
+);
+
+CREATE INDEX IF NOT EXISTS idx_track_segment_surveyor_end ON track_segment (surveyor_id, end_time);
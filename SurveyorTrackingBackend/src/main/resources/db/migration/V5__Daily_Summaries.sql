@@ -0,0 +1,18 @@
+-- Per-surveyor daily totals maintained at ingest
+CREATE TABLE IF NOT EXISTS daily_summary (
+    id              BIGSERIAL PRIMARY KEY,
+    surveyor_id     VARCHAR(255)     NOT NULL,
+    summary_day     DATE             NOT NULL,
+    first_fix       TIMESTAMP(6)     NOT NULL,
+    last_fix        TIMESTAMP(6)     NOT NULL,
+    distance_meters DOUBLE PRECISION NOT NULL,
+    active_millis   BIGINT           NOT NULL,
+    point_count     INTEGER          NOT NULL,
+    min_latitude    DOUBLE PRECISION NOT NULL,
+    min_longitude   DOUBLE PRECISION NOT NULL,
+    max_latitude    DOUBLE PRECISION NOT NULL,
+    max_longitude   DOUBLE PRECISION NOT NULL,
+    CONSTRAINT uk_daily_summary_surveyor_day UNIQUE (surveyor_id, summary_day)
+);
+
+CREATE INDEX IF NOT EXISTS idx_daily_summary_day ON daily_summary (summary_day);
@@ -0,0 +1,21 @@
+-- Track rollups at 1- and 10-minute resolution for long-range history views
+CREATE TABLE IF NOT EXISTS track_rollup (
+    id                 BIGSERIAL PRIMARY KEY,
+    surveyor_id        VARCHAR(255)     NOT NULL,
+    resolution_seconds INTEGER          NOT NULL,
+    bucket_start       TIMESTAMP(6)     NOT NULL,
+    point_time         TIMESTAMP(6)     NOT NULL,
+    latitude           DOUBLE PRECISION NOT NULL,
+    longitude          DOUBLE PRECISION NOT NULL,
+    point_count        INTEGER          NOT NULL,
+    distance_meters    DOUBLE PRECISION NOT NULL,
+    CONSTRAINT uk_track_rollup_surveyor_resolution_bucket UNIQUE (surveyor_id, resolution_seconds, bucket_start)
+);
+
+-- How far the rollup builder has read location_track
+CREATE TABLE IF NOT EXISTS rollup_checkpoint (
+    name        VARCHAR(64) PRIMARY KEY,
+    last_id     BIGINT      NOT NULL,
+    backfill_to BIGINT      NOT NULL,
+    backfilled  BOOLEAN     NOT NULL
+);
@@ -0,0 +1,105 @@
+package com.neogeo.tracking.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+
+class ArchiveFileTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 5, 30, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    // Fixes 7 s apart with millisecond parts; every 100th has a dwell
+    private static List<LocationTrack> day(int count) {
+        List<LocationTrack> fixes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocationTrack fix = new LocationTrack("SURV001", -33.868820 + i * 0.000013, 151.209296 - i * 0.000021,
+                    DAY.plusSeconds(i * 7L).plusNanos((i % 1000) * 1_000_000L), null);
+            if (i % 100 == 0) {
+                fix.setDwellMillis(60_000 + i);
+            }
+            fixes.add(fix);
+        }
+        return fixes;
+    }
+
+    private static long millis(LocalDateTime timestamp) {
+        return LocationFix.toMillis(timestamp);
+    }
+
+    @Test
+    void roundTripsEveryBlock() throws IOException {
+        List<LocationTrack> fixes = day(2 * ArchiveFile.BLOCK_POINTS + 100);
+
+        List<LocationTrack> decoded = ArchiveFile.decode(ArchiveFile.encode(fixes), "SURV001",
+                Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertThat(decoded).hasSize(fixes.size());
+        for (int i = 0; i < fixes.size(); i++) {
+            LocationTrack expected = fixes.get(i);
+            LocationTrack actual = decoded.get(i);
+            assertThat(actual.getSurveyorId()).isEqualTo("SURV001");
+            assertThat(actual.getTimestamp()).isEqualTo(expected.getTimestamp());
+            assertThat(actual.getLatitude()).isCloseTo(expected.getLatitude(), within(1e-6));
+            assertThat(actual.getLongitude()).isCloseTo(expected.getLongitude(), within(1e-6));
+            assertThat(actual.getDwellMillis()).isEqualTo(expected.getDwellMillis());
+        }
+    }
+
+    @Test
+    void decodesOnlyTheRequestedRange() throws IOException {
+        List<LocationTrack> fixes = day(2 * ArchiveFile.BLOCK_POINTS + 100);
+        LocationTrack first = fixes.get(600);
+        LocationTrack last = fixes.get(700);
+
+        List<LocationTrack> decoded = ArchiveFile.decode(ArchiveFile.encode(fixes), "SURV001",
+                millis(first.getTimestamp()), millis(last.getTimestamp()));
+
+        assertThat(decoded).hasSize(101);
+        assertThat(decoded.get(0).getTimestamp()).isEqualTo(first.getTimestamp());
+        assertThat(decoded.get(100).getTimestamp()).isEqualTo(last.getTimestamp());
+        assertThat(decoded.get(100).getDwellMillis()).isEqualTo(60_700L);
+    }
+
+    @Test
+    void readsMappedFile() throws IOException {
+        List<LocationTrack> fixes = day(10);
+        ByteBuffer encoded = ArchiveFile.encode(fixes);
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        Path file = Files.write(directory.resolve("day" + ArchiveFile.SUFFIX), bytes);
+
+        List<LocationTrack> decoded = ArchiveFile.read(file, "SURV001", DAY, DAY.plusDays(1));
+
+        assertThat(decoded).hasSize(10);
+        assertThat(decoded.get(9).getTimestamp()).isEqualTo(fixes.get(9).getTimestamp());
+    }
+
+    @Test
+    void encodesEmptyDay() throws IOException {
+        assertThat(ArchiveFile.decode(ArchiveFile.encode(List.of()), "SURV001", Long.MIN_VALUE, Long.MAX_VALUE))
+                .isEmpty();
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThatThrownBy(() -> ArchiveFile.decode(ByteBuffer.wrap(new byte[16]), "SURV001", 0, 1))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.neogeo.tracking.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+class LocationFixCodecTests {
+
+    private static final long MILLIS = LocationFix.toMillis(LocalDateTime.of(2025, 5, 30, 15, 0, 1, 250_000_000));
+
+    private final LocationFixCodec codec = new LocationFixCodec();
+
+    private LocationFix decode(String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        return codec.decode(body, 0, body.length, new LocationFix());
+    }
+
+    @Test
+    void decodesMessage() throws IOException {
+        LocationFix fix = decode("{\"surveyorId\":\"SURV001\",\"latitude\":40.7128,\"longitude\":-74.006,"
+                + "\"timestamp\":\"2025-05-30T15:00:01.25\",\"sequence\":7}");
+
+        assertThat(fix.surveyorId).isEqualTo("SURV001");
+        assertThat(fix.latitude).isEqualTo(40.7128);
+        assertThat(fix.longitude).isEqualTo(-74.006);
+        assertThat(fix.timestampMillis).isEqualTo(MILLIS);
+        assertThat(fix.sequence).isEqualTo(7L);
+    }
+
+    @Test
+    void roundTripsEncodedFix() throws IOException {
+        LocationFix fix = new LocationFix("SURV001", 40.7128, -74.006, MILLIS);
+
+        String json = codec.encode(fix);
+        LocationFix decoded = decode(json);
+
+        assertThat(json).isEqualTo("{\"surveyorId\":\"SURV001\",\"latitude\":40.7128,\"longitude\":-74.006,"
+                + "\"timestamp\":\"2025-05-30T15:00:01.25\"}");
+        assertThat(decoded.timestampMillis).isEqualTo(MILLIS);
+    }
+
+    @Test
+    void acceptsNumericStringsLikeDatabind() throws IOException {
+        LocationFix fix = decode("{\"surveyorId\":1001,\"latitude\":\"40.7128\",\"longitude\":\"-74.006\","
+                + "\"timestamp\":\"2025-05-30T15:00:01.25\",\"sequence\":\"12\"}");
+
+        assertThat(fix.surveyorId).isEqualTo("1001");
+        assertThat(fix.latitude).isEqualTo(40.7128);
+        assertThat(fix.longitude).isEqualTo(-74.006);
+        assertThat(fix.sequence).isEqualTo(12L);
+    }
+
+    @Test
+    void acceptsArrayFormTimestamp() throws IOException {
+        LocationFix fix = decode("{\"surveyorId\":\"SURV001\",\"latitude\":1,\"longitude\":2,"
+                + "\"timestamp\":[2025,5,30,15,0,1,250000000]}");
+        LocationFix minutes = decode("{\"surveyorId\":\"SURV001\",\"latitude\":1,\"longitude\":2,"
+                + "\"timestamp\":[2025,5,30,15,0]}");
+
+        assertThat(fix.timestampMillis).isEqualTo(MILLIS);
+        assertThat(minutes.timestampMillis).isEqualTo(MILLIS - 1_250);
+    }
+
+    @Test
+    void rejectsInvalidArrayFormTimestamp() {
+        assertThatThrownBy(() -> decode("{\"surveyorId\":\"SURV001\",\"latitude\":1,\"longitude\":2,"
+                + "\"timestamp\":[2025,13,30,15,0]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decode("{\"surveyorId\":\"SURV001\",\"latitude\":1,\"longitude\":2,"
+                + "\"timestamp\":[2025,5,30]}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void skipsObjectsInKnownFields() throws IOException {
+        // The nested fields must not be read as the message's own
+        LocationFix fix = decode("{\"surveyorId\":\"SURV001\",\"sequence\":{\"surveyorId\":\"OTHER\"},"
+                + "\"latitude\":1,\"longitude\":2,\"timestamp\":\"2025-05-30T15:00:01.25\"}");
+
+        assertThat(fix.surveyorId).isEqualTo("SURV001");
+        assertThat(fix.sequence).isEqualTo(LocationFix.NO_SEQUENCE);
+        assertThatThrownBy(() -> decode("{\"surveyorId\":\"SURV001\",\"latitude\":{\"latitude\":1},"
+                + "\"longitude\":2,\"timestamp\":\"2025-05-30T15:00:01.25\"}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsNonNumericLatitude() {
+        assertThatThrownBy(() -> decode("{\"surveyorId\":\"SURV001\",\"latitude\":\"north\",\"longitude\":2,"
+                + "\"timestamp\":\"2025-05-30T15:00:01.25\"}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("latitude");
+    }
+}
@@ -0,0 +1,63 @@
+package com.neogeo.tracking.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+class LocationProtobufCodecTests {
+
+    @Test
+    void roundTripsMessage() {
+        LiveLocationMessage message = new LiveLocationMessage();
+        message.surveyorId = "SURV001";
+        message.latitude = 40.7128;
+        message.longitude = -74.006;
+        message.timestamp = LocalDateTime.of(2025, 5, 30, 15, 0, 1, 250_000_000);
+
+        LiveLocationMessage decoded = LocationProtobufCodec.decode(LocationProtobufCodec.encode(message));
+
+        assertThat(decoded.surveyorId).isEqualTo("SURV001");
+        assertThat(decoded.latitude).isEqualTo(40.7128);
+        assertThat(decoded.longitude).isEqualTo(-74.006);
+        assertThat(decoded.timestamp).isEqualTo(message.timestamp);
+    }
+
+    @Test
+    void skipsUnknownFields() {
+        // Unknown field 7 (length-delimited, 2 bytes), then surveyorId "A"
+        byte[] bytes = {0x3A, 0x02, 0x01, 0x02, 0x0A, 0x01, 'A'};
+
+        assertThat(LocationProtobufCodec.decode(bytes).surveyorId).isEqualTo("A");
+    }
+
+    @Test
+    void rejectsNegativeLengthOfUnknownField() {
+        // Unknown field 7 with length -6, which would move the position back to 0
+        byte[] bytes = {0x3A, (byte) 0xFA, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+
+        assertThatThrownBy(() -> LocationProtobufCodec.decode(bytes)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsLengthPastEnd() {
+        byte[] surveyorId = {0x0A, 0x05, 'A'};
+        byte[] unknown = {0x3A, 0x7F, 0x01};
+
+        assertThatThrownBy(() -> LocationProtobufCodec.decode(surveyorId)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LocationProtobufCodec.decode(unknown)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTruncatedFields() {
+        byte[] latitude = {0x11, 0x00, 0x00};
+        byte[] varint = {0x20, (byte) 0x80};
+
+        assertThatThrownBy(() -> LocationProtobufCodec.decode(latitude)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LocationProtobufCodec.decode(varint)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,52 @@
+package com.neogeo.tracking.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class PolylineCodecTests {
+
+    @Test
+    void encodesReferenceExample() {
+        // Example from Google's encoded polyline format documentation
+        double[] latitudes = {38.5, 40.7, 43.252};
+        double[] longitudes = {-120.2, -120.95, -126.453};
+
+        assertThat(PolylineCodec.encodeCoordinates(latitudes, longitudes, 3, 5))
+                .isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void roundTripsCoordinates() {
+        double[] latitudes = {-33.8688197, -33.8688201, 51.5072178, 0.0, 89.9999999};
+        double[] longitudes = {151.2092955, 151.2092911, -0.1275862, 0.0, -179.9999999};
+
+        String encoded = PolylineCodec.encodeCoordinates(latitudes, longitudes, latitudes.length, 7);
+        double[][] decoded = PolylineCodec.decodeCoordinates(encoded, latitudes.length, 7);
+
+        for (int i = 0; i < latitudes.length; i++) {
+            assertThat(decoded[0][i]).isCloseTo(latitudes[i], within(1e-7));
+            assertThat(decoded[1][i]).isCloseTo(longitudes[i], within(1e-7));
+        }
+    }
+
+    @Test
+    void roundTripsSeries() {
+        long[] seconds = {1_748_617_201L, 1_748_617_206L, 1_748_617_204L, 1_748_620_000L, 0L};
+
+        String encoded = PolylineCodec.encodeSeries(seconds, seconds.length);
+
+        assertThat(PolylineCodec.decodeSeries(encoded, seconds.length)).containsExactly(seconds);
+    }
+
+    @Test
+    void encodesOnlyTheFirstCountValues() {
+        long[] values = {10, 20, 30};
+
+        String encoded = PolylineCodec.encodeSeries(values, 2);
+
+        assertThat(encoded).isEqualTo(PolylineCodec.encodeSeries(new long[] {10, 20}, 2));
+        assertThat(PolylineCodec.decodeSeries(encoded, 2)).containsExactly(10L, 20L);
+    }
+}
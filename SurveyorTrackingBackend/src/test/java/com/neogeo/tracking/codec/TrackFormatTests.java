@@ -0,0 +1,58 @@
+package com.neogeo.tracking.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.dto.CompactTrack;
+import com.neogeo.tracking.model.LocationTrack;
+
+class TrackFormatTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 5, 30, 15, 0, 0, 750_000_000);
+
+    private static List<LocationTrack> track() {
+        return List.of(
+                new LocationTrack("SURV001", 40.7128, -74.006, START, null),
+                new LocationTrack("SURV001", 40.713, -74.0062, START.plusNanos(500_000_000), null),
+                new LocationTrack("SURV001", 40.7131, -74.0063, START.plusSeconds(900).plusNanos(1_000_000), null));
+    }
+
+    @Test
+    void columnsKeepMilliseconds() {
+        CompactTrack track = TrackFormat.COLUMNS.encode("SURV001", track());
+
+        assertThat(track.encoding).isEqualTo("columns");
+        assertThat(track.count).isEqualTo(3);
+        assertThat(track.startTime).isEqualTo(START);
+        // Second fix is half a second in but across a whole-second boundary
+        assertThat(track.timeOffsetsMillis).containsExactly(0L, 500L, 900_001L);
+        assertThat(track.latitudes).containsExactly(40.7128, 40.713, 40.7131);
+        assertThat(track.longitudes).containsExactly(-74.006, -74.0062, -74.0063);
+        assertThat(track.path).isNull();
+    }
+
+    @Test
+    void polylineTimesAreWholeEpochSeconds() {
+        CompactTrack track = TrackFormat.POLYLINE.encode("SURV001", track());
+
+        assertThat(track.encoding).isEqualTo("polyline");
+        assertThat(track.precision).isEqualTo(6);
+        long first = START.toEpochSecond(ZoneOffset.UTC);
+        assertThat(PolylineCodec.decodeSeries(track.times, 3)).containsExactly(first, first + 1, first + 900);
+        assertThat(track.timeOffsetsMillis).isNull();
+    }
+
+    @Test
+    void encodesEmptyTrack() {
+        CompactTrack track = TrackFormat.COLUMNS.encode("SURV001", List.of());
+
+        assertThat(track.count).isZero();
+        assertThat(track.startTime).isNull();
+        assertThat(track.timeOffsetsMillis).isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package com.neogeo.tracking.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.model.LocationTrack;
+
+class ExportFormatTests {
+
+    // Needs escaping in every format
+    private static final String SURVEYOR = "A&B \"1\"";
+
+    // A millisecond part, a coordinate Double.toString would print with an exponent and a dwell
+    private static List<LocationTrack> track() {
+        LocationTrack first = new LocationTrack(SURVEYOR, -33.86882, 151.209296,
+                LocalDateTime.of(2025, 5, 30, 8, 15, 0), null);
+        LocationTrack second = new LocationTrack(SURVEYOR, 0.0005, -0.25,
+                LocalDateTime.of(2025, 5, 30, 8, 15, 30, 250_000_000), null);
+        second.setDwellMillis(60_000);
+        return List.of(first, second);
+    }
+
+    private static String export(ExportFormat format, List<LocationTrack> fixes) throws IOException {
+        StringWriter out = new StringWriter();
+        ExportFormat.TrackWriter writer = format.writer(out);
+        writer.begin(SURVEYOR);
+        for (LocationTrack fix : fixes) {
+            writer.write(fix);
+        }
+        writer.end();
+        return out.toString();
+    }
+
+    @Test
+    void writesGpx() throws IOException {
+        assertThat(export(ExportFormat.GPX, track())).isEqualTo("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <gpx version="1.1" creator="SurveyorTrackingBackend" xmlns="http://www.topografix.com/GPX/1/1">
+                <trk><name>A&amp;B &quot;1&quot;</name><trkseg>
+                <trkpt lat="-33.86882" lon="151.209296"><time>2025-05-30T08:15:00Z</time></trkpt>
+                <trkpt lat="0.0005" lon="-0.25"><time>2025-05-30T08:15:30.25Z</time></trkpt>
+                </trkseg></trk>
+                </gpx>
+                """);
+    }
+
+    @Test
+    void writesGeoJson() throws IOException {
+        assertThat(export(ExportFormat.GEOJSON, track())).isEqualTo("""
+                {"type":"FeatureCollection","features":[
+                {"type":"Feature","geometry":{"type":"Point","coordinates":[151.209296,-33.86882]},\
+                "properties":{"surveyorId":"A&B \\"1\\"","timestamp":"2025-05-30T08:15:00","dwellMillis":0}},
+                {"type":"Feature","geometry":{"type":"Point","coordinates":[-0.25,0.0005]},\
+                "properties":{"surveyorId":"A&B \\"1\\"","timestamp":"2025-05-30T08:15:30.25","dwellMillis":60000}}
+                ]}
+                """);
+    }
+
+    @Test
+    void writesKml() throws IOException {
+        assertThat(export(ExportFormat.KML, track())).isEqualTo("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <kml xmlns="http://www.opengis.net/kml/2.2">
+                <Document><name>A&amp;B &quot;1&quot;</name>
+                <Placemark><TimeStamp><when>2025-05-30T08:15:00Z</when></TimeStamp>\
+                <Point><coordinates>151.209296,-33.86882</coordinates></Point></Placemark>
+                <Placemark><TimeStamp><when>2025-05-30T08:15:30.25Z</when></TimeStamp>\
+                <Point><coordinates>-0.25,0.0005</coordinates></Point></Placemark>
+                </Document>
+                </kml>
+                """);
+    }
+
+    @Test
+    void writesCsv() throws IOException {
+        assertThat(export(ExportFormat.CSV, track())).isEqualTo("""
+                surveyorId,latitude,longitude,timestamp,dwellMillis
+                "A&B ""1""\",-33.86882,151.209296,2025-05-30T08:15:00,0
+                "A&B ""1""\",0.0005,-0.25,2025-05-30T08:15:30.25,60000
+                """);
+    }
+
+    @Test
+    void writesEmptyTracks() throws IOException {
+        assertThat(export(ExportFormat.GEOJSON, List.of()))
+                .isEqualTo("{\"type\":\"FeatureCollection\",\"features\":[\n\n]}\n");
+        assertThat(export(ExportFormat.CSV, List.of()))
+                .isEqualTo("surveyorId,latitude,longitude,timestamp,dwellMillis\n");
+    }
+
+    @Test
+    void resolvesNamesIgnoringCase() {
+        assertThat(ExportFormat.of("GeoJSON")).isEqualTo(ExportFormat.GEOJSON);
+        assertThatThrownBy(() -> ExportFormat.of("shp"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("gpx, geojson, kml or csv");
+    }
+}
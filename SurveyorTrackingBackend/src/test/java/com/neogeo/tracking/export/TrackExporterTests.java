@@ -0,0 +1,171 @@
+package com.neogeo.tracking.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.neogeo.tracking.archive.TrackArchive;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+class TrackExporterTests {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 5, 30);
+    private static final String HEADER = "surveyorId,latitude,longitude,timestamp,dwellMillis\n";
+    // Latitudes tell archived fixes from stored ones
+    private static final double ARCHIVED = 1;
+    private static final double STORED = 2;
+
+    @TempDir
+    Path directory;
+
+    private final List<LocationTrack> archived = new ArrayList<>();
+    private final List<LocationTrack> stored = new ArrayList<>();
+    private TrackExporter exporter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        TrackArchive archive = new TrackArchive(directory.toString(), 90, true, null, null, null, null,
+                new SimpleMeterRegistry()) {
+            @Override
+            public List<LocationTrack> range(String surveyorId, LocalDateTime start, LocalDateTime end) {
+                return select(archived, surveyorId, start, end);
+            }
+
+            @Override
+            public List<LocalDate> days(LocalDate start, LocalDate end) {
+                return archived.stream().map(fix -> fix.getTimestamp().toLocalDate()).distinct()
+                        .filter(day -> !day.isBefore(start) && !day.isAfter(end)).toList();
+            }
+        };
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("trackArchive", archive);
+        exporter = new TrackExporter(repository(), null, entityManager(), transactionManager(),
+                beans.getBeanProvider(TrackArchive.class), "jpa", 1, 1, 4, 1, 5, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        exporter.stop();
+    }
+
+    private static LocalDateTime at(int day, int hour, int minute) {
+        return DAY.plusDays(day).atTime(hour, minute);
+    }
+
+    private static void add(List<LocationTrack> fixes, double latitude, LocalDateTime timestamp) {
+        fixes.add(new LocationTrack("S1", latitude, 0, timestamp, null));
+    }
+
+    private static String row(double latitude, LocalDateTime timestamp) {
+        return "S1," + (latitude == ARCHIVED ? "1" : "2") + ",0,"
+                + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp) + ",0\n";
+    }
+
+    private String export(LocalDateTime start, LocalDateTime end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export("S1", start, end, ExportFormat.CSV, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // Archived: day 0 08:00 and 09:00, day 1 08:00 and 10:00. Stored: a late day 0 08:30
+    // and day 1 08:00, which the archive holds too
+    private void interleavedDays() {
+        add(archived, ARCHIVED, at(0, 8, 0));
+        add(archived, ARCHIVED, at(0, 9, 0));
+        add(archived, ARCHIVED, at(1, 8, 0));
+        add(archived, ARCHIVED, at(1, 10, 0));
+        add(stored, STORED, at(0, 8, 30));
+        add(stored, STORED, at(1, 8, 0));
+    }
+
+    @Test
+    void mergesArchivedDaysIntoTheCursorInTimestampOrder() throws IOException {
+        interleavedDays();
+
+        assertThat(export(null, null)).isEqualTo(HEADER
+                + row(ARCHIVED, at(0, 8, 0))
+                + row(STORED, at(0, 8, 30))
+                + row(ARCHIVED, at(0, 9, 0))
+                // The stored row wins over the archived one with its timestamp
+                + row(STORED, at(1, 8, 0))
+                // Archived fixes after the last stored row still follow
+                + row(ARCHIVED, at(1, 10, 0)));
+    }
+
+    @Test
+    void mergesOnlyTheRange() throws IOException {
+        interleavedDays();
+
+        assertThat(export(at(0, 8, 45), at(1, 9, 0))).isEqualTo(HEADER
+                + row(ARCHIVED, at(0, 9, 0))
+                + row(STORED, at(1, 8, 0)));
+    }
+
+    @Test
+    void writesArchivedDaysWithoutStoredRows() throws IOException {
+        add(archived, ARCHIVED, at(0, 8, 0));
+        add(archived, ARCHIVED, at(2, 8, 0));
+
+        assertThat(export(null, null)).isEqualTo(HEADER
+                + row(ARCHIVED, at(0, 8, 0))
+                + row(ARCHIVED, at(2, 8, 0)));
+    }
+
+    private static List<LocationTrack> select(List<LocationTrack> fixes, String surveyorId,
+                                              LocalDateTime start, LocalDateTime end) {
+        return fixes.stream()
+                .filter(fix -> fix.getSurveyorId().equals(surveyorId)
+                        && (start == null || !fix.getTimestamp().isBefore(start))
+                        && (end == null || !fix.getTimestamp().isAfter(end)))
+                .toList();
+    }
+
+    private LocationTrackRepository repository() {
+        return (LocationTrackRepository) Proxy.newProxyInstance(LocationTrackRepository.class.getClassLoader(),
+                new Class<?>[] {LocationTrackRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "streamBySurveyorIdOrderByTimestampAsc":
+                            return select(stored, (String) args[0], null, null).stream();
+                        case "streamBySurveyorIdAndTimestampBetweenOrderByTimestampAsc":
+                            return select(stored, (String) args[0], (LocalDateTime) args[1],
+                                    (LocalDateTime) args[2]).stream();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[] {EntityManager.class}, (proxy, method, args) -> null);
+    }
+
+    private static PlatformTransactionManager transactionManager() {
+        return (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(),
+                new Class<?>[] {PlatformTransactionManager.class},
+                (proxy, method, args) -> method.getName().equals("getTransaction")
+                        ? new SimpleTransactionStatus() : null);
+    }
+}
@@ -0,0 +1,161 @@
+package com.neogeo.tracking.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+class CopyWriterTests {
+
+    private static final byte[] SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+
+    // Bytes of each finished COPY and the statements run on the connection
+    private final List<byte[]> copies = new ArrayList<>();
+    private final List<String> statements = new ArrayList<>();
+    private int commits;
+
+    private final Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "createStatement" -> statement();
+                case "commit" -> {
+                    commits++;
+                    yield null;
+                }
+                default -> null;
+            });
+
+    private Statement statement() {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Statement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "execute" -> {
+                        statements.add((String) args[0]);
+                        yield false;
+                    }
+                    case "executeUpdate" -> {
+                        statements.add((String) args[0]);
+                        // Pretend one staged row was already stored
+                        yield 1;
+                    }
+                    default -> null;
+                });
+    }
+
+    private CopyIn copyIn(String sql) {
+        statements.add(sql);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        boolean[] active = {true};
+        return (CopyIn) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {CopyIn.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "writeToCopy" -> {
+                        bytes.write((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+                        yield null;
+                    }
+                    case "isActive" -> active[0];
+                    case "endCopy" -> {
+                        active[0] = false;
+                        copies.add(bytes.toByteArray());
+                        yield 0L;
+                    }
+                    default -> null;
+                });
+    }
+
+    private static LocationFix fix(String surveyorId, double latitude, double longitude, LocalDateTime timestamp) {
+        return new LocationFix(surveyorId, latitude, longitude, LocationFix.toMillis(timestamp));
+    }
+
+    @Test
+    void writesBinaryCopyRows() throws Exception {
+        LocalDateTime first = LocalDateTime.of(2024, 5, 1, 8, 0, 0, 250_000_000);
+        LocalDateTime second = LocalDateTime.of(1999, 12, 31, 23, 59, 59);
+        try (CopyWriter writer = new CopyWriter(connection, 10, this::copyIn)) {
+            assertThat(writer.write(fix("S1", 40.5, -74.25, first))).isFalse();
+            assertThat(writer.write(fix("S\u00fcrveyor", -33.865, 151.209, second))).isFalse();
+            assertThat(writer.pending()).isEqualTo(2);
+
+            assertThat(writer.commit()).isEqualTo(1L);
+            assertThat(writer.pending()).isEqualTo(0);
+        }
+
+        assertThat(copies).hasSize(1);
+        ByteBuffer copy = ByteBuffer.wrap(copies.get(0));
+        byte[] signature = new byte[SIGNATURE.length];
+        copy.get(signature);
+        assertThat(Arrays.equals(signature, SIGNATURE)).isTrue();
+        assertThat(copy.getInt()).isEqualTo(0);
+        assertThat(copy.getInt()).isEqualTo(0);
+
+        assertRow(copy, "S1", 40.5, -74.25, first);
+        assertRow(copy, "S\u00fcrveyor", -33.865, 151.209, second);
+        assertThat(copy.getShort()).isEqualTo((short) -1);
+        assertThat(copy.hasRemaining()).isFalse();
+    }
+
+    private static void assertRow(ByteBuffer copy, String surveyorId, double latitude, double longitude,
+                                  LocalDateTime timestamp) {
+        assertThat(copy.getShort()).isEqualTo((short) 5);
+
+        byte[] id = new byte[copy.getInt()];
+        copy.get(id);
+        assertThat(new String(id, StandardCharsets.UTF_8)).isEqualTo(surveyorId);
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getDouble()).isEqualTo(latitude);
+        assertThat(copy.getInt()).isEqualTo(8);
+        assertThat(copy.getDouble()).isEqualTo(longitude);
+
+        // PostgreSQL timestamps count microseconds from 2000-01-01
+        assertThat(copy.getInt()).isEqualTo(8);
+        long micros = Duration.between(LocalDateTime.of(2000, 1, 1, 0, 0), timestamp).toNanos() / 1_000;
+        assertThat(copy.getLong()).isEqualTo(micros);
+
+        // EWKB point, little endian: byte order, type with the SRID flag, SRID, then x (longitude) and y
+        assertThat(copy.getInt()).isEqualTo(25);
+        ByteBuffer geom = copy.slice(copy.position(), 25).order(ByteOrder.LITTLE_ENDIAN);
+        copy.position(copy.position() + 25);
+        assertThat(geom.get()).isEqualTo((byte) 1);
+        assertThat(geom.getInt()).isEqualTo(0x20000001);
+        assertThat(geom.getInt()).isEqualTo(4326);
+        assertThat(geom.getDouble()).isEqualTo(longitude);
+        assertThat(geom.getDouble()).isEqualTo(latitude);
+    }
+
+    @Test
+    void eachBatchIsItsOwnCopyAndTransaction() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 8, 0);
+        try (CopyWriter writer = new CopyWriter(connection, 2, this::copyIn)) {
+            assertThat(writer.write(fix("S1", 40.5, -74.25, start))).isFalse();
+            assertThat(writer.write(fix("S1", 40.5, -74.25, start.plusSeconds(1)))).isTrue();
+            writer.commit();
+            writer.write(fix("S1", 40.5, -74.25, start.plusSeconds(2)));
+            writer.commit();
+            // Nothing pending: no empty COPY
+            assertThat(writer.commit()).isEqualTo(0L);
+        }
+
+        assertThat(copies).hasSize(2);
+        // Header, two rows and the trailer; then header, one row and the trailer
+        int row = 2 + 4 + 2 + 3 * (4 + 8) + 4 + 25;
+        assertThat(copies.get(0).length).isEqualTo(SIGNATURE.length + 8 + 2 * row + 2);
+        assertThat(copies.get(1).length).isEqualTo(SIGNATURE.length + 8 + row + 2);
+        // The staging table is created once, then each batch is copied and merged
+        assertThat(statements.get(0)).startsWith("CREATE TEMP TABLE");
+        assertThat(statements.stream().filter(sql -> sql.startsWith("COPY")).count()).isEqualTo(2L);
+        assertThat(statements.stream().filter(sql -> sql.startsWith("INSERT INTO location_track")).count()).isEqualTo(2L);
+        assertThat(commits).isEqualTo(3);
+    }
+}
@@ -0,0 +1,106 @@
+package com.neogeo.tracking.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+class CsvFixReaderTests {
+
+    private static RecordingSink read(String csv, String surveyorId) throws IOException {
+        RecordingSink sink = new RecordingSink();
+        new CsvFixReader().read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), surveyorId, sink);
+        return sink;
+    }
+
+    @Test
+    void headerAliasesInAnyOrder() throws IOException {
+        RecordingSink sink = read("""
+                time,LNG,Surveyor_Id,lat
+                2024-05-01T08:00:00,-74.25,S1,40.5
+                "2024-05-01T08:00:05", "-74.26" ,"S2",40.6
+                """, null);
+
+        assertThat(sink.fixes).hasSize(2);
+        LocationFix first = sink.fixes.get(0);
+        assertThat(first.surveyorId).isEqualTo("S1");
+        assertThat(first.latitude).isEqualTo(40.5);
+        assertThat(first.longitude).isEqualTo(-74.25);
+        assertThat(first.timestampMillis).isEqualTo(LocationFix.toMillis(LocalDateTime.of(2024, 5, 1, 8, 0)));
+        assertThat(sink.fixes.get(1).surveyorId).isEqualTo("S2");
+        assertThat(sink.fixes.get(1).longitude).isEqualTo(-74.26);
+    }
+
+    @Test
+    void timestampsInEveryAcceptedForm() throws IOException {
+        long eight = LocationFix.toMillis(LocalDateTime.of(2024, 5, 1, 8, 0));
+        RecordingSink sink = read("""
+                latitude,longitude,timestamp
+                40.5,-74.25,2024-05-01T08:00:00.250
+                40.5,-74.25,2024-05-01T10:00:00+02:00
+                40.5,-74.25,2024-05-01T08:00:00Z
+                40.5,-74.25,%d
+                40.5,-74.25,yesterday
+                """.formatted(eight + 1_000), "S1");
+
+        assertThat(sink.fixes.stream().map(fix -> fix.timestampMillis).toList())
+                .containsExactly(eight + 250, eight, eight, eight + 1_000);
+        assertThat(sink.rejected).isEqualTo(1);
+    }
+
+    @Test
+    void shortAndBadRowsAreRejected() throws IOException {
+        RecordingSink sink = read("""
+                surveyorId,latitude,longitude,timestamp
+                S1,40.5,-74.25,2024-05-01T08:00:00
+
+                S1,40.5
+                S1,north,-74.25,2024-05-01T08:00:01
+                ,40.5,-74.25,2024-05-01T08:00:02
+                """, "DEFAULT");
+
+        // The blank line is skipped; an empty surveyor falls back to the given one
+        assertThat(sink.fixes).hasSize(2);
+        assertThat(sink.fixes.get(1).surveyorId).isEqualTo("DEFAULT");
+        assertThat(sink.rejected).isEqualTo(2);
+    }
+
+    @Test
+    void outOfRangeCoordinatesAreRejected() throws IOException {
+        RecordingSink sink = read("""
+                lat,lon,time
+                90,180,2024-05-01T08:00:00
+                -90,-180,2024-05-01T08:00:01
+                90.1,0,2024-05-01T08:00:02
+                0,-180.5,2024-05-01T08:00:03
+                """, "S1");
+
+        assertThat(sink.fixes).hasSize(2);
+        assertThat(sink.rejected).isEqualTo(2);
+    }
+
+    @Test
+    void headerMustNameTheRequiredColumns() {
+        assertThatThrownBy(() -> read("lat,lon\n40.5,-74.25\n", "S1"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("latitude, longitude and timestamp");
+        assertThatThrownBy(() -> read("lat,lon,time\n40.5,-74.25,2024-05-01T08:00:00\n", null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("no surveyorId column");
+    }
+
+    @Test
+    void emptyFileHasNoFixes() throws IOException {
+        RecordingSink sink = read("", "S1");
+
+        assertThat(sink.fixes).isEmpty();
+        assertThat(sink.rejected).isEqualTo(0);
+    }
+}
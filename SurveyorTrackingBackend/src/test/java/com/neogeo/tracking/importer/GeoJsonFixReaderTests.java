@@ -0,0 +1,86 @@
+package com.neogeo.tracking.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+class GeoJsonFixReaderTests {
+
+    private static final long EIGHT = LocationFix.toMillis(LocalDateTime.of(2024, 5, 1, 8, 0));
+
+    private static RecordingSink read(String json, String surveyorId) throws IOException {
+        RecordingSink sink = new RecordingSink();
+        new GeoJsonFixReader().read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), surveyorId, sink);
+        return sink;
+    }
+
+    @Test
+    void readsPointsAndLineStrings() throws IOException {
+        RecordingSink sink = read("""
+                {"type": "FeatureCollection", "crs": {"type": "name", "properties": {"name": "EPSG:4326"}},
+                 "features": [
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-74.25, 40.5]},
+                   "properties": {"timestamp": "2024-05-01T08:00:00"}},
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-74.26, 40.6, 12.5]},
+                   "properties": {"time": %d, "surveyorId": "S2"}},
+                  {"type": "Feature", "geometry": {"type": "LineString", "coordinates": [[-74.3, 40.7], [-74.31, 40.71]]},
+                   "properties": {"coordTimes": ["2024-05-01T10:00:02+02:00", "2024-05-01T08:00:03Z"]}}
+                 ]}
+                """.formatted(EIGHT + 1_000), "S1");
+
+        assertThat(sink.rejected).isEqualTo(0);
+        assertThat(sink.fixes.stream().map(fix -> fix.timestampMillis).toList())
+                .containsExactly(EIGHT, EIGHT + 1_000, EIGHT + 2_000, EIGHT + 3_000);
+        assertThat(sink.fixes.stream().map(fix -> fix.surveyorId).toList()).containsExactly("S1", "S2", "S1", "S1");
+        // GeoJSON positions are longitude first
+        assertThat(sink.fixes.get(0).latitude).isEqualTo(40.5);
+        assertThat(sink.fixes.get(0).longitude).isEqualTo(-74.25);
+    }
+
+    @Test
+    void unusablePositionsAreRejected() throws IOException {
+        RecordingSink sink = read("""
+                {"type": "FeatureCollection", "features": [
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-74.25, 40.5]}, "properties": {}},
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-74.25]},
+                   "properties": {"timestamp": "2024-05-01T08:00:00"}},
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [-74.25, 95.0]},
+                   "properties": {"timestamp": "2024-05-01T08:00:00"}},
+                  {"type": "Feature", "geometry": {"type": "Polygon", "coordinates": []}, "properties": {}},
+                  {"type": "Feature", "geometry": {"type": "MultiPoint", "coordinates": [[-74.3, 40.7], [-190, 40.7], [-74.3, 40.8]]},
+                   "properties": {"coordTimes": ["2024-05-01T08:00:01", "2024-05-01T08:00:02"]}}
+                ]}
+                """, "S1");
+
+        // Only the first MultiPoint position has both a valid position and a time
+        assertThat(sink.fixes).hasSize(1);
+        assertThat(sink.fixes.get(0).timestampMillis).isEqualTo(EIGHT + 1_000);
+        assertThat(sink.rejected).isEqualTo(6);
+    }
+
+    @Test
+    void featuresWithoutAnySurveyorAreRejected() throws IOException {
+        RecordingSink sink = read("""
+                {"features": [{"type": "Feature", "geometry": {"type": "Point", "coordinates": [-74.25, 40.5]},
+                  "properties": {"timestamp": "2024-05-01T08:00:00"}}]}
+                """, null);
+
+        assertThat(sink.fixes).isEmpty();
+        assertThat(sink.rejected).isEqualTo(1);
+    }
+
+    @Test
+    void mustBeAnObject() {
+        assertThatThrownBy(() -> read("[]", "S1"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("FeatureCollection");
+    }
+}
@@ -0,0 +1,80 @@
+package com.neogeo.tracking.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+class GpxFixReaderTests {
+
+    private static final long EIGHT = LocationFix.toMillis(LocalDateTime.of(2024, 5, 1, 8, 0));
+
+    private static RecordingSink read(String gpx, String surveyorId) throws IOException {
+        RecordingSink sink = new RecordingSink();
+        new GpxFixReader().read(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)), surveyorId, sink);
+        return sink;
+    }
+
+    @Test
+    void readsTrackRouteAndWayPoints() throws IOException {
+        RecordingSink sink = read("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <gpx version="1.1" creator="test" xmlns="http://www.topografix.com/GPX/1/1">
+                  <metadata><time>2023-01-01T00:00:00Z</time></metadata>
+                  <wpt lat="40.4" lon="-74.1"><time>2024-05-01T07:59:00Z</time></wpt>
+                  <trk><name>Survey</name><trkseg>
+                    <trkpt lat="40.5" lon="-74.25"><ele>12.5</ele><time>2024-05-01T08:00:00Z</time></trkpt>
+                    <trkpt lat="40.6" lon="-74.26"><time>2024-05-01T10:00:01+02:00</time></trkpt>
+                  </trkseg></trk>
+                  <rte><rtept lat="40.7" lon="-74.27"><time>2024-05-01T08:00:02.500Z</time></rtept></rte>
+                </gpx>
+                """, "S1");
+
+        assertThat(sink.rejected).isEqualTo(0);
+        assertThat(sink.fixes.stream().map(fix -> fix.timestampMillis).toList())
+                .containsExactly(EIGHT - 60_000, EIGHT, EIGHT + 1_000, EIGHT + 2_500);
+        LocationFix trackPoint = sink.fixes.get(1);
+        assertThat(trackPoint.surveyorId).isEqualTo("S1");
+        assertThat(trackPoint.latitude).isEqualTo(40.5);
+        assertThat(trackPoint.longitude).isEqualTo(-74.25);
+    }
+
+    @Test
+    void pointsWithoutTimeOrWithOutOfRangeCoordinatesAreRejected() throws IOException {
+        RecordingSink sink = read("""
+                <gpx><trk><trkseg>
+                  <trkpt lat="40.5" lon="-74.25"/>
+                  <trkpt lat="40.5"><time>2024-05-01T08:00:00Z</time></trkpt>
+                  <trkpt lat="91" lon="-74.25"><time>2024-05-01T08:00:01Z</time></trkpt>
+                  <trkpt lat="40.5" lon="181"><time>2024-05-01T08:00:02Z</time></trkpt>
+                  <trkpt lat="40.5" lon="-74.25"><time>soon</time></trkpt>
+                  <trkpt lat="40.5" lon="-74.25"><time>2024-05-01T08:00:03Z</time></trkpt>
+                </trkseg></trk></gpx>
+                """, "S1");
+
+        assertThat(sink.fixes).hasSize(1);
+        assertThat(sink.fixes.get(0).timestampMillis).isEqualTo(EIGHT + 3_000);
+        assertThat(sink.rejected).isEqualTo(5);
+    }
+
+    @Test
+    void needsASurveyor() {
+        assertThatThrownBy(() -> read("<gpx/>", null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("need a surveyor");
+    }
+
+    @Test
+    void malformedXmlFailsTheFile() {
+        assertThatThrownBy(() -> read("<gpx><trk><trkpt lat=\"40.5\"", "S1"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Malformed GPX");
+    }
+}
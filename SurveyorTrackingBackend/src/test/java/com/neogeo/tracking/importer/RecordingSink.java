@@ -0,0 +1,25 @@
+package com.neogeo.tracking.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+/**
+ * Collects what a {@link FixReader} emits.
+ */
+class RecordingSink implements FixReader.Sink {
+
+    final List<LocationFix> fixes = new ArrayList<>();
+    int rejected;
+
+    @Override
+    public void accept(LocationFix fix) {
+        fixes.add(fix);
+    }
+
+    @Override
+    public void reject() {
+        rejected++;
+    }
+}
@@ -0,0 +1,98 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    // One sample window (50 requests) run `concurrency` at a time
+    private static void window(AdaptiveConcurrencyLimiter limiter, int concurrency, long rttNanos) {
+        int released = 0;
+        while (released < 50) {
+            int batch = Math.min(concurrency, 50 - released);
+            for (int i = 0; i < batch; i++) {
+                assertThat(limiter.tryAcquire()).isTrue();
+            }
+            for (int i = 0; i < batch; i++) {
+                limiter.release(rttNanos);
+            }
+            released += batch;
+        }
+    }
+
+    @Test
+    void shedsAtTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileLatencyKeepsPace() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 1.0);
+
+        // First window only sets the baseline: gradient 1, plus the sqrt(limit) queue allowance
+        window(limiter, limiter.limit(), FAST);
+        assertThat(limiter.limit()).isEqualTo(13);
+
+        for (int i = 0; i < 20; i++) {
+            window(limiter, limiter.limit(), FAST);
+        }
+        assertThat(limiter.limit()).isEqualTo(100);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 2, 100, 1.0);
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 1, FAST);
+        }
+        assertThat(limiter.limit()).isEqualTo(40);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 2, 100, 1.0);
+        window(limiter, 40, FAST);
+        int healthy = limiter.limit();
+
+        window(limiter, limiter.limit(), SLOW);
+        int slowed = limiter.limit();
+        assertThat(slowed).isLessThan(healthy);
+
+        for (int i = 0; i < 10; i++) {
+            window(limiter, limiter.limit(), SLOW);
+        }
+        // Halving each window is offset by the queue allowance: limit * 0.5 + sqrt(limit) settles at 4
+        assertThat(limiter.limit()).isLessThan(slowed);
+        assertThat(limiter.limit()).isBetween(2, 5);
+    }
+
+    @Test
+    void neverLeavesConfiguredBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 6, 9, 1.0);
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, limiter.limit(), FAST);
+        }
+        assertThat(limiter.limit()).isEqualTo(9);
+
+        for (int i = 0; i < 10; i++) {
+            window(limiter, limiter.limit(), SLOW * 10);
+        }
+        assertThat(limiter.limit()).isEqualTo(6);
+    }
+}
@@ -0,0 +1,145 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.model.DailySummary;
+
+class DailySummarizerTests {
+
+    // About 111 m of latitude
+    private static final double STEP = 0.001;
+    private static final long DAY_SECONDS = 86_400;
+    private static final long FLUSH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final List<DailySummary> summaries = new ArrayList<>();
+
+    private DailySummarizer.Shard shard() {
+        return new DailySummarizer(true, 60_000, 1000, 1).newShard(summaries::add);
+    }
+
+    private static void add(DailySummarizer.Shard shard, double latitude, long seconds, boolean stored) {
+        shard.add(new LocationFix("S1", latitude, -74, seconds * 1000), stored, 0);
+    }
+
+    private static LocalDate day(long seconds) {
+        return LocationFix.toDateTime(seconds * 1000).toLocalDate();
+    }
+
+    @Test
+    void gapsLongerThanTheActiveGapDoNotCount() {
+        DailySummarizer.Shard shard = shard();
+        add(shard, 40, 0, true);
+        add(shard, 40, 30, true);
+        add(shard, 40, 100, true);
+        add(shard, 40, 130, true);
+        shard.flush();
+
+        assertThat(summaries).hasSize(1);
+        DailySummary summary = summaries.get(0);
+        assertThat(summary.getActiveMillis()).isEqualTo(60_000);
+        assertThat(summary.getPointCount()).isEqualTo(4);
+        assertThat(summary.getFirstFix()).isEqualTo(LocationFix.toDateTime(0));
+        assertThat(summary.getLastFix()).isEqualTo(LocationFix.toDateTime(130_000));
+    }
+
+    @Test
+    void fixesAcrossMidnightGoToTheirOwnDays() {
+        DailySummarizer.Shard shard = shard();
+        add(shard, 40, DAY_SECONDS - 10, true);
+        add(shard, 40 + STEP, DAY_SECONDS + 10, true);
+        add(shard, 40 + 2 * STEP, DAY_SECONDS + 20, true);
+        shard.flush();
+
+        assertThat(summaries).hasSize(2);
+        DailySummary first = summaries.get(0);
+        assertThat(first.getDay()).isEqualTo(day(0));
+        assertThat(first.getPointCount()).isEqualTo(1);
+        assertThat(first.getActiveMillis()).isZero();
+        assertThat(first.getDistanceMeters()).isZero();
+
+        // Neither the 20 s gap nor the step over midnight carries into the new day
+        DailySummary second = summaries.get(1);
+        assertThat(second.getDay()).isEqualTo(day(DAY_SECONDS));
+        assertThat(second.getPointCount()).isEqualTo(2);
+        assertThat(second.getActiveMillis()).isEqualTo(10_000);
+        assertThat(second.getDistanceMeters()).isCloseTo(111.2, within(0.5));
+    }
+
+    @Test
+    void onlyStoredFixesCountAsPointsAndDistance() {
+        DailySummarizer.Shard shard = shard();
+        add(shard, 40, 0, true);
+        add(shard, 40 + 5 * STEP, 10, false);
+        add(shard, 40 + 2 * STEP, 20, true);
+        shard.flush();
+
+        assertThat(summaries).hasSize(1);
+        DailySummary summary = summaries.get(0);
+        assertThat(summary.getPointCount()).isEqualTo(2);
+        // Straight from the first stored fix to the second, not via the jitter
+        assertThat(summary.getDistanceMeters()).isCloseTo(222.4, within(0.5));
+        // Every fix still counts for time and extent
+        assertThat(summary.getActiveMillis()).isEqualTo(20_000);
+        assertThat(summary.getMaxLatitude()).isCloseTo(40 + 5 * STEP, within(1e-9));
+        assertThat(summary.getMinLatitude()).isCloseTo(40, within(1e-9));
+    }
+
+    @Test
+    void tickHandsDeltasToTheSinkEveryFlushInterval() {
+        DailySummarizer.Shard shard = shard();
+        add(shard, 40, 0, true);
+        assertThat(shard.tick(0)).isEqualTo(FLUSH_NANOS);
+        assertThat(summaries).hasSize(1);
+
+        add(shard, 40 + STEP, 10, true);
+        assertThat(shard.tick(FLUSH_NANOS / 2)).isEqualTo(FLUSH_NANOS / 2);
+        assertThat(summaries).hasSize(1);
+
+        shard.tick(FLUSH_NANOS);
+        assertThat(summaries).hasSize(2);
+        // Deltas only: the second flush carries the second fix and the step to it
+        DailySummary delta = summaries.get(1);
+        assertThat(delta.getPointCount()).isEqualTo(1);
+        assertThat(delta.getActiveMillis()).isEqualTo(10_000);
+        assertThat(delta.getDistanceMeters()).isCloseTo(111.2, within(0.5));
+        assertThat(delta.getFirstFix()).isEqualTo(LocationFix.toDateTime(10_000));
+
+        shard.tick(2 * FLUSH_NANOS);
+        shard.flush();
+        assertThat(summaries).hasSize(2);
+    }
+
+    @Test
+    void idleSurveyorsAreForgotten() {
+        DailySummarizer.Shard shard = shard();
+        add(shard, 40, 0, true);
+        shard.tick(IDLE_NANOS + 1);
+        assertThat(summaries).hasSize(1);
+
+        // A fresh start: no active time or distance back to the forgotten fix
+        shard.add(new LocationFix("S1", 40 + STEP, -74, 10_000), true, IDLE_NANOS + 2);
+        shard.flush();
+        assertThat(summaries).hasSize(2);
+        assertThat(summaries.get(1).getActiveMillis()).isZero();
+        assertThat(summaries.get(1).getDistanceMeters()).isZero();
+        assertThat(summaries.get(1).getPointCount()).isEqualTo(1);
+    }
+
+    @Test
+    void disabledSummarizerKeepsNothing() {
+        DailySummarizer.Shard shard = new DailySummarizer(false, 60_000, 1000, 1).newShard(summaries::add);
+        add(shard, 40, 0, true);
+        shard.tick(0);
+        shard.flush();
+        assertThat(summaries).isEmpty();
+    }
+}
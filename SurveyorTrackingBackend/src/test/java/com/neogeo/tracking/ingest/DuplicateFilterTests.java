@@ -0,0 +1,89 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DuplicateFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private DuplicateFilter.Shard shard(int window) {
+        return new DuplicateFilter(true, window, 10, registry).newShard();
+    }
+
+    private static LocationFix fix(String surveyorId, long timestampMillis) {
+        return new LocationFix(surveyorId, 1, 2, timestampMillis);
+    }
+
+    private double duplicates(String stage) {
+        return registry.get("tracking.ingest.duplicates").tag("stage", stage).counter().count();
+    }
+
+    @Test
+    void dropsRetryInsideWindow() {
+        DuplicateFilter.Shard shard = shard(4);
+
+        assertThat(shard.firstSeen(fix("S1", 1000), 0)).isTrue();
+        assertThat(shard.firstSeen(fix("S1", 2000), 0)).isTrue();
+        assertThat(shard.firstSeen(fix("S1", 1000), 0)).isFalse();
+        assertThat(duplicates("window")).isEqualTo(1.0);
+    }
+
+    @Test
+    void keysOlderThanWindowPassToTheStore() {
+        DuplicateFilter.Shard shard = shard(2);
+        shard.firstSeen(fix("S1", 1000), 0);
+        shard.firstSeen(fix("S1", 2000), 0);
+        shard.firstSeen(fix("S1", 3000), 0);
+
+        assertThat(shard.firstSeen(fix("S1", 1000), 0)).isTrue();
+        assertThat(shard.firstSeen(fix("S1", 3000), 0)).isFalse();
+    }
+
+    @Test
+    void sequenceIsTheKeyWhenPresent() {
+        DuplicateFilter.Shard shard = shard(4);
+        LocationFix first = fix("S1", 1000);
+        first.sequence = 7;
+        LocationFix retry = fix("S1", 1001);
+        retry.sequence = 7;
+        LocationFix sameTime = fix("S1", 1000);
+        sameTime.sequence = 8;
+
+        assertThat(shard.firstSeen(first, 0)).isTrue();
+        assertThat(shard.firstSeen(retry, 0)).isFalse();
+        assertThat(shard.firstSeen(sameTime, 0)).isTrue();
+    }
+
+    @Test
+    void windowsArePerSurveyor() {
+        DuplicateFilter.Shard shard = shard(4);
+
+        assertThat(shard.firstSeen(fix("S1", 1000), 0)).isTrue();
+        assertThat(shard.firstSeen(fix("S2", 1000), 0)).isTrue();
+    }
+
+    @Test
+    void idleSurveyorsAreForgotten() {
+        DuplicateFilter.Shard shard = shard(4);
+        long idle = TimeUnit.MINUTES.toNanos(10);
+        shard.firstSeen(fix("S1", 1000), 0);
+
+        shard.evictIdle(idle + 1);
+
+        assertThat(shard.firstSeen(fix("S1", 1000), idle + 2)).isTrue();
+    }
+
+    @Test
+    void disabledFilterLetsEverythingThrough() {
+        DuplicateFilter.Shard shard = new DuplicateFilter(false, 4, 10, registry).newShard();
+
+        assertThat(shard.firstSeen(fix("S1", 1000), 0)).isTrue();
+        assertThat(shard.firstSeen(fix("S1", 1000), 0)).isTrue();
+    }
+}
@@ -0,0 +1,203 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestShardsTests {
+
+    private IngestShards shards;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (shards != null) {
+            shards.stop();
+        }
+    }
+
+    private static LocationFix fix(String surveyorId, long timestampMillis) {
+        return new LocationFix(surveyorId, 40.5, -74.25, timestampMillis);
+    }
+
+    /**
+     * Records which shard thread saw each surveyor's fixes, in order.
+     */
+    private static final class RecordingWorker implements IngestShards.Worker {
+        final Map<String, List<Long>> seen;
+        final Map<String, String> threads;
+        final AtomicInteger flushes;
+
+        RecordingWorker(Map<String, List<Long>> seen, Map<String, String> threads, AtomicInteger flushes) {
+            this.seen = seen;
+            this.threads = threads;
+            this.flushes = flushes;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> process(LocationFix fix, long nowNanos) {
+            String previous = threads.putIfAbsent(fix.surveyorId, Thread.currentThread().getName());
+            if (previous != null && !previous.equals(Thread.currentThread().getName())) {
+                throw new IllegalStateException(fix.surveyorId + " moved shards");
+            }
+            seen.computeIfAbsent(fix.surveyorId, id -> new ArrayList<>()).add(fix.timestampMillis);
+            return CompletableFuture.completedFuture(fix.timestampMillis % 2 == 0);
+        }
+
+        @Override
+        public long tick(long nowNanos) {
+            return TimeUnit.MILLISECONDS.toNanos(100);
+        }
+
+        @Override
+        public void flush() {
+            flushes.incrementAndGet();
+        }
+    }
+
+    @Test
+    void routesEachSurveyorToOneShard() throws Exception {
+        shards = new IngestShards(4, 1024, new SimpleMeterRegistry());
+        Map<String, List<Long>> seen = new ConcurrentHashMap<>();
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        AtomicInteger flushes = new AtomicInteger();
+        shards.start(shard -> new RecordingWorker(seen, threads, flushes));
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(shards.shardOf("S" + i)).isEqualTo(shards.shardOf("S" + i));
+            assertThat(shards.shardOf("S" + i)).isBetween(0, 3);
+        }
+
+        // Each surveyor from its own request thread, fixes in order
+        List<Thread> senders = new ArrayList<>();
+        List<CompletableFuture<Boolean>> answers = new ArrayList<>();
+        for (int s = 0; s < 20; s++) {
+            String surveyorId = "S" + s;
+            senders.add(new Thread(() -> {
+                for (long t = 0; t < 200; t++) {
+                    CompletableFuture<Boolean> answer = shards.submit(fix(surveyorId, t));
+                    synchronized (answers) {
+                        answers.add(answer);
+                    }
+                }
+            }));
+        }
+        senders.forEach(Thread::start);
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        for (CompletableFuture<Boolean> answer : answers) {
+            answer.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(seen).hasSize(20);
+        for (int s = 0; s < 20; s++) {
+            List<Long> timestamps = seen.get("S" + s);
+            assertThat(timestamps).hasSize(200);
+            for (int t = 0; t < 200; t++) {
+                assertThat(timestamps.get(t)).isEqualTo((long) t);
+            }
+            assertThat(threads.get("S" + s)).isEqualTo("ingest-shard-" + shards.shardOf("S" + s));
+        }
+
+        shards.stop();
+        assertThat(flushes.get()).isEqualTo(4);
+    }
+
+    @Test
+    void answersAndFailuresReachTheCaller() throws Exception {
+        shards = new IngestShards(1, 16, new SimpleMeterRegistry());
+        shards.start(shard -> new IngestShards.Worker() {
+            @Override
+            public CompletableFuture<Boolean> process(LocationFix fix, long nowNanos) {
+                if (fix.timestampMillis < 0) {
+                    throw new IllegalArgumentException("negative");
+                }
+                // Handed off: completes later on another thread
+                return CompletableFuture.supplyAsync(() -> fix.timestampMillis > 0);
+            }
+
+            @Override
+            public long tick(long nowNanos) {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+
+        assertThat(shards.submit(fix("S1", 1)).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(shards.submit(fix("S1", 0)).get(5, TimeUnit.SECONDS)).isFalse();
+        assertThatThrownBy(() -> shards.submit(fix("S1", -1)).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasMessageContaining("negative");
+    }
+
+    @Test
+    void fullQueueRejectsTheFix() throws Exception {
+        shards = new IngestShards(1, 2, new SimpleMeterRegistry());
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        shards.start(shard -> new IngestShards.Worker() {
+            @Override
+            public CompletableFuture<Boolean> process(LocationFix fix, long nowNanos) throws Exception {
+                busy.countDown();
+                release.await();
+                return CompletableFuture.completedFuture(true);
+            }
+
+            @Override
+            public long tick(long nowNanos) {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+
+        CompletableFuture<Boolean> first = shards.submit(fix("S1", 1));
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+        // The shard is stuck on the first fix; two more fill its queue
+        CompletableFuture<Boolean> second = shards.submit(fix("S1", 2));
+        CompletableFuture<Boolean> third = shards.submit(fix("S1", 3));
+
+        assertThatThrownBy(() -> shards.submit(fix("S1", 4)))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("full");
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(third.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(shards.submit(fix("S1", 4)).get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectsBeforeStartAndAfterStop() throws Exception {
+        shards = new IngestShards(1, 16, new SimpleMeterRegistry());
+        assertThatThrownBy(() -> shards.submit(fix("S1", 1))).isInstanceOf(RejectedExecutionException.class);
+
+        AtomicInteger flushes = new AtomicInteger();
+        shards.start(shard -> new RecordingWorker(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), flushes));
+        shards.stop();
+
+        assertThatThrownBy(() -> shards.submit(fix("S1", 1))).isInstanceOf(RejectedExecutionException.class);
+        assertThat(flushes.get()).isEqualTo(1);
+    }
+}
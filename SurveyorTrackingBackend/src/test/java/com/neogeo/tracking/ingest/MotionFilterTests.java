@@ -0,0 +1,110 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.ingest.MotionFilter.Decision;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MotionFilterTests {
+
+    // About 11 m of latitude
+    private static final double STEP = 0.0001;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MotionFilter filter = new MotionFilter(true, 10, 15, 100, 30_000, 70, 5, 30_000, 60_000,
+            false, 3, 15, 10, registry);
+    private final List<LocationFix> dwells = new ArrayList<>();
+    private final MotionFilter.Shard shard = filter.newShard(dwells::add);
+
+    private Decision filter(double latitude, double longitude, long timestampMillis) {
+        return shard.filter(new LocationFix("S1", latitude, longitude, timestampMillis), 0);
+    }
+
+    @Test
+    void firstFixIsKept() {
+        assertThat(filter(40, -74, 0)).isEqualTo(Decision.KEEP);
+    }
+
+    @Test
+    void fixWithinMinDisplacementIsStationary() {
+        filter(40, -74, 0);
+
+        assertThat(filter(40 + STEP / 5, -74, 10_000)).isEqualTo(Decision.STATIONARY);
+        assertThat(registry.get("tracking.ingest.motion").tag("decision", "stationary").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void implausibleJumpIsOutlierUntilItKeepsHappening() {
+        filter(40, -74, 0);
+
+        // 11 km in 10 s
+        for (int i = 1; i <= 5; i++) {
+            assertThat(filter(40.1, -74, i * 10_000L)).isEqualTo(Decision.OUTLIER);
+        }
+        assertThat(filter(40.1, -74, 60_000)).isEqualTo(Decision.KEEP);
+    }
+
+    @Test
+    void straightStretchKeepsOnlyTurnsAndGaps() {
+        filter(40, -74, 0);
+        assertThat(filter(40 + 2 * STEP, -74, 5_000)).isEqualTo(Decision.KEEP);
+
+        // Heading north from the kept fix, under max-gap-m
+        assertThat(filter(40 + 4 * STEP, -74, 10_000)).isEqualTo(Decision.STRAIGHT);
+        assertThat(filter(40 + 6 * STEP, -74, 15_000)).isEqualTo(Decision.STRAIGHT);
+        // 110 m past the kept fix
+        assertThat(filter(40 + 12 * STEP, -74, 30_000)).isEqualTo(Decision.KEEP);
+        // Turned east
+        assertThat(filter(40 + 12 * STEP, -74 + 3 * STEP, 35_000)).isEqualTo(Decision.KEEP);
+    }
+
+    @Test
+    void stopReportsDwellWhenTheSurveyorMovesOn() {
+        filter(40, -74, 0);
+        for (int i = 1; i <= 4; i++) {
+            filter(40, -74, i * 10_000L);
+        }
+        assertThat(dwells).isEmpty();
+
+        assertThat(filter(40 + 2 * STEP, -74, 45_000)).isEqualTo(Decision.KEEP);
+
+        assertThat(dwells).hasSize(1);
+        assertThat(dwells.get(0).timestampMillis).isEqualTo(0L);
+        assertThat(dwells.get(0).dwellMillis).isEqualTo(40_000L);
+    }
+
+    @Test
+    void longStopReportsDwellWhileItLasts() {
+        filter(40, -74, 0);
+        for (int i = 1; i <= 6; i++) {
+            filter(40, -74, i * 10_000L);
+        }
+
+        assertThat(dwells).hasSize(1);
+        assertThat(dwells.get(0).dwellMillis).isEqualTo(60_000L);
+
+        filter(40, -74, 70_000);
+        filter(40 + 2 * STEP, -74, 75_000);
+
+        assertThat(dwells).hasSize(2);
+        assertThat(dwells.get(1).dwellMillis).isEqualTo(70_000L);
+    }
+
+    @Test
+    void shortPauseIsNotAStop() {
+        filter(40, -74, 0);
+        filter(40, -74, 10_000);
+        filter(40, -74, 20_000);
+
+        filter(40 + 2 * STEP, -74, 25_000);
+
+        assertThat(dwells).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class MpscQueueTests {
+
+    @Test
+    void rejectsOffersOnceFull() {
+        // Rounded up to 8
+        MpscQueue<Integer> queue = new MpscQueue<>(5);
+        for (int i = 0; i < 8; i++) {
+            assertThat(queue.offer(i)).isTrue();
+        }
+
+        assertThat(queue.offer(8)).isFalse();
+        assertThat(queue.size()).isEqualTo(8);
+
+        assertThat(queue.poll()).isEqualTo(0);
+        assertThat(queue.offer(8)).isTrue();
+        assertThat(queue.offer(9)).isFalse();
+    }
+
+    @Test
+    void pollsInOfferOrderAcrossWrapAround() {
+        MpscQueue<Integer> queue = new MpscQueue<>(4);
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.isEmpty()).isTrue();
+
+        int next = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3; i++) {
+                queue.offer(round * 3 + i);
+            }
+            for (int i = 0; i < 3; i++) {
+                assertThat(queue.poll()).isEqualTo(next++);
+            }
+        }
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.size()).isEqualTo(0);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepTheirOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscQueue<long[]> queue = new MpscQueue<>(256);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    // Ingest rejects on a full queue; here producers retry so every element arrives
+                    while (!queue.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+
+        long[] expected = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = queue.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertThat(element[1]).isEqualTo(expected[producer]);
+            expected[producer]++;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(queue.poll()).isNull();
+        for (long count : expected) {
+            assertThat(count).isEqualTo((long) perProducer);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReorderBufferTests {
+
+    private static final long MS = 1_000_000;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ReorderBuffer buffer = new ReorderBuffer(true, 500, 10, registry);
+    private final List<Long> published = new ArrayList<>();
+    private final List<Long> late = new ArrayList<>();
+    private final ReorderBuffer.Stripe stripe = buffer.newStripe(fix -> published.add(fix.timestampMillis),
+            fix -> late.add(fix.timestampMillis));
+
+    private static LocationFix fix(long timestampMillis) {
+        return new LocationFix("S1", 1, 2, timestampMillis);
+    }
+
+    private double count(String name) {
+        return registry.get(name).counter().count();
+    }
+
+    @Test
+    void holdsFixForTheLatenessBound() {
+        stripe.add(fix(1000), 0);
+
+        assertThat(stripe.release(499 * MS)).isEqualTo(1 * MS);
+        assertThat(published).isEmpty();
+        assertThat(buffer.held()).isEqualTo(1);
+
+        stripe.release(500 * MS);
+
+        assertThat(published).containsExactly(1000L);
+        assertThat(buffer.held()).isEqualTo(0);
+    }
+
+    @Test
+    void publishesCorrectedFixBeforeNewerOne() {
+        stripe.add(fix(2000), 0);
+        stripe.add(fix(1000), 100 * MS);
+
+        stripe.release(500 * MS);
+
+        assertThat(published).containsExactly(1000L, 2000L);
+        assertThat(count("tracking.ingest.reorder.corrected")).isEqualTo(1.0);
+        assertThat(late).isEmpty();
+    }
+
+    @Test
+    void newerFixWaitsForItsOwnHold() {
+        stripe.add(fix(1000), 0);
+        stripe.add(fix(2000), 300 * MS);
+
+        stripe.release(500 * MS);
+        assertThat(published).containsExactly(1000L);
+
+        stripe.release(800 * MS);
+        assertThat(published).containsExactly(1000L, 2000L);
+    }
+
+    @Test
+    void fixOlderThanPublishedOneGoesToLateHandler() {
+        stripe.add(fix(2000), 0);
+        stripe.release(500 * MS);
+
+        stripe.add(fix(1000), 600 * MS);
+        stripe.add(fix(2000), 600 * MS);
+        stripe.release(2000 * MS);
+
+        assertThat(published).containsExactly(2000L);
+        assertThat(late).containsExactly(1000L, 2000L);
+        assertThat(count("tracking.ingest.reorder.late")).isEqualTo(2.0);
+    }
+
+    @Test
+    void flushPublishesEverythingHeld() {
+        stripe.add(fix(3000), 0);
+        stripe.add(fix(1000), 0);
+
+        stripe.flush();
+
+        assertThat(published).containsExactly(1000L, 3000L);
+    }
+
+    @Test
+    void disabledBufferPublishesRightAway() {
+        List<Long> direct = new ArrayList<>();
+        ReorderBuffer.Stripe disabled = new ReorderBuffer(true, 0, 10, new SimpleMeterRegistry())
+                .newStripe(fix -> direct.add(fix.timestampMillis), fix -> { });
+
+        disabled.add(fix(2000), 0);
+        disabled.add(fix(1000), 0);
+
+        assertThat(direct).containsExactly(2000L, 1000L);
+    }
+}
@@ -0,0 +1,91 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SurveyorRateLimiterTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Two tokens per second, bursts of three
+    private final SurveyorRateLimiter limiter = new SurveyorRateLimiter(2, 3);
+
+    @Test
+    void allowsBurstThenReportsRetryAfter() {
+        assertThat(limiter.tryAcquire("S1", 0)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", 0)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", 0)).isEqualTo(0L);
+
+        // Empty bucket: one token comes back after half a second
+        assertThat(limiter.tryAcquire("S1", 0)).isCloseTo(500 * MS, within(1L));
+        assertThat(limiter.tryAcquire("S1", 200 * MS)).isCloseTo(300 * MS, within(1L));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("S1", 0);
+        }
+
+        assertThat(limiter.tryAcquire("S1", 500 * MS)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", 500 * MS)).isGreaterThan(0L);
+        assertThat(limiter.tryAcquire("S1", 1000 * MS)).isEqualTo(0L);
+    }
+
+    @Test
+    void refillStopsAtBurst() {
+        limiter.tryAcquire("S1", 0);
+
+        long later = TimeUnit.MINUTES.toNanos(10);
+        assertThat(limiter.tryAcquire("S1", later)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", later)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", later)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", later)).isGreaterThan(0L);
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("S1", 0);
+        }
+
+        assertThat(limiter.tryAcquire("S1", 0)).isGreaterThan(0L);
+        assertThat(limiter.tryAcquire("S2", 0)).isEqualTo(0L);
+    }
+
+    @Test
+    void availableDoesNotTakeATokenOrCreateABucket() {
+        assertThat(limiter.available("S1", 0)).isEqualTo(0L);
+        assertThat(limiter.size()).isEqualTo(0);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("S1", 0);
+        }
+        assertThat(limiter.available("S1", 0)).isCloseTo(500 * MS, within(1L));
+        assertThat(limiter.available("S1", 500 * MS)).isEqualTo(0L);
+        assertThat(limiter.tryAcquire("S1", 500 * MS)).isEqualTo(0L);
+    }
+
+    @Test
+    void evictsOnlyBucketsThatHaveRefilled() {
+        limiter.tryAcquire("S1", 0);
+        limiter.tryAcquire("S2", 0);
+        limiter.tryAcquire("S2", 0);
+        assertThat(limiter.size()).isEqualTo(2);
+
+        // S1 is one token short and full again after 500 ms; S2 needs a second
+        limiter.evictIdle(500 * MS);
+        assertThat(limiter.size()).isEqualTo(1);
+
+        limiter.evictIdle(1000 * MS);
+        assertThat(limiter.size()).isEqualTo(0);
+
+        // An evicted key starts over with a full bucket
+        assertThat(limiter.tryAcquire("S2", 1000 * MS)).isEqualTo(0L);
+        assertThat(limiter.available("S2", 1000 * MS)).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,113 @@
+package com.neogeo.tracking.ingest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.model.TrackSegment;
+import com.neogeo.tracking.model.TrackSegment.Kind;
+
+class TrackSegmenterTests {
+
+    // About 111 m of latitude
+    private static final double STEP = 0.001;
+
+    private final List<TrackSegment> segments = new ArrayList<>();
+
+    private TrackSegmenter.Shard shard(long updateMillis) {
+        return new TrackSegmenter(true, 30, 120_000, updateMillis, 30).newShard(segments::add);
+    }
+
+    private static void add(TrackSegmenter.Shard shard, double latitude, long seconds) {
+        shard.add(new LocationFix("S1", latitude, -74, seconds * 1000), 0);
+    }
+
+    private static LocalDateTime at(long seconds) {
+        return LocationFix.toDateTime(seconds * 1000);
+    }
+
+    private static void assertSegment(TrackSegment segment, Kind kind, long startSeconds, long endSeconds,
+                                      int points) {
+        assertThat(segment.getKind()).isEqualTo(kind);
+        assertThat(segment.getStartTime()).isEqualTo(at(startSeconds));
+        assertThat(segment.getEndTime()).isEqualTo(at(endSeconds));
+        assertThat(segment.getPointCount()).isEqualTo(points);
+    }
+
+    @Test
+    void tripEndsWhereStopBegins() {
+        TrackSegmenter.Shard shard = shard(0);
+        add(shard, 40, 0);
+        add(shard, 40 + STEP, 10);
+        add(shard, 40 + 2 * STEP, 20);
+        for (long seconds = 30; seconds <= 150; seconds += 30) {
+            add(shard, 40 + 3 * STEP, seconds);
+        }
+
+        assertThat(segments).hasSize(2);
+        assertSegment(segments.get(0), Kind.TRIP, 0, 30, 4);
+        assertThat(segments.get(0).getDistanceMeters()).isCloseTo(333.6, within(1.0));
+        assertThat(segments.get(0).getHeadingDegrees()).isCloseTo(0.0, within(0.1));
+        assertSegment(segments.get(1), Kind.STOP, 30, 150, 5);
+        assertThat(segments.get(1).getCentroidLatitude()).isCloseTo(40 + 3 * STEP, within(1e-9));
+    }
+
+    @Test
+    void nextTripStartsWhereStopEnds() {
+        TrackSegmenter.Shard shard = shard(0);
+        for (long seconds = 0; seconds <= 120; seconds += 30) {
+            add(shard, 40, seconds);
+        }
+        segments.clear();
+
+        add(shard, 40 + STEP, 130);
+
+        assertThat(segments).hasSize(2);
+        assertSegment(segments.get(0), Kind.STOP, 0, 120, 5);
+        assertSegment(segments.get(1), Kind.TRIP, 120, 130, 2);
+    }
+
+    @Test
+    void shortPauseIsFoldedIntoTheTrip() {
+        TrackSegmenter.Shard shard = shard(0);
+        add(shard, 40, 0);
+        add(shard, 40 + STEP, 10);
+        add(shard, 40 + STEP, 40);
+        add(shard, 40 + STEP, 70);
+        add(shard, 40 + 2 * STEP, 80);
+
+        shard.flush();
+
+        assertThat(segments).hasSize(1);
+        assertSegment(segments.get(0), Kind.TRIP, 0, 80, 5);
+    }
+
+    @Test
+    void olderFixesAreIgnored() {
+        TrackSegmenter.Shard shard = shard(0);
+        add(shard, 40, 0);
+        add(shard, 40 + STEP, 20);
+        add(shard, 40 + 5 * STEP, 10);
+
+        shard.flush();
+
+        assertThat(segments).hasSize(1);
+        assertSegment(segments.get(0), Kind.TRIP, 0, 20, 2);
+    }
+
+    @Test
+    void tripInProgressIsEmittedEveryUpdateInterval() {
+        TrackSegmenter.Shard shard = shard(60_000);
+        for (long seconds = 0; seconds <= 70; seconds += 10) {
+            add(shard, 40 + seconds / 10 * STEP, seconds);
+        }
+
+        assertThat(segments).hasSize(1);
+        assertSegment(segments.get(0), Kind.TRIP, 0, 60, 7);
+    }
+}
@@ -0,0 +1,140 @@
+package com.neogeo.tracking.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.neogeo.tracking.ingest.LocationFix;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocationJournalTests {
+
+    // HEADER + FIELDS + "S1"
+    private static final int RECORD = 8 + 26 + 2;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private LocationJournal open() throws IOException {
+        return new LocationJournal(directory.toString(), 1, registry);
+    }
+
+    private static LocationFix fix(long timestampMillis) {
+        return new LocationFix("S1", 40.0 + timestampMillis / 1000.0, -74.0, timestampMillis);
+    }
+
+    private static List<Long> timestamps(LocationJournal journal) throws IOException {
+        List<LocationFix> fixes = new ArrayList<>();
+        journal.read(journal.committed(), 100, fixes);
+        List<Long> timestamps = new ArrayList<>();
+        for (LocationFix fix : fixes) {
+            timestamps.add(fix.timestampMillis);
+        }
+        return timestamps;
+    }
+
+    private void overwrite(int offset, byte... bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(JournalSegment.path(directory, 0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+
+    @Test
+    void readsBackFixesAndDwellUpdates() throws IOException {
+        LocationJournal journal = open();
+        journal.append(fix(1000));
+        LocationFix dwell = fix(2000);
+        dwell.dwellMillis = 60_000;
+        journal.append(dwell);
+
+        List<LocationFix> fixes = new ArrayList<>();
+        long end = journal.read(journal.committed(), 100, fixes);
+
+        assertThat(end).isEqualTo(journal.written());
+        assertThat(fixes).hasSize(2);
+        assertThat(fixes.get(0).surveyorId).isEqualTo("S1");
+        assertThat(fixes.get(0).latitude).isEqualTo(41.0);
+        assertThat(fixes.get(0).isDwellUpdate()).isFalse();
+        assertThat(fixes.get(1).dwellMillis).isEqualTo(60_000L);
+    }
+
+    @Test
+    void recoveryCutsTornTail() throws IOException {
+        LocationJournal journal = open();
+        journal.append(fix(1000));
+        journal.append(fix(2000));
+        long written = journal.written();
+        // Half-written record: plausible length, payload never made it
+        overwrite(2 * RECORD, (byte) 0, (byte) 0, (byte) 0, (byte) 28, (byte) 1, (byte) 2, (byte) 3, (byte) 4);
+
+        LocationJournal reopened = open();
+
+        assertThat(reopened.written()).isEqualTo(written);
+        assertThat(timestamps(reopened)).containsExactly(1000L, 2000L);
+        reopened.append(fix(3000));
+        assertThat(timestamps(reopened)).containsExactly(1000L, 2000L, 3000L);
+    }
+
+    @Test
+    void recoveryKeepsRecordsAfterCorruptOne() throws IOException {
+        LocationJournal journal = open();
+        journal.append(fix(1000));
+        journal.append(fix(2000));
+        journal.append(fix(3000));
+        long written = journal.written();
+        overwrite(RECORD + 8 + 5, (byte) 0x7f);
+
+        LocationJournal reopened = open();
+
+        assertThat(reopened.written()).isEqualTo(written);
+        assertThat(timestamps(reopened)).containsExactly(1000L, 3000L);
+    }
+
+    @Test
+    void readerSkipsCorruptRecordInsteadOfFailing() throws IOException {
+        LocationJournal journal = open();
+        journal.append(fix(1000));
+        journal.append(fix(2000));
+        journal.append(fix(3000));
+        overwrite(RECORD + 8 + 5, (byte) 0x7f);
+
+        List<LocationFix> fixes = new ArrayList<>();
+        long end = journal.read(journal.committed(), 100, fixes);
+
+        assertThat(fixes).hasSize(2);
+        assertThat(fixes.get(1).timestampMillis).isEqualTo(3000L);
+        assertThat(end).isEqualTo(journal.written());
+        assertThat(registry.get("tracking.journal.corrupt").counter().count()).isEqualTo((double) RECORD);
+        Path segment = JournalSegment.path(directory, 0);
+        assertThat(Files.exists(segment.resolveSibling(segment.getFileName() + LocationJournal.CORRUPT_SUFFIX)))
+                .isTrue();
+    }
+
+    @Test
+    void readerSkipsCorruptLengthAtEndOfWrittenRecords() throws IOException {
+        LocationJournal journal = open();
+        journal.append(fix(1000));
+        journal.append(fix(2000));
+        // Length of the last record points far past the write position
+        overwrite(RECORD, (byte) 0x00, (byte) 0x10, (byte) 0x00, (byte) 0x00);
+
+        List<LocationFix> fixes = new ArrayList<>();
+        long end = journal.read(journal.committed(), 100, fixes);
+
+        assertThat(fixes).hasSize(1);
+        assertThat(end).isEqualTo(journal.written());
+    }
+}
@@ -0,0 +1,178 @@
+package com.neogeo.tracking.replica;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.neogeo.tracking.lanes.Lane;
+import com.neogeo.tracking.lanes.LaneContext;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReplicaRoutingDataSourceTests {
+
+    // What each replica's lag query answers: milliseconds, null while its WAL receiver is not
+    // streaming, or a failure while it is unreachable
+    private static final Object UNREACHABLE = new Object();
+    private final AtomicReference<Object> lag0 = new AtomicReference<>(0.0);
+    private final AtomicReference<Object> lag1 = new AtomicReference<>(0.0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HikariDataSource primary = new HikariDataSource();
+    private final ReplicaSet replicas = ReplicaSet.of(List.of("replica-0", "replica-1"),
+            (url, lane) -> new ProbedPool(url.endsWith("0") ? lag0 : lag1));
+    private final ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas, registry);
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas,
+            Map.of(Lane.LIVE, 500L, Lane.HISTORY, 30_000L, Lane.EXPORT, 30_000L), registry);
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    private DataSource route(Lane lane, boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        DataSource[] target = new DataSource[1];
+        LaneContext.run(lane, () -> target[0] = routing.target());
+        return target[0];
+    }
+
+    private DataSource pool(int replica, Lane lane) {
+        return replicas.replicas().get(replica).pool(lane);
+    }
+
+    private double reads(Lane lane, String target) {
+        return registry.get("tracking.replica.reads").tag("lane", lane.key()).tag("target", target).counter().count();
+    }
+
+    @Test
+    void readsWithinBudgetAreSpreadOverReplicas() {
+        lag0.set(120.0);
+        lag1.set(0.0);
+        monitor.check();
+
+        DataSource first = route(Lane.HISTORY, true);
+        DataSource second = route(Lane.HISTORY, true);
+
+        assertThat(List.of(first, second)).containsExactlyInAnyOrder(pool(0, Lane.HISTORY), pool(1, Lane.HISTORY));
+        assertThat(route(Lane.LIVE, true)).isIn(pool(0, Lane.LIVE), pool(1, Lane.LIVE));
+        assertThat(reads(Lane.HISTORY, "replica")).isEqualTo(2.0);
+    }
+
+    @Test
+    void replicasOverTheLaneBudgetAreSkipped() {
+        lag0.set(2_000.0);
+        lag1.set(100.0);
+        monitor.check();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(route(Lane.LIVE, true)).isSameAs(pool(1, Lane.LIVE));
+        }
+
+        lag1.set(900.0);
+        monitor.check();
+
+        // Too far behind for latest positions, fresh enough for history
+        assertThat(route(Lane.LIVE, true)).isSameAs(primary);
+        assertThat(route(Lane.HISTORY, true)).isIn(pool(0, Lane.HISTORY), pool(1, Lane.HISTORY));
+        assertThat(reads(Lane.LIVE, "primary")).isEqualTo(1.0);
+    }
+
+    @Test
+    void replicasNotStreamingOrUnreachableAreUnavailable() {
+        lag0.set(null);
+        lag1.set(UNREACHABLE);
+        monitor.check();
+
+        assertThat(replicas.replicas().get(0).lagMillis()).isEqualTo(Replica.UNAVAILABLE);
+        assertThat(replicas.replicas().get(1).lagMillis()).isEqualTo(Replica.UNAVAILABLE);
+        assertThat(route(Lane.EXPORT, true)).isSameAs(primary);
+        assertThat(registry.get("tracking.replica.lag").tag("replica", "replica0").gauge().value()).isEqualTo(-1.0);
+
+        lag0.set(10.0);
+        monitor.check();
+
+        assertThat(route(Lane.EXPORT, true)).isSameAs(pool(0, Lane.EXPORT));
+    }
+
+    @Test
+    void unmeasuredReplicasGetNoReads() {
+        assertThat(route(Lane.HISTORY, true)).isSameAs(primary);
+    }
+
+    @Test
+    void writesAndIngestReadsStayOnThePrimary() {
+        monitor.check();
+
+        for (Lane lane : Lane.values()) {
+            assertThat(route(lane, false)).isSameAs(primary);
+        }
+        assertThat(route(Lane.INGEST, true)).isSameAs(primary);
+        assertThat(route(Lane.IMPORT, true)).isSameAs(primary);
+
+        // Outside any transaction, for instance a raw connection for an advisory lock
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        DataSource[] target = new DataSource[1];
+        LaneContext.run(Lane.HISTORY, () -> target[0] = routing.target());
+        assertThat(target[0]).isSameAs(primary);
+    }
+
+    /**
+     * A replica pool whose connections only answer the lag query.
+     */
+    private static final class ProbedPool extends HikariDataSource {
+        private final AtomicReference<Object> lag;
+
+        ProbedPool(AtomicReference<Object> lag) {
+            this.lag = lag;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Object answer = lag.get();
+            if (answer == UNREACHABLE) {
+                throw new SQLException("Connection refused");
+            }
+            ResultSet result = proxy(ResultSet.class, (method, args) -> switch (method) {
+                case "next" -> true;
+                case "getDouble" -> answer == null ? 0.0 : (Double) answer;
+                case "wasNull" -> answer == null;
+                default -> null;
+            });
+            Statement statement = proxy(Statement.class, (method, args) -> switch (method) {
+                case "executeQuery" -> {
+                    assertThat(args[0]).isEqualTo(ReplicaLagMonitor.LAG_QUERY);
+                    yield result;
+                }
+                default -> null;
+            });
+            return proxy(Connection.class, (method, args) -> "createStatement".equals(method) ? statement : null);
+        }
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> answer.answer(method.getName(), args)));
+    }
+}
@@ -0,0 +1,88 @@
+package com.neogeo.tracking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.tracing.OperationSampler;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+class TracingServiceTests {
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private SdkTracerProvider provider;
+
+    @AfterEach
+    void close() {
+        provider.close();
+    }
+
+    private TracingService tracing(double ratio, Map<String, Double> operations) {
+        OperationSampler sampler = new OperationSampler(ratio, operations);
+        provider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .setSampler(Sampler.parentBased(sampler))
+                .build();
+        return new TracingService(provider.get("test"), sampler);
+    }
+
+    @Test
+    void sampledOperationExportsSpanWithAttributes() {
+        TracingService tracing = tracing(1.0, Map.of());
+
+        String result = tracing.traceGpsOperation("location-update", "SURV001", 1, () -> "ok");
+
+        assertThat(result).isEqualTo("ok");
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertThat(spans).hasSize(1);
+        SpanData span = spans.get(0);
+        assertThat(span.getName()).isEqualTo("gps.location-update");
+        assertThat(span.getAttributes().get(AttributeKey.stringKey("surveyor.id"))).isEqualTo("SURV001");
+        assertThat(span.getAttributes().get(AttributeKey.booleanKey("operation.success"))).isTrue();
+    }
+
+    @Test
+    void operationRatioOverridesDefault() {
+        TracingService tracing = tracing(1.0, Map.of("gps.location-update", 0.0));
+
+        String result = tracing.traceGpsOperation("location-update", "SURV001", 1, () -> "ok");
+        tracing.traceDatabaseOperation("save", "location_track", () -> "saved");
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(exporter.getFinishedSpanItems())
+                .extracting(SpanData::getName)
+                .containsExactly("db.save");
+    }
+
+    @Test
+    void disabledOperationIsTracedInsideSampledTrace() {
+        TracingService tracing = tracing(1.0, Map.of("gps.location-update", 0.0));
+
+        tracing.traceDatabaseOperation("batch", "location_track",
+                () -> tracing.traceGpsOperation("location-update", "SURV001", 1, () -> "ok"));
+
+        assertThat(exporter.getFinishedSpanItems())
+                .extracting(SpanData::getName)
+                .containsExactly("gps.location-update", "db.batch");
+    }
+
+    @Test
+    void unsampledTraceExportsNothing() {
+        TracingService tracing = tracing(0.0, Map.of());
+
+        tracing.traceDatabaseOperation("batch", "location_track",
+                () -> tracing.traceGpsOperation("location-update", "SURV001", 1, () -> "ok"));
+
+        assertThat(exporter.getFinishedSpanItems()).isEmpty();
+    }
+}
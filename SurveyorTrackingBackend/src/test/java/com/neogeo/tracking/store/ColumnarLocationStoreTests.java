@@ -0,0 +1,203 @@
+package com.neogeo.tracking.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.metrics.TrackingMetrics;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ColumnarLocationStoreTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private final ColumnarLocationStore store = new ColumnarLocationStore();
+
+    private static LocationTrack fix(String surveyorId, double latitude, double longitude, LocalDateTime timestamp) {
+        return new LocationTrack(surveyorId, latitude, longitude, timestamp, null);
+    }
+
+    private static LocationTrack fix(String surveyorId, long second) {
+        return fix(surveyorId, 40.5, -74.25, BASE.plusSeconds(second));
+    }
+
+    private static List<String> keys(List<LocationTrack> tracks) {
+        List<String> keys = new ArrayList<>();
+        for (LocationTrack track : tracks) {
+            keys.add(track.getSurveyorId() + " " + track.getTimestamp() + " " + track.getLatitude() + " " + track.getLongitude());
+        }
+        return keys;
+    }
+
+    private static List<LocalDateTime> timestamps(List<LocationTrack> tracks) {
+        return tracks.stream().map(LocationTrack::getTimestamp).toList();
+    }
+
+    @Test
+    void lateFixesAreInsertedInTimestampOrder() {
+        for (long second : new long[] {10, 30, 20, 5, 30, 25}) {
+            store.append(fix("S1", second));
+        }
+
+        assertThat(timestamps(store.all("S1"))).containsExactly(BASE.plusSeconds(5), BASE.plusSeconds(10),
+                BASE.plusSeconds(20), BASE.plusSeconds(25), BASE.plusSeconds(30), BASE.plusSeconds(30));
+        assertThat(store.latest("S1").get().getTimestamp()).isEqualTo(BASE.plusSeconds(30));
+    }
+
+    @Test
+    void surveyorsKeepSeparateSeries() {
+        store.append(fix("S1", 10));
+        store.append(fix("S2", 20));
+        store.append(fix("S1", 30));
+
+        assertThat(timestamps(store.all("S1"))).containsExactly(BASE.plusSeconds(10), BASE.plusSeconds(30));
+        assertThat(store.all("S2").get(0).getSurveyorId()).isEqualTo("S2");
+        assertThat(store.all("S3")).isEmpty();
+        assertThat(store.latest("S3").isPresent()).isFalse();
+    }
+
+    @Test
+    void rangeBoundsAreInclusiveAndFractionalStartsRoundUp() {
+        store.append(fix("S1", 10));
+        store.append(fix("S1", 11));
+        store.append(fix("S1", 12));
+
+        assertThat(timestamps(store.range("S1", BASE.plusSeconds(10), BASE.plusSeconds(12)))).hasSize(3);
+        // 10.2 s is after the fix at 10 s, 11.7 s is after the fix at 11 s
+        assertThat(timestamps(store.range("S1", BASE.plusNanos(10_200_000_000L), BASE.plusNanos(11_700_000_000L))))
+                .containsExactly(BASE.plusSeconds(11));
+        assertThat(store.range("S1", BASE.plusNanos(11_500_000_000L), BASE.plusNanos(11_900_000_000L))).isEmpty();
+    }
+
+    @Test
+    void subSecondTimestampsAreTruncated() {
+        store.append(fix("S1", 40.5, -74.25, BASE.plusNanos(10_750_000_000L)));
+
+        assertThat(timestamps(store.all("S1"))).containsExactly(BASE.plusSeconds(10));
+    }
+
+    @Test
+    void boundsBeyondIntOffsetsAreClamped() {
+        store.append(fix("S1", 0));
+        store.append(fix("S1", 60));
+        // More than 68 years either way does not fit an int second offset
+        LocalDateTime longBefore = BASE.minusYears(200);
+        LocalDateTime longAfter = BASE.plusYears(200);
+
+        assertThat(store.range("S1", longBefore, longAfter)).hasSize(2);
+        assertThat(store.range("S1", longBefore, BASE.minusYears(100))).isEmpty();
+        assertThat(store.range("S1", BASE.plusYears(100), longAfter)).isEmpty();
+        assertThat(store.range("S1", BASE.plusSeconds(30), longAfter)).hasSize(1);
+    }
+
+    @Test
+    void withinBoundsFiltersByBoxAcrossSurveyors() {
+        store.append(fix("S1", 40.5, -74.25, BASE.plusSeconds(20)));
+        store.append(fix("S2", 40.6, -74.15, BASE.plusSeconds(10)));
+        store.append(fix("S3", 41.5, -74.25, BASE.plusSeconds(15)));
+
+        List<LocationTrack> inside = store.withinBounds(40.0, -75.0, 41.0, -74.0, BASE, BASE.plusSeconds(60));
+
+        assertThat(inside.stream().map(LocationTrack::getSurveyorId).toList()).containsExactly("S2", "S1");
+        // Edges are inclusive, and a fix just outside one stays out
+        assertThat(store.withinBounds(40.5, -74.25, 40.6, -74.15, BASE, BASE.plusSeconds(60))).hasSize(2);
+        assertThat(store.withinBounds(40.5000001, -74.25, 40.6, -74.15, BASE, BASE.plusSeconds(60))).hasSize(1);
+        assertThat(store.withinBounds(40.0, -75.0, 41.0, -74.0, BASE.plusSeconds(11), BASE.plusSeconds(60))).hasSize(1);
+    }
+
+    @Test
+    void answersLikeTheJpaEngine() {
+        List<LocationTrack> rows = new ArrayList<>();
+        JpaLocationStore jpa = new JpaLocationStore(repository(rows),
+                new TrackingMetrics(new SimpleMeterRegistry(), null, new HotTrackTier(false, 6, 1)));
+
+        // Whole seconds and microdegrees, which both engines keep exactly; unique timestamps, so ties
+        // between surveyors cannot order differently
+        Random random = new Random(7);
+        List<Integer> seconds = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            seconds.add(i);
+        }
+        Collections.shuffle(seconds, random);
+        for (int i = 0; i < 600; i++) {
+            LocationTrack track = fix("S" + random.nextInt(4),
+                    (40_000_000 + random.nextInt(1_000_000)) / 1e6,
+                    (-75_000_000 + random.nextInt(1_000_000)) / 1e6,
+                    BASE.plusSeconds(seconds.get(i)));
+            store.append(fix(track.getSurveyorId(), track.getLatitude(), track.getLongitude(), track.getTimestamp()));
+            jpa.append(track);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            String surveyorId = "S" + random.nextInt(5);
+            LocalDateTime start = BASE.plusNanos(random.nextLong(3_000_000_000_000L));
+            LocalDateTime end = start.plusNanos(random.nextLong(1_000_000_000_000L));
+            assertThat(keys(store.range(surveyorId, start, end))).isEqualTo(keys(jpa.range(surveyorId, start, end)));
+
+            double minLatitude = 40 + random.nextDouble() * 0.5;
+            double minLongitude = -75 + random.nextDouble() * 0.5;
+            double maxLatitude = minLatitude + random.nextDouble() * 0.5;
+            double maxLongitude = minLongitude + random.nextDouble() * 0.5;
+            assertThat(keys(store.withinBounds(minLatitude, minLongitude, maxLatitude, maxLongitude, start, end)))
+                    .isEqualTo(keys(jpa.withinBounds(minLatitude, minLongitude, maxLatitude, maxLongitude, start, end)));
+        }
+        for (int s = 0; s < 5; s++) {
+            assertThat(keys(store.all("S" + s))).isEqualTo(keys(jpa.all("S" + s)));
+            assertThat(store.latest("S" + s).map(LocationTrack::getTimestamp))
+                    .isEqualTo(jpa.latest("S" + s).map(LocationTrack::getTimestamp));
+        }
+    }
+
+    /**
+     * The queries JpaLocationStore issues, answered over a list the way PostgreSQL
+     * evaluates the derived queries: Between includes both ends.
+     */
+    private static LocationTrackRepository repository(List<LocationTrack> rows) {
+        Comparator<LocationTrack> byTimestamp = Comparator.comparing(LocationTrack::getTimestamp);
+        return (LocationTrackRepository) Proxy.newProxyInstance(LocationTrackRepository.class.getClassLoader(),
+                new Class<?>[] {LocationTrackRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "save":
+                            rows.add((LocationTrack) args[0]);
+                            return args[0];
+                        case "findBySurveyorIdOrderByTimestampAsc":
+                            return select(rows, track -> track.getSurveyorId().equals(args[0]), byTimestamp);
+                        case "findTopBySurveyorIdOrderByTimestampDesc":
+                            return select(rows, track -> track.getSurveyorId().equals(args[0]), byTimestamp.reversed())
+                                    .stream().findFirst();
+                        case "findBySurveyorIdAndTimestampBetweenOrderByTimestampAsc":
+                            return select(rows, track -> track.getSurveyorId().equals(args[0])
+                                    && between(track.getTimestamp(), (LocalDateTime) args[1], (LocalDateTime) args[2]),
+                                    byTimestamp);
+                        case "findByLatitudeBetweenAndLongitudeBetweenAndTimestampBetweenOrderByTimestampAsc":
+                            return select(rows, track -> between(track.getLatitude(), (Double) args[0], (Double) args[1])
+                                    && between(track.getLongitude(), (Double) args[2], (Double) args[3])
+                                    && between(track.getTimestamp(), (LocalDateTime) args[4], (LocalDateTime) args[5]),
+                                    byTimestamp);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static List<LocationTrack> select(List<LocationTrack> rows, Predicate<LocationTrack> where,
+                                              Comparator<LocationTrack> order) {
+        return rows.stream().filter(where).sorted(order).toList();
+    }
+
+    private static <T extends Comparable<T>> boolean between(T value, T low, T high) {
+        return value.compareTo(low) >= 0 && value.compareTo(high) <= 0;
+    }
+}
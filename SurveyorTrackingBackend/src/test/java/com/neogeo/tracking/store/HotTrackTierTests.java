@@ -0,0 +1,152 @@
+package com.neogeo.tracking.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.ingest.LocationFix;
+import com.neogeo.tracking.model.LocationTrack;
+
+class HotTrackTierTests {
+
+    private final HotTrackTier tier = new HotTrackTier(true, 6, 64);
+    // Just ahead of the buffers' creation, so every range below is covered
+    private final long now = LocationFix.toMillis(LocalDateTime.now()) + 60_000;
+
+    private static LocationFix fix(long timestampMillis) {
+        return new LocationFix("S1", 40.5, -74.25, timestampMillis);
+    }
+
+    private List<LocationTrack> range(long fromMillis, long toMillis) {
+        return tier.range("S1", LocationFix.toDateTime(fromMillis), LocationFix.toDateTime(toMillis));
+    }
+
+    @Test
+    void readsKeepMillisecondsAndIds() {
+        tier.append(fix(now + 1_250));
+        tier.stored(fix(now + 1_250), 42L);
+
+        List<LocationTrack> tracks = range(now, now + 10_000);
+
+        assertThat(tracks).hasSize(1);
+        assertThat(tracks.get(0).getId()).isEqualTo(42L);
+        assertThat(tracks.get(0).getTimestamp()).isEqualTo(LocationFix.toDateTime(now + 1_250));
+        assertThat(tracks.get(0).getLatitude()).isEqualTo(40.5);
+        assertThat(tier.latest("S1").getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void fixesNotStoredYetAreLeftToTheDatabase() {
+        tier.append(fix(now + 1_000));
+        tier.stored(fix(now + 1_000), 1L);
+        tier.append(fix(now + 2_000));
+
+        assertThat(range(now, now + 10_000)).isNull();
+        assertThat(tier.latest("S1")).isNull();
+        assertThat(range(now, now + 1_500)).hasSize(1);
+    }
+
+    @Test
+    void storeReportBeforeAppendKeepsOneFix() {
+        tier.stored(fix(now + 1_000), 7L);
+        tier.append(fix(now + 1_000));
+
+        List<LocationTrack> tracks = range(now, now + 10_000);
+
+        assertThat(tracks).hasSize(1);
+        assertThat(tracks.get(0).getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void enginesWithoutIdsStillServeReads() {
+        tier.append(fix(now + 1_000));
+        tier.stored(fix(now + 1_000), null);
+
+        List<LocationTrack> tracks = range(now, now + 10_000);
+
+        assertThat(tracks).hasSize(1);
+        assertThat(tracks.get(0).getId()).isNull();
+    }
+
+    @Test
+    void importEndsCoverageUpToNewestImportedFix() {
+        tier.stored(fix(now + 1_000), 1L);
+        tier.stored(fix(now + 5_000), 2L);
+
+        tier.imported("S1", now + 3_000);
+
+        assertThat(range(now, now + 10_000)).isNull();
+        assertThat(range(now + 3_001, now + 10_000)).hasSize(1);
+        assertThat(tier.latest("S1").getId()).isEqualTo(2L);
+
+        tier.imported("S1", now + 8_000);
+
+        assertThat(tier.latest("S1")).isNull();
+    }
+
+    @Test
+    void dwellsRecordedByTheStoreAreServed() {
+        tier.stored(fix(now + 1_000), 1L);
+        tier.stored(fix(now + 2_000), 2L);
+
+        tier.recordDwell("S1", now + 1_000, 90_000);
+        // Like the store, a later report never shortens it
+        tier.recordDwell("S1", now + 1_000, 30_000);
+        tier.recordDwell("S1", now + 2_000, 15_000);
+
+        List<LocationTrack> tracks = range(now, now + 10_000);
+
+        assertThat(tracks).hasSize(2);
+        assertThat(tracks.get(0).getDwellMillis()).isEqualTo(90_000L);
+        assertThat(tracks.get(1).getDwellMillis()).isEqualTo(15_000L);
+        assertThat(tier.latest("S1").getDwellMillis()).isEqualTo(15_000L);
+    }
+
+    @Test
+    void dwellsFollowTheirFixThroughLateInsertsAndGrowth() {
+        tier.stored(fix(now + 10_000), 1L);
+        tier.recordDwell("S1", now + 10_000, 60_000);
+
+        // A late fix shifts the stop into the next slot, then the buffer grows past its initial capacity
+        tier.stored(fix(now + 5_000), 2L);
+        for (int i = 1; i <= SurveyorTrackBuffer.INITIAL_CAPACITY; i++) {
+            tier.stored(fix(now + 10_000 + i * 1_000L), 2L + i);
+        }
+        // The same fix stored again keeps its dwell
+        tier.stored(fix(now + 10_000), 1L);
+
+        List<LocationTrack> tracks = range(now, now + 10_000);
+
+        assertThat(tracks).hasSize(2);
+        assertThat(tracks.get(0).getDwellMillis()).isEqualTo(0L);
+        assertThat(tracks.get(1).getDwellMillis()).isEqualTo(60_000L);
+    }
+
+    @Test
+    void dwellForAFixNotHeldIsIgnored() {
+        tier.stored(fix(now + 1_000), 1L);
+
+        tier.recordDwell("S1", now + 1_500, 60_000);
+        tier.recordDwell("S2", now + 1_000, 60_000);
+
+        assertThat(range(now, now + 10_000).get(0).getDwellMillis()).isEqualTo(0L);
+        assertThat(tier.range("S2", LocationFix.toDateTime(now), LocationFix.toDateTime(now + 10_000))).isNull();
+    }
+
+    @Test
+    void fixesFarFromTheBufferStartKeepTheirTimestamp() {
+        // Device clocks can be weeks off; timestamps must not wrap
+        long later = now + 40L * 24 * 3_600_000;
+        tier.stored(fix(now + 1_000), 1L);
+        tier.stored(fix(later), 2L);
+
+        List<LocationTrack> tracks = range(later - 1_000, later);
+
+        assertThat(tracks).hasSize(1);
+        assertThat(tracks.get(0).getTimestamp()).isEqualTo(LocationFix.toDateTime(later));
+        assertThat(range(now, later)).isNull();
+    }
+}
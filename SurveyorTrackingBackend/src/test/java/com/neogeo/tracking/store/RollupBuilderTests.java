@@ -0,0 +1,217 @@
+package com.neogeo.tracking.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.archive.TrackArchive;
+import com.neogeo.tracking.model.RollupCheckpoint;
+import com.neogeo.tracking.repository.RollupCheckpointRepository;
+import com.neogeo.tracking.repository.TrackRollupRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RollupBuilderTests {
+
+    // What the stubbed database holds and what the builder asked of it
+    private long maxTrackId;
+    private int serverVersion = 160000;
+    private boolean failing;
+    private final List<String> rolledUp = new ArrayList<>();
+    private RollupCheckpoint stored;
+    private int checkpointSaves;
+    private final CountDownLatch backfilled = new CountDownLatch(1);
+
+    private RollupBuilder builder;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (builder != null) {
+            builder.stop();
+        }
+    }
+
+    private RollupBuilder builder(long overlapRows, long chunkRows) {
+        builder = new RollupBuilder(rollups(), checkpoints(), new InlineTransactionTemplate(),
+                new StaticListableBeanFactory().getBeanProvider(TrackArchive.class),
+                overlapRows, chunkRows, 2, new SimpleMeterRegistry());
+        return builder;
+    }
+
+    private void checkpointAt(long lastId) {
+        stored = new RollupCheckpoint("location_track", lastId);
+        stored.setBackfilled(true);
+    }
+
+    @Test
+    void firstStartCheckpointsTheEndOfTheTrackAndBackfillsUpToIt() throws InterruptedException {
+        maxTrackId = 250;
+        RollupBuilder builder = builder(1000, 100);
+
+        builder.start();
+
+        assertThat(backfilled.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(stored.getLastId()).isEqualTo(250);
+        assertThat(stored.getBackfillTo()).isEqualTo(250);
+        assertThat(rolledUp).containsExactlyInAnyOrder(
+                "60:0-100", "600:0-100", "60:100-200", "600:100-200", "60:200-250", "600:200-250");
+    }
+
+    @Test
+    void finishedBackfillIsNotRepeated() {
+        checkpointAt(500);
+        maxTrackId = 500;
+
+        builder(1000, 100).start();
+
+        assertThat(rolledUp).isEmpty();
+        assertThat(checkpointSaves).isZero();
+    }
+
+    @Test
+    void newRowsAreRereadFromTheOverlapInChunks() {
+        checkpointAt(1000);
+        RollupBuilder builder = builder(100, 250);
+        builder.start();
+
+        maxTrackId = 1400;
+        builder.rollUpNew();
+
+        assertThat(rolledUp).containsExactly("60:900-1150", "600:900-1150", "60:1150-1400", "600:1150-1400");
+        assertThat(stored.getLastId()).isEqualTo(1400);
+        assertThat(checkpointSaves).isEqualTo(1);
+    }
+
+    @Test
+    void overlapNeverReachesBelowTheFirstId() {
+        checkpointAt(40);
+        RollupBuilder builder = builder(100, 1000);
+        builder.start();
+
+        maxTrackId = 90;
+        builder.rollUpNew();
+
+        assertThat(rolledUp).containsExactly("60:0-90", "600:0-90");
+    }
+
+    @Test
+    void nothingNewLeavesTheCheckpointAlone() {
+        checkpointAt(1000);
+        RollupBuilder builder = builder(100, 250);
+        builder.start();
+
+        maxTrackId = 1000;
+        builder.rollUpNew();
+
+        assertThat(rolledUp).isEmpty();
+        assertThat(checkpointSaves).isZero();
+    }
+
+    @Test
+    void failedRunIsRetriedFromTheSameCheckpoint() {
+        checkpointAt(1000);
+        RollupBuilder builder = builder(100, 1000);
+        builder.start();
+
+        maxTrackId = 1200;
+        failing = true;
+        builder.rollUpNew();
+        assertThat(stored.getLastId()).isEqualTo(1000);
+        assertThat(checkpointSaves).isZero();
+
+        failing = false;
+        builder.rollUpNew();
+        assertThat(rolledUp).containsExactly("60:900-1200", "600:900-1200");
+        assertThat(stored.getLastId()).isEqualTo(1200);
+    }
+
+    @Test
+    void serversWithoutDateBinLeaveRollupsOff() {
+        serverVersion = 130011;
+        maxTrackId = 250;
+        RollupBuilder builder = builder(100, 100);
+
+        builder.start();
+        builder.rollUpNew();
+
+        assertThat(stored).isNull();
+        assertThat(rolledUp).isEmpty();
+    }
+
+    @Test
+    void bucketStartMatchesDateBin() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 5, 10, 17, 42, 500_000_000);
+
+        assertThat(RollupBuilder.bucketStart(time, 60)).isEqualTo(LocalDateTime.of(2024, 3, 5, 10, 17));
+        assertThat(RollupBuilder.bucketStart(time, 600)).isEqualTo(LocalDateTime.of(2024, 3, 5, 10, 10));
+        assertThat(RollupBuilder.bucketStart(LocalDateTime.of(2024, 3, 5, 10, 10), 600))
+                .isEqualTo(LocalDateTime.of(2024, 3, 5, 10, 10));
+        // Before the origin, buckets still start on the grid rather than rounding towards it
+        assertThat(RollupBuilder.bucketStart(LocalDateTime.of(1999, 12, 31, 23, 59, 30), 600))
+                .isEqualTo(LocalDateTime.of(1999, 12, 31, 23, 50));
+    }
+
+    private TrackRollupRepository rollups() {
+        return (TrackRollupRepository) Proxy.newProxyInstance(TrackRollupRepository.class.getClassLoader(),
+                new Class<?>[] {TrackRollupRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "maxTrackId":
+                            return maxTrackId;
+                        case "serverVersionNum":
+                            return serverVersion;
+                        case "rollUp":
+                            if (failing) {
+                                throw new DataAccessResourceFailureException("connection refused");
+                            }
+                            synchronized (rolledUp) {
+                                rolledUp.add(args[0] + ":" + args[1] + "-" + args[2]);
+                            }
+                            return 0;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private RollupCheckpointRepository checkpoints() {
+        return (RollupCheckpointRepository) Proxy.newProxyInstance(
+                RollupCheckpointRepository.class.getClassLoader(),
+                new Class<?>[] {RollupCheckpointRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById":
+                            return Optional.ofNullable(stored);
+                        case "save":
+                            stored = (RollupCheckpoint) args[0];
+                            checkpointSaves++;
+                            if (stored.isBackfilled()) {
+                                backfilled.countDown();
+                            }
+                            return stored;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    // Runs the callback on the calling thread, as if in a transaction
+    private static final class InlineTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(new SimpleTransactionStatus());
+        }
+    }
+}
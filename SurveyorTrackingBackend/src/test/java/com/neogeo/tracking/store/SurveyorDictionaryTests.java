@@ -0,0 +1,70 @@
+package com.neogeo.tracking.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SurveyorDictionaryTests {
+
+    private final SurveyorDictionary dictionary = new SurveyorDictionary();
+
+    @Test
+    void assignsDenseCodesInFirstSeenOrder() {
+        assertThat(dictionary.encode("S1")).isEqualTo(0);
+        assertThat(dictionary.encode("S2")).isEqualTo(1);
+        assertThat(dictionary.encode("S1")).isEqualTo(0);
+        assertThat(dictionary.encode("S3")).isEqualTo(2);
+
+        assertThat(dictionary.size()).isEqualTo(3);
+        assertThat(dictionary.decode(1)).isEqualTo("S2");
+    }
+
+    @Test
+    void lookupDoesNotAssignCodes() {
+        dictionary.encode("S1");
+
+        assertThat(dictionary.lookup("S1")).isEqualTo(0);
+        assertThat(dictionary.lookup("S2")).isEqualTo(-1);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentEncodersAgreeOnCodes() throws InterruptedException {
+        int threads = 4;
+        int ids = 500;
+        int[][] codes = new int[threads][ids];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < ids; i++) {
+                    // Each thread walks the IDs from a different starting point
+                    int id = (i + worker * 125) % ids;
+                    codes[worker][id] = dictionary.encode("S" + id);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertThat(dictionary.size()).isEqualTo(ids);
+        Set<Integer> distinct = new HashSet<>();
+        for (int id = 0; id < ids; id++) {
+            for (int t = 1; t < threads; t++) {
+                assertThat(codes[t][id]).isEqualTo(codes[0][id]);
+            }
+            distinct.add(codes[0][id]);
+            assertThat(dictionary.decode(codes[0][id])).isEqualTo("S" + id);
+        }
+        assertThat(distinct).hasSize(ids);
+    }
+}